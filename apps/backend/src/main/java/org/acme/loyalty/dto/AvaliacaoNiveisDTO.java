@@ -0,0 +1,30 @@
+package org.acme.loyalty.dto;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+/**
+ * Resultado de uma avaliação de níveis de fidelidade.
+ */
+@Schema(name = "AvaliacaoNiveis", description = "Resultado da avaliação (incremental ou completa) dos níveis de fidelidade")
+public class AvaliacaoNiveisDTO {
+
+    @Schema(description = "Avaliação completa (todos os usuários com gasto) ou só os alterados e com janela vencida", example = "false")
+    public boolean completa;
+
+    @Schema(description = "Último mês (yyyyMM) da janela de 12 meses avaliada", example = "202406")
+    public int anoMesRef;
+
+    @Schema(description = "Usuários reavaliados", example = "1200")
+    public int usuariosAvaliados;
+
+    @Schema(description = "Usuários que mudaram de nível", example = "35")
+    public int niveisAlterados;
+
+    @Schema(description = "Baldes mensais anteriores à janela removidos", example = "800")
+    public int baldesExpurgados;
+
+    @Schema(description = "Duração total em milissegundos", example = "420")
+    public long duracaoMs;
+
+    public AvaliacaoNiveisDTO() {}
+}
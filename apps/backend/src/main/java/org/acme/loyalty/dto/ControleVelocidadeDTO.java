@@ -0,0 +1,52 @@
+package org.acme.loyalty.dto;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Situação do controle de velocidade por cartão neste nó.
+ */
+@Schema(name = "ControleVelocidade", description = "Limites de velocidade por cartão e ocupação do rastreador deste nó")
+public class ControleVelocidadeDTO {
+
+    @Schema(description = "Controle habilitado", example = "true")
+    public boolean habilitado;
+
+    @Schema(description = "Ação ao exceder um limite (RETER ou SINALIZAR)", example = "RETER")
+    public String acao;
+
+    @Schema(description = "Cartões rastreados simultaneamente (capacidade fixa)", example = "131072")
+    public int capacidade;
+
+    @Schema(description = "Cartões com transações nas últimas 24 h neste nó", example = "5230")
+    public int cartoesAtivos;
+
+    @Schema(description = "Transações retidas aguardando liberação (todos os nós)", example = "3")
+    public long transacoesRetidas;
+
+    @Schema(description = "Limites por janela")
+    public List<Janela> janelas = new ArrayList<>();
+
+    @Schema(name = "JanelaVelocidade", description = "Limites de uma janela deslizante (0 = sem limite)")
+    public static class Janela {
+        @Schema(example = "1m")
+        public String nome;
+        @Schema(description = "Máximo de transações na janela", example = "20")
+        public long maxTransacoes;
+        @Schema(description = "Valor máximo na janela (moeda da transação)", example = "5000.00")
+        public BigDecimal maxValor;
+
+        public Janela() {}
+
+        public Janela(String nome, long maxTransacoes, BigDecimal maxValor) {
+            this.nome = nome;
+            this.maxTransacoes = maxTransacoes;
+            this.maxValor = maxValor;
+        }
+    }
+
+    public ControleVelocidadeDTO() {}
+}
@@ -0,0 +1,82 @@
+package org.acme.loyalty.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+/**
+ * Cotação de pontos para uma compra ainda não autorizada (mesmo cálculo de PontuacaoService).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(name = "CotacaoPontos", description = "Pontos que uma compra geraria, com bônus de campanha e teto mensal restante")
+public class CotacaoPontosDTO {
+
+    @Schema(description = "Valor da compra", example = "150.00")
+    public BigDecimal valor;
+
+    @Schema(description = "Moeda da compra", example = "BRL")
+    public String moeda;
+
+    @Schema(description = "Valor convertido para BRL pela taxa vigente (ausente se a compra já é em BRL)", example = "814.81")
+    public BigDecimal valorBrl;
+
+    @Schema(description = "MCC informado", example = "5812")
+    public String mcc;
+
+    @Schema(description = "Categoria informada", example = "RESTAURANTE")
+    public String categoria;
+
+    @Schema(description = "Parceiro informado", example = "12345")
+    public Long parceiroId;
+
+    @Schema(description = "ID da regra de conversão aplicada (ausente se nenhuma regra cobre a compra)", example = "7")
+    public Long regraId;
+
+    @Schema(description = "Nome da regra aplicada", example = "2 pontos por BRL em Restaurantes")
+    public String regraNome;
+
+    @Schema(description = "Multiplicador da regra aplicada", example = "2.0000")
+    public BigDecimal multiplicador;
+
+    @Schema(description = "floor(valor em BRL * multiplicador), antes do teto mensal", example = "300")
+    public long pontosBase;
+
+    @Schema(description = "Teto mensal da regra (ausente se ilimitada)", example = "5000")
+    public Long tetoMensal;
+
+    @Schema(description = "Pontos já acumulados no mês pela regra para o usuário/cartão", example = "4800")
+    public Long acumuladoNoMes;
+
+    @Schema(description = "Teto mensal restante antes desta compra (ausente se ilimitada)", example = "200")
+    public Long tetoRestante;
+
+    @Schema(description = "Pontos base após aplicar o teto mensal", example = "200")
+    public long pontosBaseAplicados;
+
+    @Schema(description = "ID da campanha de bônus aplicada (ausente se nenhuma vigente)", example = "3")
+    public Long campanhaId;
+
+    @Schema(description = "Nome da campanha aplicada", example = "Bônus Restaurantes Setembro")
+    public String campanhaNome;
+
+    @Schema(description = "Multiplicador extra da campanha aplicada", example = "0.5000")
+    public BigDecimal multiplicadorExtra;
+
+    @Schema(description = "Nível de fidelidade do usuário (ausente no nível base ou sem usuário)", example = "OURO")
+    public String nivel;
+
+    @Schema(description = "Bônus do nível de fidelidade sobre os pontos base", example = "50")
+    public long pontosNivel;
+
+    @Schema(description = "Pontos que a compra geraria", example = "300")
+    public long pontosTotais;
+
+    @Schema(description = "Versão do snapshot de regras usado", example = "12")
+    public long versaoRegras;
+
+    @Schema(description = "Versão do calendário de campanhas usado", example = "4")
+    public long versaoCampanhas;
+
+    public CotacaoPontosDTO() {}
+}
@@ -1,5 +1,7 @@
 package org.acme.loyalty.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -16,6 +18,9 @@ public class ExtratoPontosDTO {
     public Integer totalPaginas;
     public Long saldoInicial;
     public Long saldoFinal;
+    /** Cursor opaco da próxima página (ver {@link PageResponseDTO.Cursor}); null na última página. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String proximoCursor;
     
     // Construtores
     public ExtratoPontosDTO() {}
@@ -42,6 +47,12 @@ public class ExtratoPontosDTO {
         return (int) Math.ceil((double) totalRegistros / tamanhoPagina);
     }
     
+    /** Total pedido explicitamente pelo cliente (COUNT à parte); sem ele, totalRegistros e totalPaginas ficam nulos. */
+    public void definirTotal(long totalRegistros) {
+        this.totalRegistros = totalRegistros;
+        this.totalPaginas = calcularTotalPaginas();
+    }
+    
     public void calcularSaldos(Long saldoInicial) {
         this.saldoInicial = saldoInicial;
         this.saldoFinal = saldoInicial;
@@ -0,0 +1,33 @@
+package org.acme.loyalty.dto;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+/**
+ * Nível de fidelidade definido na configuração e quantos usuários estão nele.
+ */
+@Schema(name = "NivelFidelidade", description = "Nível de fidelidade por gasto dos últimos 12 meses")
+public class NivelFidelidadeDTO {
+
+    @Schema(description = "Nome do nível (vazio = nível base)", example = "OURO")
+    public String nome;
+
+    @Schema(description = "Gasto mínimo em BRL nos últimos 12 meses", example = "50000.00")
+    public BigDecimal gastoMinimo;
+
+    @Schema(description = "Bônus sobre os pontos base (floor(pontos_base * multiplicador))", example = "0.2500")
+    public BigDecimal multiplicadorExtra;
+
+    @Schema(description = "Usuários avaliados neste nível", example = "1520")
+    public long usuarios;
+
+    public NivelFidelidadeDTO() {}
+
+    public NivelFidelidadeDTO(String nome, BigDecimal gastoMinimo, BigDecimal multiplicadorExtra, long usuarios) {
+        this.nome = nome;
+        this.gastoMinimo = gastoMinimo;
+        this.multiplicadorExtra = multiplicadorExtra;
+        this.usuarios = usuarios;
+    }
+}
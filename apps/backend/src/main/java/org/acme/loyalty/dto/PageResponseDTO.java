@@ -1,5 +1,11 @@
 package org.acme.loyalty.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 
 public class PageResponseDTO<T> {
@@ -11,6 +17,9 @@ public class PageResponseDTO<T> {
     public Integer number;
     public Boolean first;
     public Boolean last;
+    /** Cursor opaco da próxima página (paginação por chave); null na última página. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String nextCursor;
     
     // Construtores
     public PageResponseDTO() {}
@@ -37,6 +46,41 @@ public class PageResponseDTO<T> {
         return new PageResponseDTO<>(content, totalElements, size, number);
     }
     
+    /**
+     * Página por chave (cursor): sem total nem número de página, que exigiriam COUNT e OFFSET.
+     * @param first página pedida sem cursor (número 0)
+     */
+    public static <T> PageResponseDTO<T> ofCursor(List<T> content, Integer size, boolean first, String nextCursor) {
+        PageResponseDTO<T> page = new PageResponseDTO<>();
+        page.content = content;
+        page.size = size;
+        page.number = first ? 0 : null;
+        page.first = first;
+        page.last = (nextCursor == null);
+        page.nextCursor = nextCursor;
+        return page;
+    }
+    
+    /**
+     * Página por número sem total (sem COUNT); {@code temMais} vem de uma linha a mais lida.
+     */
+    public static <T> PageResponseDTO<T> ofPage(List<T> content, Integer size, Integer number, boolean temMais) {
+        PageResponseDTO<T> page = new PageResponseDTO<>();
+        page.content = content;
+        page.size = size;
+        page.number = number;
+        page.first = (number == 0);
+        page.last = !temMais;
+        return page;
+    }
+    
+    /** Total pedido explicitamente pelo cliente (COUNT à parte). */
+    public PageResponseDTO<T> withTotal(long totalElements) {
+        this.totalElements = totalElements;
+        this.totalPages = calculateTotalPages();
+        return this;
+    }
+    
     public Boolean hasNext() {
         return !last;
     }
@@ -44,4 +88,39 @@ public class PageResponseDTO<T> {
     public Boolean hasPrevious() {
         return !first;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Posição na ordenação (instante desc, id desc) da última linha entregue. Codificada em Base64 URL-safe,
+     * o cliente só devolve o valor recebido; cursor adulterado ou de outra versão é rejeitado (400).
+     */
+    public static final class Cursor {
+        private static final String VERSAO = "v1";
+        
+        public final LocalDateTime instante;
+        public final Long id;
+        
+        public Cursor(LocalDateTime instante, Long id) {
+            this.instante = instante;
+            this.id = id;
+        }
+        
+        public String encode() {
+            String bruto = VERSAO + "|" + instante + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bruto.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        /** null ou em branco = primeira página. */
+        public static Cursor decode(String cursor) {
+            if (cursor == null || cursor.isBlank()) return null;
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8).split("\\|");
+                if (partes.length != 3 || !VERSAO.equals(partes[0])) {
+                    throw new IllegalArgumentException("Cursor inválido");
+                }
+                return new Cursor(LocalDateTime.parse(partes[1]), Long.valueOf(partes[2]));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Cursor inválido", e);
+            }
+        }
+    }
+}
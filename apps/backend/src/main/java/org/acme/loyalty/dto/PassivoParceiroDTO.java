@@ -0,0 +1,50 @@
+package org.acme.loyalty.dto;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Passivo de pontos de um parceiro no período: totais e linhas diárias.
+ */
+@Schema(name = "PassivoParceiro", description = "Pontos gerados em transações do parceiro menos pontos resgatados em recompensas do parceiro")
+public class PassivoParceiroDTO {
+
+    @Schema(description = "ID do parceiro", example = "101")
+    public Long parceiroId;
+
+    @Schema(description = "Primeiro dia do período", example = "2024-06-01")
+    public LocalDate inicio;
+
+    @Schema(description = "Último dia do período (inclusive)", example = "2024-06-30")
+    public LocalDate fim;
+
+    @Schema(description = "Pontos gerados (acúmulos, estornos e ajustes) no período", example = "152300")
+    public long pontosAcumulados;
+
+    @Schema(description = "Pontos resgatados em recompensas do parceiro no período", example = "40100")
+    public long pontosResgatados;
+
+    @Schema(description = "Passivo do período (acumulados - resgatados)", example = "112200")
+    public long passivo;
+
+    @Schema(description = "Dias com movimento (dias sem movimento são omitidos)")
+    public List<Dia> dias = new ArrayList<>();
+
+    @Schema(name = "PassivoParceiroDia", description = "Passivo de um dia")
+    public static class Dia {
+        public LocalDate dia;
+        public long pontosAcumulados;
+        public long pontosResgatados;
+        @Schema(description = "acumulados - resgatados no dia")
+        public long passivo;
+        @Schema(description = "Passivo acumulado desde o início do período")
+        public long passivoAcumulado;
+
+        public Dia() {}
+    }
+
+    public PassivoParceiroDTO() {}
+}
@@ -0,0 +1,47 @@
+package org.acme.loyalty.dto;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+/**
+ * Resultado da pontuação em lote de transações pendentes.
+ */
+@Schema(name = "ProcessamentoLote", description = "Resultado da pontuação em lote de transações pendentes")
+public class ProcessamentoLoteDTO {
+
+    @Schema(description = "Quantidade de lotes (commits) executados", example = "3")
+    public int lotes;
+
+    @Schema(description = "Transações reivindicadas para processamento", example = "2500")
+    public int transacoesLidas;
+
+    @Schema(description = "Transações que geraram pontos", example = "2400")
+    public int transacoesPontuadas;
+
+    @Schema(description = "Transações sem regra aplicável ou com zero pontos (teto atingido)", example = "90")
+    public int transacoesSemPontos;
+
+    @Schema(description = "Transações que já possuíam movimento ACUMULO (apenas marcadas como processadas)", example = "10")
+    public int transacoesJaPontuadas;
+
+    @Schema(description = "Transações em moeda estrangeira sem taxa de câmbio vigente (permanecem pendentes)", example = "0")
+    public int transacoesSemCambio;
+
+    @Schema(description = "Total de pontos gerados", example = "125000")
+    public long pontosGerados;
+
+    @Schema(description = "Duração total em milissegundos", example = "850")
+    public long duracaoMs;
+
+    public ProcessamentoLoteDTO() {}
+
+    /** Acumula o resultado de um lote neste total. */
+    public void somar(ProcessamentoLoteDTO lote) {
+        this.lotes += lote.lotes;
+        this.transacoesLidas += lote.transacoesLidas;
+        this.transacoesPontuadas += lote.transacoesPontuadas;
+        this.transacoesSemPontos += lote.transacoesSemPontos;
+        this.transacoesJaPontuadas += lote.transacoesJaPontuadas;
+        this.transacoesSemCambio += lote.transacoesSemCambio;
+        this.pontosGerados += lote.pontosGerados;
+    }
+}
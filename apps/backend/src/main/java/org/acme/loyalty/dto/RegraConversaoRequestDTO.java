@@ -55,6 +55,11 @@ public class RegraConversaoRequestDTO {
     @Schema(description = "Identificador do parceiro (opcional). Se vazio, vale para qualquer parceiro", example = "12345")
     public Long parceiroId;
 
+    @Size(max = 500)
+    @Schema(description = "Condição adicional (opcional). Campos: valor, mcc, categoria, parceiro, dia_semana, hora, fim_de_semana",
+            example = "valor > 500 and categoria in ('RESTAURANTE', 'BAR') and fim_de_semana")
+    public String expressao;
+
     @Schema(description = "Teto mensal de pontos acumuláveis pela regra (opcional). Se ausente, ilimitado", example = "50000")
     @Positive
     public Long tetoMensal;
@@ -107,6 +112,7 @@ public class RegraConversaoRequestDTO {
                 this.prioridade,
                 this.tetoMensal
         );
+        r.expressao = (this.expressao == null || this.expressao.isBlank()) ? null : this.expressao.trim();
         // Sobrescreve ativo se veio explicitamente (o construtor já define true)
         r.ativo = Boolean.TRUE.equals(this.ativo);
         return r;
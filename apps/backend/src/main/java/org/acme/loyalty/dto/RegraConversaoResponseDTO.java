@@ -39,6 +39,9 @@ public class RegraConversaoResponseDTO {
     @Schema(description = "Identificador do parceiro (null = qualquer parceiro)", example = "12345")
     public Long parceiroId;
 
+    @Schema(description = "Condição adicional (null = nenhuma)", example = "valor > 500 and fim_de_semana")
+    public String expressao;
+
     @Schema(description = "Prioridade (maior vence em empate)", example = "10")
     public Integer prioridade;
 
@@ -98,6 +101,7 @@ public class RegraConversaoResponseDTO {
         dto.mccRegex = r.mccRegex;
         dto.categoria = r.categoria;
         dto.parceiroId = r.parceiroId;
+        dto.expressao = r.expressao;
         dto.prioridade = r.prioridade;
         dto.tetoMensal = r.tetoMensal;
         dto.ativo = r.ativo;
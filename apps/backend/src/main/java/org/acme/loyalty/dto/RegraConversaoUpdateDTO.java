@@ -40,6 +40,10 @@ public class RegraConversaoUpdateDTO {
     @Schema(description = "Novo identificador de parceiro (null = qualquer)", example = "12345")
     public Long parceiroId;
 
+    @Size(max = 500)
+    @Schema(description = "Nova condição adicional (vazio = remove a condição)", example = "valor > 500 and fim_de_semana")
+    public String expressao;
+
     @Min(0)
     @Schema(description = "Nova prioridade (maior vence em empate)", example = "10")
     public Integer prioridade;
@@ -94,6 +98,7 @@ public class RegraConversaoUpdateDTO {
         if (this.mccRegex != null)        r.mccRegex = this.mccRegex;
         if (this.categoria != null)       r.categoria = this.categoria;
         if (this.parceiroId != null)      r.parceiroId = this.parceiroId;
+        if (this.expressao != null)       r.expressao = this.expressao.isBlank() ? null : this.expressao.trim();
         if (this.prioridade != null)      r.prioridade = this.prioridade;
         if (this.tetoMensal != null)      r.tetoMensal = this.tetoMensal;
         if (this.vigenciaIni != null)     r.vigenciaIni = this.vigenciaIni;
@@ -116,6 +121,7 @@ public class RegraConversaoUpdateDTO {
             || mccRegex != null
             || categoria != null
             || parceiroId != null
+            || expressao != null
             || prioridade != null
             || tetoMensal != null
             || vigenciaIni != null
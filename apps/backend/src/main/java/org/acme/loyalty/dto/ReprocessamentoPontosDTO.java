@@ -0,0 +1,87 @@
+package org.acme.loyalty.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.acme.loyalty.entity.ReprocessamentoPontos;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Situação de um job de reprocessamento retroativo (checkpoint e totais acumulados).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(name = "ReprocessamentoPontos", description = "Situação de um job de reprocessamento retroativo de pontos")
+public class ReprocessamentoPontosDTO {
+
+    @Schema(description = "Identificador do job", example = "correcao-regra-12-2024-03")
+    public String jobId;
+
+    @Schema(description = "Regra corrigida", example = "12")
+    public Long regraId;
+
+    @Schema(description = "Primeiro dia afetado", example = "2024-03-01")
+    public LocalDate dataInicio;
+
+    @Schema(description = "Último dia afetado", example = "2024-03-31")
+    public LocalDate dataFim;
+
+    @Schema(description = "Status do job", example = "EM_ANDAMENTO")
+    public ReprocessamentoPontos.StatusReprocessamento status;
+
+    @Schema(description = "Mês do checkpoint (yyyyMM)", example = "202403")
+    public Integer mesAtual;
+
+    @Schema(description = "Último cartão concluído no mês do checkpoint", example = "1520")
+    public Long ultimoCartaoId;
+
+    @Schema(description = "Lotes (commits) gravados", example = "42")
+    public long lotes;
+
+    @Schema(description = "Transações lidas", example = "41230")
+    public long transacoesLidas;
+
+    @Schema(description = "Transações com AJUSTE gerado", example = "3120")
+    public long transacoesAjustadas;
+
+    @Schema(description = "Pontos creditados", example = "15400")
+    public long pontosCreditados;
+
+    @Schema(description = "Pontos debitados do saldo", example = "2200")
+    public long pontosDebitados;
+
+    @Schema(description = "Débitos não aplicados por falta de saldo", example = "0")
+    public long pontosNaoDebitados;
+
+    @Schema(description = "Último erro (status ERRO)")
+    public String ultimoErro;
+
+    public LocalDateTime criadoEm;
+    public LocalDateTime atualizadoEm;
+    public LocalDateTime concluidoEm;
+
+    public ReprocessamentoPontosDTO() {}
+
+    public static ReprocessamentoPontosDTO fromEntity(ReprocessamentoPontos j) {
+        if (j == null) return null;
+        ReprocessamentoPontosDTO dto = new ReprocessamentoPontosDTO();
+        dto.jobId = j.jobId;
+        dto.regraId = j.regraId;
+        dto.dataInicio = j.dataInicio;
+        dto.dataFim = j.dataFim;
+        dto.status = j.status;
+        dto.mesAtual = j.mesAtual;
+        dto.ultimoCartaoId = j.ultimoCartaoId;
+        dto.lotes = j.lotes;
+        dto.transacoesLidas = j.transacoesLidas;
+        dto.transacoesAjustadas = j.transacoesAjustadas;
+        dto.pontosCreditados = j.pontosCreditados;
+        dto.pontosDebitados = j.pontosDebitados;
+        dto.pontosNaoDebitados = j.pontosNaoDebitados;
+        dto.ultimoErro = j.ultimoErro;
+        dto.criadoEm = j.criadoEm;
+        dto.atualizadoEm = j.atualizadoEm;
+        dto.concluidoEm = j.concluidoEm;
+        return dto;
+    }
+}
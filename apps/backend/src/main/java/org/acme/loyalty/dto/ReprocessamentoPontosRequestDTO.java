@@ -0,0 +1,47 @@
+package org.acme.loyalty.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.constraints.*;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.LocalDate;
+
+/**
+ * Pedido de reprocessamento retroativo das transações de um período após a correção de uma regra.
+ */
+@Schema(name = "ReprocessamentoPontosRequest", description = "Reprocessamento retroativo de pontos após correção de regra")
+public class ReprocessamentoPontosRequestDTO {
+
+    @Size(max = 100)
+    @Schema(description = "Identificador do job (opcional; gerado se ausente). Reenviar o mesmo jobId retoma o job",
+            example = "correcao-regra-12-2024-03")
+    public String jobId;
+
+    @NotNull
+    @Positive
+    @Schema(description = "Regra corrigida", required = true, example = "12")
+    public Long regraId;
+
+    @NotNull
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    @Schema(description = "Primeiro dia afetado (data do evento)", required = true, example = "2024-03-01")
+    public LocalDate dataInicio;
+
+    @NotNull
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    @Schema(description = "Último dia afetado (data do evento)", required = true, example = "2024-03-31")
+    public LocalDate dataFim;
+
+    @Min(1)
+    @Max(10_000)
+    @Schema(description = "Transações lidas por lote (um commit por lote)", example = "1000", defaultValue = "1000")
+    public Integer tamanhoLote = 1000;
+
+    public ReprocessamentoPontosRequestDTO() {}
+
+    @AssertTrue(message = "dataFim deve ser maior ou igual a dataInicio")
+    public boolean isPeriodoValido() {
+        if (dataInicio == null || dataFim == null) return true;
+        return !dataFim.isBefore(dataInicio);
+    }
+}
@@ -0,0 +1,93 @@
+package org.acme.loyalty.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.acme.loyalty.entity.SegmentoUsuario;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Definição e situação da materialização de um segmento de usuários (sem o bitmap).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(name = "SegmentoUsuario", description = "Segmento de usuários e situação do bitmap materializado")
+public class SegmentoUsuarioDTO {
+
+    public enum TipoReconstrucao { COMPLETA, INCREMENTAL, DESCARTADA }
+
+    public Long id;
+
+    @Schema(description = "Nome do segmento", example = "RESTAURANTES")
+    public String nome;
+
+    @Schema(description = "Janela de transações, em dias", example = "90")
+    public Integer janelaDias;
+
+    @Schema(description = "Gasto mínimo na janela", example = "1500.00")
+    public BigDecimal gastoMinimo;
+
+    @Schema(description = "MCCs do mix de gasto", example = "[\"5812\", \"5814\"]")
+    public List<String> mccs;
+
+    @Schema(description = "Fração mínima do gasto nos MCCs", example = "0.3000")
+    public BigDecimal participacaoMccMinima;
+
+    @Schema(description = "Dias mínimos desde o cadastro", example = "180")
+    public Integer antiguidadeMinimaDias;
+
+    public Boolean ativo;
+
+    @Schema(description = "Usuários no segmento (última construção)", example = "48210")
+    public Integer membros;
+
+    @Schema(description = "Tamanho do bitmap comprimido, em bytes", example = "6144")
+    public Integer tamanhoBitmap;
+
+    @Schema(description = "Versão (incrementa a cada construção ou alteração)", example = "17")
+    public Long versao;
+
+    @Schema(description = "Início da janela usada na última construção", example = "2024-01-03")
+    public LocalDate janelaIni;
+
+    public LocalDateTime construidoEm;
+    public LocalDateTime completoEm;
+
+    @Schema(description = "Tipo da reconstrução executada nesta chamada (somente na resposta da reconstrução)")
+    public TipoReconstrucao reconstrucao;
+
+    @Schema(description = "Usuários reavaliados nesta reconstrução", example = "1320")
+    public Long usuariosReavaliados;
+
+    @Schema(description = "Duração da reconstrução, em ms", example = "840")
+    public Long duracaoMs;
+
+    public LocalDateTime criadoEm;
+    public LocalDateTime atualizadoEm;
+
+    public SegmentoUsuarioDTO() {}
+
+    public static SegmentoUsuarioDTO fromEntity(SegmentoUsuario s) {
+        if (s == null) return null;
+        SegmentoUsuarioDTO dto = new SegmentoUsuarioDTO();
+        dto.id = s.id;
+        dto.nome = s.nome;
+        dto.janelaDias = s.janelaDias;
+        dto.gastoMinimo = s.gastoMinimo;
+        dto.mccs = s.mccs != null ? s.listaMccs() : null;
+        dto.participacaoMccMinima = s.participacaoMccMinima;
+        dto.antiguidadeMinimaDias = s.antiguidadeMinimaDias;
+        dto.ativo = s.ativo;
+        dto.membros = s.membros;
+        dto.tamanhoBitmap = s.bitmap != null ? s.bitmap.length : null;
+        dto.versao = s.versao;
+        dto.janelaIni = s.janelaIni;
+        dto.construidoEm = s.construidoEm;
+        dto.completoEm = s.completoEm;
+        dto.criadoEm = s.criadoEm;
+        dto.atualizadoEm = s.atualizadoEm;
+        return dto;
+    }
+}
@@ -0,0 +1,67 @@
+package org.acme.loyalty.dto;
+
+import jakarta.validation.constraints.*;
+import org.acme.loyalty.entity.SegmentoUsuario;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Definição de um segmento de usuários (criação ou substituição completa).
+ * Todos os critérios informados precisam ser atendidos na janela de {@link #janelaDias} dias.
+ */
+@Schema(name = "SegmentoUsuarioRequest", description = "Definição de segmento de usuários para direcionamento de campanhas")
+public class SegmentoUsuarioRequestDTO {
+
+    @NotBlank
+    @Size(max = 60)
+    @Schema(description = "Nome do segmento (o mesmo informado em campanha_bonus.segmento)", required = true, example = "RESTAURANTES")
+    public String nome;
+
+    @Min(1)
+    @Max(730)
+    @Schema(description = "Janela de transações considerada, em dias", example = "90", defaultValue = "90")
+    public Integer janelaDias = 90;
+
+    @DecimalMin("0.01")
+    @Digits(integer = 10, fraction = 2)
+    @Schema(description = "Gasto mínimo (transações aprovadas) na janela", example = "1500.00")
+    public BigDecimal gastoMinimo;
+
+    @Size(max = 40)
+    @Schema(description = "MCCs considerados no mix de gasto", example = "[\"5812\", \"5814\"]")
+    public List<@Pattern(regexp = "\\d{4}", message = "MCC deve ter 4 dígitos") String> mccs;
+
+    @DecimalMin("0.0001")
+    @DecimalMax("1.0000")
+    @Digits(integer = 1, fraction = 4)
+    @Schema(description = "Fração mínima do gasto nos MCCs listados (0 a 1)", example = "0.3000")
+    public BigDecimal participacaoMccMinima;
+
+    @Min(1)
+    @Schema(description = "Dias mínimos desde o cadastro do usuário", example = "180")
+    public Integer antiguidadeMinimaDias;
+
+    @Schema(description = "Segmento ativo (inativo não é reconstruído nem usado na pontuação)", defaultValue = "true")
+    public Boolean ativo = Boolean.TRUE;
+
+    public SegmentoUsuarioRequestDTO() {}
+
+    public SegmentoUsuario toEntity() {
+        SegmentoUsuario s = new SegmentoUsuario();
+        applyToEntity(s);
+        return s;
+    }
+
+    /** Substitui a definição da entidade pelos valores deste pedido. */
+    public void applyToEntity(SegmentoUsuario s) {
+        s.nome = nome != null ? nome.trim() : null;
+        s.janelaDias = janelaDias != null ? janelaDias : 90;
+        s.gastoMinimo = gastoMinimo;
+        s.mccs = (mccs == null || mccs.isEmpty()) ? null : String.join(",", mccs);
+        s.participacaoMccMinima = participacaoMccMinima;
+        s.antiguidadeMinimaDias = antiguidadeMinimaDias;
+        s.ativo = ativo != null ? ativo : Boolean.TRUE;
+    }
+}
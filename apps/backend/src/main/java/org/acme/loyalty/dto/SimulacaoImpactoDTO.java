@@ -0,0 +1,84 @@
+package org.acme.loyalty.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado da simulação de impacto: pontos do cenário atual x cenário proposto sobre o histórico.
+ */
+@Schema(name = "SimulacaoImpacto", description = "Impacto em pontos de regras/campanhas propostas sobre o histórico de transações")
+public class SimulacaoImpactoDTO {
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @Schema(description = "Início do período simulado", example = "2025-06-01T00:00:00")
+    public LocalDateTime inicio;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @Schema(description = "Fim (exclusivo) do período simulado", example = "2025-09-01T00:00:00")
+    public LocalDateTime fim;
+
+    @Schema(description = "Partições (mês x grupo de cartões) processadas em paralelo", example = "12")
+    public int particoes;
+
+    @Schema(description = "Transações APROVADAS lidas", example = "1500000")
+    public long transacoesLidas;
+
+    @Schema(description = "Transações cuja pontuação muda no cenário proposto", example = "320000")
+    public long transacoesAfetadas;
+
+    @Schema(description = "Pontos com as regras e campanhas atuais", example = "9800000")
+    public long pontosAtuais;
+
+    @Schema(description = "Pontos com as regras e campanhas propostas", example = "10450000")
+    public long pontosSimulados;
+
+    @Schema(description = "pontosSimulados - pontosAtuais", example = "650000")
+    public long delta;
+
+    @Schema(description = "Impacto por categoria da transação")
+    public List<ItemImpacto> porCategoria = new ArrayList<>();
+
+    @Schema(description = "Impacto por MCC")
+    public List<ItemImpacto> porMcc = new ArrayList<>();
+
+    @Schema(description = "Impacto por parceiro")
+    public List<ItemImpacto> porParceiro = new ArrayList<>();
+
+    @Schema(description = "Duração total em milissegundos", example = "45000")
+    public long duracaoMs;
+
+    public SimulacaoImpactoDTO() {}
+
+    @Schema(name = "ItemImpacto", description = "Impacto agregado de um agrupamento (categoria, MCC ou parceiro)")
+    public static class ItemImpacto {
+
+        @Schema(description = "Valor do agrupamento (null = transações sem o atributo)", example = "RESTAURANTE")
+        public String chave;
+
+        @Schema(description = "Transações do agrupamento", example = "12000")
+        public long transacoes;
+
+        @Schema(description = "Pontos com as regras e campanhas atuais", example = "150000")
+        public long pontosAtuais;
+
+        @Schema(description = "Pontos com as regras e campanhas propostas", example = "180000")
+        public long pontosSimulados;
+
+        @Schema(description = "pontosSimulados - pontosAtuais", example = "30000")
+        public long delta;
+
+        public ItemImpacto() {}
+
+        public ItemImpacto(String chave, long transacoes, long pontosAtuais, long pontosSimulados) {
+            this.chave = chave;
+            this.transacoes = transacoes;
+            this.pontosAtuais = pontosAtuais;
+            this.pontosSimulados = pontosSimulados;
+            this.delta = pontosSimulados - pontosAtuais;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.acme.loyalty.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Proposta de regras/campanhas a simular sobre o histórico de transações.
+ * O cenário simulado parte das regras ativas e campanhas atuais, remove as informadas e acrescenta as novas.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(name = "SimulacaoImpactoRequest", description = "Proposta de regras de conversão e campanhas de bônus a simular")
+public class SimulacaoImpactoRequestDTO {
+
+    @Min(1)
+    @Max(24)
+    @Schema(description = "Meses de histórico (inclui o mês corrente)", example = "3", defaultValue = "3")
+    public Integer meses = 3;
+
+    @Valid
+    @Schema(description = "Novas regras de conversão propostas")
+    public List<RegraConversaoRequestDTO> regras = new ArrayList<>();
+
+    @Schema(description = "IDs de regras atuais retiradas no cenário simulado", example = "[1, 2]")
+    public List<Long> regrasRemovidas = new ArrayList<>();
+
+    @Valid
+    @Schema(description = "Novas campanhas de bônus propostas")
+    public List<CampanhaBonusRequestDTO> campanhas = new ArrayList<>();
+
+    @Schema(description = "IDs de campanhas atuais retiradas no cenário simulado", example = "[3]")
+    public List<Long> campanhasRemovidas = new ArrayList<>();
+
+    @Min(1)
+    @Max(1000)
+    @Schema(description = "Máximo de itens por agrupamento (maior |delta| primeiro)", example = "50", defaultValue = "50")
+    public Integer limiteItens = 50;
+
+    public SimulacaoImpactoRequestDTO() {}
+
+    /** Garante defaults sem sobrescrever valores já definidos. */
+    public void ensureDefaults() {
+        if (meses == null) meses = 3;
+        if (limiteItens == null) limiteItens = 50;
+        if (regras == null) regras = new ArrayList<>();
+        if (regrasRemovidas == null) regrasRemovidas = new ArrayList<>();
+        if (campanhas == null) campanhas = new ArrayList<>();
+        if (campanhasRemovidas == null) campanhasRemovidas = new ArrayList<>();
+    }
+}
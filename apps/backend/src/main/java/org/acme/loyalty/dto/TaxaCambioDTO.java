@@ -0,0 +1,49 @@
+package org.acme.loyalty.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.acme.loyalty.entity.TaxaCambio;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Vigência de taxa de câmbio.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(name = "TaxaCambio", description = "Taxa de câmbio vigente a partir de uma data")
+public class TaxaCambioDTO {
+
+    public Long id;
+
+    @Schema(description = "Moeda de origem", example = "USD")
+    public String moedaOrigem;
+
+    @Schema(description = "Moeda de destino", example = "BRL")
+    public String moedaDestino;
+
+    @Schema(description = "Valor de 1 unidade da moeda de origem na moeda de destino", example = "5.43210000")
+    public BigDecimal taxa;
+
+    @Schema(description = "Início da vigência", example = "2024-06-01T00:00:00")
+    public LocalDateTime vigenteDesde;
+
+    @Schema(description = "Origem da cotação", example = "PTAX")
+    public String fonte;
+
+    public LocalDateTime criadoEm;
+
+    public TaxaCambioDTO() {}
+
+    public static TaxaCambioDTO fromEntity(TaxaCambio t) {
+        TaxaCambioDTO dto = new TaxaCambioDTO();
+        dto.id = t.id;
+        dto.moedaOrigem = t.moedaOrigem;
+        dto.moedaDestino = t.moedaDestino;
+        dto.taxa = t.taxa;
+        dto.vigenteDesde = t.vigenteDesde;
+        dto.fonte = t.fonte;
+        dto.criadoEm = t.criadoEm;
+        return dto;
+    }
+}
@@ -0,0 +1,45 @@
+package org.acme.loyalty.dto;
+
+import jakarta.validation.constraints.*;
+import org.acme.loyalty.entity.TaxaCambio;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Nova vigência de taxa de câmbio (1 moedaOrigem = taxa BRL a partir de vigenteDesde).
+ */
+@Schema(name = "TaxaCambioRequest", description = "Cadastro de taxa de câmbio para conversão em BRL")
+public class TaxaCambioRequestDTO {
+
+    @NotBlank
+    @Pattern(regexp = "^[A-Za-z]{3}$", message = "moedaOrigem deve ser ISO-4217 em 3 letras (ex.: USD)")
+    @Schema(description = "Moeda da transação", required = true, example = "USD")
+    public String moedaOrigem;
+
+    @NotNull
+    @DecimalMin(value = "0.00000001")
+    @Digits(integer = 10, fraction = 8)
+    @Schema(description = "Valor de 1 unidade da moeda de origem em BRL", required = true, example = "5.43210000")
+    public BigDecimal taxa;
+
+    @Schema(description = "Início da vigência (padrão: agora)", example = "2024-06-01T00:00:00")
+    public LocalDateTime vigenteDesde;
+
+    @Size(max = 60)
+    @Schema(description = "Origem da cotação", example = "PTAX")
+    public String fonte;
+
+    public TaxaCambioRequestDTO() {}
+
+    public TaxaCambio toEntity() {
+        TaxaCambio t = new TaxaCambio();
+        t.moedaOrigem = moedaOrigem != null ? moedaOrigem.trim().toUpperCase() : null;
+        t.moedaDestino = TaxaCambio.MOEDA_BASE;
+        t.taxa = taxa;
+        t.vigenteDesde = vigenteDesde;
+        t.fonte = fonte;
+        return t;
+    }
+}
@@ -0,0 +1,47 @@
+package org.acme.loyalty.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+/**
+ * Resultado de uma linha da carga de transações em lote (NDJSON): uma linha de resposta por linha recebida,
+ * na mesma ordem.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(name = "TransacaoLoteResultado", description = "Resultado de uma linha da carga de transações em lote")
+public class TransacaoLoteResultadoDTO {
+
+    public enum Status {
+        /** Transação gravada e enfileirada para pontuação. */
+        CRIADA,
+        /** Transação gravada, mas retida na fila pelo controle de velocidade do cartão. */
+        RETIDA,
+        /** Chave natural já existente (no banco ou em linha anterior da carga): devolve o id existente. */
+        DUPLICADA,
+        /** Linha inválida (JSON, validação ou cartão/usuário). */
+        REJEITADA,
+        /** Falha ao gravar o bloco da linha; pode ser reenviada. */
+        ERRO
+    }
+
+    @Schema(description = "Número da linha na carga (a partir de 1)", example = "1")
+    public long linha;
+
+    @Schema(description = "Resultado da linha", example = "CRIADA")
+    public Status status;
+
+    @Schema(description = "ID da transação (criada ou existente)", example = "1001")
+    public Long transacaoId;
+
+    @Schema(description = "Motivo da rejeição, retenção ou erro", example = "Cartão não encontrado: 10")
+    public String erro;
+
+    public TransacaoLoteResultadoDTO() {}
+
+    public TransacaoLoteResultadoDTO(long linha, Status status, Long transacaoId, String erro) {
+        this.linha = linha;
+        this.status = status;
+        this.transacaoId = transacaoId;
+        this.erro = erro;
+    }
+}
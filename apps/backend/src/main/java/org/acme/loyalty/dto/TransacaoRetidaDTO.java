@@ -0,0 +1,36 @@
+package org.acme.loyalty.dto;
+
+import org.acme.loyalty.entity.FilaPontuacao;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+/**
+ * Transação retida na fila de pontuação pelo controle de velocidade do cartão.
+ */
+@Schema(name = "TransacaoRetida", description = "Transação retida (não pontuada) por exceder um limite de velocidade do cartão")
+public class TransacaoRetidaDTO {
+
+    @Schema(description = "ID da transação", example = "1001")
+    public Long transacaoId;
+
+    @Schema(description = "ID do cartão", example = "10")
+    public Long cartaoId;
+
+    @Schema(description = "Limites excedidos", example = "Limite de velocidade excedido (1m: mais de 20 transações)")
+    public String motivo;
+
+    @Schema(description = "Momento da retenção")
+    public LocalDateTime retidaEm;
+
+    public TransacaoRetidaDTO() {}
+
+    public static TransacaoRetidaDTO fromEntity(FilaPontuacao item) {
+        TransacaoRetidaDTO dto = new TransacaoRetidaDTO();
+        dto.transacaoId = item.transacaoId;
+        dto.cartaoId = item.cartaoId;
+        dto.motivo = item.ultimoErro;
+        dto.retidaEm = item.criadoEm;
+        return dto;
+    }
+}
@@ -0,0 +1,51 @@
+package org.acme.loyalty.dto;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado da conferência do passivo por parceiro contra as tabelas brutas.
+ */
+@Schema(name = "VerificacaoPassivo", description = "Conferência do livro de passivo por parceiro contra movimentos e resgates")
+public class VerificacaoPassivoDTO {
+
+    public static final int MAX_DIVERGENCIAS_LISTADAS = 100;
+
+    @Schema(example = "2024-06-01")
+    public LocalDate inicio;
+
+    @Schema(example = "2024-06-01")
+    public LocalDate fim;
+
+    @Schema(description = "Linhas (parceiro, dia) comparadas", example = "850")
+    public int linhasVerificadas;
+
+    @Schema(description = "Linhas divergentes", example = "0")
+    public int divergencias;
+
+    @Schema(description = "As divergências foram corrigidas com os valores apurados", example = "true")
+    public boolean corrigidas;
+
+    @Schema(description = "Duração em milissegundos", example = "120")
+    public long duracaoMs;
+
+    @Schema(description = "Primeiras " + MAX_DIVERGENCIAS_LISTADAS + " divergências")
+    public List<Divergencia> detalhes = new ArrayList<>();
+
+    @Schema(name = "DivergenciaPassivo", description = "Linha do livro diferente do apurado")
+    public static class Divergencia {
+        public Long parceiroId;
+        public LocalDate dia;
+        public long acumuladosLivro;
+        public long acumuladosApurados;
+        public long resgatadosLivro;
+        public long resgatadosApurados;
+
+        public Divergencia() {}
+    }
+
+    public VerificacaoPassivoDTO() {}
+}
@@ -0,0 +1,61 @@
+package org.acme.loyalty.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Contador de pontos acumulados por (usuário, cartão, regra, ano/mês) para o teto_mensal (regra 17.4).
+ * Atualizado na mesma transação do movimento ACUMULO; a verificação do teto é leitura de uma linha.
+ */
+@Entity
+@Table(name = "acumulo_mensal", schema = "loyalty")
+@IdClass(AcumuloMensalId.class)
+public class AcumuloMensal extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "usuario_id", nullable = false)
+    public Long usuarioId;
+
+    @Id
+    @Column(name = "cartao_id", nullable = false)
+    public Long cartaoId;
+
+    @Id
+    @Column(name = "regra_id", nullable = false)
+    public Long regraId;
+
+    /** Ano/mês do evento no formato yyyyMM (ex.: 202410). */
+    @Id
+    @Column(name = "ano_mes", nullable = false)
+    public Integer anoMes;
+
+    @NotNull(message = "Pontos é obrigatório")
+    @Column(name = "pontos", nullable = false)
+    public Long pontos = 0L;
+
+    @NotNull(message = "Data de atualização é obrigatória")
+    @Column(name = "atualizado_em", nullable = false)
+    public LocalDateTime atualizadoEm;
+
+    public AcumuloMensal() {}
+
+    @PrePersist
+    @PreUpdate
+    protected void normalize() {
+        if (pontos == null) {
+            pontos = 0L;
+        }
+        if (atualizadoEm == null) {
+            atualizadoEm = LocalDateTime.now();
+        }
+    }
+
+    /** Converte data para a chave ano_mes (yyyyMM). */
+    public static int anoMes(LocalDate data) {
+        return data.getYear() * 100 + data.getMonthValue();
+    }
+}
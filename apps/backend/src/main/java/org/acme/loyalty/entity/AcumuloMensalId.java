@@ -0,0 +1,79 @@
+package org.acme.loyalty.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class AcumuloMensalId implements Serializable {
+
+    private Long usuarioId;
+    private Long cartaoId;
+    private Long regraId;
+    private Integer anoMes;
+
+    public AcumuloMensalId() {}
+
+    public AcumuloMensalId(Long usuarioId, Long cartaoId, Long regraId, Integer anoMes) {
+        this.usuarioId = usuarioId;
+        this.cartaoId = cartaoId;
+        this.regraId = regraId;
+        this.anoMes = anoMes;
+    }
+
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+
+    public void setUsuarioId(Long usuarioId) {
+        this.usuarioId = usuarioId;
+    }
+
+    public Long getCartaoId() {
+        return cartaoId;
+    }
+
+    public void setCartaoId(Long cartaoId) {
+        this.cartaoId = cartaoId;
+    }
+
+    public Long getRegraId() {
+        return regraId;
+    }
+
+    public void setRegraId(Long regraId) {
+        this.regraId = regraId;
+    }
+
+    public Integer getAnoMes() {
+        return anoMes;
+    }
+
+    public void setAnoMes(Integer anoMes) {
+        this.anoMes = anoMes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AcumuloMensalId that = (AcumuloMensalId) o;
+        return Objects.equals(usuarioId, that.usuarioId) &&
+               Objects.equals(cartaoId, that.cartaoId) &&
+               Objects.equals(regraId, that.regraId) &&
+               Objects.equals(anoMes, that.anoMes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(usuarioId, cartaoId, regraId, anoMes);
+    }
+
+    @Override
+    public String toString() {
+        return "AcumuloMensalId{" +
+                "usuarioId=" + usuarioId +
+                ", cartaoId=" + cartaoId +
+                ", regraId=" + regraId +
+                ", anoMes=" + anoMes +
+                '}';
+    }
+}
@@ -0,0 +1,50 @@
+package org.acme.loyalty.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Consumo do teto (orçamento de bônus) de uma {@link CampanhaBonus}.
+ * Atualizado via JDBC pelo orçamento em memória (service.pontuacao.OrcamentoCampanhas):
+ * - reservado: soma das fatias entregues aos nós (limitada ao teto)
+ * - consumido: bônus efetivamente concedido (sincronizado periodicamente)
+ */
+@Entity
+@Table(name = "campanha_consumo", schema = "loyalty")
+public class CampanhaConsumo extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "campanha_id")
+    public Long campanhaId;
+
+    @NotNull
+    @Min(value = 0, message = "Reservado deve ser maior ou igual a zero")
+    @Column(name = "reservado", nullable = false)
+    public Long reservado = 0L;
+
+    @NotNull
+    @Min(value = 0, message = "Consumido deve ser maior ou igual a zero")
+    @Column(name = "consumido", nullable = false)
+    public Long consumido = 0L;
+
+    @NotNull(message = "Data de atualização é obrigatória")
+    @Column(name = "atualizado_em", nullable = false)
+    public LocalDateTime atualizadoEm;
+
+    public CampanhaConsumo() {}
+
+    @PrePersist
+    @PreUpdate
+    protected void normalize() {
+        atualizadoEm = LocalDateTime.now();
+    }
+
+    /** Bônus ainda não entregue a nenhum nó. */
+    public long restante(Long teto) {
+        if (teto == null) return Long.MAX_VALUE;
+        return Math.max(0L, teto - (reservado != null ? reservado : 0L));
+    }
+}
@@ -0,0 +1,74 @@
+package org.acme.loyalty.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Item da fila de pontuação: uma transação aguardando a geração de pontos.
+ * Gravado na mesma transação que cria a {@link Transacao}; removido após a pontuação.
+ * A ordem por cartão é a ordem de id.
+ * Itens RETIDOS (controle de velocidade) não são pontuados nem bloqueiam os demais itens do cartão.
+ */
+@Entity
+@Table(name = "fila_pontuacao", schema = "loyalty",
+       uniqueConstraints = @UniqueConstraint(name = "uk_fila_pontuacao_transacao", columnNames = "transacao_id"))
+public class FilaPontuacao extends PanacheEntity {
+
+    @NotNull(message = "Transação é obrigatória")
+    @Column(name = "transacao_id", nullable = false)
+    public Long transacaoId;
+
+    @NotNull(message = "Cartão é obrigatório")
+    @Column(name = "cartao_id", nullable = false)
+    public Long cartaoId;
+
+    @NotNull(message = "Status é obrigatório")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    public StatusFila status = StatusFila.PENDENTE;
+
+    @Min(value = 0, message = "Tentativas deve ser maior ou igual a zero")
+    @Column(name = "tentativas", nullable = false)
+    public Integer tentativas = 0;
+
+    @NotNull(message = "Data de disponibilidade é obrigatória")
+    @Column(name = "disponivel_em", nullable = false)
+    public LocalDateTime disponivelEm;
+
+    @NotNull(message = "Data de criação é obrigatória")
+    @Column(name = "criado_em", nullable = false)
+    public LocalDateTime criadoEm;
+
+    @Size(max = 500, message = "Último erro deve ter no máximo 500 caracteres")
+    @Column(name = "ultimo_erro", length = 500)
+    public String ultimoErro;
+
+    public FilaPontuacao() {}
+
+    public FilaPontuacao(Transacao transacao) {
+        this.transacaoId = transacao.id;
+        this.cartaoId = transacao.cartao.id;
+    }
+
+    @PrePersist
+    protected void normalize() {
+        LocalDateTime agora = LocalDateTime.now();
+        if (criadoEm == null) criadoEm = agora;
+        if (disponivelEm == null) disponivelEm = agora;
+        if (status == null) status = StatusFila.PENDENTE;
+        if (tentativas == null) tentativas = 0;
+    }
+
+    public boolean estaDisponivelEm(LocalDateTime data) {
+        return StatusFila.PENDENTE.equals(status) && !disponivelEm.isAfter(data);
+    }
+
+    public enum StatusFila {
+        PENDENTE, // aguardando pontuação (ou nova tentativa)
+        ERRO,     // tentativas esgotadas; não bloqueia os demais itens do cartão
+        RETIDA    // limite de velocidade do cartão excedido; aguarda liberação administrativa
+    }
+}
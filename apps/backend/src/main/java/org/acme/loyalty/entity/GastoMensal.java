@@ -0,0 +1,58 @@
+package org.acme.loyalty.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+/**
+ * Balde de gasto aprovado (centavos de BRL) por (usuário, ano/mês do evento) para os níveis de fidelidade.
+ * Atualizado ao processar cada transação aprovada, com ou sem pontos (estorno subtrai); marcado como {@link #alterado}
+ * até a próxima avaliação de nível.
+ */
+@Entity
+@Table(name = "gasto_mensal", schema = "loyalty")
+@IdClass(GastoMensalId.class)
+public class GastoMensal extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "usuario_id", nullable = false)
+    public Long usuarioId;
+
+    @Id
+    @Column(name = "ano_mes", nullable = false)
+    public Integer anoMes;
+
+    @NotNull(message = "Gasto é obrigatório")
+    @Column(name = "centavos", nullable = false)
+    public Long centavos = 0L;
+
+    /** Incrementa a cada atualização (a avaliação só limpa {@link #alterado} se não mudou). */
+    @NotNull
+    @Column(name = "versao", nullable = false)
+    public Long versao = 0L;
+
+    @NotNull
+    @Column(name = "alterado", nullable = false)
+    public Boolean alterado = Boolean.TRUE;
+
+    @NotNull(message = "Data de atualização é obrigatória")
+    @Column(name = "atualizado_em", nullable = false)
+    public LocalDateTime atualizadoEm;
+
+    public GastoMensal() {}
+
+    /** Valor em BRL convertido para centavos (truncado), unidade dos baldes. */
+    public static long centavos(BigDecimal valorBrl) {
+        return valorBrl.setScale(2, RoundingMode.DOWN).unscaledValue().longValueExact();
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void normalize() {
+        atualizadoEm = LocalDateTime.now();
+    }
+}
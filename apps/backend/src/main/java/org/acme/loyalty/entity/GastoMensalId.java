@@ -0,0 +1,58 @@
+package org.acme.loyalty.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Chave composta de {@link GastoMensal}: (usuario_id, ano_mes).
+ */
+public class GastoMensalId implements Serializable {
+
+    private Long usuarioId;
+    private Integer anoMes;
+
+    public GastoMensalId() {}
+
+    public GastoMensalId(Long usuarioId, Integer anoMes) {
+        this.usuarioId = usuarioId;
+        this.anoMes = anoMes;
+    }
+
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+
+    public void setUsuarioId(Long usuarioId) {
+        this.usuarioId = usuarioId;
+    }
+
+    public Integer getAnoMes() {
+        return anoMes;
+    }
+
+    public void setAnoMes(Integer anoMes) {
+        this.anoMes = anoMes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GastoMensalId that = (GastoMensalId) o;
+        return Objects.equals(usuarioId, that.usuarioId) &&
+               Objects.equals(anoMes, that.anoMes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(usuarioId, anoMes);
+    }
+
+    @Override
+    public String toString() {
+        return "GastoMensalId{" +
+                "usuarioId=" + usuarioId +
+                ", anoMes=" + anoMes +
+                '}';
+    }
+}
@@ -0,0 +1,47 @@
+package org.acme.loyalty.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Nível de fidelidade vigente de um usuário, definido pelo gasto aprovado dos últimos 12 meses
+ * ({@link GastoMensal}). {@link #nivel} nulo = nível base.
+ * Gravado pela avaliação incremental (service.NivelUsuarioService); a pontuação lê o snapshot em memória.
+ */
+@Entity
+@Table(name = "nivel_usuario", schema = "loyalty")
+public class NivelUsuario extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "usuario_id")
+    public Long usuarioId;
+
+    @Size(max = 30, message = "Nível deve ter no máximo 30 caracteres")
+    @Column(name = "nivel", length = 30)
+    public String nivel;
+
+    @NotNull
+    @Min(value = 0, message = "Gasto deve ser maior ou igual a zero")
+    @Column(name = "gasto_12m_centavos", nullable = false)
+    public Long gasto12mCentavos = 0L;
+
+    /** Último mês (yyyyMM) da janela avaliada. */
+    @NotNull
+    @Column(name = "ano_mes_ref", nullable = false)
+    public Integer anoMesRef;
+
+    @NotNull(message = "Data de avaliação é obrigatória")
+    @Column(name = "avaliado_em", nullable = false)
+    public LocalDateTime avaliadoEm;
+
+    public NivelUsuario() {}
+
+    @PrePersist
+    @PreUpdate
+    protected void normalize() {
+        if (avaliadoEm == null) avaliadoEm = LocalDateTime.now();
+    }
+}
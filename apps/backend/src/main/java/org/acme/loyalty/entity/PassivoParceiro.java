@@ -0,0 +1,52 @@
+package org.acme.loyalty.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Passivo de pontos por parceiro e dia (data do movimento):
+ * pontos gerados em transações do parceiro (ACUMULO + ESTORNO + AJUSTE) e resgatados em recompensas do parceiro.
+ * Atualizado incrementalmente na mesma transação do movimento/resgate; conferido todas as noites.
+ */
+@Entity
+@Table(name = "passivo_parceiro", schema = "loyalty")
+@IdClass(PassivoParceiroId.class)
+public class PassivoParceiro extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "parceiro_id", nullable = false)
+    public Long parceiroId;
+
+    @Id
+    @Column(name = "dia", nullable = false)
+    public LocalDate dia;
+
+    @NotNull(message = "Pontos acumulados é obrigatório")
+    @Column(name = "pontos_acumulados", nullable = false)
+    public Long pontosAcumulados = 0L;
+
+    @NotNull(message = "Pontos resgatados é obrigatório")
+    @Column(name = "pontos_resgatados", nullable = false)
+    public Long pontosResgatados = 0L;
+
+    @NotNull(message = "Data de atualização é obrigatória")
+    @Column(name = "atualizado_em", nullable = false)
+    public LocalDateTime atualizadoEm;
+
+    public PassivoParceiro() {}
+
+    /** Passivo do dia: acumulados - resgatados. */
+    public long passivo() {
+        return pontosAcumulados - pontosResgatados;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void normalize() {
+        atualizadoEm = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,48 @@
+package org.acme.loyalty.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+public class PassivoParceiroId implements Serializable {
+
+    private Long parceiroId;
+    private LocalDate dia;
+
+    public PassivoParceiroId() {}
+
+    public PassivoParceiroId(Long parceiroId, LocalDate dia) {
+        this.parceiroId = parceiroId;
+        this.dia = dia;
+    }
+
+    public Long getParceiroId() {
+        return parceiroId;
+    }
+
+    public void setParceiroId(Long parceiroId) {
+        this.parceiroId = parceiroId;
+    }
+
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public void setDia(LocalDate dia) {
+        this.dia = dia;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PassivoParceiroId that = (PassivoParceiroId) o;
+        return Objects.equals(parceiroId, that.parceiroId) &&
+               Objects.equals(dia, that.dia);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(parceiroId, dia);
+    }
+}
@@ -36,6 +36,11 @@ public class RegraConversao extends PanacheEntity {
     @Column(name = "parceiro_id")
     public Long parceiroId;
     
+    /** Condição adicional opcional (DSL compilada em ExpressaoRegra), ex.: valor > 500 and fim_de_semana */
+    @Size(max = 500, message = "Expressão deve ter no máximo 500 caracteres")
+    @Column(name = "expressao", length = 500)
+    public String expressao;
+    
     @NotNull(message = "Data de início da vigência é obrigatória")
     @Column(name = "vigencia_ini", nullable = false)
     public LocalDateTime vigenciaIni;
@@ -62,6 +67,12 @@ public class RegraConversao extends PanacheEntity {
     @Column(name = "atualizado_em")
     public LocalDateTime atualizadoEm;
     
+    @Transient
+    private Pattern mccPattern;
+    
+    @Transient
+    private String mccPatternFonte;
+    
     // Construtores
     public RegraConversao() {}
     
@@ -89,6 +100,7 @@ public class RegraConversao extends PanacheEntity {
         if (nome != null) nome = nome.trim();
         if (mccRegex != null) mccRegex = mccRegex.trim();
         if (categoria != null) categoria = categoria.trim();
+        if (expressao != null) expressao = expressao.trim();
         
         // Normalizar multiplicador para 4 casas decimais
         if (multiplicador != null) {
@@ -152,11 +164,19 @@ public class RegraConversao extends PanacheEntity {
         if (mccRegex == null || mccRegex.trim().isEmpty()) {
             return true; // Regra aplica para todos os MCCs
         }
-        try {
-            return Pattern.matches(mccRegex, mcc);
-        } catch (Exception e) {
-            return false; // Regex inválido
+        if (mcc == null) {
+            return false;
+        }
+        // Compila uma única vez por valor de mccRegex (evita Pattern.matches a cada avaliação)
+        if (mccPattern == null || !mccRegex.equals(mccPatternFonte)) {
+            try {
+                mccPattern = Pattern.compile(mccRegex);
+            } catch (Exception e) {
+                return false; // Regex inválido (rejeitado ao salvar; pode existir em dados legados)
+            }
+            mccPatternFonte = mccRegex;
         }
+        return mccPattern.matcher(mcc).matches();
     }
     
     public boolean aplicaParaCategoria(String categoriaTransacao) {
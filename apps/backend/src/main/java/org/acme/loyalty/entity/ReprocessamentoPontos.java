@@ -0,0 +1,111 @@
+package org.acme.loyalty.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Job de reprocessamento retroativo de pontos após a correção de uma regra de conversão.
+ * Guarda o checkpoint (mês corrente + último cartão concluído) e os totais acumulados;
+ * o checkpoint avança no mesmo commit que grava os ajustes de cada lote.
+ */
+@Entity
+@Table(name = "reprocessamento_pontos", schema = "loyalty")
+public class ReprocessamentoPontos extends PanacheEntityBase {
+
+    @Id
+    @NotBlank(message = "Job ID é obrigatório")
+    @Size(max = 100, message = "Job ID deve ter no máximo 100 caracteres")
+    @Column(name = "job_id", length = 100)
+    public String jobId;
+
+    @NotNull(message = "Regra é obrigatória")
+    @Column(name = "regra_id", nullable = false)
+    public Long regraId;
+
+    @NotNull(message = "Data inicial é obrigatória")
+    @Column(name = "data_inicio", nullable = false)
+    public LocalDate dataInicio;
+
+    @NotNull(message = "Data final é obrigatória")
+    @Column(name = "data_fim", nullable = false)
+    public LocalDate dataFim;
+
+    @NotNull(message = "Status é obrigatório")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    public StatusReprocessamento status = StatusReprocessamento.EM_ANDAMENTO;
+
+    @Positive(message = "Tamanho do lote deve ser maior que zero")
+    @Column(name = "tamanho_lote", nullable = false)
+    public Integer tamanhoLote;
+
+    /** Mês em processamento (yyyyMM). */
+    @NotNull(message = "Mês atual é obrigatório")
+    @Column(name = "mes_atual", nullable = false)
+    public Integer mesAtual;
+
+    /** Maior cartao_id já concluído em {@link #mesAtual} (0 = nenhum). */
+    @NotNull(message = "Último cartão é obrigatório")
+    @Column(name = "ultimo_cartao_id", nullable = false)
+    public Long ultimoCartaoId = 0L;
+
+    @Column(name = "lotes", nullable = false)
+    public Long lotes = 0L;
+
+    @Column(name = "transacoes_lidas", nullable = false)
+    public Long transacoesLidas = 0L;
+
+    @Column(name = "transacoes_ajustadas", nullable = false)
+    public Long transacoesAjustadas = 0L;
+
+    @Column(name = "pontos_creditados", nullable = false)
+    public Long pontosCreditados = 0L;
+
+    @Column(name = "pontos_debitados", nullable = false)
+    public Long pontosDebitados = 0L;
+
+    /** Débitos não aplicados ao saldo por já terem sido consumidos (saldo não pode ficar negativo). */
+    @Column(name = "pontos_nao_debitados", nullable = false)
+    public Long pontosNaoDebitados = 0L;
+
+    @Size(max = 500, message = "Último erro deve ter no máximo 500 caracteres")
+    @Column(name = "ultimo_erro", length = 500)
+    public String ultimoErro;
+
+    @NotNull(message = "Data de criação é obrigatória")
+    @Column(name = "criado_em", nullable = false)
+    public LocalDateTime criadoEm;
+
+    @NotNull(message = "Data de atualização é obrigatória")
+    @Column(name = "atualizado_em", nullable = false)
+    public LocalDateTime atualizadoEm;
+
+    @Column(name = "concluido_em")
+    public LocalDateTime concluidoEm;
+
+    public ReprocessamentoPontos() {}
+
+    @PrePersist
+    @PreUpdate
+    protected void normalize() {
+        if (jobId != null) jobId = jobId.trim();
+        LocalDateTime agora = LocalDateTime.now();
+        if (criadoEm == null) criadoEm = agora;
+        atualizadoEm = agora;
+        if (status == null) status = StatusReprocessamento.EM_ANDAMENTO;
+    }
+
+    public boolean isConcluido() {
+        return StatusReprocessamento.CONCLUIDO.equals(status);
+    }
+
+    public enum StatusReprocessamento {
+        EM_ANDAMENTO, // criado ou interrompido; pode ser retomado
+        CONCLUIDO,    // todos os meses processados
+        ERRO          // último lote falhou; pode ser retomado após a correção
+    }
+}
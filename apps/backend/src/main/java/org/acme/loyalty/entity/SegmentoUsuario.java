@@ -0,0 +1,144 @@
+package org.acme.loyalty.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Segmento de usuários usado no direcionamento de campanhas (campanha_bonus.segmento = nome).
+ * Critérios avaliados nas transações APROVADAS dos últimos {@link #janelaDias} dias
+ * (todos os informados precisam ser atendidos):
+ * - gasto total >= gastoMinimo
+ * - gasto nos MCCs listados / gasto total >= participacaoMccMinima
+ * - cadastro há pelo menos antiguidadeMinimaDias dias
+ * Os membros são materializados em {@link #bitmap} (BitSet de usuario_id comprimido) pela reconstrução periódica.
+ */
+@Entity
+@Table(name = "segmento_usuario", schema = "loyalty")
+public class SegmentoUsuario extends PanacheEntity {
+
+    @NotBlank(message = "Nome é obrigatório")
+    @Size(max = 60, message = "Nome deve ter no máximo 60 caracteres")
+    @Column(name = "nome", nullable = false, length = 60)
+    public String nome;
+
+    @NotNull(message = "Janela é obrigatória")
+    @Min(value = 1, message = "Janela deve ser de pelo menos 1 dia")
+    @Max(value = 730, message = "Janela deve ser de no máximo 730 dias")
+    @Column(name = "janela_dias", nullable = false)
+    public Integer janelaDias = 90;
+
+    @DecimalMin(value = "0.01", message = "Gasto mínimo deve ser maior que zero")
+    @Digits(integer = 10, fraction = 2, message = "Gasto mínimo deve ter no máximo 10 dígitos inteiros e 2 decimais")
+    @Column(name = "gasto_minimo", precision = 12, scale = 2)
+    public BigDecimal gastoMinimo;
+
+    /** MCCs (4 dígitos) separados por vírgula. */
+    @Size(max = 200, message = "MCCs devem ter no máximo 200 caracteres")
+    @Column(name = "mccs", length = 200)
+    public String mccs;
+
+    @DecimalMin(value = "0.0001", message = "Participação mínima deve ser maior que zero")
+    @DecimalMax(value = "1.0000", message = "Participação mínima deve ser no máximo 1")
+    @Column(name = "participacao_mcc_minima", precision = 5, scale = 4)
+    public BigDecimal participacaoMccMinima;
+
+    @Min(value = 1, message = "Antiguidade mínima deve ser de pelo menos 1 dia")
+    @Column(name = "antiguidade_minima_dias")
+    public Integer antiguidadeMinimaDias;
+
+    @NotNull
+    @Column(name = "ativo", nullable = false)
+    public Boolean ativo = Boolean.TRUE;
+
+    /** BitSet de usuario_id (Deflate); null = ainda não construído. */
+    @Column(name = "bitmap")
+    public byte[] bitmap;
+
+    @Column(name = "membros", nullable = false)
+    public Integer membros = 0;
+
+    /** Incrementa a cada construção ou alteração da definição. */
+    @Column(name = "versao", nullable = false)
+    public Long versao = 0L;
+
+    /** Início da janela de transações usada na última construção. */
+    @Column(name = "janela_ini")
+    public LocalDate janelaIni;
+
+    /** Maior data_cadastro que atendia à antiguidade na última construção. */
+    @Column(name = "corte_cadastro")
+    public LocalDate corteCadastro;
+
+    /** Maior transacao.id existente no início da última construção. */
+    @Column(name = "ultimo_transacao_id")
+    public Long ultimoTransacaoId;
+
+    @Column(name = "construido_em")
+    public LocalDateTime construidoEm;
+
+    /** Última construção completa (as demais são incrementais). */
+    @Column(name = "completo_em")
+    public LocalDateTime completoEm;
+
+    @NotNull(message = "Data de criação é obrigatória")
+    @Column(name = "criado_em", nullable = false)
+    public LocalDateTime criadoEm;
+
+    @NotNull(message = "Data de atualização é obrigatória")
+    @Column(name = "atualizado_em", nullable = false)
+    public LocalDateTime atualizadoEm;
+
+    public SegmentoUsuario() {}
+
+    @AssertTrue(message = "Informe ao menos um critério (gasto mínimo, participação de MCC ou antiguidade)")
+    public boolean isCriterioInformado() {
+        return gastoMinimo != null || participacaoMccMinima != null || antiguidadeMinimaDias != null;
+    }
+
+    @AssertTrue(message = "Participação mínima exige a lista de MCCs (e vice-versa)")
+    public boolean isMixMccValido() {
+        return (participacaoMccMinima == null) == (mccs == null || mccs.isBlank());
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void normalize() {
+        if (nome != null) nome = nome.trim();
+        if (mccs != null) mccs = mccs.isBlank() ? null : String.join(",", listaMccs());
+        if (janelaDias == null) janelaDias = 90;
+        if (ativo == null) ativo = Boolean.TRUE;
+        if (membros == null) membros = 0;
+        if (versao == null) versao = 0L;
+        LocalDateTime agora = LocalDateTime.now();
+        if (criadoEm == null) criadoEm = agora;
+        atualizadoEm = agora;
+    }
+
+    /** MCCs da definição, sem espaços e sem vazios. */
+    public List<String> listaMccs() {
+        if (mccs == null || mccs.isBlank()) return List.of();
+        return Arrays.stream(mccs.split(","))
+                .map(String::trim)
+                .filter(m -> !m.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    /** Descarta o bitmap: a próxima reconstrução será completa. */
+    public void invalidarBitmap() {
+        bitmap = null;
+        membros = 0;
+        janelaIni = null;
+        corteCadastro = null;
+        ultimoTransacaoId = null;
+        completoEm = null;
+        versao = (versao != null ? versao : 0L) + 1;
+    }
+}
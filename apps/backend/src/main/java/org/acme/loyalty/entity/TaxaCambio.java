@@ -0,0 +1,62 @@
+package org.acme.loyalty.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Taxa de câmbio versionada por vigência: 1 {@link #moedaOrigem} = {@link #taxa} {@link #moedaDestino}
+ * a partir de {@link #vigenteDesde}, até a próxima vigência do mesmo par.
+ * Usada para converter o valor de transações em moeda estrangeira para BRL antes das regras (17.4).
+ * Linhas não são alteradas: nova taxa = nova vigência.
+ */
+@Entity
+@Table(name = "taxa_cambio", schema = "loyalty",
+       uniqueConstraints = @UniqueConstraint(name = "uk_taxa_cambio_vigencia",
+               columnNames = {"moeda_origem", "moeda_destino", "vigente_desde"}))
+public class TaxaCambio extends PanacheEntity {
+
+    public static final String MOEDA_BASE = "BRL";
+
+    @NotNull(message = "Moeda de origem é obrigatória")
+    @Pattern(regexp = "^[A-Z]{3}$", message = "Moeda de origem deve ser ISO-4217 em 3 letras maiúsculas")
+    @Column(name = "moeda_origem", nullable = false, length = 3)
+    public String moedaOrigem;
+
+    @NotNull(message = "Moeda de destino é obrigatória")
+    @Pattern(regexp = "^[A-Z]{3}$", message = "Moeda de destino deve ser ISO-4217 em 3 letras maiúsculas")
+    @Column(name = "moeda_destino", nullable = false, length = 3)
+    public String moedaDestino = MOEDA_BASE;
+
+    @NotNull(message = "Taxa é obrigatória")
+    @DecimalMin(value = "0.00000001", message = "Taxa deve ser maior que zero")
+    @Digits(integer = 10, fraction = 8, message = "Taxa deve ter no máximo 10 dígitos inteiros e 8 decimais")
+    @Column(name = "taxa", nullable = false, precision = 18, scale = 8)
+    public BigDecimal taxa;
+
+    @NotNull(message = "Início da vigência é obrigatório")
+    @Column(name = "vigente_desde", nullable = false)
+    public LocalDateTime vigenteDesde;
+
+    @Size(max = 60, message = "Fonte deve ter no máximo 60 caracteres")
+    @Column(name = "fonte", length = 60)
+    public String fonte;
+
+    @NotNull(message = "Data de criação é obrigatória")
+    @Column(name = "criado_em", nullable = false)
+    public LocalDateTime criadoEm;
+
+    public TaxaCambio() {}
+
+    @PrePersist
+    @PreUpdate
+    protected void normalize() {
+        if (moedaOrigem != null) moedaOrigem = moedaOrigem.trim().toUpperCase();
+        moedaDestino = moedaDestino != null ? moedaDestino.trim().toUpperCase() : MOEDA_BASE;
+        if (fonte != null) fonte = fonte.isBlank() ? null : fonte.trim();
+        if (criadoEm == null) criadoEm = LocalDateTime.now();
+    }
+}
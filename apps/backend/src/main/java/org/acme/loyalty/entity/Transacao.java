@@ -65,6 +65,9 @@ public class Transacao extends PanacheEntity {
     @Column(name = "processado_em")
     public LocalDateTime processadoEm;
     
+    @Column(name = "gasto_estornado_em")
+    public LocalDateTime gastoEstornadoEm; // Valor já retirado do gasto mensal pelo estorno
+    
     @Min(value = 0, message = "Pontos gerados deve ser maior ou igual a zero")
     @Column(name = "pontos_gerados")
     public Integer pontosGerados;
@@ -0,0 +1,128 @@
+package org.acme.loyalty.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.loyalty.entity.AcumuloMensal;
+import org.acme.loyalty.entity.AcumuloMensalId;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository para AcumuloMensal (Panache).
+ * Regras principais:
+ * - Chave composta (usuario_id, cartao_id, regra_id, ano_mes)
+ * - Incremento via UPSERT atômico junto do movimento ACUMULO
+ * - Reconstrução a partir de movimento_pontos (regra_aplicada = id da regra)
+ */
+@ApplicationScoped
+public class AcumuloMensalRepository implements PanacheRepositoryBase<AcumuloMensal, AcumuloMensalId> {
+
+    // --------------------- Teto mensal conforme regra 17.4 ---------------------
+
+    /** Pontos já acumulados no mês pela regra (0 se não houver contador). */
+    public long pontosNoMes(Long usuarioId, Long cartaoId, Long regraId, int anoMes) {
+        if (usuarioId == null || cartaoId == null || regraId == null) return 0L;
+        List<?> r = getEntityManager().createQuery(
+                "select a.pontos from AcumuloMensal a " +
+                "where a.usuarioId = ?1 and a.cartaoId = ?2 and a.regraId = ?3 and a.anoMes = ?4")
+                .setParameter(1, usuarioId)
+                .setParameter(2, cartaoId)
+                .setParameter(3, regraId)
+                .setParameter(4, anoMes)
+                .getResultList();
+        return r.isEmpty() ? 0L : ((Number) r.get(0)).longValue();
+    }
+
+    /**
+     * Incrementa o contador (UPSERT atômico).
+     * Deve ser chamado na mesma transação que persiste o movimento ACUMULO.
+     */
+    public void registrarAcumulo(Long usuarioId, Long cartaoId, Long regraId, int anoMes, long pontos) {
+        if (usuarioId == null || cartaoId == null || regraId == null || pontos == 0) return;
+        getEntityManager().createNativeQuery(
+                "INSERT INTO loyalty.acumulo_mensal (usuario_id, cartao_id, regra_id, ano_mes, pontos, atualizado_em) " +
+                "VALUES (?1, ?2, ?3, ?4, ?5, ?6) " +
+                "ON CONFLICT (usuario_id, cartao_id, regra_id, ano_mes) " +
+                "DO UPDATE SET pontos = loyalty.acumulo_mensal.pontos + EXCLUDED.pontos, atualizado_em = EXCLUDED.atualizado_em")
+                .setParameter(1, usuarioId)
+                .setParameter(2, cartaoId)
+                .setParameter(3, regraId)
+                .setParameter(4, anoMes)
+                .setParameter(5, pontos)
+                .setParameter(6, LocalDateTime.now())
+                .executeUpdate();
+    }
+
+    /** Contadores existentes dos cartões/meses informados (pré-carga do lote). */
+    public Map<AcumuloMensalId, Long> carregarContadores(Collection<Long> cartaoIds, Collection<Integer> anoMeses) {
+        if (cartaoIds == null || cartaoIds.isEmpty() || anoMeses == null || anoMeses.isEmpty()) return Map.of();
+        List<AcumuloMensal> lista = find("cartaoId in ?1 and anoMes in ?2", cartaoIds, anoMeses).list();
+        Map<AcumuloMensalId, Long> r = new HashMap<>(lista.size() * 2);
+        for (AcumuloMensal a : lista) {
+            r.put(new AcumuloMensalId(a.usuarioId, a.cartaoId, a.regraId, a.anoMes), a.pontos);
+        }
+        return r;
+    }
+
+    /** Incrementa vários contadores via JDBC batch (mesmo UPSERT de {@link #registrarAcumulo}). */
+    public void registrarAcumulosEmLote(Map<AcumuloMensalId, Long> incrementos) {
+        if (incrementos == null || incrementos.isEmpty()) return;
+        LocalDateTime agora = LocalDateTime.now();
+        getEntityManager().unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO loyalty.acumulo_mensal (usuario_id, cartao_id, regra_id, ano_mes, pontos, atualizado_em) " +
+                    "VALUES (?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (usuario_id, cartao_id, regra_id, ano_mes) " +
+                    "DO UPDATE SET pontos = loyalty.acumulo_mensal.pontos + EXCLUDED.pontos, atualizado_em = EXCLUDED.atualizado_em")) {
+                for (Map.Entry<AcumuloMensalId, Long> e : incrementos.entrySet()) {
+                    if (e.getValue() == null || e.getValue() == 0) continue;
+                    AcumuloMensalId id = e.getKey();
+                    ps.setLong(1, id.getUsuarioId());
+                    ps.setLong(2, id.getCartaoId());
+                    ps.setLong(3, id.getRegraId());
+                    ps.setInt(4, id.getAnoMes());
+                    ps.setLong(5, e.getValue());
+                    ps.setObject(6, agora);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+
+    // --------------------- Reconstrução a partir do histórico ---------------------
+
+    /**
+     * Recalcula os contadores do intervalo [anoMesIni, anoMesFim] a partir dos movimentos ACUMULO.
+     * O mês considerado é o da data_evento da transação de origem.
+     *
+     * @return número de contadores gravados
+     */
+    public int reconstruir(int anoMesIni, int anoMesFim) {
+        getEntityManager().createNativeQuery(
+                "DELETE FROM loyalty.acumulo_mensal WHERE ano_mes BETWEEN ?1 AND ?2")
+                .setParameter(1, anoMesIni)
+                .setParameter(2, anoMesFim)
+                .executeUpdate();
+
+        return getEntityManager().createNativeQuery(
+                "INSERT INTO loyalty.acumulo_mensal (usuario_id, cartao_id, regra_id, ano_mes, pontos, atualizado_em) " +
+                "SELECT m.usuario_id, m.cartao_id, CAST(m.regra_aplicada AS BIGINT), " +
+                "       CAST(to_char(t.data_evento, 'YYYYMM') AS INTEGER), SUM(m.pontos), CURRENT_TIMESTAMP " +
+                "FROM loyalty.movimento_pontos m " +
+                "JOIN loyalty.transacao t ON t.id = m.ref_transacao_id " +
+                "WHERE m.tipo = 'ACUMULO' AND m.regra_aplicada ~ '^[0-9]+$' " +
+                "  AND CAST(to_char(t.data_evento, 'YYYYMM') AS INTEGER) BETWEEN ?1 AND ?2 " +
+                "GROUP BY m.usuario_id, m.cartao_id, CAST(m.regra_aplicada AS BIGINT), " +
+                "         CAST(to_char(t.data_evento, 'YYYYMM') AS INTEGER)")
+                .setParameter(1, anoMesIni)
+                .setParameter(2, anoMesFim)
+                .executeUpdate();
+    }
+}
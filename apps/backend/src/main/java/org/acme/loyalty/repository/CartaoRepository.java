@@ -8,6 +8,7 @@ import jakarta.persistence.LockModeType;
 import org.acme.loyalty.entity.Cartao;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -77,6 +78,18 @@ public class CartaoRepository implements PanacheRepository<Cartao> {
         return find("usuario.id = ?1 and function('right', numero, 4) = ?2", usuarioId, last4).firstResultOptional();
     }
 
+    /**
+     * Projeção leve para validação em lote: {id, usuario.id, validade} dos cartões informados
+     * (uma consulta por bloco, sem carregar entidades).
+     */
+    public List<Object[]> listarDonoEValidade(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) return List.of();
+        return getEntityManager()
+                .createQuery("select c.id, c.usuario.id, c.validade from Cartao c where c.id in :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
     // --------------------- Vigência (validade) ---------------------
 
     /** Cartões vencidos antes de uma data (tipicamente today). */
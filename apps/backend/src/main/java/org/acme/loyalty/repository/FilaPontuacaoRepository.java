@@ -0,0 +1,171 @@
+package org.acme.loyalty.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.loyalty.entity.FilaPontuacao;
+import org.acme.loyalty.entity.FilaPontuacao.StatusFila;
+import org.acme.loyalty.entity.Transacao;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Repository para FilaPontuacao (Panache).
+ * Regras principais:
+ * - Um item por transação (uk_fila_pontuacao_transacao)
+ * - Reivindicação da cabeça de cada cartão com FOR UPDATE SKIP LOCKED (vários nós em paralelo)
+ * - Itens de um mesmo cartão processados em ordem de id
+ */
+@ApplicationScoped
+public class FilaPontuacaoRepository implements PanacheRepository<FilaPontuacao> {
+
+    // --------------------- Enfileiramento ---------------------
+
+    /** Enfileira a transação para pontuação (mesma transação JTA da criação). */
+    public FilaPontuacao enfileirar(Transacao transacao) {
+        if (transacao == null || transacao.id == null) return null;
+        return inserir(new FilaPontuacao(transacao));
+    }
+
+    /** Enfileira a transação já RETIDA pelo controle de velocidade (não é pontuada até ser liberada). */
+    public FilaPontuacao enfileirarRetida(Transacao transacao, String motivo) {
+        if (transacao == null || transacao.id == null) return null;
+        FilaPontuacao item = new FilaPontuacao(transacao);
+        item.status = StatusFila.RETIDA;
+        item.ultimoErro = motivo != null && motivo.length() > 500 ? motivo.substring(0, 500) : motivo;
+        return inserir(item);
+    }
+
+    /**
+     * Um único INSERT com o id tirado da sequência no próprio comando (sem SELECT da sequência nem flush);
+     * o item não entra no contexto de persistência.
+     */
+    private FilaPontuacao inserir(FilaPontuacao item) {
+        LocalDateTime agora = LocalDateTime.now();
+        item.criadoEm = agora;
+        item.disponivelEm = agora;
+        Object id = getEntityManager().unwrap(Session.class).createNativeQuery(
+                    "INSERT INTO loyalty.fila_pontuacao (id, transacao_id, cartao_id, status, tentativas, disponivel_em, criado_em, ultimo_erro) " +
+                    "VALUES (nextval('loyalty.fila_pontuacao_SEQ'), ?1, ?2, ?3, 0, ?4, ?4, ?5) RETURNING id")
+                .setParameter(1, item.transacaoId, Long.class)
+                .setParameter(2, item.cartaoId, Long.class)
+                .setParameter(3, item.status.name(), String.class)
+                .setParameter(4, agora, LocalDateTime.class)
+                .setParameter(5, item.ultimoErro, String.class)
+                .getSingleResult();
+        item.id = ((Number) id).longValue();
+        return item;
+    }
+
+    /**
+     * Enfileira vários itens via JDBC batch (carga em lote); status e motivo já definidos em cada item
+     * (PENDENTE ou RETIDA). Mesma transação JTA da gravação das transações.
+     */
+    public void enfileirarEmLote(List<FilaPontuacao> itens) {
+        if (itens == null || itens.isEmpty()) return;
+        LocalDateTime agora = LocalDateTime.now();
+        getEntityManager().unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO loyalty.fila_pontuacao (id, transacao_id, cartao_id, status, tentativas, disponivel_em, criado_em, ultimo_erro) " +
+                    "VALUES (nextval('loyalty.fila_pontuacao_SEQ'), ?, ?, ?, 0, ?, ?, ?)")) {
+                for (FilaPontuacao item : itens) {
+                    String motivo = item.ultimoErro;
+                    ps.setLong(1, item.transacaoId);
+                    ps.setLong(2, item.cartaoId);
+                    ps.setString(3, (item.status != null ? item.status : StatusFila.PENDENTE).name());
+                    ps.setObject(4, agora);
+                    ps.setObject(5, agora);
+                    ps.setString(6, motivo != null && motivo.length() > 500 ? motivo.substring(0, 500) : motivo);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+
+    /** Itens RETIDOS mais antigos primeiro. */
+    public List<FilaPontuacao> listarRetidas(int limite) {
+        if (limite <= 0) return List.of();
+        return find("status = ?1 order by id", StatusFila.RETIDA).page(0, limite).list();
+    }
+
+    /**
+     * Devolve o item RETIDO da transação à fila (PENDENTE, disponível já).
+     * @return false se a transação não tem item retido
+     */
+    public boolean liberarRetida(Long transacaoId, LocalDateTime agora) {
+        if (transacaoId == null) return false;
+        return update("status = ?1, disponivelEm = ?2, ultimoErro = null where transacaoId = ?3 and status = ?4",
+                StatusFila.PENDENTE, agora, transacaoId, StatusFila.RETIDA) > 0;
+    }
+
+    // --------------------- Reivindicação ---------------------
+
+    /**
+     * Reivindica a cabeça (menor id PENDENTE) de um cartão disponível e ainda não bloqueado por outro nó.
+     * O lock da cabeça garante exclusividade do cartão até o fim da transação:
+     * os demais itens do cartão não são cabeça enquanto ela existir.
+     */
+    public Optional<FilaPontuacao> reivindicarProximoCartao(LocalDateTime agora) {
+        @SuppressWarnings("unchecked")
+        List<FilaPontuacao> r = getEntityManager().createNativeQuery(
+                "SELECT f.* FROM loyalty.fila_pontuacao f " +
+                "WHERE f.status = 'PENDENTE' AND f.disponivel_em <= ?1 " +
+                "  AND NOT EXISTS (SELECT 1 FROM loyalty.fila_pontuacao a " +
+                "                  WHERE a.cartao_id = f.cartao_id AND a.status = 'PENDENTE' AND a.id < f.id) " +
+                "ORDER BY f.id " +
+                "LIMIT 1 " +
+                "FOR UPDATE OF f SKIP LOCKED", FilaPontuacao.class)
+                .setParameter(1, agora)
+                .getResultList();
+        return r.stream().findFirst();
+    }
+
+    /** Itens PENDENTES do cartão em ordem (a cabeça já reivindicada vem primeiro). */
+    public List<FilaPontuacao> listarPendentesDoCartao(Long cartaoId, int limite) {
+        if (cartaoId == null || limite <= 0) return List.of();
+        return find("cartaoId = ?1 and status = ?2 order by id", cartaoId, StatusFila.PENDENTE)
+                .page(0, limite)
+                .list();
+    }
+
+    // --------------------- Conclusão ---------------------
+
+    /**
+     * Remove os itens das transações informadas (pontuadas por outro caminho, ex.: lote).
+     * Itens bloqueados por um worker são pulados (evita deadlock com o lock da transação);
+     * o worker os remove ao encontrar o movimento já gerado.
+     */
+    public int removerPorTransacoes(Collection<Long> transacaoIds) {
+        if (transacaoIds == null || transacaoIds.isEmpty()) return 0;
+        return getEntityManager().createNativeQuery(
+                "DELETE FROM loyalty.fila_pontuacao WHERE id IN (" +
+                "  SELECT id FROM loyalty.fila_pontuacao WHERE transacao_id IN (?1) FOR UPDATE SKIP LOCKED)")
+                .setParameter(1, transacaoIds)
+                .executeUpdate();
+    }
+
+    // --------------------- Métricas ---------------------
+
+    /** Itens por status (PENDENTE, ERRO, RETIDA) em uma única leitura; status sem itens ficam fora do mapa. */
+    public Map<StatusFila, Long> contarPorStatus() {
+        List<Object[]> linhas = getEntityManager().createQuery(
+                "select f.status, count(f) from FilaPontuacao f group by f.status", Object[].class)
+                .getResultList();
+        Map<StatusFila, Long> r = new EnumMap<>(StatusFila.class);
+        for (Object[] l : linhas) {
+            r.put((StatusFila) l[0], ((Number) l[1]).longValue());
+        }
+        return r;
+    }
+
+    public long contarRetidas() {
+        return count("status", StatusFila.RETIDA);
+    }
+}
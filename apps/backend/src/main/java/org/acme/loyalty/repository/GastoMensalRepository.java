@@ -0,0 +1,156 @@
+package org.acme.loyalty.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.loyalty.entity.GastoMensal;
+import org.acme.loyalty.entity.GastoMensalId;
+import org.hibernate.Session;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository para GastoMensal (Panache).
+ * Regras principais:
+ * - Chave composta (usuario_id, ano_mes)
+ * - Incremento via UPSERT atômico junto do movimento ACUMULO (estorno: incremento negativo)
+ * - Todo incremento marca o balde como alterado e incrementa a versão; a avaliação de nível
+ *   limpa a marca somente se a versão lida não mudou
+ */
+@ApplicationScoped
+public class GastoMensalRepository implements PanacheRepositoryBase<GastoMensal, GastoMensalId> {
+
+    private static final String SQL_UPSERT =
+            "INSERT INTO loyalty.gasto_mensal (usuario_id, ano_mes, centavos, versao, alterado, atualizado_em) " +
+            "VALUES (?, ?, ?, 1, TRUE, ?) " +
+            "ON CONFLICT (usuario_id, ano_mes) " +
+            "DO UPDATE SET centavos = loyalty.gasto_mensal.centavos + EXCLUDED.centavos, " +
+            "              versao = loyalty.gasto_mensal.versao + 1, alterado = TRUE, atualizado_em = EXCLUDED.atualizado_em";
+
+    /** Balde lido pela avaliação de nível. */
+    public static final class Balde {
+        public final long usuarioId;
+        public final int anoMes;
+        public final long centavos;
+        public final long versao;
+        public final boolean alterado;
+
+        Balde(long usuarioId, int anoMes, long centavos, long versao, boolean alterado) {
+            this.usuarioId = usuarioId;
+            this.anoMes = anoMes;
+            this.centavos = centavos;
+            this.versao = versao;
+            this.alterado = alterado;
+        }
+    }
+
+    /**
+     * Soma o gasto ao balde do mês (UPSERT atômico).
+     * Deve ser chamado na mesma transação que marca a transação como processada, com ou sem pontos (ou no ESTORNO, com valor negativo).
+     */
+    public void registrarGasto(Long usuarioId, int anoMes, long centavos) {
+        if (usuarioId == null || centavos == 0) return;
+        registrarGastosEmLote(Map.of(new GastoMensalId(usuarioId, anoMes), centavos));
+    }
+
+    /** Soma vários gastos via JDBC batch (mesmo UPSERT de {@link #registrarGasto}). */
+    public void registrarGastosEmLote(Map<GastoMensalId, Long> incrementos) {
+        if (incrementos == null || incrementos.isEmpty()) return;
+        LocalDateTime agora = LocalDateTime.now();
+        getEntityManager().unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(SQL_UPSERT)) {
+                for (Map.Entry<GastoMensalId, Long> e : incrementos.entrySet()) {
+                    if (e.getValue() == null || e.getValue() == 0) continue;
+                    ps.setLong(1, e.getKey().getUsuarioId());
+                    ps.setInt(2, e.getKey().getAnoMes());
+                    ps.setLong(3, e.getValue());
+                    ps.setObject(4, agora);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+
+    // --------------------- Avaliação de nível ---------------------
+
+    /** Usuários com algum balde alterado desde a última avaliação. */
+    public List<Long> listarUsuariosAlterados() {
+        return idsLong(getEntityManager().createNativeQuery(
+                "SELECT DISTINCT usuario_id FROM loyalty.gasto_mensal WHERE alterado ORDER BY usuario_id")
+                .getResultList());
+    }
+
+    /** Usuários com gasto em algum mês da janela iniciada em {@code anoMesIni}. */
+    public List<Long> listarUsuariosComGasto(int anoMesIni) {
+        return idsLong(getEntityManager().createNativeQuery(
+                "SELECT DISTINCT usuario_id FROM loyalty.gasto_mensal WHERE ano_mes >= ?1 ORDER BY usuario_id")
+                .setParameter(1, anoMesIni)
+                .getResultList());
+    }
+
+    /** Baldes da janela (a partir de {@code anoMesIni}) e os alterados fora dela, dos usuários informados. */
+    public List<Balde> carregarBaldes(Collection<Long> usuarioIds, int anoMesIni) {
+        if (usuarioIds == null || usuarioIds.isEmpty()) return List.of();
+        List<Balde> r = new ArrayList<>(usuarioIds.size() * 4);
+        getEntityManager().unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT usuario_id, ano_mes, centavos, versao, alterado FROM loyalty.gasto_mensal " +
+                    "WHERE usuario_id = ANY(?) AND (ano_mes >= ? OR alterado)")) {
+                Array ids = conn.createArrayOf("bigint", usuarioIds.toArray());
+                ps.setArray(1, ids);
+                ps.setInt(2, anoMesIni);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        r.add(new Balde(rs.getLong(1), rs.getInt(2), rs.getLong(3), rs.getLong(4), rs.getBoolean(5)));
+                    }
+                } finally {
+                    ids.free();
+                }
+            }
+        });
+        return r;
+    }
+
+    /**
+     * Limpa a marca dos baldes avaliados cuja versão não mudou desde a leitura
+     * (incremento concorrente mantém a marca para a próxima avaliação).
+     */
+    public void limparAlterados(Collection<Balde> avaliados) {
+        if (avaliados == null || avaliados.isEmpty()) return;
+        getEntityManager().unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE loyalty.gasto_mensal SET alterado = FALSE " +
+                    "WHERE usuario_id = ? AND ano_mes = ? AND versao = ? AND alterado")) {
+                for (Balde b : avaliados) {
+                    if (!b.alterado) continue;
+                    ps.setLong(1, b.usuarioId);
+                    ps.setInt(2, b.anoMes);
+                    ps.setLong(3, b.versao);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+
+    /** Remove baldes anteriores à janela já avaliados. */
+    public int expurgar(int anoMesIni) {
+        return getEntityManager().createNativeQuery(
+                "DELETE FROM loyalty.gasto_mensal WHERE ano_mes < ?1 AND NOT alterado")
+                .setParameter(1, anoMesIni)
+                .executeUpdate();
+    }
+
+    private static List<Long> idsLong(List<?> linhas) {
+        List<Long> r = new ArrayList<>(linhas.size());
+        for (Object o : linhas) r.add(((Number) o).longValue());
+        return r;
+    }
+}
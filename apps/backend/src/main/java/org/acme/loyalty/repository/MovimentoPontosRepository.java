@@ -3,13 +3,21 @@ package org.acme.loyalty.repository;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.Query;
 import org.acme.loyalty.entity.MovimentoPontos;
+import org.hibernate.Session;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @ApplicationScoped
@@ -91,7 +99,7 @@ public class MovimentoPontosRepository implements PanacheRepository<MovimentoPon
     }
 
     /**
-     * Extrato paginado por filtros opcionais (ordenado por criadoEm desc).
+     * Extrato paginado por filtros opcionais (ordenado por criadoEm desc, id desc).
      */
     public PanacheQuery<MovimentoPontos> queryExtrato(Long usuarioId,
             Long cartaoId,
@@ -108,33 +116,86 @@ public class MovimentoPontosRepository implements PanacheRepository<MovimentoPon
 
         if (usuarioId != null && cartaoId != null && tipo != null) {
             q = find(
-                    "usuario.id = ?1 and cartao.id = ?2 and tipo = ?3 and criadoEm between ?4 and ?5 order by criadoEm desc",
+                    "usuario.id = ?1 and cartao.id = ?2 and tipo = ?3 and criadoEm between ?4 and ?5 order by criadoEm desc, id desc",
                     usuarioId, cartaoId, tipo, de, ate);
         } else if (usuarioId != null && cartaoId != null) {
-            q = find("usuario.id = ?1 and cartao.id = ?2 and criadoEm between ?3 and ?4 order by criadoEm desc",
+            q = find("usuario.id = ?1 and cartao.id = ?2 and criadoEm between ?3 and ?4 order by criadoEm desc, id desc",
                     usuarioId, cartaoId, de, ate);
         } else if (usuarioId != null && tipo != null) {
-            q = find("usuario.id = ?1 and tipo = ?2 and criadoEm between ?3 and ?4 order by criadoEm desc",
+            q = find("usuario.id = ?1 and tipo = ?2 and criadoEm between ?3 and ?4 order by criadoEm desc, id desc",
                     usuarioId, tipo, de, ate);
         } else if (cartaoId != null && tipo != null) {
-            q = find("cartao.id = ?1 and tipo = ?2 and criadoEm between ?3 and ?4 order by criadoEm desc",
+            q = find("cartao.id = ?1 and tipo = ?2 and criadoEm between ?3 and ?4 order by criadoEm desc, id desc",
                     cartaoId, tipo, de, ate);
         } else if (usuarioId != null) {
-            q = find("usuario.id = ?1 and criadoEm between ?2 and ?3 order by criadoEm desc",
+            q = find("usuario.id = ?1 and criadoEm between ?2 and ?3 order by criadoEm desc, id desc",
                     usuarioId, de, ate);
         } else if (cartaoId != null) {
-            q = find("cartao.id = ?1 and criadoEm between ?2 and ?3 order by criadoEm desc",
+            q = find("cartao.id = ?1 and criadoEm between ?2 and ?3 order by criadoEm desc, id desc",
                     cartaoId, de, ate);
         } else if (tipo != null) {
-            q = find("tipo = ?1 and criadoEm between ?2 and ?3 order by criadoEm desc",
+            q = find("tipo = ?1 and criadoEm between ?2 and ?3 order by criadoEm desc, id desc",
                     tipo, de, ate);
         } else {
-            q = find("criadoEm between ?1 and ?2 order by criadoEm desc", de, ate);
+            q = find("criadoEm between ?1 and ?2 order by criadoEm desc, id desc", de, ate);
         }
 
         return q.page(Page.of(page, size));
     }
 
+    /**
+     * Extrato por chave (keyset): até {@code limite} movimentos depois da posição (criadoEm, id) informada,
+     * na mesma ordem de {@link #queryExtrato}. Sem OFFSET nem COUNT: toda página custa o mesmo que a primeira.
+     * A posição é a do último movimento da página anterior; null = primeira página.
+     */
+    public List<MovimentoPontos> listarExtratoAposChave(Long usuarioId,
+            Long cartaoId,
+            LocalDateTime de,
+            LocalDateTime ate,
+            MovimentoPontos.TipoMovimento tipo,
+            LocalDateTime depoisEm, Long depoisId, int limite) {
+        StringBuilder ql = new StringBuilder();
+        List<Object> params = new java.util.ArrayList<>();
+
+        if (usuarioId != null) {
+            ql.append("usuario.id = ?").append(params.size() + 1);
+            params.add(usuarioId);
+        }
+        if (cartaoId != null) {
+            if (ql.length() > 0) ql.append(" and ");
+            ql.append("cartao.id = ?").append(params.size() + 1);
+            params.add(cartaoId);
+        }
+        if (tipo != null) {
+            if (ql.length() > 0) ql.append(" and ");
+            ql.append("tipo = ?").append(params.size() + 1);
+            params.add(tipo);
+        }
+        if (de != null) {
+            if (ql.length() > 0) ql.append(" and ");
+            ql.append("criadoEm >= ?").append(params.size() + 1);
+            params.add(de);
+        }
+        if (ate != null) {
+            if (ql.length() > 0) ql.append(" and ");
+            ql.append("criadoEm <= ?").append(params.size() + 1);
+            params.add(ate);
+        }
+        if (depoisEm != null && depoisId != null) {
+            if (ql.length() > 0) ql.append(" and ");
+            ql.append("(criadoEm, id) < (?").append(params.size() + 1)
+              .append(", ?").append(params.size() + 2).append(")");
+            params.add(depoisEm);
+            params.add(depoisId);
+        }
+
+        Sort ordem = Sort.descending("criadoEm", "id");
+        PanacheQuery<MovimentoPontos> q = (ql.length() > 0)
+                ? find(ql.toString(), ordem, params.toArray())
+                : findAll(ordem);
+        return q.page(Page.ofSize(limite)).list();
+    }
+
     // --------------------- JOIN FETCH úteis ---------------------
 
     /** Carrega movimento com Transacao (evita N+1 quando exibindo origem). */
@@ -288,6 +349,98 @@ public class MovimentoPontosRepository implements PanacheRepository<MovimentoPon
         return delete("criadoEm < ?1", limite); // retorna long
     }
 
+    // --------------------- Idempotência por constraint ---------------------
+
+    /**
+     * Insere o movimento com INSERT ... ON CONFLICT DO NOTHING.
+     * O índice único parcial uk_movimento_transacao_tipo (V8) garante no máximo um ACUMULO e um ESTORNO
+     * por transação: a duplicata é detectada pelo próprio INSERT, sem consulta prévia, inclusive entre
+     * pontuações concorrentes (a segunda aguarda o commit da primeira e não insere).
+     * O movimento não entra no contexto de persistência; quando inserido, recebe o id gerado.
+     * @return true se inseriu; false se já existia movimento do mesmo tipo para a transação
+     */
+    public boolean inserirSeAusente(MovimentoPontos m) {
+        if (m.criadoEm == null) m.criadoEm = LocalDateTime.now();
+        Long id = getEntityManager().unwrap(Session.class).doReturningWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO loyalty.movimento_pontos (id, usuario_id, cartao_id, tipo, pontos, ref_transacao_id, " +
+                    "transacao_id, observacao, criado_em, job_id, regra_aplicada, campanha_aplicada) " +
+                    "VALUES (nextval('loyalty.movimento_pontos_id_seq'), ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT DO NOTHING RETURNING id")) {
+                ps.setLong(1, m.usuario.id);
+                ps.setLong(2, m.cartao.id);
+                ps.setString(3, m.tipo.name());
+                ps.setInt(4, m.pontos);
+                ps.setObject(5, m.refTransacaoId, Types.BIGINT);
+                ps.setObject(6, m.transacao != null ? m.transacao.id : null, Types.BIGINT);
+                ps.setString(7, m.observacao);
+                ps.setObject(8, m.criadoEm);
+                ps.setString(9, m.jobId);
+                ps.setString(10, m.regraAplicada);
+                ps.setString(11, m.campanhaAplicada);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getLong(1) : null;
+                }
+            }
+        });
+        if (id == null) {
+            return false;
+        }
+        m.id = id;
+        return true;
+    }
+
+    // --------------------- Escrita em lote (JDBC batch) ---------------------
+
+    /**
+     * Soma dos pontos ACUMULO já gerados por transação (idempotência do lote).
+     * @return mapa transacaoId -> pontos; transações sem movimento ACUMULO não aparecem
+     */
+    public Map<Long, Long> somarAcumulosPorTransacao(Collection<Long> transacaoIds) {
+        if (transacaoIds == null || transacaoIds.isEmpty()) return Map.of();
+        List<Object[]> linhas = getEntityManager().createQuery(
+                "select m.refTransacaoId, sum(m.pontos) from MovimentoPontos m " +
+                "where m.tipo = ?1 and m.refTransacaoId in ?2 group by m.refTransacaoId", Object[].class)
+                .setParameter(1, MovimentoPontos.TipoMovimento.ACUMULO)
+                .setParameter(2, transacaoIds)
+                .getResultList();
+        Map<Long, Long> r = new HashMap<>(linhas.size() * 2);
+        for (Object[] l : linhas) {
+            r.put((Long) l[0], ((Number) l[1]).longValue());
+        }
+        return r;
+    }
+
+    /**
+     * Insere os movimentos via JDBC batch, sem passar pelo contexto de persistência.
+     * O id vem da mesma sequence da entidade; os objetos informados não recebem o id gerado.
+     */
+    public void inserirEmLote(List<MovimentoPontos> movimentos) {
+        if (movimentos == null || movimentos.isEmpty()) return;
+        getEntityManager().unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO loyalty.movimento_pontos (id, usuario_id, cartao_id, tipo, pontos, ref_transacao_id, " +
+                    "transacao_id, observacao, criado_em, job_id, regra_aplicada, campanha_aplicada) " +
+                    "VALUES (nextval('loyalty.movimento_pontos_id_seq'), ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (MovimentoPontos m : movimentos) {
+                    ps.setLong(1, m.usuario.id);
+                    ps.setLong(2, m.cartao.id);
+                    ps.setString(3, m.tipo.name());
+                    ps.setInt(4, m.pontos);
+                    ps.setObject(5, m.refTransacaoId, Types.BIGINT);
+                    ps.setObject(6, m.transacao != null ? m.transacao.id : null, Types.BIGINT);
+                    ps.setString(7, m.observacao);
+                    ps.setObject(8, m.criadoEm != null ? m.criadoEm : LocalDateTime.now());
+                    ps.setString(9, m.jobId);
+                    ps.setString(10, m.regraAplicada);
+                    ps.setString(11, m.campanhaAplicada);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+
     // --------------------- Helpers internos ---------------------
 
     private Long sumPontos(String where, Object... params) {
@@ -0,0 +1,125 @@
+package org.acme.loyalty.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.loyalty.entity.NivelUsuario;
+import org.acme.loyalty.service.pontuacao.NiveisUsuarios;
+import org.hibernate.Session;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository para NivelUsuario (Panache).
+ * Regras principais:
+ * - Uma linha por usuário avaliado (nivel nulo = nível base)
+ * - Gravação em lote pela avaliação incremental; leitura completa só para montar o snapshot em memória
+ */
+@ApplicationScoped
+public class NivelUsuarioRepository implements PanacheRepositoryBase<NivelUsuario, Long> {
+
+    /** Resultado da avaliação de um usuário. */
+    public static final class Avaliacao {
+        public final long usuarioId;
+        public final String nivel;
+        public final long gasto12mCentavos;
+
+        public Avaliacao(long usuarioId, String nivel, long gasto12mCentavos) {
+            this.usuarioId = usuarioId;
+            this.nivel = nivel;
+            this.gasto12mCentavos = gasto12mCentavos;
+        }
+    }
+
+    /** Usuários com gasto avaliado numa janela anterior a {@code anoMesRef} (a janela andou). */
+    public List<Long> listarComJanelaVencida(int anoMesRef) {
+        List<?> linhas = getEntityManager().createNativeQuery(
+                "SELECT usuario_id FROM loyalty.nivel_usuario " +
+                "WHERE ano_mes_ref < ?1 AND gasto_12m_centavos > 0 ORDER BY usuario_id")
+                .setParameter(1, anoMesRef)
+                .getResultList();
+        List<Long> r = new ArrayList<>(linhas.size());
+        for (Object o : linhas) r.add(((Number) o).longValue());
+        return r;
+    }
+
+    /** Nível atual (nome ou null) dos usuários informados que já foram avaliados. */
+    public Map<Long, String> carregarNiveis(Collection<Long> usuarioIds) {
+        if (usuarioIds == null || usuarioIds.isEmpty()) return Map.of();
+        Map<Long, String> r = new HashMap<>(usuarioIds.size() * 2);
+        getEntityManager().unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT usuario_id, nivel FROM loyalty.nivel_usuario WHERE usuario_id = ANY(?)")) {
+                Array ids = conn.createArrayOf("bigint", usuarioIds.toArray());
+                ps.setArray(1, ids);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        r.put(rs.getLong(1), rs.getString(2));
+                    }
+                } finally {
+                    ids.free();
+                }
+            }
+        });
+        return r;
+    }
+
+    /** Grava as avaliações (UPSERT em lote). */
+    public void gravarEmLote(Collection<Avaliacao> avaliacoes, int anoMesRef) {
+        if (avaliacoes == null || avaliacoes.isEmpty()) return;
+        LocalDateTime agora = LocalDateTime.now();
+        getEntityManager().unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO loyalty.nivel_usuario (usuario_id, nivel, gasto_12m_centavos, ano_mes_ref, avaliado_em) " +
+                    "VALUES (?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (usuario_id) DO UPDATE SET nivel = EXCLUDED.nivel, " +
+                    "    gasto_12m_centavos = EXCLUDED.gasto_12m_centavos, ano_mes_ref = EXCLUDED.ano_mes_ref, " +
+                    "    avaliado_em = EXCLUDED.avaliado_em")) {
+                for (Avaliacao a : avaliacoes) {
+                    ps.setLong(1, a.usuarioId);
+                    ps.setString(2, a.nivel);
+                    ps.setLong(3, a.gasto12mCentavos);
+                    ps.setInt(4, anoMesRef);
+                    ps.setObject(5, agora);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+
+    /** Usuários acima do nível base, lidos em streaming para o snapshot em memória. */
+    public void carregarAcimaDoBase(NiveisUsuarios.Construtor construtor) {
+        getEntityManager().unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT usuario_id, nivel FROM loyalty.nivel_usuario WHERE nivel IS NOT NULL ORDER BY usuario_id")) {
+                ps.setFetchSize(10_000);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        construtor.adicionar(rs.getLong(1), rs.getString(2));
+                    }
+                }
+            }
+        });
+    }
+
+    /** Quantidade de usuários por nível (nulo = base) entre os avaliados. */
+    public Map<String, Long> contarPorNivel() {
+        List<?> linhas = getEntityManager().createNativeQuery(
+                "SELECT COALESCE(nivel, ''), COUNT(*) FROM loyalty.nivel_usuario GROUP BY nivel")
+                .getResultList();
+        Map<String, Long> r = new HashMap<>();
+        for (Object o : linhas) {
+            Object[] l = (Object[]) o;
+            r.put((String) l[0], ((Number) l[1]).longValue());
+        }
+        return r;
+    }
+}
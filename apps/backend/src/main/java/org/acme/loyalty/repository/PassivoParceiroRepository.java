@@ -0,0 +1,155 @@
+package org.acme.loyalty.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.loyalty.entity.PassivoParceiro;
+import org.acme.loyalty.entity.PassivoParceiroId;
+import org.hibernate.Session;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository para PassivoParceiro (Panache).
+ * Regras principais:
+ * - Chave composta (parceiro_id, dia)
+ * - Incremento via UPSERT atômico junto do movimento (acúmulo) ou do resgate
+ * - Conferência contra as tabelas brutas (movimento_pontos/transacao e resgate/recompensa)
+ */
+@ApplicationScoped
+public class PassivoParceiroRepository implements PanacheRepositoryBase<PassivoParceiro, PassivoParceiroId> {
+
+    private static final String SQL_UPSERT =
+            "INSERT INTO loyalty.passivo_parceiro (parceiro_id, dia, pontos_acumulados, pontos_resgatados, atualizado_em) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (parceiro_id, dia) DO UPDATE SET " +
+            "    pontos_acumulados = loyalty.passivo_parceiro.pontos_acumulados + EXCLUDED.pontos_acumulados, " +
+            "    pontos_resgatados = loyalty.passivo_parceiro.pontos_resgatados + EXCLUDED.pontos_resgatados, " +
+            "    atualizado_em = EXCLUDED.atualizado_em";
+
+    private static final String SQL_APURAR_ACUMULOS =
+            "SELECT t.parceiro_id, CAST(mp.criado_em AS DATE), SUM(mp.pontos) " +
+            "FROM loyalty.movimento_pontos mp " +
+            "JOIN loyalty.transacao t ON t.id = mp.ref_transacao_id " +
+            "WHERE mp.tipo IN ('ACUMULO', 'ESTORNO', 'AJUSTE') AND t.parceiro_id IS NOT NULL " +
+            "  AND mp.criado_em >= ? AND mp.criado_em < ? " +
+            "GROUP BY t.parceiro_id, CAST(mp.criado_em AS DATE)";
+
+    private static final String SQL_APURAR_RESGATES =
+            "SELECT rc.parceiro_id, CAST(r.criado_em AS DATE), SUM(r.pontos_utilizados) " +
+            "FROM loyalty.resgate r " +
+            "JOIN loyalty.recompensa rc ON rc.id = r.recompensa_id " +
+            "WHERE rc.parceiro_id IS NOT NULL AND r.criado_em >= ? AND r.criado_em < ? " +
+            "GROUP BY rc.parceiro_id, CAST(r.criado_em AS DATE)";
+
+    /**
+     * Soma pontos gerados numa transação do parceiro (ACUMULO positivo; ESTORNO/AJUSTE podem ser negativos).
+     * Deve ser chamado na mesma transação que persiste o movimento.
+     */
+    public void registrarAcumulo(Long parceiroId, LocalDate dia, long pontos) {
+        if (parceiroId == null || pontos == 0) return;
+        registrar(Map.of(new PassivoParceiroId(parceiroId, dia), new long[] {pontos, 0L}));
+    }
+
+    /** Soma pontos resgatados numa recompensa do parceiro (mesma transação do resgate). */
+    public void registrarResgate(Long parceiroId, LocalDate dia, long pontos) {
+        if (parceiroId == null || pontos == 0) return;
+        registrar(Map.of(new PassivoParceiroId(parceiroId, dia), new long[] {0L, pontos}));
+    }
+
+    /** Soma vários acúmulos via JDBC batch (mesmo UPSERT de {@link #registrarAcumulo}). */
+    public void registrarAcumulosEmLote(Map<PassivoParceiroId, Long> incrementos) {
+        if (incrementos == null || incrementos.isEmpty()) return;
+        Map<PassivoParceiroId, long[]> valores = new HashMap<>(incrementos.size() * 2);
+        incrementos.forEach((id, pontos) -> {
+            if (pontos != null && pontos != 0) valores.put(id, new long[] {pontos, 0L});
+        });
+        registrar(valores);
+    }
+
+    /** Linhas do período (inclusive), de um parceiro ou de todos, em ordem de parceiro e dia. */
+    public List<PassivoParceiro> listarPeriodo(Long parceiroId, LocalDate inicio, LocalDate fim) {
+        if (parceiroId != null) {
+            return find("parceiroId = ?1 and dia between ?2 and ?3 order by dia", parceiroId, inicio, fim).list();
+        }
+        return find("dia between ?1 and ?2 order by parceiroId, dia", inicio, fim).list();
+    }
+
+    /** Linhas do livro no período: {acumulados, resgatados} por (parceiro, dia). */
+    public Map<PassivoParceiroId, long[]> carregarPeriodo(LocalDate inicio, LocalDate fim) {
+        Map<PassivoParceiroId, long[]> r = new HashMap<>();
+        for (PassivoParceiro p : find("dia between ?1 and ?2", inicio, fim).list()) {
+            r.put(new PassivoParceiroId(p.parceiroId, p.dia), new long[] {p.pontosAcumulados, p.pontosResgatados});
+        }
+        return r;
+    }
+
+    /** Totais apurados nas tabelas brutas no período: {acumulados, resgatados} por (parceiro, dia). */
+    public Map<PassivoParceiroId, long[]> apurarPeriodo(LocalDate inicio, LocalDate fim) {
+        Map<PassivoParceiroId, long[]> r = new HashMap<>();
+        LocalDateTime de = inicio.atStartOfDay();
+        LocalDateTime ate = fim.plusDays(1).atStartOfDay();
+        getEntityManager().unwrap(Session.class).doWork(conn -> {
+            for (int coluna = 0; coluna < 2; coluna++) {
+                try (PreparedStatement ps = conn.prepareStatement(coluna == 0 ? SQL_APURAR_ACUMULOS : SQL_APURAR_RESGATES)) {
+                    ps.setObject(1, de);
+                    ps.setObject(2, ate);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            PassivoParceiroId id = new PassivoParceiroId(rs.getLong(1), rs.getDate(2).toLocalDate());
+                            r.computeIfAbsent(id, k -> new long[2])[coluna] += rs.getLong(3);
+                        }
+                    }
+                }
+            }
+        });
+        return r;
+    }
+
+    /** Sobrescreve as linhas com os valores apurados (correção da conferência). */
+    public void corrigirEmLote(Map<PassivoParceiroId, long[]> valores) {
+        if (valores == null || valores.isEmpty()) return;
+        LocalDateTime agora = LocalDateTime.now();
+        getEntityManager().unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO loyalty.passivo_parceiro (parceiro_id, dia, pontos_acumulados, pontos_resgatados, atualizado_em) " +
+                    "VALUES (?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (parceiro_id, dia) DO UPDATE SET pontos_acumulados = EXCLUDED.pontos_acumulados, " +
+                    "    pontos_resgatados = EXCLUDED.pontos_resgatados, atualizado_em = EXCLUDED.atualizado_em")) {
+                for (Map.Entry<PassivoParceiroId, long[]> e : valores.entrySet()) {
+                    ps.setLong(1, e.getKey().getParceiroId());
+                    ps.setDate(2, Date.valueOf(e.getKey().getDia()));
+                    ps.setLong(3, e.getValue()[0]);
+                    ps.setLong(4, e.getValue()[1]);
+                    ps.setObject(5, agora);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+
+    private void registrar(Map<PassivoParceiroId, long[]> valores) {
+        if (valores.isEmpty()) return;
+        LocalDateTime agora = LocalDateTime.now();
+        getEntityManager().unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(SQL_UPSERT)) {
+                for (Map.Entry<PassivoParceiroId, long[]> e : valores.entrySet()) {
+                    ps.setLong(1, e.getKey().getParceiroId());
+                    ps.setDate(2, Date.valueOf(e.getKey().getDia()));
+                    ps.setLong(3, e.getValue()[0]);
+                    ps.setLong(4, e.getValue()[1]);
+                    ps.setObject(5, agora);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+}
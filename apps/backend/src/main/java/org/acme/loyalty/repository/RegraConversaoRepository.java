@@ -57,6 +57,11 @@ public class RegraConversaoRepository implements PanacheRepository<RegraConversa
         return find("prioridade = ?1", prioridade).list();
     }
 
+    /** Todas as regras ativas (fonte do snapshot em memória usado na pontuação). */
+    public List<RegraConversao> listarAtivas() {
+        return find("ativo = true").list();
+    }
+
     // --------------------- Vigência ---------------------
 
     /** Regras vigentes na data informada. */
@@ -99,11 +104,7 @@ public class RegraConversaoRepository implements PanacheRepository<RegraConversa
         params.add(data);
         query.append(")");
 
-        // Filtros opcionais
-        if (mcc != null && !mcc.isBlank()) {
-            query.append(" and (mccRegex is null or mccRegex = '' or mcc ~ mccRegex)");
-        }
-        
+        // Filtros opcionais (mcc_regex é avaliada em memória: JPQL não tem operador de regex)
         if (categoria != null && !categoria.isBlank()) {
             query.append(" and (categoria is null or categoria = '' or lower(categoria) = lower(?").append(paramIndex++);
             params.add(categoria.trim());
@@ -123,7 +124,11 @@ public class RegraConversaoRepository implements PanacheRepository<RegraConversa
                     "     when mccRegex is not null and mccRegex != '' then 2 " +
                     "     else 1 end desc, id asc");
 
-        return find(query.toString(), params.toArray()).list();
+        List<RegraConversao> regras = find(query.toString(), params.toArray()).list();
+        if (mcc == null || mcc.isBlank()) {
+            return regras;
+        }
+        return regras.stream().filter(r -> r.aplicaParaMcc(mcc.trim())).toList();
     }
     
     /**
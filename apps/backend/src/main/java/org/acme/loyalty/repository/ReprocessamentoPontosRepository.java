@@ -0,0 +1,24 @@
+package org.acme.loyalty.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import org.acme.loyalty.entity.ReprocessamentoPontos;
+
+import java.util.Optional;
+
+/**
+ * Repository para ReprocessamentoPontos (Panache).
+ * Regras principais:
+ * - Chave = job_id (idempotência: o mesmo job nunca é criado duas vezes)
+ * - Checkpoint atualizado sob lock da linha do job, no commit de cada lote
+ */
+@ApplicationScoped
+public class ReprocessamentoPontosRepository implements PanacheRepositoryBase<ReprocessamentoPontos, String> {
+
+    /** Busca o job travando a linha até o fim da transação (um executor por job). */
+    public Optional<ReprocessamentoPontos> travar(String jobId) {
+        if (jobId == null) return Optional.empty();
+        return findByIdOptional(jobId, LockModeType.PESSIMISTIC_WRITE);
+    }
+}
@@ -4,7 +4,11 @@ import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import io.quarkus.panache.common.Page;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.acme.loyalty.entity.SaldoPontos;
+import org.acme.loyalty.entity.SaldoPontosId;
+import org.hibernate.Session;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -218,6 +222,84 @@ public class SaldoPontosRepository implements PanacheRepository<SaldoPontos> {
         return findByUsuarioAndCartao(usuarioId, cartaoId).map(sp -> sp.saldo != null ? sp.saldo : 0L).orElse(0L);
     }
 
+    /**
+     * Credita vários saldos via JDBC batch (UPSERT por usuário/cartão).
+     * As chaves são gravadas em ordem (usuario, cartao) para que lotes concorrentes bloqueiem as linhas na mesma ordem.
+     */
+    public void creditarSaldosEmLote(Map<SaldoPontosId, Long> creditos) {
+        if (creditos == null || creditos.isEmpty()) return;
+        List<Map.Entry<SaldoPontosId, Long>> ordenados = new ArrayList<>(creditos.entrySet());
+        ordenados.sort(Comparator
+                .comparing((Map.Entry<SaldoPontosId, Long> e) -> e.getKey().getUsuario())
+                .thenComparing(e -> e.getKey().getCartao()));
+        LocalDateTime agora = LocalDateTime.now();
+        getEntityManager().unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO loyalty.saldo_pontos (usuario_id, cartao_id, saldo, atualizado_em, " +
+                    "pontos_expirando_30_dias, pontos_expirando_60_dias, pontos_expirando_90_dias) " +
+                    "VALUES (?, ?, ?, ?, 0, 0, 0) " +
+                    "ON CONFLICT (usuario_id, cartao_id) " +
+                    "DO UPDATE SET saldo = loyalty.saldo_pontos.saldo + EXCLUDED.saldo, atualizado_em = EXCLUDED.atualizado_em")) {
+                for (Map.Entry<SaldoPontosId, Long> e : ordenados) {
+                    if (e.getValue() == null || e.getValue() <= 0) continue;
+                    ps.setLong(1, e.getKey().getUsuario());
+                    ps.setLong(2, e.getKey().getCartao());
+                    ps.setLong(3, e.getValue());
+                    ps.setObject(4, agora);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+
+    /**
+     * Debita vários saldos no mesmo commit (valores positivos = pontos a debitar).
+     * As linhas são travadas em ordem de chave (mesma ordem de {@link #creditarSaldosEmLote}, sem deadlock)
+     * e o débito é limitado ao saldo disponível, pois o saldo nunca fica negativo.
+     *
+     * @return pontos que não puderam ser debitados (já consumidos em resgates/expirações)
+     */
+    public long debitarSaldosEmLote(Map<SaldoPontosId, Long> debitos) {
+        if (debitos == null || debitos.isEmpty()) return 0L;
+        Long[] cartaoIds = debitos.keySet().stream().map(SaldoPontosId::getCartao).distinct().toArray(Long[]::new);
+        LocalDateTime agora = LocalDateTime.now();
+        return getEntityManager().unwrap(Session.class).doReturningWork(conn -> {
+            Map<SaldoPontosId, Long> saldos = new HashMap<>();
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT usuario_id, cartao_id, saldo FROM loyalty.saldo_pontos " +
+                    "WHERE cartao_id = ANY(?) ORDER BY usuario_id, cartao_id FOR UPDATE")) {
+                ps.setArray(1, conn.createArrayOf("bigint", cartaoIds));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        saldos.put(new SaldoPontosId(rs.getLong(1), rs.getLong(2)), rs.getLong(3));
+                    }
+                }
+            }
+
+            long naoDebitados = 0L;
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE loyalty.saldo_pontos SET saldo = saldo - ?, atualizado_em = ? " +
+                    "WHERE usuario_id = ? AND cartao_id = ?")) {
+                for (Map.Entry<SaldoPontosId, Long> e : debitos.entrySet()) {
+                    long pedido = e.getValue() == null ? 0L : e.getValue();
+                    if (pedido <= 0) continue;
+                    long disponivel = Math.max(0L, saldos.getOrDefault(e.getKey(), 0L));
+                    long debito = Math.min(pedido, disponivel);
+                    naoDebitados += pedido - debito;
+                    if (debito == 0) continue;
+                    ps.setLong(1, debito);
+                    ps.setObject(2, agora);
+                    ps.setLong(3, e.getKey().getUsuario());
+                    ps.setLong(4, e.getKey().getCartao());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            return naoDebitados;
+        });
+    }
+
     // --------------------- Estatísticas e agregações ---------------------
 
     /** Soma de todos os saldos do sistema (usado no dashboard e métricas). */
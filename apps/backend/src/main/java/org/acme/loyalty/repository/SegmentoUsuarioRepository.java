@@ -0,0 +1,43 @@
+package org.acme.loyalty.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import org.acme.loyalty.entity.SegmentoUsuario;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository de SegmentoUsuario (Panache).
+ * Regras principais:
+ * - Nome único sem diferenciar maiúsculas (casa com campanha_bonus.segmento)
+ * - O resultado de uma reconstrução é gravado sob lock da linha do segmento
+ */
+@ApplicationScoped
+public class SegmentoUsuarioRepository implements PanacheRepository<SegmentoUsuario> {
+
+    public List<SegmentoUsuario> listarAtivos() {
+        return list("ativo = true order by id");
+    }
+
+    /** Segmentos ativos já construídos (com bitmap): os usados na pontuação. */
+    public List<SegmentoUsuario> listarMaterializados() {
+        return list("ativo = true and bitmap is not null order by id");
+    }
+
+    /** Busca o segmento travando a linha até o fim da transação. */
+    public Optional<SegmentoUsuario> travar(Long id) {
+        if (id == null) return Optional.empty();
+        return findByIdOptional(id, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    /** True se existe outro segmento com o mesmo nome (case-insensitive), exceto o id informado. */
+    public boolean existsByNomeIgnoringId(String nome, Long exceptId) {
+        if (nome == null || nome.isBlank()) return false;
+        if (exceptId == null) {
+            return count("lower(nome) = ?1", nome.trim().toLowerCase()) > 0;
+        }
+        return count("lower(nome) = ?1 and id <> ?2", nome.trim().toLowerCase(), exceptId) > 0;
+    }
+}
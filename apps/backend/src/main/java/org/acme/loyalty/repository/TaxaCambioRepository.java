@@ -0,0 +1,32 @@
+package org.acme.loyalty.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.loyalty.entity.TaxaCambio;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository de TaxaCambio (Panache).
+ * Regras principais:
+ * - Uma taxa por par de moedas e instante de vigência
+ * - A pontuação não consulta esta tabela por transação: usa a tabela em memória (service.pontuacao.TabelaCambio)
+ */
+@ApplicationScoped
+public class TaxaCambioRepository implements PanacheRepository<TaxaCambio> {
+
+    /** Todas as taxas ordenadas por par e vigência (carga da tabela em memória). */
+    public List<TaxaCambio> listarOrdenadas() {
+        return list("order by moedaOrigem, moedaDestino, vigenteDesde");
+    }
+
+    public List<TaxaCambio> listarPorMoeda(String moedaOrigem) {
+        return list("moedaOrigem = ?1 order by moedaDestino, vigenteDesde", moedaOrigem);
+    }
+
+    public boolean existeVigencia(String moedaOrigem, String moedaDestino, LocalDateTime vigenteDesde) {
+        return count("moedaOrigem = ?1 and moedaDestino = ?2 and vigenteDesde = ?3",
+                moedaOrigem, moedaDestino, vigenteDesde) > 0;
+    }
+}
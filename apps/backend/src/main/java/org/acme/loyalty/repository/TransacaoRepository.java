@@ -3,12 +3,28 @@ package org.acme.loyalty.repository;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import org.acme.loyalty.entity.FilaPontuacao;
 import org.acme.loyalty.entity.Transacao;
 import org.acme.loyalty.entity.Transacao.StatusTransacao;
+import org.hibernate.LockOptions;
+import org.hibernate.Session;
+import org.hibernate.jpa.AvailableHints;
+import org.postgresql.PGConnection;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
 import java.time.LocalDateTime;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -97,6 +113,224 @@ public class TransacaoRepository implements PanacheRepository<Transacao> {
         return find("status = ?1", StatusTransacao.APROVADA).list();
     }
 
+    /**
+     * Reivindica até {@code limite} transações APROVADAS ainda não pontuadas (processado_em nulo), em ordem de id.
+     * Transações RETIDAS na fila pelo controle de velocidade ficam de fora até serem liberadas.
+     * As linhas ficam bloqueadas até o fim da transação; linhas já bloqueadas por outro lote são puladas.
+     * Entidades carregadas somente leitura: a atualização é feita em lote via JDBC.
+     */
+    public List<Transacao> listarPendentesProcessamento(int limite) {
+        if (limite <= 0) return List.of();
+        return find("status = ?1 and processadoEm is null " +
+                    "and id not in (select f.transacaoId from FilaPontuacao f where f.status = ?2) order by id",
+                    StatusTransacao.APROVADA, FilaPontuacao.StatusFila.RETIDA)
+                .withLock(LockModeType.PESSIMISTIC_WRITE)
+                .withHint(AvailableHints.HINT_SPEC_LOCK_TIMEOUT, LockOptions.SKIP_LOCKED)
+                .withHint(AvailableHints.HINT_READ_ONLY, true)
+                .page(0, limite)
+                .list();
+    }
+
+    /**
+     * Reivindica uma transação para a pontuação online: preenche processado_em (pontos_gerados = 0)
+     * somente se ainda nulo. Chamado antes de qualquer efeito colateral da pontuação: uma segunda chamada
+     * para a mesma transação não altera a linha e desiste. O UPDATE bloqueia a linha até o fim da transação
+     * (o lote, com SKIP LOCKED, a pula) e é desfeito junto com ela em caso de rollback.
+     * @return true se esta chamada reivindicou a transação
+     */
+    public boolean reivindicarParaPontuacao(Long transacaoId, LocalDateTime agora) {
+        return update("processadoEm = ?1, pontosGerados = 0 where id = ?2 and processadoEm is null",
+                agora, transacaoId) == 1;
+    }
+
+    /**
+     * Reivindica o estorno do gasto mensal da transação: preenche gasto_estornado_em somente se ainda nulo e se a
+     * transação foi pontuada (pontos_gerados preenchido: o gasto foi contado, com ou sem pontos).
+     * Mesma semântica de {@link #reivindicarParaPontuacao}: uma segunda chamada não altera a linha e desiste.
+     * @return true se esta chamada deve retirar o gasto
+     */
+    public boolean reivindicarEstornoDoGasto(Long transacaoId, LocalDateTime agora) {
+        return update("gastoEstornadoEm = ?1 where id = ?2 and gastoEstornadoEm is null and pontosGerados is not null",
+                agora, transacaoId) == 1;
+    }
+
+    /**
+     * Grava processado_em/pontos_gerados via JDBC batch (a entidade não precisa estar gerenciada).
+     */
+    public void marcarProcessadasEmLote(List<Transacao> transacoes) {
+        if (transacoes == null || transacoes.isEmpty()) return;
+        getEntityManager().unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE loyalty.transacao SET processado_em = ?, pontos_gerados = ? WHERE id = ?")) {
+                for (Transacao t : transacoes) {
+                    ps.setObject(1, t.processadoEm);
+                    ps.setObject(2, t.pontosGerados, Types.INTEGER);
+                    ps.setLong(3, t.id);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+
+    /** Regrava pontos_gerados (transacaoId -> pontos) via JDBC batch; usado no reprocessamento retroativo. */
+    public void atualizarPontosGeradosEmLote(Map<Long, Integer> pontosPorTransacao) {
+        if (pontosPorTransacao == null || pontosPorTransacao.isEmpty()) return;
+        getEntityManager().unwrap(Session.class).doWork(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE loyalty.transacao SET pontos_gerados = ? WHERE id = ?")) {
+                for (Map.Entry<Long, Integer> e : pontosPorTransacao.entrySet()) {
+                    ps.setObject(1, e.getValue(), Types.INTEGER);
+                    ps.setLong(2, e.getKey());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+
+    // --------------------- Idempotência por constraint ---------------------
+
+    /**
+     * Insere a transação com INSERT ... ON CONFLICT DO NOTHING.
+     * O índice único uk_transacao_chave_natural (V17) garante uma transação por chave natural
+     * (cartão + data do evento + autorização, vazia = nula): o reenvio é detectado pelo próprio INSERT,
+     * inclusive entre requisições concorrentes (a segunda aguarda o commit da primeira e não insere).
+     * A transação não entra no contexto de persistência; quando inserida, recebe o id gerado.
+     * @return true se inseriu; false se a chave natural já existia
+     */
+    public boolean inserirSeAusente(Transacao t) {
+        if (t.status == null) t.status = StatusTransacao.APROVADA;
+        if (t.valor != null) t.valor = t.valor.setScale(2, RoundingMode.HALF_UP);
+        // Consulta nativa (e não JDBC direto): passa pelo Session, entra nas estatísticas de comandos do Hibernate
+        List<?> ids = getEntityManager().unwrap(Session.class).createNativeQuery(
+                    "INSERT INTO loyalty.transacao (id, cartao_id, usuario_id, valor, moeda, mcc, categoria, parceiro_id, " +
+                    "status, autorizacao, data_evento, processado_em, pontos_gerados) " +
+                    "VALUES (nextval('loyalty.transacao_SEQ'), ?1, ?2, ?3, ?4, ?5, ?6, ?7, ?8, ?9, ?10, ?11, ?12) " +
+                    "ON CONFLICT DO NOTHING RETURNING id")
+                .setParameter(1, t.cartao.id, Long.class)
+                .setParameter(2, t.usuario.id, Long.class)
+                .setParameter(3, t.valor, BigDecimal.class)
+                .setParameter(4, t.moeda, String.class)
+                .setParameter(5, t.mcc, String.class)
+                .setParameter(6, t.categoria, String.class)
+                .setParameter(7, t.parceiroId, Long.class)
+                .setParameter(8, t.status.name(), String.class)
+                .setParameter(9, t.autorizacao, String.class)
+                .setParameter(10, t.dataEvento, LocalDateTime.class)
+                .setParameter(11, t.processadoEm, LocalDateTime.class)
+                .setParameter(12, t.pontosGerados, Integer.class)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return false;
+        }
+        t.id = ((Number) ids.get(0)).longValue();
+        return true;
+    }
+
+    // --------------------- Carga em lote (COPY) ---------------------
+
+    private static final String SQL_CRIAR_CARGA =
+            "CREATE TEMP TABLE IF NOT EXISTS transacao_carga (" +
+            "    linha INTEGER NOT NULL, cartao_id BIGINT NOT NULL, usuario_id BIGINT NOT NULL, " +
+            "    valor NUMERIC(12,2) NOT NULL, moeda VARCHAR(3) NOT NULL, mcc VARCHAR(4), categoria VARCHAR(60), " +
+            "    parceiro_id BIGINT, autorizacao VARCHAR(100), data_evento TIMESTAMP NOT NULL" +
+            ") ON COMMIT DELETE ROWS";
+
+    private static final String SQL_COPY_CARGA =
+            "COPY transacao_carga (linha, cartao_id, usuario_id, valor, moeda, mcc, categoria, parceiro_id, autorizacao, data_evento) " +
+            "FROM STDIN";
+
+    /** Mesma chave natural de {@link #findByChaveNatural}: autorização vazia equivale a nula. */
+    private static final String SQL_MESCLAR_CARGA =
+            "WITH novas AS ( " +
+            "    INSERT INTO loyalty.transacao (id, cartao_id, usuario_id, valor, moeda, mcc, categoria, parceiro_id, " +
+            "                                   status, autorizacao, data_evento) " +
+            "    SELECT nextval('loyalty.transacao_SEQ'), c.cartao_id, c.usuario_id, c.valor, c.moeda, c.mcc, c.categoria, " +
+            "           c.parceiro_id, 'APROVADA', c.autorizacao, c.data_evento " +
+            "    FROM transacao_carga c " +
+            "    WHERE NOT EXISTS (SELECT 1 FROM loyalty.transacao t " +
+            "                      WHERE t.cartao_id = c.cartao_id AND t.data_evento = c.data_evento " +
+            "                        AND COALESCE(t.autorizacao, '') = COALESCE(c.autorizacao, '')) " +
+            "    ORDER BY c.linha " +
+            "    ON CONFLICT DO NOTHING " +
+            "    RETURNING id, cartao_id, data_evento, autorizacao " +
+            ") " +
+            "SELECT c.linha, COALESCE(n.id, e.id), n.id IS NOT NULL " +
+            "FROM transacao_carga c " +
+            "LEFT JOIN novas n ON n.cartao_id = c.cartao_id AND n.data_evento = c.data_evento " +
+            "                 AND COALESCE(n.autorizacao, '') = COALESCE(c.autorizacao, '') " +
+            "LEFT JOIN LATERAL (SELECT t.id FROM loyalty.transacao t " +
+            "                   WHERE n.id IS NULL AND t.cartao_id = c.cartao_id AND t.data_evento = c.data_evento " +
+            "                     AND COALESCE(t.autorizacao, '') = COALESCE(c.autorizacao, '') " +
+            "                   ORDER BY t.id LIMIT 1) e ON TRUE";
+
+    /**
+     * Grava as transações via COPY numa tabela temporária e mescla em transacao (status APROVADA),
+     * ignorando as que já existem pela chave natural (cartão + data do evento + autorização).
+     * As transações não podem repetir a chave natural entre si. Preenche {@code id} de todas (nova ou existente;
+     * null se outra gravação concorrente venceu o índice único uk_transacao_chave_natural e ainda não é visível).
+     *
+     * @return posições (índices da lista) das transações inseridas
+     */
+    public BitSet carregarViaCopy(List<Transacao> transacoes) {
+        BitSet criadas = new BitSet(transacoes.size());
+        if (transacoes.isEmpty()) return criadas;
+
+        StringBuilder dados = new StringBuilder(transacoes.size() * 96);
+        for (int i = 0; i < transacoes.size(); i++) {
+            Transacao t = transacoes.get(i);
+            dados.append(i).append('\t')
+                 .append(t.cartao.id).append('\t')
+                 .append(t.usuario.id).append('\t')
+                 .append(t.valor.toPlainString()).append('\t');
+            campoCopy(dados, t.moeda).append('\t');
+            campoCopy(dados, t.mcc).append('\t');
+            campoCopy(dados, t.categoria).append('\t');
+            campoCopy(dados, t.parceiroId != null ? t.parceiroId.toString() : null).append('\t');
+            campoCopy(dados, t.autorizacao != null && !t.autorizacao.isEmpty() ? t.autorizacao : null).append('\t');
+            dados.append(t.dataEvento).append('\n');
+        }
+
+        getEntityManager().unwrap(Session.class).doWork(conn -> {
+            try (Statement st = conn.createStatement()) {
+                st.execute(SQL_CRIAR_CARGA);
+            }
+            try {
+                conn.unwrap(PGConnection.class).getCopyAPI().copyIn(SQL_COPY_CARGA, new StringReader(dados.toString()));
+            } catch (IOException e) {
+                throw new SQLException("Falha no COPY da carga de transações: " + e.getMessage(), e);
+            }
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery(SQL_MESCLAR_CARGA)) {
+                while (rs.next()) {
+                    int i = rs.getInt(1);
+                    long id = rs.getLong(2);
+                    // null: gravada por outra carga concorrente depois do início do comando (índice único resolveu)
+                    transacoes.get(i).id = rs.wasNull() ? null : id;
+                    if (rs.getBoolean(3)) criadas.set(i);
+                }
+            }
+        });
+        return criadas;
+    }
+
+    /** Campo no formato texto do COPY: \N para nulo; barra, tab e quebras de linha escapadas. */
+    private static StringBuilder campoCopy(StringBuilder sb, String valor) {
+        if (valor == null) return sb.append("\\N");
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '\t' -> sb.append("\\t");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(c);
+            }
+        }
+        return sb;
+    }
+
     public List<Transacao> listarPendentesProcessamentoPorUsuario(Long usuarioId) {
         if (usuarioId == null) return List.of();
         return find("usuario.id = ?1 and status = ?2", usuarioId, StatusTransacao.APROVADA).list();
@@ -227,63 +461,67 @@ public class TransacaoRepository implements PanacheRepository<Transacao> {
 
     // --------------------- Paginação & Busca avançada ---------------------
 
+    /** Ordem das listagens (igual ao cursor e aos índices *_data_id da V19): mais recente primeiro. */
+    private static final Sort ORDEM_LISTAGEM = Sort.descending("dataEvento", "id");
+
     /** Busca avançada com filtros opcionais e paginação. */
     public PanacheQuery<Transacao> queryAvancada(Long usuarioId, Long cartaoId, String mcc,
                                                  String categoria, StatusTransacao status,
                                                  LocalDateTime inicio, LocalDateTime fim,
                                                  int page, int size) {
-        StringBuilder query = new StringBuilder();
         var params = new java.util.ArrayList<>();
-        int paramIndex = 1;
+        String query = filtroAvancado(params, usuarioId, cartaoId, mcc, categoria, status, inicio, fim);
 
-        if (usuarioId != null) {
-            query.append("usuario.id = ?").append(paramIndex++);
-            params.add(usuarioId);
-        }
-        if (cartaoId != null) {
-            if (query.length() > 0) query.append(" and ");
-            query.append("cartao.id = ?").append(paramIndex++);
-            params.add(cartaoId);
-        }
-        if (mcc != null && !mcc.isBlank()) {
-            if (query.length() > 0) query.append(" and ");
-            query.append("mcc = ?").append(paramIndex++);
-            params.add(mcc.trim());
-        }
-        if (categoria != null && !categoria.isBlank()) {
-            if (query.length() > 0) query.append(" and ");
-            query.append("lower(categoria) like ?").append(paramIndex++);
-            params.add("%" + categoria.trim().toLowerCase() + "%");
-        }
-        if (status != null) {
-            if (query.length() > 0) query.append(" and ");
-            query.append("status = ?").append(paramIndex++);
-            params.add(status);
-        }
-        if (inicio != null) {
-            if (query.length() > 0) query.append(" and ");
-            query.append("dataEvento >= ?").append(paramIndex++);
-            params.add(inicio);
-        }
-        if (fim != null) {
+        PanacheQuery<Transacao> panacheQuery = query.isEmpty()
+                ? findAll(ORDEM_LISTAGEM)
+                : find(query, ORDEM_LISTAGEM, params.toArray());
+
+        return panacheQuery.page(Page.of(page, size));
+    }
+
+    /**
+     * Busca avançada por chave (keyset): até {@code limite} transações depois da posição
+     * (dataEvento, id) informada, na ordem da listagem. Sem OFFSET: o custo não cresce com a profundidade.
+     * A posição é a da última linha da página anterior; null = primeira página.
+     */
+    public List<Transacao> listarAvancadaAposChave(Long usuarioId, Long cartaoId, String mcc,
+                                                   String categoria, StatusTransacao status,
+                                                   LocalDateTime inicio, LocalDateTime fim,
+                                                   LocalDateTime depoisData, Long depoisId, int limite) {
+        var params = new java.util.ArrayList<>();
+        StringBuilder query = new StringBuilder(
+                filtroAvancado(params, usuarioId, cartaoId, mcc, categoria, status, inicio, fim));
+        if (depoisData != null && depoisId != null) {
             if (query.length() > 0) query.append(" and ");
-            query.append("dataEvento <= ?").append(paramIndex++);
-            params.add(fim);
+            query.append("(dataEvento, id) < (?").append(params.size() + 1)
+                 .append(", ?").append(params.size() + 2).append(")");
+            params.add(depoisData);
+            params.add(depoisId);
         }
 
-        PanacheQuery<Transacao> panacheQuery =
-                (query.length() > 0) ? find(query.toString(), params.toArray()) : findAll();
+        PanacheQuery<Transacao> panacheQuery = (query.length() > 0)
+                ? find(query.toString(), ORDEM_LISTAGEM, params.toArray())
+                : findAll(ORDEM_LISTAGEM);
 
-        return panacheQuery.page(Page.of(page, size));
+        return panacheQuery.page(Page.ofSize(limite)).list();
     }
 
     /** Contagem para busca avançada (usado para paginação). */
     public long queryAvancadaCount(Long usuarioId, Long cartaoId, String mcc,
                                    String categoria, StatusTransacao status,
                                    LocalDateTime inicio, LocalDateTime fim) {
-        StringBuilder query = new StringBuilder();
         var params = new java.util.ArrayList<>();
-        int paramIndex = 1;
+        String query = filtroAvancado(params, usuarioId, cartaoId, mcc, categoria, status, inicio, fim);
+
+        return query.isEmpty() ? count() : count(query, params.toArray());
+    }
+
+    /** Cláusula where (sem "where") dos filtros da busca avançada; os valores vão em {@code params}. */
+    private static String filtroAvancado(List<Object> params, Long usuarioId, Long cartaoId, String mcc,
+                                         String categoria, StatusTransacao status,
+                                         LocalDateTime inicio, LocalDateTime fim) {
+        StringBuilder query = new StringBuilder();
+        int paramIndex = params.size() + 1;
 
         if (usuarioId != null) {
             query.append("usuario.id = ?").append(paramIndex++);
@@ -319,7 +557,6 @@ public class TransacaoRepository implements PanacheRepository<Transacao> {
             query.append("dataEvento <= ?").append(paramIndex++);
             params.add(fim);
         }
-
-        return (query.length() > 0) ? count(query.toString(), params.toArray()) : count();
+        return query.toString();
     }
 }
@@ -9,6 +9,14 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.acme.loyalty.dto.*;
 import org.acme.loyalty.service.AdminService;
+import org.acme.loyalty.service.FilaPontuacaoService;
+import org.acme.loyalty.service.NivelUsuarioService;
+import org.acme.loyalty.service.PassivoParceiroService;
+import org.acme.loyalty.service.PontuacaoLoteService;
+import org.acme.loyalty.service.ReprocessamentoPontosService;
+import org.acme.loyalty.service.SegmentoUsuarioService;
+import org.acme.loyalty.service.SimulacaoImpactoService;
+import org.acme.loyalty.service.TaxaCambioService;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
@@ -19,6 +27,7 @@ import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import org.jboss.logging.Logger;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
@@ -32,6 +41,30 @@ public class AdminResource {
     
     @Inject
     AdminService adminService;
+    
+    @Inject
+    PontuacaoLoteService pontuacaoLoteService;
+    
+    @Inject
+    SimulacaoImpactoService simulacaoImpactoService;
+    
+    @Inject
+    ReprocessamentoPontosService reprocessamentoPontosService;
+
+    @Inject
+    SegmentoUsuarioService segmentoUsuarioService;
+
+    @Inject
+    TaxaCambioService taxaCambioService;
+
+    @Inject
+    NivelUsuarioService nivelUsuarioService;
+
+    @Inject
+    FilaPontuacaoService filaPontuacaoService;
+
+    @Inject
+    PassivoParceiroService passivoParceiroService;
 
     @GET
     @Path("/dashboard")
@@ -156,6 +189,8 @@ public class AdminResource {
     @APIResponse(responseCode = "200", description = "Estorno de pontos realizado com sucesso",
                  content = @Content(schema = @Schema(implementation = MovimentoPontosDTO.class)))
     @APIResponse(responseCode = "400", description = "Dados inválidos")
+    @APIResponse(responseCode = "404", description = "Transação sem acúmulo de pontos")
+    @APIResponse(responseCode = "409", description = "Acúmulo já estornado")
     @APIResponse(responseCode = "500", description = "Erro interno do servidor")
     public Response realizarEstornoPontos(
             @Parameter(description = "ID da transação", required = true, example = "123")
@@ -167,9 +202,7 @@ public class AdminResource {
         try {
             LOG.info("Realizando estorno de pontos - transação: " + transacaoId + ", motivo: " + motivo);
             
-            // Implementar método realizarEstornoPontos no AdminService
-            // MovimentoPontosDTO movimento = adminService.realizarEstornoPontos(transacaoId, motivo);
-            MovimentoPontosDTO movimento = new MovimentoPontosDTO();
+            MovimentoPontosDTO movimento = adminService.realizarEstornoPontos(transacaoId, motivo);
             
             LOG.info("Estorno de pontos realizado com sucesso - ID: " + movimento.id);
             
@@ -179,6 +212,14 @@ public class AdminResource {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity(ErrorResponseDTO.badRequest("Dados inválidos: " + e.getMessage()))
                     .build();
+        } catch (NotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(ErrorResponseDTO.notFound(e.getMessage()))
+                    .build();
+        } catch (AdminService.EstornoDuplicadoException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(ErrorResponseDTO.conflict(e.getMessage()))
+                    .build();
         } catch (Exception e) {
             LOG.error("Erro ao realizar estorno de pontos: " + e.getMessage(), e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -269,6 +310,535 @@ public class AdminResource {
         }
     }
 
+    @POST
+    @Path("/pontuacao/processar-pendentes")
+    @Operation(summary = "Pontuar transações pendentes em lote", 
+               description = "Processa transações aprovadas ainda não pontuadas em lotes (um commit por lote)")
+    @APIResponse(responseCode = "200", description = "Lotes processados com sucesso",
+                 content = @Content(schema = @Schema(implementation = ProcessamentoLoteDTO.class)))
+    @APIResponse(responseCode = "400", description = "Parâmetros inválidos")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response processarPendentes(
+            @Parameter(description = "Transações por lote", example = "1000")
+            @QueryParam("tamanhoLote") @DefaultValue("1000") @Min(1) Integer tamanhoLote,
+            
+            @Parameter(description = "Quantidade máxima de lotes", example = "100")
+            @QueryParam("maxLotes") @DefaultValue("100") @Min(1) Integer maxLotes) {
+        
+        try {
+            LOG.info("Processando transações pendentes em lote - tamanhoLote: " + tamanhoLote + ", maxLotes: " + maxLotes);
+            
+            ProcessamentoLoteDTO resultado = pontuacaoLoteService.processarPendentes(tamanhoLote, maxLotes);
+            
+            LOG.info("Processamento em lote concluído - transações: " + resultado.transacoesLidas);
+            
+            return Response.ok(SuccessResponseDTO.ok("Transações pendentes processadas com sucesso", resultado)).build();
+        } catch (IllegalArgumentException e) {
+            LOG.error("Erro de validação ao processar lote: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest("Parâmetros inválidos: " + e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            LOG.error("Erro ao processar transações pendentes: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao processar lote: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/simulacoes/impacto")
+    @Operation(summary = "Simular impacto de regras e campanhas", 
+               description = "Pontua o histórico de transações com as regras/campanhas atuais e com a proposta, sem gravar nada, e retorna o delta por categoria, MCC e parceiro")
+    @APIResponse(responseCode = "200", description = "Simulação executada com sucesso",
+                 content = @Content(schema = @Schema(implementation = SimulacaoImpactoDTO.class)))
+    @APIResponse(responseCode = "400", description = "Parâmetros inválidos")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response simularImpacto(@Valid SimulacaoImpactoRequestDTO request) {
+        try {
+            SimulacaoImpactoRequestDTO proposta = request != null ? request : new SimulacaoImpactoRequestDTO();
+            LOG.info("Simulando impacto - meses: " + proposta.meses
+                    + ", regras propostas: " + (proposta.regras != null ? proposta.regras.size() : 0)
+                    + ", campanhas propostas: " + (proposta.campanhas != null ? proposta.campanhas.size() : 0));
+            
+            SimulacaoImpactoDTO resultado = simulacaoImpactoService.simular(proposta);
+            
+            LOG.info("Simulação de impacto concluída - transações: " + resultado.transacoesLidas + ", delta: " + resultado.delta);
+            
+            return Response.ok(SuccessResponseDTO.ok("Simulação de impacto executada com sucesso", resultado)).build();
+        } catch (IllegalArgumentException e) {
+            LOG.error("Erro de validação na simulação de impacto: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest("Parâmetros inválidos: " + e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            LOG.error("Erro ao simular impacto: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao simular impacto: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/reprocessamentos")
+    @Operation(summary = "Reprocessar pontos após correção de regra", 
+               description = "Recalcula as transações do período com as regras atuais e grava AJUSTEs líquidos em lotes com checkpoint. " +
+                             "Executa até maxLotes lotes; reenviar o mesmo jobId (ou usar /retomar) continua do checkpoint")
+    @APIResponse(responseCode = "200", description = "Reprocessamento executado (concluído ou pausado no checkpoint)",
+                 content = @Content(schema = @Schema(implementation = ReprocessamentoPontosDTO.class)))
+    @APIResponse(responseCode = "400", description = "Parâmetros inválidos")
+    @APIResponse(responseCode = "404", description = "Regra não encontrada")
+    @APIResponse(responseCode = "409", description = "Job em execução por outra requisição")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response iniciarReprocessamento(
+            @Parameter(description = "Regra corrigida e período afetado", required = true)
+            @Valid @NotNull ReprocessamentoPontosRequestDTO request,
+            
+            @Parameter(description = "Quantidade máxima de lotes nesta execução", example = "100")
+            @QueryParam("maxLotes") @DefaultValue("100") @Min(1) Integer maxLotes) {
+        
+        try {
+            LOG.info("Iniciando reprocessamento - regra: " + request.regraId + ", período: " + request.dataInicio + " a " + request.dataFim);
+            
+            ReprocessamentoPontosDTO resultado = reprocessamentoPontosService.iniciar(request, maxLotes);
+            
+            LOG.info("Reprocessamento " + resultado.jobId + " - status: " + resultado.status + ", ajustes: " + resultado.transacoesAjustadas);
+            
+            return Response.ok(SuccessResponseDTO.ok("Reprocessamento executado com sucesso", resultado)).build();
+        } catch (IllegalArgumentException e) {
+            LOG.error("Erro de validação no reprocessamento: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest("Parâmetros inválidos: " + e.getMessage()))
+                    .build();
+        } catch (NotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(ErrorResponseDTO.notFound(e.getMessage()))
+                    .build();
+        } catch (ReprocessamentoPontosService.CheckpointDivergenteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(ErrorResponseDTO.conflict(e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            LOG.error("Erro ao reprocessar pontos: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao reprocessar pontos: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/reprocessamentos/{jobId}/retomar")
+    @Operation(summary = "Retomar reprocessamento", 
+               description = "Continua o job a partir do último checkpoint gravado")
+    @APIResponse(responseCode = "200", description = "Reprocessamento executado (concluído ou pausado no checkpoint)",
+                 content = @Content(schema = @Schema(implementation = ReprocessamentoPontosDTO.class)))
+    @APIResponse(responseCode = "404", description = "Job não encontrado")
+    @APIResponse(responseCode = "409", description = "Job em execução por outra requisição")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response retomarReprocessamento(
+            @Parameter(description = "ID do job", required = true)
+            @PathParam("jobId") String jobId,
+            
+            @Parameter(description = "Quantidade máxima de lotes nesta execução", example = "100")
+            @QueryParam("maxLotes") @DefaultValue("100") @Min(1) Integer maxLotes) {
+        
+        try {
+            LOG.info("Retomando reprocessamento - job: " + jobId + ", maxLotes: " + maxLotes);
+            
+            ReprocessamentoPontosDTO resultado = reprocessamentoPontosService.executar(jobId, maxLotes);
+            
+            return Response.ok(SuccessResponseDTO.ok("Reprocessamento executado com sucesso", resultado)).build();
+        } catch (IllegalArgumentException e) {
+            LOG.error("Erro de validação no reprocessamento: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest("Parâmetros inválidos: " + e.getMessage()))
+                    .build();
+        } catch (NotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(ErrorResponseDTO.notFound(e.getMessage()))
+                    .build();
+        } catch (ReprocessamentoPontosService.CheckpointDivergenteException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(ErrorResponseDTO.conflict(e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            LOG.error("Erro ao retomar reprocessamento: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao retomar reprocessamento: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @GET
+    @Path("/reprocessamentos/{jobId}")
+    @Operation(summary = "Consultar reprocessamento", 
+               description = "Retorna status, checkpoint e totais do job")
+    @APIResponse(responseCode = "200", description = "Job encontrado",
+                 content = @Content(schema = @Schema(implementation = ReprocessamentoPontosDTO.class)))
+    @APIResponse(responseCode = "404", description = "Job não encontrado")
+    public Response consultarReprocessamento(
+            @Parameter(description = "ID do job", required = true)
+            @PathParam("jobId") String jobId) {
+        
+        try {
+            return Response.ok(SuccessResponseDTO.ok("Reprocessamento encontrado", reprocessamentoPontosService.consultar(jobId))).build();
+        } catch (NotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(ErrorResponseDTO.notFound(e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            LOG.error("Erro ao consultar reprocessamento: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao consultar reprocessamento: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @GET
+    @Path("/segmentos")
+    @Operation(summary = "Listar segmentos de usuários", 
+               description = "Definições dos segmentos e situação dos bitmaps materializados")
+    @APIResponse(responseCode = "200", description = "Segmentos listados com sucesso")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response listarSegmentos() {
+        try {
+            return Response.ok(SuccessResponseDTO.ok("Segmentos listados com sucesso", segmentoUsuarioService.listar())).build();
+        } catch (Exception e) {
+            LOG.error("Erro ao listar segmentos: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao listar segmentos: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/segmentos")
+    @Operation(summary = "Criar segmento de usuários", 
+               description = "Define um segmento por gasto, mix de MCC e antiguidade; os membros são materializados na próxima reconstrução")
+    @APIResponse(responseCode = "201", description = "Segmento criado",
+                 content = @Content(schema = @Schema(implementation = SegmentoUsuarioDTO.class)))
+    @APIResponse(responseCode = "400", description = "Definição inválida")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response criarSegmento(
+            @Parameter(description = "Definição do segmento", required = true)
+            @Valid @NotNull SegmentoUsuarioRequestDTO request) {
+        
+        try {
+            SegmentoUsuarioDTO criado = segmentoUsuarioService.criar(request);
+            return Response.status(Response.Status.CREATED)
+                    .entity(SuccessResponseDTO.ok("Segmento criado com sucesso", criado))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            LOG.error("Erro de validação ao criar segmento: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest("Parâmetros inválidos: " + e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            LOG.error("Erro ao criar segmento: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao criar segmento: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @PUT
+    @Path("/segmentos/{id}")
+    @Operation(summary = "Alterar segmento de usuários", 
+               description = "Substitui a definição; o bitmap é descartado e a próxima reconstrução do segmento é completa")
+    @APIResponse(responseCode = "200", description = "Segmento alterado",
+                 content = @Content(schema = @Schema(implementation = SegmentoUsuarioDTO.class)))
+    @APIResponse(responseCode = "400", description = "Definição inválida")
+    @APIResponse(responseCode = "404", description = "Segmento não encontrado")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response alterarSegmento(
+            @Parameter(description = "ID do segmento", required = true)
+            @PathParam("id") Long id,
+            
+            @Parameter(description = "Nova definição do segmento", required = true)
+            @Valid @NotNull SegmentoUsuarioRequestDTO request) {
+        
+        try {
+            return Response.ok(SuccessResponseDTO.ok("Segmento alterado com sucesso", segmentoUsuarioService.atualizar(id, request))).build();
+        } catch (IllegalArgumentException e) {
+            LOG.error("Erro de validação ao alterar segmento: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest("Parâmetros inválidos: " + e.getMessage()))
+                    .build();
+        } catch (NotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(ErrorResponseDTO.notFound(e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            LOG.error("Erro ao alterar segmento: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao alterar segmento: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/segmentos/reconstruir")
+    @Operation(summary = "Reconstruir segmentos de usuários", 
+               description = "Materializa os segmentos ativos como bitmaps de usuario_id (incremental quando possível), " +
+                             "lendo as partições de usuários em paralelo")
+    @APIResponse(responseCode = "200", description = "Segmentos reconstruídos")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response reconstruirSegmentos(
+            @Parameter(description = "Força a reconstrução completa de todos os segmentos", example = "false")
+            @QueryParam("completa") @DefaultValue("false") boolean completa) {
+        
+        try {
+            LOG.info("Reconstruindo segmentos de usuários - completa: " + completa);
+            
+            return Response.ok(SuccessResponseDTO.ok("Segmentos reconstruídos com sucesso", segmentoUsuarioService.reconstruir(completa))).build();
+        } catch (Exception e) {
+            LOG.error("Erro ao reconstruir segmentos: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao reconstruir segmentos: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @GET
+    @Path("/cambio")
+    @Operation(summary = "Listar taxas de câmbio", 
+               description = "Vigências das taxas usadas para converter transações em moeda estrangeira para BRL")
+    @APIResponse(responseCode = "200", description = "Taxas listadas com sucesso")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response listarTaxasCambio(
+            @Parameter(description = "Filtra pela moeda de origem", example = "USD")
+            @QueryParam("moeda") String moeda) {
+        
+        try {
+            return Response.ok(SuccessResponseDTO.ok("Taxas de câmbio listadas com sucesso", taxaCambioService.listar(moeda))).build();
+        } catch (Exception e) {
+            LOG.error("Erro ao listar taxas de câmbio: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao listar taxas de câmbio: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/cambio")
+    @Operation(summary = "Registrar taxa de câmbio", 
+               description = "Cadastra uma nova vigência de taxa (moeda estrangeira -> BRL); vale para eventos a partir de vigenteDesde")
+    @APIResponse(responseCode = "201", description = "Taxa registrada",
+                 content = @Content(schema = @Schema(implementation = TaxaCambioDTO.class)))
+    @APIResponse(responseCode = "400", description = "Taxa inválida ou vigência já cadastrada")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response registrarTaxaCambio(
+            @Parameter(description = "Taxa de câmbio", required = true)
+            @Valid @NotNull TaxaCambioRequestDTO request) {
+        
+        try {
+            TaxaCambioDTO registrada = taxaCambioService.registrar(request);
+            return Response.status(Response.Status.CREATED)
+                    .entity(SuccessResponseDTO.ok("Taxa de câmbio registrada com sucesso", registrada))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            LOG.error("Erro de validação ao registrar taxa de câmbio: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest("Parâmetros inválidos: " + e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            LOG.error("Erro ao registrar taxa de câmbio: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao registrar taxa de câmbio: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @GET
+    @Path("/niveis")
+    @Operation(summary = "Listar níveis de fidelidade", 
+               description = "Níveis definidos (gasto mínimo dos últimos 12 meses e bônus) e quantidade de usuários em cada um")
+    @APIResponse(responseCode = "200", description = "Níveis listados com sucesso")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response listarNiveis() {
+        try {
+            return Response.ok(SuccessResponseDTO.ok("Níveis listados com sucesso", nivelUsuarioService.listar())).build();
+        } catch (Exception e) {
+            LOG.error("Erro ao listar níveis: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao listar níveis: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/niveis/avaliar")
+    @Operation(summary = "Avaliar níveis de fidelidade", 
+               description = "Reavalia os níveis pelos baldes de gasto mensal; incremental (alterados e janela vencida) ou completa")
+    @APIResponse(responseCode = "200", description = "Avaliação concluída",
+                 content = @Content(schema = @Schema(implementation = AvaliacaoNiveisDTO.class)))
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response avaliarNiveis(
+            @Parameter(description = "Reavalia todos os usuários com gasto na janela (use após alterar a definição dos níveis)")
+            @QueryParam("completa") @DefaultValue("false") boolean completa) {
+        
+        try {
+            AvaliacaoNiveisDTO resultado = nivelUsuarioService.avaliar(completa);
+            return Response.ok(SuccessResponseDTO.ok("Níveis avaliados com sucesso", resultado)).build();
+        } catch (Exception e) {
+            LOG.error("Erro ao avaliar níveis: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao avaliar níveis: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @GET
+    @Path("/velocidade")
+    @Operation(summary = "Consultar controle de velocidade", 
+               description = "Limites de quantidade/valor por cartão (1 min, 1 h, 24 h), ocupação do rastreador deste nó e transações retidas")
+    @APIResponse(responseCode = "200", description = "Situação do controle de velocidade",
+                 content = @Content(schema = @Schema(implementation = ControleVelocidadeDTO.class)))
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response consultarControleVelocidade() {
+        try {
+            return Response.ok(SuccessResponseDTO.ok("Controle de velocidade consultado com sucesso",
+                    filaPontuacaoService.situacaoVelocidade())).build();
+        } catch (Exception e) {
+            LOG.error("Erro ao consultar controle de velocidade: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao consultar controle de velocidade: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @GET
+    @Path("/velocidade/retidas")
+    @Operation(summary = "Listar transações retidas", 
+               description = "Transações que excederam um limite de velocidade do cartão e aguardam liberação para pontuação")
+    @APIResponse(responseCode = "200", description = "Transações retidas listadas com sucesso")
+    @APIResponse(responseCode = "400", description = "Parâmetros inválidos")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response listarTransacoesRetidas(
+            @Parameter(description = "Quantidade máxima (mais antigas primeiro)", example = "100")
+            @QueryParam("limite") @DefaultValue("100") Integer limite) {
+        
+        try {
+            return Response.ok(SuccessResponseDTO.ok("Transações retidas listadas com sucesso",
+                    filaPontuacaoService.listarRetidas(limite))).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest("Parâmetros inválidos: " + e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            LOG.error("Erro ao listar transações retidas: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao listar transações retidas: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/velocidade/retidas/{transacaoId}/liberar")
+    @Operation(summary = "Liberar transação retida", 
+               description = "Devolve a transação retida à fila de pontuação")
+    @APIResponse(responseCode = "200", description = "Transação liberada")
+    @APIResponse(responseCode = "404", description = "Transação retida não encontrada")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response liberarTransacaoRetida(
+            @Parameter(description = "ID da transação", required = true)
+            @PathParam("transacaoId") Long transacaoId) {
+        
+        try {
+            filaPontuacaoService.liberarRetida(transacaoId);
+            return Response.ok(SuccessResponseDTO.ok("Transação liberada para pontuação", transacaoId)).build();
+        } catch (NotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(ErrorResponseDTO.notFound(e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            LOG.error("Erro ao liberar transação retida: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao liberar transação retida: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/passivo-parceiros/verificar")
+    @Operation(summary = "Conferir passivo por parceiro",
+               description = "Compara o livro diário de passivo por parceiro com movimentos e resgates do período; " +
+                             "com corrigir=true as linhas divergentes recebem o valor apurado (também reconstrói o histórico)")
+    @APIResponse(responseCode = "200", description = "Conferência concluída",
+                 content = @Content(schema = @Schema(implementation = VerificacaoPassivoDTO.class)))
+    @APIResponse(responseCode = "400", description = "Parâmetros inválidos")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response verificarPassivoParceiros(
+            @Parameter(description = "Data de início (yyyy-MM-dd)", required = true, example = "2024-06-01")
+            @QueryParam("dataInicio") @NotNull String dataInicio,
+
+            @Parameter(description = "Data de fim, inclusive (yyyy-MM-dd)", required = true, example = "2024-06-30")
+            @QueryParam("dataFim") @NotNull String dataFim,
+
+            @Parameter(description = "Corrige as linhas divergentes com o valor apurado")
+            @QueryParam("corrigir") @DefaultValue("false") boolean corrigir) {
+
+        try {
+            VerificacaoPassivoDTO resultado = passivoParceiroService.verificar(parseDate(dataInicio), parseDate(dataFim), corrigir);
+            return Response.ok(SuccessResponseDTO.ok("Passivo por parceiro conferido com sucesso", resultado)).build();
+        } catch (DateTimeParseException e) {
+            LOG.error("Erro de formato de data: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest("Formato de data inválido. Use yyyy-MM-dd"))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            LOG.error("Erro de validação ao conferir passivo: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest("Parâmetros inválidos: " + e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            LOG.error("Erro ao conferir passivo por parceiro: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao conferir passivo: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/acumulos-mensais/reconstruir")
+    @Operation(summary = "Reconstruir contadores de teto mensal", 
+               description = "Recalcula os contadores de pontos por usuário/cartão/regra/mês a partir dos movimentos de acúmulo")
+    @APIResponse(responseCode = "200", description = "Contadores reconstruídos com sucesso")
+    @APIResponse(responseCode = "400", description = "Parâmetros inválidos")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response reconstruirAcumulosMensais(
+            @Parameter(description = "Mês inicial (yyyy-MM)", required = true, example = "2024-01")
+            @QueryParam("mesInicio") @NotNull String mesInicio,
+            
+            @Parameter(description = "Mês final (yyyy-MM)", required = true, example = "2024-12")
+            @QueryParam("mesFim") @NotNull String mesFim) {
+        
+        try {
+            LOG.info("Reconstruindo contadores mensais - de: " + mesInicio + ", até: " + mesFim);
+            
+            int gravados = adminService.reconstruirAcumulosMensais(YearMonth.parse(mesInicio.trim()), YearMonth.parse(mesFim.trim()));
+            
+            LOG.info("Contadores mensais reconstruídos com sucesso - total: " + gravados);
+            
+            return Response.ok(SuccessResponseDTO.ok("Contadores mensais reconstruídos com sucesso", gravados)).build();
+        } catch (DateTimeParseException e) {
+            LOG.error("Erro de formato de mês: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest("Formato de mês inválido. Use yyyy-MM"))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            LOG.error("Erro de validação ao reconstruir contadores: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest("Parâmetros inválidos: " + e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            LOG.error("Erro ao reconstruir contadores mensais: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao reconstruir contadores: " + e.getMessage()))
+                    .build();
+        }
+    }
+
     @GET
     @Path("/sistema/health")
     @Operation(summary = "Consultar health do sistema", 
@@ -0,0 +1,81 @@
+package org.acme.loyalty.resource;
+
+import jakarta.inject.Inject;
+import jakarta.validation.constraints.Min;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.acme.loyalty.dto.CotacaoPontosDTO;
+import org.acme.loyalty.dto.ErrorResponseDTO;
+import org.acme.loyalty.dto.SuccessResponseDTO;
+import org.acme.loyalty.service.CotacaoPontosService;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+
+@Path("/pontos/cotacao")
+@Produces(MediaType.APPLICATION_JSON)
+@Tag(name = "Pontos", description = "APIs para consulta de pontos e saldos dos usuários")
+public class CotacaoPontosResource {
+
+    private static final Logger LOG = Logger.getLogger(CotacaoPontosResource.class);
+
+    @Inject
+    CotacaoPontosService cotacaoPontosService;
+
+    @GET
+    @Operation(summary = "Cotar pontos de uma compra",
+               description = "Retorna os pontos que a compra geraria (regra, bônus de campanha e teto mensal restante) " +
+                             "a partir do estado em memória, sem gravar nada")
+    @APIResponse(responseCode = "200", description = "Cotação calculada com sucesso",
+                 content = @Content(schema = @Schema(implementation = CotacaoPontosDTO.class)))
+    @APIResponse(responseCode = "400", description = "Parâmetros inválidos")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response cotar(
+            @Parameter(description = "Valor da compra", required = true, example = "150.00")
+            @QueryParam("valor") BigDecimal valor,
+
+            @Parameter(description = "Moeda da compra (ISO-4217; padrão BRL)", example = "USD")
+            @QueryParam("moeda") String moeda,
+
+            @Parameter(description = "MCC do estabelecimento", example = "5812")
+            @QueryParam("mcc") String mcc,
+
+            @Parameter(description = "Categoria da compra", example = "RESTAURANTE")
+            @QueryParam("categoria") String categoria,
+
+            @Parameter(description = "ID do parceiro", example = "12345")
+            @QueryParam("parceiroId") Long parceiroId,
+
+            @Parameter(description = "ID do usuário (para o teto mensal)", example = "123")
+            @QueryParam("usuarioId") @Min(1) Long usuarioId,
+
+            @Parameter(description = "ID do cartão (para o teto mensal)", example = "456")
+            @QueryParam("cartaoId") @Min(1) Long cartaoId) {
+
+        try {
+            CotacaoPontosDTO cotacao = cotacaoPontosService.cotar(valor, moeda, mcc, categoria, parceiroId, usuarioId, cartaoId);
+
+            // Caminho de alto volume: apenas debug
+            LOG.debugf("Cotação calculada - valor: %s, mcc: %s, pontos: %d", valor, mcc, cotacao.pontosTotais);
+
+            return Response.ok(SuccessResponseDTO.ok("Cotação calculada com sucesso", cotacao)).build();
+        } catch (IllegalArgumentException e) {
+            LOG.debug("Erro de validação na cotação de pontos: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest("Parâmetros inválidos: " + e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            LOG.error("Erro ao cotar pontos: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao cotar pontos: " + e.getMessage()))
+                    .build();
+        }
+    }
+}
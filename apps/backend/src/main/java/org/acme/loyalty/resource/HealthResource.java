@@ -1,10 +1,13 @@
 package org.acme.loyalty.resource;
 
+import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.acme.loyalty.dto.SuccessResponseDTO;
 import org.acme.loyalty.dto.ErrorResponseDTO;
+import org.acme.loyalty.service.AquecimentoService;
+import org.acme.loyalty.service.HealthService;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -14,6 +17,12 @@ import java.util.Map;
 @Produces(MediaType.APPLICATION_JSON)
 public class HealthResource {
 
+    @Inject
+    HealthService healthService;
+
+    @Inject
+    AquecimentoService aquecimentoService;
+
     @GET
     public Response healthCheck() {
         try {
@@ -35,11 +44,18 @@ public class HealthResource {
     @Path("/ready")
     public Response readinessCheck() {
         try {
-            // Implementar verificações de readiness (banco, cache, etc.)
+            // Aquecimento da inicialização + banco
+            if (!healthService.verificarReadiness()) {
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .entity(ErrorResponseDTO.internalError("Sistema não está pronto (aquecimento: " + aquecimentoService.estado() + ")"))
+                        .build();
+            }
             Map<String, Object> readiness = new HashMap<>();
             readiness.put("status", "READY");
             readiness.put("database", "UP");
             readiness.put("cache", "UP");
+            readiness.put("aquecimento", aquecimentoService.estado());
+            readiness.put("aquecimentoMs", aquecimentoService.duracaoMs());
             readiness.put("timestamp", LocalDateTime.now());
             
             return Response.ok(SuccessResponseDTO.ok("Sistema pronto para receber requisições", readiness)).build();
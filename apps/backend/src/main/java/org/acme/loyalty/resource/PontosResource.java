@@ -94,7 +94,13 @@ public class PontosResource {
             @QueryParam("pagina") @DefaultValue("1") @Min(1) Integer pagina,
             
             @Parameter(description = "Tamanho da página", example = "20")
-            @QueryParam("tamanho") @DefaultValue("20") @Min(1) Integer tamanho) {
+            @QueryParam("tamanho") @DefaultValue("20") @Min(1) Integer tamanho,
+            
+            @Parameter(description = "Cursor da próxima página (proximoCursor da resposta anterior); ignora 'pagina'")
+            @QueryParam("cursor") String cursor,
+            
+            @Parameter(description = "Inclui totalRegistros/totalPaginas (contagem à parte); omitidos por padrão")
+            @QueryParam("incluirTotal") @DefaultValue("false") boolean incluirTotal) {
         
         try {
             LOG.info("Consultando extrato do usuário - ID: " + usuarioId + ", cartão: " + cartaoId);
@@ -103,7 +109,7 @@ public class PontosResource {
             parseDate(dataInicio);
             parseDate(dataFim);
             
-            ExtratoPontosDTO extrato = pontosService.consultarExtrato(usuarioId, cartaoId, dataInicio, dataFim, tipoMovimento, categoria, parceiroId, pagina, tamanho);
+            ExtratoPontosDTO extrato = pontosService.consultarExtrato(usuarioId, cartaoId, dataInicio, dataFim, tipoMovimento, categoria, parceiroId, pagina, tamanho, cursor, incluirTotal);
             
             LOG.info("Extrato consultado com sucesso - usuário: " + usuarioId);
             
@@ -113,6 +119,10 @@ public class PontosResource {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity(ErrorResponseDTO.badRequest("Formato de data inválido. Use yyyy-MM-dd"))
                     .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest(e.getMessage()))
+                    .build();
         } catch (Exception e) {
             LOG.error("Erro ao consultar extrato do usuário - ID: " + usuarioId + ", erro: " + e.getMessage(), e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -1,11 +1,15 @@
 package org.acme.loyalty.resource;
 
+import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.acme.loyalty.dto.RegraConversaoDTO;
+import org.acme.loyalty.dto.RegraConversaoRequestDTO;
+import org.acme.loyalty.dto.RegraConversaoResponseDTO;
 import org.acme.loyalty.dto.SuccessResponseDTO;
 import org.acme.loyalty.dto.ErrorResponseDTO;
+import org.acme.loyalty.service.RegraConversaoService;
 
 import java.util.List;
 
@@ -14,19 +18,25 @@ import java.util.List;
 @Consumes(MediaType.APPLICATION_JSON)
 public class RegraConversaoResource {
 
+    @Inject
+    RegraConversaoService regraConversaoService;
+
     @POST
-    public Response criarRegra(RegraConversaoDTO request) {
+    public Response criarRegra(RegraConversaoRequestDTO request) {
         try {
-            // Implementar serviço de regras
-            RegraConversaoDTO regra = new RegraConversaoDTO();
+            RegraConversaoResponseDTO regra = regraConversaoService.criarRegra(request);
             
             return Response.status(Response.Status.CREATED)
                     .entity(SuccessResponseDTO.created(regra))
                     .build();
-        } catch (Exception e) {
+        } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity(ErrorResponseDTO.badRequest("Erro ao criar regra: " + e.getMessage()))
                     .build();
+        } catch (Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro interno ao criar regra: " + e.getMessage()))
+                    .build();
         }
     }
 
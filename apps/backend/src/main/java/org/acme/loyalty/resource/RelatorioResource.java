@@ -6,6 +6,7 @@ import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.acme.loyalty.dto.*;
+import org.acme.loyalty.service.PassivoParceiroService;
 import org.acme.loyalty.service.RelatorioService;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
@@ -34,6 +35,9 @@ public class RelatorioResource {
     @Inject
     RelatorioService relatorioService;
 
+    @Inject
+    PassivoParceiroService passivoParceiroService;
+
     @GET
     @Path("/pontos/acumulados")
     @Operation(summary = "Relatório de pontos acumulados", 
@@ -500,6 +504,48 @@ public class RelatorioResource {
         }
     }
 
+    @GET
+    @Path("/passivo-parceiros")
+    @Operation(summary = "Passivo de pontos por parceiro",
+               description = "Pontos gerados em transações do parceiro menos pontos resgatados em recompensas do parceiro, " +
+                             "por dia, lidos do livro diário por parceiro (custo proporcional à quantidade de dias, não de movimentos)")
+    @APIResponse(responseCode = "200", description = "Passivo consultado com sucesso",
+                 content = @Content(schema = @Schema(implementation = PassivoParceiroDTO.class, type = SchemaType.ARRAY)))
+    @APIResponse(responseCode = "400", description = "Parâmetros inválidos")
+    @APIResponse(responseCode = "500", description = "Erro interno do servidor")
+    public Response passivoParceiros(
+            @Parameter(description = "ID do parceiro (omitido: todos os parceiros com movimento)")
+            @QueryParam("parceiroId") Long parceiroId,
+
+            @Parameter(description = "Data de início (formato: yyyy-MM-dd)", example = "2024-06-01", required = true)
+            @QueryParam("dataInicio") String dataInicio,
+
+            @Parameter(description = "Data de fim, inclusive (formato: yyyy-MM-dd)", example = "2024-06-30", required = true)
+            @QueryParam("dataFim") String dataFim) {
+
+        try {
+            LocalDate inicio = parseDate(dataInicio);
+            LocalDate fim = parseDate(dataFim);
+
+            List<PassivoParceiroDTO> passivos = passivoParceiroService.consultar(parceiroId, inicio, fim);
+            return Response.ok(SuccessResponseDTO.ok("Passivo por parceiro consultado com sucesso", passivos)).build();
+        } catch (DateTimeParseException e) {
+            LOG.error("Erro ao parsear data: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest("Formato de data inválido. Use yyyy-MM-dd"))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest(e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            LOG.error("Erro ao consultar passivo por parceiro: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ErrorResponseDTO.internalError("Erro ao consultar passivo: " + e.getMessage()))
+                    .build();
+        }
+    }
+
     @GET
     @Path("/dashboard/executivo")
     @Operation(summary = "Dashboard executivo", 
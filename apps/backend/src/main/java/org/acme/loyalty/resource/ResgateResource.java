@@ -154,12 +154,18 @@ public class ResgateResource {
             @PathParam("usuarioId") Long usuarioId,
             @QueryParam("status") String status,
             @QueryParam("pagina") @DefaultValue("1") Integer pagina,
-            @QueryParam("tamanho") @DefaultValue("20") Integer tamanho) {
+            @QueryParam("tamanho") @DefaultValue("20") Integer tamanho,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("incluirTotal") @DefaultValue("false") boolean incluirTotal) {
         
         try {
-            PageResponseDTO<ResgateResponseDTO> resgates = resgateService.listarResgatesUsuario(usuarioId, status, pagina, tamanho);
+            PageResponseDTO<ResgateResponseDTO> resgates = resgateService.listarResgatesUsuario(usuarioId, status, pagina, tamanho, cursor, incluirTotal);
             
             return Response.ok(SuccessResponseDTO.ok("Resgates do usuário listados com sucesso", resgates)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest(e.getMessage()))
+                    .build();
         } catch (Exception e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity(ErrorResponseDTO.internalError("Erro ao listar resgates do usuário: " + e.getMessage()))
@@ -7,7 +7,9 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.acme.loyalty.dto.*;
+import org.acme.loyalty.service.TransacaoLoteService;
 import org.acme.loyalty.service.TransacaoService;
 import org.acme.loyalty.entity.Transacao;
 import org.eclipse.microprofile.openapi.annotations.Operation;
@@ -19,6 +21,7 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import org.jboss.logging.Logger;
 
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -31,9 +34,14 @@ public class TransacaoResource {
 
     private static final Logger LOG = Logger.getLogger(TransacaoResource.class);
 
+    static final String NDJSON = "application/x-ndjson";
+
     @Inject
     TransacaoService transacaoService;
 
+    @Inject
+    TransacaoLoteService transacaoLoteService;
+
     @POST
     @Operation(summary = "Criar transação", 
                description = "Registra uma nova transação no sistema e emite evento TransactionCreated")
@@ -69,6 +77,25 @@ public class TransacaoResource {
         }
     }
 
+    @POST
+    @Path("/lote")
+    @Consumes(TransacaoResource.NDJSON)
+    @Produces(TransacaoResource.NDJSON)
+    @Operation(summary = "Carga de transações em lote (NDJSON)",
+               description = "Recebe uma transação por linha (mesmo formato do POST /transacoes) e responde, em streaming, " +
+                             "uma linha por transação recebida com o resultado: CRIADA, RETIDA, DUPLICADA, REJEITADA ou ERRO")
+    @APIResponse(responseCode = "200", description = "Resultados por linha, na ordem recebida",
+                 content = @Content(mediaType = TransacaoResource.NDJSON,
+                                    schema = @Schema(implementation = TransacaoLoteResultadoDTO.class)))
+    public Response carregarLote(
+            @Parameter(description = "Transações em NDJSON (uma por linha)", required = true)
+            InputStream entrada) {
+
+        LOG.info("Recebendo carga de transações em lote");
+        StreamingOutput saida = out -> transacaoLoteService.processar(entrada, out);
+        return Response.ok(saida, NDJSON).build();
+    }
+
     @GET
     @Operation(summary = "Listar transações", 
                description = "Lista transações com filtros opcionais e paginação")
@@ -105,7 +132,13 @@ public class TransacaoResource {
             @QueryParam("pagina") @DefaultValue("1") @Min(1) Integer pagina,
             
             @Parameter(description = "Tamanho da página", example = "20")
-            @QueryParam("tamanho") @DefaultValue("20") @Min(1) Integer tamanho) {
+            @QueryParam("tamanho") @DefaultValue("20") @Min(1) Integer tamanho,
+            
+            @Parameter(description = "Cursor da próxima página (nextCursor da resposta anterior); ignora 'pagina'")
+            @QueryParam("cursor") String cursor,
+            
+            @Parameter(description = "Inclui totalElements/totalPages (contagem à parte); omitidos por padrão")
+            @QueryParam("incluirTotal") @DefaultValue("false") boolean incluirTotal) {
         
         try {
             LOG.info("Listando transações - página: " + pagina + ", tamanho: " + tamanho);
@@ -115,9 +148,9 @@ public class TransacaoResource {
             parseDate(dataFim);
             
             PageResponseDTO<TransacaoResponseDTO> transacoes = transacaoService.listarTransacoes(
-                usuarioId, cartaoId, status, dataInicio, dataFim, pagina, tamanho);
+                usuarioId, cartaoId, status, dataInicio, dataFim, pagina, tamanho, cursor, incluirTotal);
             
-            LOG.info("Transações listadas com sucesso - total: " + transacoes.totalElements);
+            LOG.info("Transações listadas com sucesso - itens: " + transacoes.content.size());
             
             return Response.ok(SuccessResponseDTO.ok("Transações listadas com sucesso", transacoes)).build();
         } catch (DateTimeParseException e) {
@@ -125,6 +158,10 @@ public class TransacaoResource {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity(ErrorResponseDTO.badRequest("Formato de data inválido. Use yyyy-MM-dd"))
                     .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ErrorResponseDTO.badRequest(e.getMessage()))
+                    .build();
         } catch (Exception e) {
             LOG.error("Erro ao listar transações: " + e.getMessage(), e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
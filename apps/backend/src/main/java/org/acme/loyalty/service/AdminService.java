@@ -8,15 +8,19 @@ import jakarta.transaction.Transactional;
 import jakarta.ws.rs.NotFoundException;
 
 import org.acme.loyalty.dto.*;
+import org.acme.loyalty.entity.AcumuloMensal;
 import org.acme.loyalty.entity.MovimentoPontos;
 import org.acme.loyalty.entity.SaldoPontos;
 import org.acme.loyalty.entity.Usuario;
 import org.acme.loyalty.entity.Transacao.StatusTransacao;
 import org.acme.loyalty.repository.*;
+import org.acme.loyalty.service.pontuacao.CadastroCache;
+import org.acme.loyalty.service.pontuacao.CalculoPontosFixo;
 
 import org.jboss.logging.Logger;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.Map;
 import java.util.*;
 
@@ -25,10 +29,13 @@ public class AdminService {
 
     @Inject UsuarioRepository usuarioRepository;
     @Inject CartaoRepository cartaoRepository;
+    @Inject CadastroCache cadastroCache;
     @Inject SaldoPontosRepository saldoPontosRepository;
     @Inject MovimentoPontosRepository movimentoPontosRepository;
     @Inject TransacaoRepository transacaoRepository;
     @Inject ResgateRepository resgateRepository;
+    @Inject AcumuloMensalRepository acumuloMensalRepository;
+    @Inject PassivoParceiroRepository passivoParceiroRepository;
     @Inject EntityManager em;
 
     // ============ DASHBOARD ============
@@ -128,8 +135,8 @@ public class AdminService {
             return;
         }
 
-        Usuario usuario = usuarioRepository.findByIdOptional(ajuste.usuarioId)
-                .orElseThrow(() -> new NotFoundException("Usuário não encontrado: " + ajuste.usuarioId));
+        cadastroCache.exigirUsuario(ajuste.usuarioId);
+        Usuario usuario = em.getReference(Usuario.class, ajuste.usuarioId);
 
         SaldoPontos saldo = saldoPontosRepository.findByUsuarioAndCartao(ajuste.usuarioId, ajuste.cartaoId)
                 .orElseThrow(() -> new NotFoundException("Saldo não encontrado para o cartão: " + ajuste.cartaoId));
@@ -149,8 +156,29 @@ public class AdminService {
         movimentoPontosRepository.persist(mov);
     }
 
+    /**
+     * Estorno administrativo do acúmulo da transação (mesmo efeito de {@link #estornarPontos}).
+     * @throws NotFoundException se a transação não tem movimento de acúmulo
+     * @throws EstornoDuplicadoException se o acúmulo já foi estornado (aqui ou pelo estorno da transação)
+     */
+    @Transactional
+    public MovimentoPontosDTO realizarEstornoPontos(Long transacaoId, String motivo) {
+        if (transacaoId == null) throw new IllegalArgumentException("transacaoId é obrigatório");
+        MovimentoPontos acumulo = movimentoPontosRepository
+                .find("refTransacaoId = ?1 and tipo = ?2", transacaoId, MovimentoPontos.TipoMovimento.ACUMULO)
+                .firstResultOptional()
+                .orElseThrow(() -> new NotFoundException("Acúmulo não encontrado para a transação: " + transacaoId));
+        return MovimentoPontosDTO.fromEntity(estornarPontos(acumulo.id, motivo));
+    }
+
+    /**
+     * Estorna um movimento de acúmulo. O ESTORNO é inserido antes de debitar o saldo:
+     * para acúmulos de transação, uk_movimento_transacao_tipo garante um único estorno,
+     * inclusive contra {@link PontuacaoService#processarEstornoTransacao} e chamadas concorrentes.
+     * @throws EstornoDuplicadoException se a transação do movimento já tem ESTORNO
+     */
     @Transactional
-    public void estornarPontos(Long movimentoId, String motivo) {
+    public MovimentoPontos estornarPontos(Long movimentoId, String motivo) {
         MovimentoPontos original = movimentoPontosRepository.findByIdOptional(movimentoId)
                 .orElseThrow(() -> new NotFoundException("Movimento não encontrado: " + movimentoId));
 
@@ -161,10 +189,6 @@ public class AdminService {
         SaldoPontos saldo = saldoPontosRepository.findByUsuarioAndCartao(original.usuario.id, original.cartao.id)
                 .orElseThrow(() -> new NotFoundException("Saldo não encontrado"));
 
-        saldo.saldo = (saldo.saldo != null ? saldo.saldo : 0L) - original.pontos;
-        saldo.atualizadoEm = LocalDateTime.now();
-        saldoPontosRepository.persist(saldo);
-
         MovimentoPontos estorno = new MovimentoPontos();
         estorno.usuario = original.usuario;
         estorno.cartao = original.cartao;
@@ -173,7 +197,26 @@ public class AdminService {
         estorno.refTransacaoId = original.refTransacaoId;
         estorno.observacao = "Estorno: " + motivo;
         estorno.criadoEm = LocalDateTime.now();
-        movimentoPontosRepository.persist(estorno);
+        if (!movimentoPontosRepository.inserirSeAusente(estorno)) {
+            throw new EstornoDuplicadoException(movimentoId, original.refTransacaoId);
+        }
+
+        saldo.saldo = (saldo.saldo != null ? saldo.saldo : 0L) - original.pontos;
+        saldo.atualizadoEm = LocalDateTime.now();
+        saldoPontosRepository.persist(saldo);
+
+        if (original.refTransacaoId != null) {
+            transacaoRepository.findByIdOptional(original.refTransacaoId).ifPresent(t ->
+                    passivoParceiroRepository.registrarAcumulo(t.parceiroId, estorno.criadoEm.toLocalDate(), estorno.pontos));
+        }
+        return estorno;
+    }
+
+    /** O acúmulo já foi estornado: um segundo estorno debitaria os pontos de novo. */
+    public static final class EstornoDuplicadoException extends IllegalStateException {
+        EstornoDuplicadoException(Long movimentoId, Long transacaoId) {
+            super("Movimento " + movimentoId + " já estornado (transação " + transacaoId + ")");
+        }
     }
 
     // ============ AUDITORIA ============
@@ -225,6 +268,25 @@ public void executarManutencao(String tipo, Map<String, Object> parametros) {
     }
 }
 
+    /**
+     * Reconstrói os contadores de acumulo_mensal (teto_mensal, regra 17.4) a partir de movimento_pontos.
+     * @return número de contadores gravados
+     */
+    @Transactional
+    public int reconstruirAcumulosMensais(YearMonth inicio, YearMonth fim) {
+        if (inicio == null || fim == null) {
+            throw new IllegalArgumentException("Mês inicial e final são obrigatórios");
+        }
+        if (inicio.isAfter(fim)) {
+            throw new IllegalArgumentException("Mês inicial não pode ser posterior ao mês final");
+        }
+        int gravados = acumuloMensalRepository.reconstruir(
+                AcumuloMensal.anoMes(inicio.atDay(1)),
+                AcumuloMensal.anoMes(fim.atDay(1)));
+        LOG.infof("ACUMULO_MENSAL: %d contadores reconstruídos (%s a %s).", gravados, inicio, fim);
+        return gravados;
+    }
+
     // ============ SAÚDE ============
 
     public SaudeSistemaDTO consultarSaudeSistema() {
@@ -307,10 +369,10 @@ public void executarManutencao(String tipo, Map<String, Object> parametros) {
             throw new IllegalArgumentException("usuarioId, cartaoId e valor são obrigatórios");
         }
 
-        var usuario = usuarioRepository.findByIdOptional(usuarioId)
-                .orElseThrow(() -> new NotFoundException("Usuário não encontrado: " + usuarioId));
+        cadastroCache.exigirUsuario(usuarioId);
 
         // usamos o EntityManager para referenciar entidades sem carregar tudo
+        var usuario = em.getReference(Usuario.class, usuarioId);
         var cartao = em.getReference(org.acme.loyalty.entity.Cartao.class, cartaoId);
 
         var t = new org.acme.loyalty.entity.Transacao();
@@ -391,6 +453,7 @@ public long processarTransacaoPontuacao(Long transacaoId, Double multiplicadorDe
     mov.refTransacaoId= t.id;
     mov.criadoEm      = LocalDateTime.now();
     movimentoPontosRepository.persist(mov);
+    passivoParceiroRepository.registrarAcumulo(t.parceiroId, mov.criadoEm.toLocalDate(), pontosInt);
 
     // marca transação como processada
     t.marcarComoProcessada((int) pontos);
@@ -407,7 +470,14 @@ public long processarTransacaoPontuacao(Long transacaoId, Double multiplicadorDe
         double mult = (multiplicadorDefault == null ? 1.0 : Math.max(0.0, multiplicadorDefault));
         // regra simplificada: arredonda para baixo
         var valor = (t.valor == null ? java.math.BigDecimal.ZERO : t.valor);
-        return java.math.BigDecimal.valueOf(mult)
+        var multiplicador = java.math.BigDecimal.valueOf(mult);
+        // ponto fixo quando valor (2 casas) e multiplicador (4 casas) cabem na escala; valor e multiplicador >= 0
+        long multEscalado = CalculoPontosFixo.multiplicadorEscalado(multiplicador);
+        long centavos = CalculoPontosFixo.centavos(valor);
+        if (multEscalado != CalculoPontosFixo.NAO_REPRESENTAVEL && centavos != CalculoPontosFixo.NAO_REPRESENTAVEL) {
+            return CalculoPontosFixo.pontosBase(centavos, multEscalado);
+        }
+        return multiplicador
                 .multiply(valor)
                 .setScale(0, java.math.RoundingMode.FLOOR)
                 .longValue();
@@ -454,8 +524,8 @@ public long processarTransacaoPontuacao(Long transacaoId, Double multiplicadorDe
             throw new IllegalArgumentException("usuarioId, cartaoId, recompensaId e pontos (>0) são obrigatórios");
         }
 
-        var usuario = usuarioRepository.findByIdOptional(usuarioId)
-                .orElseThrow(() -> new NotFoundException("Usuário não encontrado: " + usuarioId));
+        cadastroCache.exigirUsuario(usuarioId);
+        var usuario = em.getReference(Usuario.class, usuarioId);
         var cartao = em.getReference(org.acme.loyalty.entity.Cartao.class, cartaoId);
         var recompensa = em.getReference(org.acme.loyalty.entity.Recompensa.class, recompensaId);
 
@@ -0,0 +1,28 @@
+package org.acme.loyalty.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * Readiness do SmallRye Health (/q/health/ready): DOWN até o aquecimento da inicialização terminar,
+ * mesmo critério de /health/ready.
+ */
+@Readiness
+@ApplicationScoped
+public class AquecimentoReadinessCheck implements HealthCheck {
+
+    @Inject
+    AquecimentoService aquecimentoService;
+
+    @Override
+    public HealthCheckResponse call() {
+        return HealthCheckResponse.named("aquecimento")
+                .status(aquecimentoService.isPronto())
+                .withData("estado", aquecimentoService.estado().name())
+                .withData("duracaoMs", aquecimentoService.duracaoMs())
+                .build();
+    }
+}
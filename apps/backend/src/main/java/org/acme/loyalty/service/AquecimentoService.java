@@ -0,0 +1,294 @@
+package org.acme.loyalty.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.acme.loyalty.dto.CotacaoPontosDTO;
+import org.acme.loyalty.dto.SuccessResponseDTO;
+import org.acme.loyalty.dto.TransacaoRequestDTO;
+import org.acme.loyalty.entity.AcumuloMensal;
+import org.acme.loyalty.repository.*;
+import org.acme.loyalty.service.pontuacao.CalendarioCampanhasHolder;
+import org.acme.loyalty.service.pontuacao.NiveisUsuariosHolder;
+import org.acme.loyalty.service.pontuacao.RegrasSnapshotHolder;
+import org.acme.loyalty.service.pontuacao.SegmentosUsuariosHolder;
+import org.acme.loyalty.service.pontuacao.TabelaCambioHolder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aquecimento do nó após o deploy, antes de o readiness ficar verde.
+ * - Carrega regras, campanhas, câmbio, segmentos, níveis e o catálogo de recompensas
+ * - Executa as consultas do caminho quente (criação de transação, pontuação, saldo, resgate) com chaves
+ *   inexistentes: HQL interpretado e SQL gerado ficam no cache de planos do Hibernate e as conexões do pool
+ *   já passam pelo parse no PostgreSQL (somente leitura, transação desfeita ao final)
+ * - Cotações sintéticas (regra, teto, campanha, câmbio, nível) e serialização JSON em laço, para o JIT compilar
+ *   o caminho de pontuação antes do tráfego real; nada é gravado nem reservado (orçamentos e velocidade intactos)
+ * - Roda numa thread própria: o liveness responde durante o aquecimento; o readiness só depois dele ou de
+ *   {@code loyalty.aquecimento.tempo-maximo} (falha no aquecimento não deixa o nó fora do balanceador)
+ * - Duração em aquecimento.duracao e situação em aquecimento.concluido (/q/metrics)
+ */
+@ApplicationScoped
+public class AquecimentoService {
+
+    private static final Logger LOG = Logger.getLogger(AquecimentoService.class);
+
+    public enum Estado { PENDENTE, EM_ANDAMENTO, CONCLUIDO, FALHOU, DESABILITADO }
+
+    private static final String[] MCCS = {"5411", "5812", "5541", "4511", "5999", "7011", "5311", "5912"};
+    private static final String[] CATEGORIAS = {"SUPERMERCADO", "RESTAURANTE", "COMBUSTIVEL", "VIAGEM", null};
+    private static final String[] MOEDAS = {"BRL", "BRL", "BRL", "USD", "EUR"};
+    private static final int BLOCO = 2048;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    CotacaoPontosService cotacaoPontosService;
+
+    @Inject
+    RecompensaService recompensaService;
+
+    @Inject
+    RegrasSnapshotHolder regrasSnapshotHolder;
+
+    @Inject
+    CalendarioCampanhasHolder calendarioCampanhasHolder;
+
+    @Inject
+    TabelaCambioHolder tabelaCambioHolder;
+
+    @Inject
+    SegmentosUsuariosHolder segmentosUsuariosHolder;
+
+    @Inject
+    NiveisUsuariosHolder niveisUsuariosHolder;
+
+    @Inject
+    UsuarioRepository usuarioRepository;
+
+    @Inject
+    CartaoRepository cartaoRepository;
+
+    @Inject
+    TransacaoRepository transacaoRepository;
+
+    @Inject
+    MovimentoPontosRepository movimentoPontosRepository;
+
+    @Inject
+    SaldoPontosRepository saldoPontosRepository;
+
+    @Inject
+    AcumuloMensalRepository acumuloMensalRepository;
+
+    @Inject
+    RecompensaRepository recompensaRepository;
+
+    @Inject
+    FilaPontuacaoRepository filaPontuacaoRepository;
+
+    @ConfigProperty(name = "loyalty.aquecimento.habilitado", defaultValue = "true")
+    boolean habilitado;
+
+    /** Cotações sintéticas (acima do limiar de compilação do C2, ~10 mil chamadas). */
+    @ConfigProperty(name = "loyalty.aquecimento.iteracoes", defaultValue = "20000")
+    int iteracoes;
+
+    /** Rodadas das consultas do caminho quente (o driver passa a usar prepared statement no servidor após 5 execuções). */
+    @ConfigProperty(name = "loyalty.aquecimento.rodadas-consultas", defaultValue = "6")
+    int rodadasConsultas;
+
+    /** Passado esse tempo o readiness fica verde mesmo com o aquecimento em andamento. */
+    @ConfigProperty(name = "loyalty.aquecimento.tempo-maximo", defaultValue = "2m")
+    Duration tempoMaximo;
+
+    private volatile Estado estado = Estado.PENDENTE;
+    private volatile long inicioNs;
+    private volatile long duracaoMs = -1;
+    private Timer duracao;
+    private Thread executor;
+
+    void aoIniciar(@Observes StartupEvent evento) {
+        Gauge.builder("aquecimento.concluido", this, s -> s.isPronto() ? 1.0 : 0.0)
+                .description("1 quando o aquecimento do nó terminou (readiness liberado)")
+                .register(registry);
+        duracao = Timer.builder("aquecimento.duracao")
+                .description("Duração do aquecimento do nó na inicialização")
+                .register(registry);
+        if (!habilitado) {
+            estado = Estado.DESABILITADO;
+            LOG.info("Aquecimento na inicialização desabilitado");
+            return;
+        }
+        inicioNs = System.nanoTime();
+        estado = Estado.EM_ANDAMENTO;
+        executor = new Thread(this::aquecer, "loyalty-aquecimento");
+        executor.setDaemon(true);
+        executor.start();
+    }
+
+    void aoDesligar(@Observes ShutdownEvent evento) {
+        if (executor != null) {
+            executor.interrupt();
+        }
+    }
+
+    /** Readiness liberado: aquecimento terminou (com ou sem falha), está desabilitado ou excedeu o tempo máximo. */
+    public boolean isPronto() {
+        Estado e = estado;
+        if (e == Estado.EM_ANDAMENTO) {
+            return System.nanoTime() - inicioNs > tempoMaximo.toNanos();
+        }
+        return e != Estado.PENDENTE;
+    }
+
+    public Estado estado() {
+        return estado;
+    }
+
+    /** Duração do último aquecimento em ms (-1 se não concluído). */
+    public long duracaoMs() {
+        return duracaoMs;
+    }
+
+    // ---- Fases ----
+
+    private void aquecer() {
+        Estado resultado = Estado.CONCLUIDO;
+        try {
+            long t0 = System.nanoTime();
+            carregarDados();
+            long t1 = System.nanoTime();
+            prepararConsultas();
+            long t2 = System.nanoTime();
+            long pontos = exercitarPontuacao();
+            long t3 = System.nanoTime();
+            long bytes = exercitarSerializacao();
+            long t4 = System.nanoTime();
+            LOG.infof("Aquecimento: dados %d ms, consultas %d ms, pontuação %d ms (%d pontos sintéticos), serialização %d ms (%d bytes)",
+                    ms(t1 - t0), ms(t2 - t1), ms(t3 - t2), pontos, ms(t4 - t3), bytes);
+        } catch (RuntimeException e) {
+            resultado = Estado.FALHOU;
+            LOG.warn("Aquecimento interrompido; o nó segue sem aquecimento completo: " + e.getMessage(), e);
+        } finally {
+            long nanos = System.nanoTime() - inicioNs;
+            duracao.record(nanos, TimeUnit.NANOSECONDS);
+            duracaoMs = ms(nanos);
+            estado = resultado;
+            LOG.infof("Aquecimento %s em %d ms; readiness liberado", resultado, duracaoMs);
+        }
+    }
+
+    /** Snapshots em memória e catálogo de recompensas. */
+    private void carregarDados() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            regrasSnapshotHolder.atual();
+            calendarioCampanhasHolder.atual();
+            tabelaCambioHolder.atual();
+            segmentosUsuariosHolder.atual();
+            niveisUsuariosHolder.atual();
+            recompensaService.listarRecompensasDisponiveis();
+        });
+    }
+
+    /** Consultas do caminho quente com chaves inexistentes (nenhuma linha retornada, nada gravado). */
+    private void prepararConsultas() {
+        LocalDateTime agora = LocalDateTime.now();
+        int anoMes = AcumuloMensal.anoMes(agora.toLocalDate());
+        for (int rodada = 0; rodada < Math.max(1, rodadasConsultas); rodada++) {
+            QuarkusTransaction.requiringNew().run(() -> {
+                usuarioRepository.findByIdOptional(-1L);
+                cartaoRepository.findByIdOptional(-1L);
+                transacaoRepository.findByIdOptional(-1L);
+                transacaoRepository.findByChaveNatural(-1L, agora, "-");
+                transacaoRepository.findWithCartaoAndUsuario(-1L);
+                movimentoPontosRepository.listarVinculadosATransacao(-1L);
+                movimentoPontosRepository.listByRefTransacaoId(-1L);
+                saldoPontosRepository.findByUsuarioAndCartao(-1L, -1L);
+                saldoPontosRepository.obterSaldoAtual(-1L, -1L);
+                saldoPontosRepository.listByUsuarioId(-1L);
+                acumuloMensalRepository.pontosNoMes(-1L, -1L, -1L, anoMes);
+                recompensaRepository.findByIdOptional(-1L);
+                recompensaRepository.listDisponiveis(agora);
+                filaPontuacaoRepository.contarRetidas();
+                QuarkusTransaction.setRollbackOnly();
+            });
+        }
+    }
+
+    /**
+     * Cotações sintéticas sem usuário/cartão (sem leitura de teto no banco): seleção de regra, cálculo em
+     * ponto fixo, campanha, câmbio e nível. Moedas sem taxa vigente apenas exercitam o caminho de erro.
+     * Blocos de {@value #BLOCO} cotações por transação (snapshot invalidado no meio é recarregado nela).
+     */
+    private long exercitarPontuacao() {
+        long soma = 0;
+        for (int inicio = 0; inicio < iteracoes; inicio += BLOCO) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Aquecimento cancelado no desligamento");
+            }
+            int de = inicio;
+            int ate = Math.min(iteracoes, inicio + BLOCO);
+            soma += QuarkusTransaction.requiringNew().call(() -> {
+                long pontos = 0;
+                for (int i = de; i < ate; i++) {
+                    BigDecimal valor = BigDecimal.valueOf(1_00L + (i * 7919L) % 500_000L, 2);
+                    try {
+                        pontos += cotacaoPontosService.cotar(valor, MOEDAS[i % MOEDAS.length],
+                                MCCS[i % MCCS.length], CATEGORIAS[i % CATEGORIAS.length],
+                                (i % 3 == 0) ? Long.valueOf(i % 50) : null, null, null).pontosTotais;
+                    } catch (IllegalArgumentException semTaxa) {
+                        // moeda sem taxa vigente
+                    }
+                }
+                return pontos;
+            });
+        }
+        return soma;
+    }
+
+    /** Serialização da resposta e leitura do corpo de transação (Jackson) com os mesmos DTOs da API. */
+    private long exercitarSerializacao() {
+        int n = Math.max(1, iteracoes / 4);
+        long bytes = 0;
+        try {
+            CotacaoPontosDTO cotacao = QuarkusTransaction.requiringNew().call(() ->
+                    cotacaoPontosService.cotar(new BigDecimal("150.00"), null, MCCS[0], CATEGORIAS[0], null, null, null));
+            for (int i = 0; i < n; i++) {
+                String json = objectMapper.writeValueAsString(SuccessResponseDTO.ok("Aquecimento", List.of(cotacao)));
+                TransacaoRequestDTO req = objectMapper.readValue(
+                        "{\"usuarioId\":" + (i + 1) + ",\"cartaoId\":" + (i + 1) + ",\"valor\":" + (i % 1000) + ".90," +
+                        "\"moeda\":\"BRL\",\"mcc\":\"5411\",\"categoria\":\"SUPERMERCADO\",\"parceiroId\":null," +
+                        "\"dataEvento\":\"2024-06-01T10:15:30\",\"autorizacao\":\"AQ" + i + "\"}",
+                        TransacaoRequestDTO.class);
+                req.normalize();
+                bytes += json.length() + req.autorizacao.length();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Falha na serialização de aquecimento: " + e.getMessage(), e);
+        }
+        return bytes;
+    }
+
+    private static long ms(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
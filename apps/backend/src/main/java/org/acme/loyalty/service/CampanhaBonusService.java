@@ -10,6 +10,9 @@ import org.acme.loyalty.dto.CampanhaBonusResponseDTO;
 import org.acme.loyalty.dto.CampanhaBonusUpdateDTO;
 import org.acme.loyalty.entity.CampanhaBonus;
 import org.acme.loyalty.repository.CampanhaBonusRepository;
+import org.acme.loyalty.service.pontuacao.BarramentoInvalidacao;
+import org.acme.loyalty.service.pontuacao.CalendarioCampanhasHolder;
+import org.acme.loyalty.service.pontuacao.InvalidacaoCache;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -24,6 +27,12 @@ public class CampanhaBonusService {
     @Inject
     CampanhaBonusRepository campanhaBonusRepository;
 
+    @Inject
+    CalendarioCampanhasHolder calendarioCampanhasHolder;
+
+    @Inject
+    BarramentoInvalidacao barramentoInvalidacao;
+
     // =========================================================
     // CRUD / Consulta
     // =========================================================
@@ -43,6 +52,8 @@ public class CampanhaBonusService {
         );
 
         campanhaBonusRepository.persist(campanha);
+        calendarioCampanhasHolder.invalidarAposCommit();
+        barramentoInvalidacao.publicar(InvalidacaoCache.CAMPANHA, campanha.id);
         return toCampanhaBonusResponseDTO(campanha);
     }
 
@@ -149,6 +160,8 @@ return base.subList(from, to).stream()
         }
 
         campanhaBonusRepository.persist(campanha);
+        calendarioCampanhasHolder.invalidarAposCommit();
+        barramentoInvalidacao.publicar(InvalidacaoCache.CAMPANHA, campanha.id);
         return toCampanhaBonusResponseDTO(campanha);
     }
 
@@ -158,6 +171,8 @@ return base.subList(from, to).stream()
                 .orElseThrow(() -> new NotFoundException("Campanha de bônus não encontrada: " + id));
         // Validar referência em regras/execuções antes de excluir (se necessário)
         campanhaBonusRepository.delete(campanha);
+        calendarioCampanhasHolder.invalidarAposCommit();
+        barramentoInvalidacao.publicar(InvalidacaoCache.CAMPANHA, campanha.id);
     }
 
     @Transactional
@@ -176,6 +191,8 @@ return base.subList(from, to).stream()
         campanha.vigenciaFim = hoje;
         
         campanhaBonusRepository.persist(campanha);
+        calendarioCampanhasHolder.invalidarAposCommit();
+        barramentoInvalidacao.publicar(InvalidacaoCache.CAMPANHA, campanha.id);
         return toCampanhaBonusResponseDTO(campanha);
     }
 
@@ -186,6 +203,8 @@ return base.subList(from, to).stream()
 
         campanha.vigenciaFim = LocalDate.now().minusDays(1);
         campanhaBonusRepository.persist(campanha);
+        calendarioCampanhasHolder.invalidarAposCommit();
+        barramentoInvalidacao.publicar(InvalidacaoCache.CAMPANHA, campanha.id);
         return toCampanhaBonusResponseDTO(campanha);
     }
 
@@ -0,0 +1,131 @@
+package org.acme.loyalty.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.loyalty.dto.CotacaoPontosDTO;
+import org.acme.loyalty.entity.AcumuloMensal;
+import org.acme.loyalty.entity.TaxaCambio;
+import org.acme.loyalty.service.pontuacao.CalculoPontuacao;
+import org.acme.loyalty.service.pontuacao.CalendarioCampanhas;
+import org.acme.loyalty.service.pontuacao.CalendarioCampanhasHolder;
+import org.acme.loyalty.service.pontuacao.ContadoresMensaisCache;
+import org.acme.loyalty.service.pontuacao.NiveisUsuariosHolder;
+import org.acme.loyalty.service.pontuacao.OrcamentoCampanhas;
+import org.acme.loyalty.service.pontuacao.SegmentosUsuariosHolder;
+import org.acme.loyalty.service.pontuacao.RegrasSnapshot;
+import org.acme.loyalty.service.pontuacao.RegrasSnapshotHolder;
+import org.acme.loyalty.service.pontuacao.TabelaCambioHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Cotação de pontos antes da autorização da compra (checkout e apps de parceiros).
+ * Mesmo cálculo de {@link PontuacaoService} ({@link CalculoPontuacao}: regras 17.4 e 17.5), porém somente leitura:
+ * - Regra e campanha vêm do snapshot/calendário em memória; sem usuário, só campanhas gerais concorrem
+ * - O bônus do nível de fidelidade vem do snapshot de níveis em memória (sem usuário, nível base)
+ * - Compras em moeda estrangeira são convertidas para BRL pela taxa vigente (tabela de câmbio em memória)
+ * - O acumulado do teto mensal vem de {@link ContadoresMensaisCache} (atraso máximo = TTL)
+ * - O teto da campanha é apenas consultado no saldo local ({@link OrcamentoCampanhas#comporta}), sem reservar
+ * - Nenhuma transação, lock ou escrita
+ */
+@ApplicationScoped
+public class CotacaoPontosService {
+
+    @Inject
+    RegrasSnapshotHolder regrasSnapshotHolder;
+
+    @Inject
+    CalendarioCampanhasHolder calendarioCampanhasHolder;
+
+    @Inject
+    ContadoresMensaisCache contadoresMensaisCache;
+
+    @Inject
+    OrcamentoCampanhas orcamentoCampanhas;
+
+    @Inject
+    SegmentosUsuariosHolder segmentosUsuariosHolder;
+
+    @Inject
+    TabelaCambioHolder tabelaCambioHolder;
+
+    @Inject
+    NiveisUsuariosHolder niveisUsuariosHolder;
+
+    /**
+     * Cota os pontos de uma compra no instante atual.
+     * Sem usuário/cartão, o teto mensal é considerado integralmente disponível.
+     * Sem moeda, o valor é considerado em BRL.
+     */
+    public CotacaoPontosDTO cotar(BigDecimal valor, String moeda, String mcc, String categoria, Long parceiroId,
+                                  Long usuarioId, Long cartaoId) {
+        if (valor == null) {
+            throw new IllegalArgumentException("Valor é obrigatório");
+        }
+        if (valor.signum() < 0) {
+            throw new IllegalArgumentException("Valor deve ser maior ou igual a zero");
+        }
+
+        String moedaCompra = (moeda == null || moeda.isBlank()) ? TaxaCambio.MOEDA_BASE : moeda.trim().toUpperCase();
+        if (!moedaCompra.matches("[A-Z]{3}")) {
+            throw new IllegalArgumentException("Moeda deve ser ISO-4217 em 3 letras (ex.: USD)");
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        BigDecimal valorBrl = tabelaCambioHolder.atual().paraBrl(valor, moedaCompra, agora);
+        if (valorBrl == null) {
+            throw new IllegalArgumentException("Sem taxa de câmbio " + moedaCompra + "/BRL vigente");
+        }
+        RegrasSnapshot regras = regrasSnapshotHolder.atual();
+        CalendarioCampanhas calendario = calendarioCampanhasHolder.atual();
+
+        CotacaoPontosDTO dto = new CotacaoPontosDTO();
+        dto.valor = valor;
+        dto.moeda = moedaCompra;
+        if (!TaxaCambio.MOEDA_BASE.equals(moedaCompra)) {
+            dto.valorBrl = valorBrl;
+        }
+        dto.mcc = mcc;
+        dto.categoria = categoria;
+        dto.parceiroId = parceiroId;
+        dto.versaoRegras = regras.versao;
+        dto.versaoCampanhas = calendario.versao;
+
+        // Teto da campanha apenas consultado no saldo local (nada é reservado)
+        int anoMes = AcumuloMensal.anoMes(agora.toLocalDate());
+        CalculoPontuacao.Resultado r = new CalculoPontuacao(regras, calendario, segmentosUsuariosHolder.atual(), niveisUsuariosHolder.atual())
+                .calcular(valorBrl, mcc, categoria, parceiroId, agora, usuarioId,
+                        regra -> contadoresMensaisCache.pontosNoMes(usuarioId, cartaoId, regra.id, anoMes),
+                        (campanha, pontosBase) -> orcamentoCampanhas.comporta(campanha, pontosBase)
+                                ? campanha.calcularPontosComBonus(pontosBase) : pontosBase);
+        if (r.regra == null) {
+            return dto; // Nenhuma regra aplicável: 0 pontos
+        }
+        dto.regraId = r.regra.id;
+        dto.regraNome = r.regra.nome;
+        dto.multiplicador = r.regra.multiplicador;
+        dto.pontosBase = r.pontosRegra;
+        if (r.regra.temTetoMensal()) {
+            dto.tetoMensal = r.regra.tetoMensal;
+            dto.acumuladoNoMes = r.acumuladoNoMes;
+            dto.tetoRestante = Math.max(0, r.regra.tetoMensal - r.acumuladoNoMes);
+        }
+        dto.pontosBaseAplicados = r.pontosBase;
+        if (r.pontosBase <= 0) {
+            return dto;
+        }
+
+        if (r.campanha != null) {
+            dto.campanhaId = r.campanha.id;
+            dto.campanhaNome = r.campanha.nome;
+            dto.multiplicadorExtra = r.campanha.multiplicadorExtra;
+        }
+        if (r.nivel != null) {
+            dto.nivel = r.nivel.nome;
+            dto.pontosNivel = r.pontosNivel;
+        }
+        dto.pontosTotais = r.pontosTotais();
+        return dto;
+    }
+}
@@ -0,0 +1,170 @@
+package org.acme.loyalty.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.NotFoundException;
+import org.acme.loyalty.dto.ControleVelocidadeDTO;
+import org.acme.loyalty.dto.TransacaoRetidaDTO;
+import org.acme.loyalty.entity.FilaPontuacao;
+import org.acme.loyalty.entity.Transacao;
+import org.acme.loyalty.repository.FilaPontuacaoRepository;
+import org.acme.loyalty.service.pontuacao.ControleVelocidade;
+import org.acme.loyalty.service.pontuacao.FalhaFilaPontuacaoException;
+import org.acme.loyalty.service.pontuacao.FilaPontuacaoMetricas;
+import org.acme.loyalty.service.pontuacao.RastreadorVelocidade;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Consumo da fila de pontuação (fila_pontuacao).
+ * - Cada chamada reivindica um cartão (cabeça da fila com FOR UPDATE SKIP LOCKED) e pontua seus itens em ordem
+ * - Vários nós consomem a mesma fila: cartões diferentes em paralelo, um cartão por vez
+ * - Falha desfaz o cartão inteiro; o item com falha é adiado (backoff) e bloqueia o cartão até nova tentativa
+ * - Itens RETIDOS pelo controle de velocidade só voltam a ser pontuados após liberação administrativa
+ */
+@ApplicationScoped
+public class FilaPontuacaoService {
+
+    private static final Logger LOG = Logger.getLogger(FilaPontuacaoService.class);
+
+    private static final long BACKOFF_MAXIMO_SEGUNDOS = 600;
+
+    @Inject
+    FilaPontuacaoRepository filaPontuacaoRepository;
+
+    @Inject
+    PontuacaoService pontuacaoService;
+
+    @Inject
+    FilaPontuacaoMetricas metricas;
+
+    @Inject
+    ControleVelocidade controleVelocidade;
+
+    @ConfigProperty(name = "loyalty.fila-pontuacao.itens-por-cartao", defaultValue = "100")
+    int itensPorCartao;
+
+    @ConfigProperty(name = "loyalty.fila-pontuacao.max-tentativas", defaultValue = "5")
+    int maxTentativas;
+
+    /**
+     * Reivindica o próximo cartão disponível e pontua seus itens pendentes em ordem.
+     * @return itens pontuados; -1 se não há cartão disponível
+     * @throws FalhaFilaPontuacaoException se um item falhar (a transação é desfeita)
+     */
+    @Transactional
+    public int processarProximoCartao() {
+        LocalDateTime agora = LocalDateTime.now();
+
+        long inicio = System.nanoTime();
+        Optional<FilaPontuacao> cabeca = filaPontuacaoRepository.reivindicarProximoCartao(agora);
+        metricas.registrarReivindicacao(System.nanoTime() - inicio);
+        if (cabeca.isEmpty()) {
+            return -1;
+        }
+
+        int processados = 0;
+        for (FilaPontuacao item : filaPontuacaoRepository.listarPendentesDoCartao(cabeca.get().cartaoId, itensPorCartao)) {
+            if (!item.estaDisponivelEm(agora)) {
+                break; // aguardando nova tentativa: mantém a ordem do cartão
+            }
+            try {
+                // Serializa com a pontuação em lote (que pula linhas bloqueadas)
+                filaPontuacaoRepository.getEntityManager()
+                        .find(Transacao.class, item.transacaoId, LockModeType.PESSIMISTIC_WRITE);
+                pontuacaoService.processarTransacaoParaPontos(item.transacaoId);
+                filaPontuacaoRepository.delete(item);
+                filaPontuacaoRepository.flush(); // erros de constraint surgem aqui, associados ao item
+            } catch (RuntimeException e) {
+                throw new FalhaFilaPontuacaoException(item.id, e);
+            }
+            processados++;
+        }
+
+        metricas.registrarProcessados(processados);
+        return processados;
+    }
+
+    /**
+     * Registra falha do item: incrementa tentativas e adia a próxima (backoff exponencial).
+     * Ao esgotar as tentativas o item vai para ERRO e deixa de bloquear o cartão.
+     */
+    @Transactional
+    public void registrarFalha(Long itemId, Throwable causa) {
+        metricas.registrarFalha();
+        FilaPontuacao item = filaPontuacaoRepository.findById(itemId);
+        if (item == null) {
+            return; // transação removida (cascade)
+        }
+
+        item.tentativas++;
+        String erro = causa != null ? String.valueOf(causa.getMessage()) : null;
+        item.ultimoErro = (erro != null && erro.length() > 500) ? erro.substring(0, 500) : erro;
+
+        if (item.tentativas >= maxTentativas) {
+            item.status = FilaPontuacao.StatusFila.ERRO;
+            LOG.error("Item " + item.id + " da fila de pontuação (transação " + item.transacaoId
+                    + ") esgotou " + item.tentativas + " tentativas: " + item.ultimoErro);
+        } else {
+            long espera = Math.min(BACKOFF_MAXIMO_SEGUNDOS, 1L << item.tentativas);
+            item.disponivelEm = LocalDateTime.now().plusSeconds(espera);
+            LOG.warn("Falha ao pontuar transação " + item.transacaoId + " (tentativa " + item.tentativas
+                    + "), nova tentativa em " + espera + "s: " + item.ultimoErro);
+        }
+    }
+
+    /** Atualiza as métricas de profundidade da fila (uma contagem agrupada por status). */
+    @Transactional
+    public void atualizarMetricas() {
+        Map<FilaPontuacao.StatusFila, Long> porStatus = filaPontuacaoRepository.contarPorStatus();
+        metricas.atualizarProfundidade(porStatus.getOrDefault(FilaPontuacao.StatusFila.PENDENTE, 0L),
+                porStatus.getOrDefault(FilaPontuacao.StatusFila.ERRO, 0L));
+    }
+
+    // --------------------- Retenção por velocidade ---------------------
+
+    /** Limites de velocidade, ocupação do rastreador deste nó e total de transações retidas. */
+    @Transactional
+    public ControleVelocidadeDTO situacaoVelocidade() {
+        RastreadorVelocidade rastreador = controleVelocidade.rastreador();
+        ControleVelocidadeDTO dto = new ControleVelocidadeDTO();
+        dto.habilitado = controleVelocidade.isHabilitado();
+        dto.acao = controleVelocidade.acao().name();
+        dto.capacidade = rastreador.capacidade();
+        dto.cartoesAtivos = rastreador.cartoesAtivos(System.currentTimeMillis());
+        dto.transacoesRetidas = filaPontuacaoRepository.contarRetidas();
+        for (int j = 0; j < rastreador.quantidadeJanelas(); j++) {
+            RastreadorVelocidade.Janela janela = rastreador.janela(j);
+            dto.janelas.add(new ControleVelocidadeDTO.Janela(
+                    janela.nome, janela.maxTransacoes, BigDecimal.valueOf(janela.maxCentavos, 2)));
+        }
+        return dto;
+    }
+
+    @Transactional
+    public List<TransacaoRetidaDTO> listarRetidas(int limite) {
+        if (limite <= 0 || limite > 1000) {
+            throw new IllegalArgumentException("Limite deve estar entre 1 e 1000");
+        }
+        return filaPontuacaoRepository.listarRetidas(limite).stream()
+                .map(TransacaoRetidaDTO::fromEntity)
+                .toList();
+    }
+
+    /** Devolve a transação retida à fila; ela é pontuada no próximo ciclo do worker. */
+    @Transactional
+    public void liberarRetida(Long transacaoId) {
+        if (!filaPontuacaoRepository.liberarRetida(transacaoId, LocalDateTime.now())) {
+            throw new NotFoundException("Transação retida não encontrada: " + transacaoId);
+        }
+        LOG.info("Transação " + transacaoId + " liberada do controle de velocidade");
+    }
+}
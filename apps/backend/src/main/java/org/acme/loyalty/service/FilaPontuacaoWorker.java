@@ -0,0 +1,76 @@
+package org.acme.loyalty.service;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.loyalty.service.pontuacao.FalhaFilaPontuacaoException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Worker da fila de pontuação: a cada ciclo consome até N cartões (uma transação por cartão).
+ * Cada réplica do backend executa o seu; a vazão escala com o número de pods.
+ */
+@ApplicationScoped
+public class FilaPontuacaoWorker {
+
+    private static final Logger LOG = Logger.getLogger(FilaPontuacaoWorker.class);
+
+    @Inject
+    FilaPontuacaoService filaPontuacaoService;
+
+    @ConfigProperty(name = "loyalty.fila-pontuacao.habilitada", defaultValue = "true")
+    boolean habilitada;
+
+    @ConfigProperty(name = "loyalty.fila-pontuacao.cartoes-por-ciclo", defaultValue = "500")
+    int cartoesPorCiclo;
+
+    @Scheduled(identity = "fila-pontuacao",
+               every = "${loyalty.fila-pontuacao.intervalo:1s}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void executarCiclo() {
+        if (!habilitada) {
+            return;
+        }
+
+        int cartoes = 0;
+        int itens = 0;
+        while (cartoes < cartoesPorCiclo) {
+            try {
+                int processados = filaPontuacaoService.processarProximoCartao();
+                if (processados < 0) {
+                    break; // fila vazia ou todos os cartões bloqueados por outros nós
+                }
+                itens += processados;
+            } catch (FalhaFilaPontuacaoException e) {
+                filaPontuacaoService.registrarFalha(e.itemId, e.getCause());
+            } catch (RuntimeException e) {
+                LOG.error("Erro no ciclo da fila de pontuação: " + e.getMessage(), e);
+                break;
+            }
+            cartoes++;
+        }
+
+        if (itens > 0) {
+            LOG.debug("Fila de pontuação: " + itens + " transações pontuadas em " + cartoes + " cartões");
+        }
+    }
+
+    /**
+     * Profundidade da fila em agenda própria, mais lenta que o ciclo: a contagem por status varre a fila
+     * e, no ciclo de 1s, rodava a cada segundo em todos os pods.
+     */
+    @Scheduled(identity = "fila-pontuacao-metricas",
+               every = "${loyalty.fila-pontuacao.metricas-intervalo:30s}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void atualizarMetricas() {
+        if (!habilitada) {
+            return;
+        }
+        try {
+            filaPontuacaoService.atualizarMetricas();
+        } catch (RuntimeException e) {
+            LOG.warn("Falha ao atualizar métricas da fila de pontuação: " + e.getMessage());
+        }
+    }
+}
@@ -27,6 +27,9 @@ public class HealthService {
     @Inject
     SaldoPontosRepository saldoPontosRepository;
 
+    @Inject
+    AquecimentoService aquecimentoService;
+
     public SaudeSistemaDTO verificarSaudeGeral() {
         SaudeSistemaDTO saude = new SaudeSistemaDTO();
         saude.timestamp = LocalDateTime.now();
@@ -65,6 +68,11 @@ public class HealthService {
             // - Configurações carregadas
             // - Dependências essenciais disponíveis
 
+            // Aquecimento da inicialização (caches, consultas e JIT) concluído
+            if (!aquecimentoService.isPronto()) {
+                return false;
+            }
+
             // Teste básico de conexão com banco
             usuarioRepository.count(); // Verifica se a conexão está funcionando
             
@@ -0,0 +1,170 @@
+package org.acme.loyalty.service;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.loyalty.dto.AvaliacaoNiveisDTO;
+import org.acme.loyalty.dto.NivelFidelidadeDTO;
+import org.acme.loyalty.entity.AcumuloMensal;
+import org.acme.loyalty.repository.GastoMensalRepository;
+import org.acme.loyalty.repository.NivelUsuarioRepository;
+import org.acme.loyalty.service.pontuacao.AnelGastoMensal;
+import org.acme.loyalty.service.pontuacao.BarramentoInvalidacao;
+import org.acme.loyalty.service.pontuacao.InvalidacaoCache;
+import org.acme.loyalty.service.pontuacao.NiveisFidelidade;
+import org.acme.loyalty.service.pontuacao.NiveisUsuariosHolder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Níveis de fidelidade pelo gasto aprovado dos últimos 12 meses (ex.: PRATA, OURO, BLACK).
+ * - O gasto é mantido em baldes mensais (gasto_mensal) na mesma transação da pontuação, sem SUM sobre transacao
+ * - Avaliação incremental: só usuários com balde alterado ou cuja janela de 12 meses andou (virada do mês)
+ *   têm o anel de 12 meses remontado a partir dos baldes e o nível recalculado
+ * - Completa: todos os usuários com gasto na janela (use após alterar {@code loyalty.niveis.definicao})
+ * - Um commit por lote de usuários; mudanças de nível invalidam o snapshot usado na pontuação em todos os nós
+ */
+@ApplicationScoped
+public class NivelUsuarioService {
+
+    private static final Logger LOG = Logger.getLogger(NivelUsuarioService.class);
+
+    @Inject
+    GastoMensalRepository gastoMensalRepository;
+
+    @Inject
+    NivelUsuarioRepository nivelUsuarioRepository;
+
+    @Inject
+    NiveisUsuariosHolder niveisUsuariosHolder;
+
+    @Inject
+    BarramentoInvalidacao barramentoInvalidacao;
+
+    @ConfigProperty(name = "loyalty.niveis.tamanho-lote", defaultValue = "1000")
+    int tamanhoLote;
+
+    /** Níveis definidos e quantidade de usuários avaliados em cada um (nome vazio = base). */
+    @Transactional
+    public List<NivelFidelidadeDTO> listar() {
+        NiveisFidelidade definicao = niveisUsuariosHolder.definicao();
+        Map<String, Long> contagem = nivelUsuarioRepository.contarPorNivel();
+        List<NivelFidelidadeDTO> r = new ArrayList<>();
+        r.add(new NivelFidelidadeDTO("", BigDecimal.ZERO.setScale(2), BigDecimal.ZERO.setScale(4),
+                contagem.getOrDefault("", 0L)));
+        for (NiveisFidelidade.Nivel n : definicao.niveis()) {
+            r.add(new NivelFidelidadeDTO(n.nome, BigDecimal.valueOf(n.gastoMinimoCentavos, 2),
+                    n.multiplicadorExtra, contagem.getOrDefault(n.nome, 0L)));
+        }
+        return r;
+    }
+
+    @Scheduled(identity = "niveis-usuario",
+               every = "${loyalty.niveis.avaliacao:1h}",
+               delayed = "${loyalty.niveis.avaliacao-atraso:2m}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void avaliarAgendado() {
+        try {
+            avaliar(false);
+        } catch (RuntimeException e) {
+            LOG.error("Falha na avaliação agendada de níveis: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reavalia os níveis (incremental ou completa) em lotes de {@code loyalty.niveis.tamanho-lote} usuários.
+     */
+    public AvaliacaoNiveisDTO avaliar(boolean completa) {
+        long inicioNs = System.nanoTime();
+        AvaliacaoNiveisDTO resultado = new AvaliacaoNiveisDTO();
+        resultado.completa = completa;
+        resultado.anoMesRef = AcumuloMensal.anoMes(LocalDate.now());
+
+        NiveisFidelidade definicao = niveisUsuariosHolder.definicao();
+        if (definicao.isVazia()) {
+            return resultado; // sem níveis definidos: nada a avaliar
+        }
+        int anoMesIni = AnelGastoMensal.inicioJanela(resultado.anoMesRef);
+
+        List<Long> candidatos = listarCandidatos(completa, resultado.anoMesRef, anoMesIni);
+        int lote = Math.max(1, tamanhoLote);
+        for (int i = 0; i < candidatos.size(); i += lote) {
+            List<Long> ids = candidatos.subList(i, Math.min(candidatos.size(), i + lote));
+            resultado.niveisAlterados += avaliarLote(ids, definicao, resultado.anoMesRef, anoMesIni);
+            resultado.usuariosAvaliados += ids.size();
+        }
+        resultado.baldesExpurgados = expurgar(anoMesIni);
+
+        if (resultado.niveisAlterados > 0) {
+            publicarAlteracao();
+            niveisUsuariosHolder.invalidar();
+        }
+        resultado.duracaoMs = (System.nanoTime() - inicioNs) / 1_000_000;
+        LOG.infof("Avaliação %s de níveis (janela até %d): %d usuários, %d mudanças de nível em %d ms",
+                completa ? "completa" : "incremental", resultado.anoMesRef,
+                resultado.usuariosAvaliados, resultado.niveisAlterados, resultado.duracaoMs);
+        return resultado;
+    }
+
+    @Transactional
+    List<Long> listarCandidatos(boolean completa, int anoMesRef, int anoMesIni) {
+        Set<Long> ids = new TreeSet<>();
+        if (completa) {
+            ids.addAll(gastoMensalRepository.listarUsuariosComGasto(anoMesIni));
+            ids.addAll(nivelUsuarioRepository.listarComJanelaVencida(Integer.MAX_VALUE)); // todos com gasto avaliado
+        } else {
+            ids.addAll(gastoMensalRepository.listarUsuariosAlterados());
+            ids.addAll(nivelUsuarioRepository.listarComJanelaVencida(anoMesRef));
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Remonta o anel de 12 meses dos usuários, grava os níveis e limpa a marca dos baldes lidos.
+     * @return quantidade de usuários que mudaram de nível
+     */
+    @Transactional
+    int avaliarLote(List<Long> usuarioIds, NiveisFidelidade definicao, int anoMesRef, int anoMesIni) {
+        List<GastoMensalRepository.Balde> baldes = gastoMensalRepository.carregarBaldes(usuarioIds, anoMesIni);
+        Map<Long, AnelGastoMensal> aneis = new HashMap<>(usuarioIds.size() * 2);
+        for (GastoMensalRepository.Balde b : baldes) {
+            aneis.computeIfAbsent(b.usuarioId, k -> new AnelGastoMensal(anoMesRef)).adicionar(b.anoMes, b.centavos);
+        }
+        Map<Long, String> niveisAtuais = nivelUsuarioRepository.carregarNiveis(usuarioIds);
+
+        int alterados = 0;
+        List<NivelUsuarioRepository.Avaliacao> avaliacoes = new ArrayList<>(usuarioIds.size());
+        for (Long id : usuarioIds) {
+            AnelGastoMensal anel = aneis.get(id);
+            long gasto = anel != null ? anel.total() : 0L;
+            NiveisFidelidade.Nivel nivel = definicao.avaliar(gasto);
+            String nome = nivel != null ? nivel.nome : null;
+            boolean avaliadoAntes = niveisAtuais.containsKey(id);
+            if (!Objects.equals(nome, niveisAtuais.get(id))) {
+                alterados++;
+            }
+            if (avaliadoAntes || gasto > 0) {
+                avaliacoes.add(new NivelUsuarioRepository.Avaliacao(id, nome, gasto));
+            }
+        }
+        nivelUsuarioRepository.gravarEmLote(avaliacoes, anoMesRef);
+        gastoMensalRepository.limparAlterados(baldes);
+        return alterados;
+    }
+
+    @Transactional
+    int expurgar(int anoMesIni) {
+        return gastoMensalRepository.expurgar(anoMesIni);
+    }
+
+    /** NOTIFY para os demais nós (o snapshot local é invalidado por quem chama, após o commit). */
+    @Transactional
+    void publicarAlteracao() {
+        barramentoInvalidacao.publicar(InvalidacaoCache.NIVEL, null);
+    }
+}
@@ -14,6 +14,7 @@ import org.acme.loyalty.repository.NotificacaoRepository;
 import org.acme.loyalty.repository.UsuarioRepository;
 import org.acme.loyalty.repository.ConfiguracaoNotificacaoRepository;
 import org.acme.loyalty.entity.ConfiguracaoNotificacao;
+import org.acme.loyalty.service.pontuacao.CadastroCache;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -24,6 +25,7 @@ public class NotificacaoService {
 
     @Inject NotificacaoRepository notificacaoRepository;
     @Inject public UsuarioRepository usuarioRepository;
+    @Inject CadastroCache cadastroCache;
 
     @Inject
     ConfiguracaoNotificacaoRepository configuracaoRepository;
@@ -34,8 +36,7 @@ public class NotificacaoService {
                                                            Boolean lida, // ignorado: entidade não tem esse campo
                                                            Integer pagina,
                                                            Integer tamanho) {
-        usuarioRepository.findByIdOptional(usuarioId)
-                .orElseThrow(() -> new NotFoundException("Usuário não encontrado: " + usuarioId));
+        cadastroCache.exigirUsuario(usuarioId);
 
         int pageIndex = (pagina == null ? 0 : Math.max(0, pagina - 1)); // 1-based -> 0-based
         int pageSize  = (tamanho == null || tamanho <= 0) ? 20 : tamanho;
@@ -175,8 +176,8 @@ public class NotificacaoService {
 
     // -------------------- Configurações --------------------
     public ConfiguracaoNotificacaoDTO consultarConfiguracaoUsuario(Long usuarioId) {
-        Usuario usuario = usuarioRepository.findByIdOptional(usuarioId)
-                .orElseThrow(() -> new NotFoundException("Usuário não encontrado: " + usuarioId));
+        cadastroCache.exigirUsuario(usuarioId);
+        Usuario usuario = usuarioRepository.getEntityManager().getReference(Usuario.class, usuarioId);
 
         ConfiguracaoNotificacao config = configuracaoRepository.findByUsuarioId(usuarioId)
                 .orElseGet(() -> {
@@ -191,8 +192,8 @@ public class NotificacaoService {
 
     @Transactional
     public void atualizarConfiguracaoUsuario(Long usuarioId, ConfiguracaoNotificacaoDTO configDTO) {
-        Usuario usuario = usuarioRepository.findByIdOptional(usuarioId)
-                .orElseThrow(() -> new NotFoundException("Usuário não encontrado: " + usuarioId));
+        cadastroCache.exigirUsuario(usuarioId);
+        Usuario usuario = usuarioRepository.getEntityManager().getReference(Usuario.class, usuarioId);
 
         ConfiguracaoNotificacao config = configuracaoRepository.findByUsuarioId(usuarioId)
                 .orElseGet(() -> {
@@ -0,0 +1,155 @@
+package org.acme.loyalty.service;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.loyalty.dto.PassivoParceiroDTO;
+import org.acme.loyalty.dto.VerificacaoPassivoDTO;
+import org.acme.loyalty.entity.PassivoParceiro;
+import org.acme.loyalty.entity.PassivoParceiroId;
+import org.acme.loyalty.repository.PassivoParceiroRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Passivo de pontos por parceiro (financeiro).
+ * - Consulta: lê as linhas diárias de passivo_parceiro (uma por parceiro e dia), sem varrer movimentos e resgates
+ * - Conferência noturna dos últimos dias fechados contra as tabelas brutas; divergências são registradas
+ *   em log e, por padrão, corrigidas com o valor apurado (cobre movimentos gravados fora dos fluxos instrumentados)
+ */
+@ApplicationScoped
+public class PassivoParceiroService {
+
+    private static final Logger LOG = Logger.getLogger(PassivoParceiroService.class);
+
+    public static final int PERIODO_MAXIMO_DIAS = 3660;
+
+    @Inject
+    PassivoParceiroRepository passivoParceiroRepository;
+
+    @ConfigProperty(name = "loyalty.passivo-parceiro.dias-verificados", defaultValue = "2")
+    int diasVerificados;
+
+    @ConfigProperty(name = "loyalty.passivo-parceiro.corrigir-divergencias", defaultValue = "true")
+    boolean corrigirDivergencias;
+
+    /** Passivo por parceiro no período (inclusive); sem parceiro, todos os parceiros com movimento. */
+    @Transactional
+    public List<PassivoParceiroDTO> consultar(Long parceiroId, LocalDate inicio, LocalDate fim) {
+        validarPeriodo(inicio, fim);
+        Map<Long, PassivoParceiroDTO> porParceiro = new LinkedHashMap<>();
+        for (PassivoParceiro p : passivoParceiroRepository.listarPeriodo(parceiroId, inicio, fim)) {
+            PassivoParceiroDTO dto = porParceiro.computeIfAbsent(p.parceiroId, id -> {
+                PassivoParceiroDTO novo = new PassivoParceiroDTO();
+                novo.parceiroId = id;
+                novo.inicio = inicio;
+                novo.fim = fim;
+                return novo;
+            });
+            PassivoParceiroDTO.Dia dia = new PassivoParceiroDTO.Dia();
+            dia.dia = p.dia;
+            dia.pontosAcumulados = p.pontosAcumulados;
+            dia.pontosResgatados = p.pontosResgatados;
+            dia.passivo = p.passivo();
+            dto.pontosAcumulados += p.pontosAcumulados;
+            dto.pontosResgatados += p.pontosResgatados;
+            dto.passivo += dia.passivo;
+            dia.passivoAcumulado = dto.passivo;
+            dto.dias.add(dia);
+        }
+        if (parceiroId != null && porParceiro.isEmpty()) {
+            PassivoParceiroDTO vazio = new PassivoParceiroDTO();
+            vazio.parceiroId = parceiroId;
+            vazio.inicio = inicio;
+            vazio.fim = fim;
+            porParceiro.put(parceiroId, vazio);
+        }
+        return new ArrayList<>(porParceiro.values());
+    }
+
+    @Scheduled(identity = "passivo-parceiro-verificacao",
+               cron = "${loyalty.passivo-parceiro.verificacao:0 30 3 * * ?}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void verificarAgendado() {
+        LocalDate ontem = LocalDate.now().minusDays(1);
+        try {
+            verificar(ontem.minusDays(Math.max(1, diasVerificados) - 1L), ontem, corrigirDivergencias);
+        } catch (RuntimeException e) {
+            LOG.error("Falha na conferência do passivo por parceiro: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Compara o livro com os totais apurados em movimento_pontos/transacao e resgate/recompensa no período.
+     * Com {@code corrigir}, as linhas divergentes recebem o valor apurado (também serve para reconstruir o histórico).
+     */
+    @Transactional
+    public VerificacaoPassivoDTO verificar(LocalDate inicio, LocalDate fim, boolean corrigir) {
+        validarPeriodo(inicio, fim);
+        long inicioNs = System.nanoTime();
+
+        Map<PassivoParceiroId, long[]> livro = passivoParceiroRepository.carregarPeriodo(inicio, fim);
+        Map<PassivoParceiroId, long[]> apurado = passivoParceiroRepository.apurarPeriodo(inicio, fim);
+
+        Set<PassivoParceiroId> chaves = new HashSet<>(livro.keySet());
+        chaves.addAll(apurado.keySet());
+
+        VerificacaoPassivoDTO r = new VerificacaoPassivoDTO();
+        r.inicio = inicio;
+        r.fim = fim;
+        r.linhasVerificadas = chaves.size();
+        Map<PassivoParceiroId, long[]> correcoes = new HashMap<>();
+        long[] zero = new long[2];
+        for (PassivoParceiroId id : chaves) {
+            long[] l = livro.getOrDefault(id, zero);
+            long[] a = apurado.getOrDefault(id, zero);
+            if (l[0] == a[0] && l[1] == a[1]) continue;
+            r.divergencias++;
+            correcoes.put(id, a);
+            if (r.detalhes.size() < VerificacaoPassivoDTO.MAX_DIVERGENCIAS_LISTADAS) {
+                VerificacaoPassivoDTO.Divergencia d = new VerificacaoPassivoDTO.Divergencia();
+                d.parceiroId = id.getParceiroId();
+                d.dia = id.getDia();
+                d.acumuladosLivro = l[0];
+                d.acumuladosApurados = a[0];
+                d.resgatadosLivro = l[1];
+                d.resgatadosApurados = a[1];
+                r.detalhes.add(d);
+            }
+        }
+        r.detalhes.sort(Comparator.comparing((VerificacaoPassivoDTO.Divergencia d) -> d.dia)
+                .thenComparing(d -> d.parceiroId));
+
+        if (corrigir && !correcoes.isEmpty()) {
+            passivoParceiroRepository.corrigirEmLote(correcoes);
+            r.corrigidas = true;
+        }
+        r.duracaoMs = (System.nanoTime() - inicioNs) / 1_000_000;
+
+        if (r.divergencias > 0) {
+            LOG.warnf("Passivo por parceiro de %s a %s: %d de %d linhas divergentes%s",
+                    inicio, fim, r.divergencias, r.linhasVerificadas, r.corrigidas ? " (corrigidas)" : "");
+        } else {
+            LOG.infof("Passivo por parceiro de %s a %s conferido: %d linhas em %d ms",
+                    inicio, fim, r.linhasVerificadas, r.duracaoMs);
+        }
+        return r;
+    }
+
+    private static void validarPeriodo(LocalDate inicio, LocalDate fim) {
+        if (inicio == null || fim == null) {
+            throw new IllegalArgumentException("Data de início e data de fim são obrigatórias");
+        }
+        if (fim.isBefore(inicio)) {
+            throw new IllegalArgumentException("Data de fim deve ser igual ou posterior à data de início");
+        }
+        if (ChronoUnit.DAYS.between(inicio, fim) >= PERIODO_MAXIMO_DIAS) {
+            throw new IllegalArgumentException("Período máximo: " + PERIODO_MAXIMO_DIAS + " dias");
+        }
+    }
+}
@@ -5,15 +5,14 @@ import jakarta.inject.Inject;
 import jakarta.ws.rs.NotFoundException;
 import org.acme.loyalty.dto.ExtratoPontosDTO;
 import org.acme.loyalty.dto.MovimentoPontosDTO;
+import org.acme.loyalty.dto.PageResponseDTO;
 import org.acme.loyalty.dto.SaldoPontosDTO;
 import org.acme.loyalty.dto.SaldoUsuarioDTO;
 import org.acme.loyalty.entity.MovimentoPontos;
 import org.acme.loyalty.entity.SaldoPontos;
 import org.acme.loyalty.repository.MovimentoPontosRepository;
 import org.acme.loyalty.repository.SaldoPontosRepository;
-import org.acme.loyalty.repository.UsuarioRepository;
-
-import io.quarkus.hibernate.orm.panache.PanacheQuery;
+import org.acme.loyalty.service.pontuacao.CadastroCache;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -24,7 +23,7 @@ import java.util.stream.Collectors;
 @ApplicationScoped
 public class PontosService {
 
-    @Inject UsuarioRepository usuarioRepository;
+    @Inject CadastroCache cadastroCache;
     @Inject SaldoPontosRepository saldoPontosRepository;
     @Inject MovimentoPontosRepository movimentoPontosRepository;
 
@@ -32,8 +31,7 @@ public class PontosService {
 
     public SaldoUsuarioDTO consultarSaldo(Long usuarioId) {
         // valida existência do usuário
-        usuarioRepository.findByIdOptional(usuarioId)
-                .orElseThrow(() -> new NotFoundException("Usuário não encontrado: " + usuarioId));
+        cadastroCache.exigirUsuario(usuarioId);
 
         // lista saldos do usuário
         List<SaldoPontos> saldos = saldoPontosRepository.listByUsuarioId(usuarioId);
@@ -47,8 +45,7 @@ public class PontosService {
 
     public SaldoPontosDTO consultarSaldoCartao(Long usuarioId, Long cartaoId) {
         // valida existência do usuário
-        usuarioRepository.findByIdOptional(usuarioId)
-                .orElseThrow(() -> new NotFoundException("Usuário não encontrado: " + usuarioId));
+        cadastroCache.exigirUsuario(usuarioId);
 
         SaldoPontos saldo = saldoPontosRepository.findByUsuarioAndCartao(usuarioId, cartaoId)
                 .orElseThrow(() -> new NotFoundException("Saldo não encontrado para o cartão: " + cartaoId));
@@ -66,10 +63,12 @@ public class PontosService {
                                              String categoria,     // ignorado: não há esse filtro em MovimentoPontos
                                              Long parceiroId,      // ignorado: não há esse filtro em MovimentoPontos
                                              Integer pagina,
-                                             Integer tamanho) {
+                                             Integer tamanho,
+                                             String cursor,
+                                             boolean incluirTotal) {
         // valida existência do usuário
-        usuarioRepository.findByIdOptional(usuarioId)
-                .orElseThrow(() -> new NotFoundException("Usuário não encontrado: " + usuarioId));
+        cadastroCache.exigirUsuario(usuarioId);
+        PageResponseDTO.Cursor apos = PageResponseDTO.Cursor.decode(cursor);
 
         LocalDate ini = parseDate(dataInicio);
         LocalDate fim = parseDate(dataFim);
@@ -82,27 +81,29 @@ public class PontosService {
         int pageIndex = Math.max(0, (pagina == null ? 1 : pagina) - 1);
         int size = (tamanho == null ? 20 : tamanho);
 
-        PanacheQuery<MovimentoPontos> q = movimentoPontosRepository.queryExtrato(
-                usuarioId, cartaoId, de, ate, tipoEnum, pageIndex, size
-        );
-
-        List<MovimentoPontos> movimentos = q.list();
-        long total = q.count();
-
-        List<MovimentoPontosDTO> itens = movimentos.stream()
-                .map(this::toMovimentoPontosDTO)
-                .collect(Collectors.toList());
-
-        ExtratoPontosDTO extrato = new ExtratoPontosDTO(
-                usuarioId,
-                cartaoId,
-                de,
-                ate,
-                itens,
-                (pagina == null ? 1 : pagina),
-                size,
-                total
-        );
+        // Primeira página e cursor: por chave; página por número (a partir da 2ª): OFFSET. Uma linha a mais
+        // indica se há próxima página; COUNT só quando o total é pedido
+        List<MovimentoPontos> movimentos;
+        if (apos != null || pageIndex == 0) {
+            movimentos = movimentoPontosRepository.listarExtratoAposChave(usuarioId, cartaoId, de, ate, tipoEnum,
+                    apos != null ? apos.instante : null, apos != null ? apos.id : null, size + 1);
+        } else {
+            int inicio = pageIndex * size;
+            movimentos = movimentoPontosRepository.queryExtrato(usuarioId, cartaoId, de, ate, tipoEnum, pageIndex, size)
+                    .range(inicio, inicio + size)
+                    .list();
+        }
+        boolean temMais = movimentos.size() > size;
+        if (temMais) movimentos = movimentos.subList(0, size);
+
+        ExtratoPontosDTO extrato = new ExtratoPontosDTO(usuarioId, cartaoId, de, ate,
+                movimentos.stream().map(this::toMovimentoPontosDTO).collect(Collectors.toList()),
+                apos != null ? null : pageIndex + 1, size, null);
+        extrato.totalPaginas = null;
+        extrato.proximoCursor = temMais ? cursorDe(movimentos.get(movimentos.size() - 1)) : null;
+        if (incluirTotal) {
+            extrato.definirTotal(movimentoPontosRepository.queryExtrato(usuarioId, cartaoId, de, ate, tipoEnum, 0, size).count());
+        }
 
         Long saldoInicial = calcularSaldoInicial(usuarioId, cartaoId, ini);
         extrato.calcularSaldos(saldoInicial);
@@ -118,8 +119,7 @@ public class PontosService {
                                                          Integer pagina,
                                                          Integer tamanho) {
         // valida existência do usuário
-        usuarioRepository.findByIdOptional(usuarioId)
-                .orElseThrow(() -> new NotFoundException("Usuário não encontrado: " + usuarioId));
+        cadastroCache.exigirUsuario(usuarioId);
 
         LocalDate ini = parseDate(dataInicio);
         LocalDate fim = parseDate(dataFim);
@@ -143,8 +143,7 @@ public class PontosService {
 
     public Object consultarResumo(Long usuarioId) {
         // valida existência do usuário
-        usuarioRepository.findByIdOptional(usuarioId)
-                .orElseThrow(() -> new NotFoundException("Usuário não encontrado: " + usuarioId));
+        cadastroCache.exigirUsuario(usuarioId);
 
         // Implementar resumo consolidado quando necessário
         return null;
@@ -230,6 +229,10 @@ public class PontosService {
         }
     }
 
+    private static String cursorDe(MovimentoPontos m) {
+        return new PageResponseDTO.Cursor(m.criadoEm, m.id).encode();
+    }
+
     private LocalDateTime toStartOfDay(LocalDate d) {
         return (d == null) ? null : d.atStartOfDay();
     }
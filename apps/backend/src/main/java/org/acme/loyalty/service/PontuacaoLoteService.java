@@ -0,0 +1,260 @@
+package org.acme.loyalty.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.loyalty.dto.ProcessamentoLoteDTO;
+import org.acme.loyalty.dto.event.PointsAccruedEvent;
+import org.acme.loyalty.entity.*;
+import org.acme.loyalty.repository.*;
+import org.acme.loyalty.service.pontuacao.CalculoPontuacao;
+import org.acme.loyalty.service.pontuacao.CalendarioCampanhasHolder;
+import org.acme.loyalty.service.pontuacao.NiveisUsuariosHolder;
+import org.acme.loyalty.service.pontuacao.OrcamentoCampanhas;
+import org.acme.loyalty.service.pontuacao.SegmentosUsuariosHolder;
+import org.acme.loyalty.service.pontuacao.TabelaCambio;
+import org.acme.loyalty.service.pontuacao.TabelaCambioHolder;
+import org.acme.loyalty.service.pontuacao.RegrasSnapshotHolder;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Pontuação em lote de transações pendentes (regras 17.4, 17.5 e 17.6).
+ * Mesmo cálculo de {@link PontuacaoService#processarTransacaoParaPontos(Long)}, porém por lote:
+ * - Reivindica N transações APROVADAS não pontuadas (FOR UPDATE SKIP LOCKED)
+ * - Regras (snapshot), campanhas (calendário), níveis de fidelidade e câmbio em memória; contadores de teto e idempotência carregados uma vez por lote
+ * - Transações em moeda sem taxa vigente ficam pendentes (não são marcadas nem saem da fila) até a taxa ser cadastrada
+ * - Pontos calculados em memória; movimentos, saldos, contadores, gasto mensal, passivo por parceiro e transações gravados via JDBC batch
+ * - Um commit por lote
+ */
+@ApplicationScoped
+public class PontuacaoLoteService {
+
+    private static final Logger LOG = Logger.getLogger(PontuacaoLoteService.class);
+
+    public static final int TAMANHO_LOTE_PADRAO = 1000;
+    public static final int TAMANHO_LOTE_MAXIMO = 10_000;
+
+    private static final String OBSERVACAO_ACUMULO = "Acúmulo automático por transação";
+
+    @Inject
+    RegrasSnapshotHolder regrasSnapshotHolder;
+
+    @Inject
+    CalendarioCampanhasHolder calendarioCampanhasHolder;
+
+    @Inject
+    OrcamentoCampanhas orcamentoCampanhas;
+
+    @Inject
+    SegmentosUsuariosHolder segmentosUsuariosHolder;
+
+    @Inject
+    TabelaCambioHolder tabelaCambioHolder;
+
+    @Inject
+    NiveisUsuariosHolder niveisUsuariosHolder;
+
+    @Inject
+    TransacaoRepository transacaoRepository;
+
+    @Inject
+    MovimentoPontosRepository movimentoPontosRepository;
+
+    @Inject
+    SaldoPontosRepository saldoPontosRepository;
+
+    @Inject
+    AcumuloMensalRepository acumuloMensalRepository;
+
+    @Inject
+    GastoMensalRepository gastoMensalRepository;
+
+    @Inject
+    PassivoParceiroRepository passivoParceiroRepository;
+
+    @Inject
+    FilaPontuacaoRepository filaPontuacaoRepository;
+
+    @Inject
+    EventPublisherService eventPublisherService;
+
+    /**
+     * Processa lotes sucessivos até esgotar as pendências ou atingir {@code maxLotes}.
+     * Cada lote é uma transação independente: uma falha desfaz apenas o lote corrente.
+     */
+    public ProcessamentoLoteDTO processarPendentes(int tamanhoLote, int maxLotes) {
+        if (tamanhoLote <= 0 || tamanhoLote > TAMANHO_LOTE_MAXIMO) {
+            throw new IllegalArgumentException("Tamanho do lote deve estar entre 1 e " + TAMANHO_LOTE_MAXIMO);
+        }
+        if (maxLotes <= 0) {
+            throw new IllegalArgumentException("Quantidade máxima de lotes deve ser maior que zero");
+        }
+
+        long inicio = System.nanoTime();
+        ProcessamentoLoteDTO total = new ProcessamentoLoteDTO();
+        for (int i = 0; i < maxLotes; i++) {
+            ProcessamentoLoteDTO lote = processarLote(tamanhoLote);
+            total.somar(lote);
+            if (lote.transacoesLidas < tamanhoLote) {
+                break; // fila esgotada
+            }
+        }
+        total.duracaoMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        LOG.infof("Pontuação em lote: %d transações em %d lotes (%d pontuadas, %d pontos) em %d ms",
+                total.transacoesLidas, total.lotes, total.transacoesPontuadas, total.pontosGerados, total.duracaoMs);
+        return total;
+    }
+
+    /**
+     * Processa um único lote de até {@code tamanhoLote} transações em uma transação.
+     */
+    @Transactional
+    public ProcessamentoLoteDTO processarLote(int tamanhoLote) {
+        long inicio = System.nanoTime();
+        ProcessamentoLoteDTO resultado = new ProcessamentoLoteDTO();
+
+        List<Transacao> transacoes = transacaoRepository.listarPendentesProcessamento(tamanhoLote);
+        if (transacoes.isEmpty()) {
+            return resultado;
+        }
+        resultado.lotes = 1;
+        resultado.transacoesLidas = transacoes.size();
+
+        // ---- Pré-carga (uma consulta por tipo de dado) ----
+        List<Long> transacaoIds = new ArrayList<>(transacoes.size());
+        Set<Long> cartaoIds = new HashSet<>();
+        Set<Integer> anoMeses = new HashSet<>();
+        for (Transacao t : transacoes) {
+            transacaoIds.add(t.id);
+            cartaoIds.add(t.cartao.id);
+            anoMeses.add(AcumuloMensal.anoMes(t.dataEvento.toLocalDate()));
+        }
+
+        Map<Long, Long> jaPontuadas = movimentoPontosRepository.somarAcumulosPorTransacao(transacaoIds);
+        Map<AcumuloMensalId, Long> contadores = new HashMap<>(acumuloMensalRepository.carregarContadores(cartaoIds, anoMeses));
+        CalculoPontuacao calculo = new CalculoPontuacao(regrasSnapshotHolder.atual(), calendarioCampanhasHolder.atual(),
+                segmentosUsuariosHolder.atual(), niveisUsuariosHolder.atual());
+        TabelaCambio cambio = tabelaCambioHolder.atual();
+
+        // ---- Cálculo em memória ----
+        LocalDateTime agora = LocalDateTime.now();
+        List<MovimentoPontos> movimentos = new ArrayList<>(transacoes.size());
+        Map<SaldoPontosId, Long> creditos = new HashMap<>();
+        Map<AcumuloMensalId, Long> incrementos = new HashMap<>();
+        Map<GastoMensalId, Long> gastos = new HashMap<>();
+        Map<PassivoParceiroId, Long> passivos = new HashMap<>();
+        Set<Long> semCambio = new HashSet<>();
+
+        for (Transacao t : transacoes) {
+            Long existente = jaPontuadas.get(t.id);
+            if (existente != null) {
+                // Idempotência: movimento já gerado, apenas marca a transação
+                t.pontosGerados = Math.toIntExact(existente);
+                t.processadoEm = agora;
+                resultado.transacoesJaPontuadas++;
+                continue;
+            }
+
+            BigDecimal valorBrl = cambio.paraBrl(t.valor, t.moeda, t.dataEvento);
+            if (valorBrl == null) {
+                semCambio.add(t.id);
+                resultado.transacoesSemCambio++;
+                continue;
+            }
+
+            // Gasto do mês para os níveis de fidelidade: toda transação aprovada conta, mesmo sem pontos (teto, sem regra)
+            gastos.merge(new GastoMensalId(t.usuario.id, AcumuloMensal.anoMes(t.dataEvento.toLocalDate())),
+                    GastoMensal.centavos(valorBrl), Long::sum);
+
+            long pontos = calcularPontos(t, valorBrl, calculo, contadores, incrementos, movimentos, agora);
+
+            t.pontosGerados = (int) pontos;
+            t.processadoEm = agora;
+            if (pontos > 0) {
+                creditos.merge(new SaldoPontosId(t.usuario.id, t.cartao.id), pontos, Long::sum);
+                if (t.parceiroId != null) {
+                    passivos.merge(new PassivoParceiroId(t.parceiroId, agora.toLocalDate()), pontos, Long::sum);
+                }
+                resultado.transacoesPontuadas++;
+                resultado.pontosGerados += pontos;
+            } else {
+                resultado.transacoesSemPontos++;
+            }
+        }
+
+        if (!semCambio.isEmpty()) {
+            LOG.warnf("Lote de pontuação: %d transações sem taxa de câmbio vigente permanecem pendentes", semCambio.size());
+            transacoes = transacoes.stream().filter(t -> !semCambio.contains(t.id)).toList();
+            transacaoIds.removeAll(semCambio);
+        }
+
+        // ---- Escrita em lote (JDBC batch, mesmo commit) ----
+        movimentoPontosRepository.inserirEmLote(movimentos);
+        acumuloMensalRepository.registrarAcumulosEmLote(incrementos);
+        saldoPontosRepository.creditarSaldosEmLote(creditos);
+        gastoMensalRepository.registrarGastosEmLote(gastos);
+        passivoParceiroRepository.registrarAcumulosEmLote(passivos);
+        transacaoRepository.marcarProcessadasEmLote(transacoes);
+        filaPontuacaoRepository.removerPorTransacoes(transacaoIds);
+
+        for (MovimentoPontos m : movimentos) {
+            eventPublisherService.publishEvent(new PointsAccruedEvent(
+                    m.usuario.id,
+                    m.cartao.id,
+                    m.pontos,
+                    m.refTransacaoId,
+                    agora
+            ));
+        }
+
+        resultado.duracaoMs = (System.nanoTime() - inicio) / 1_000_000;
+        LOG.debugf("Lote de pontuação: %d transações, %d movimentos, %d saldos em %d ms",
+                resultado.transacoesLidas, movimentos.size(), creditos.size(), resultado.duracaoMs);
+        return resultado;
+    }
+
+    /**
+     * Aplica regra (17.4), teto mensal, campanha (17.5, limitada ao teto da campanha) e bônus do nível
+     * de fidelidade a uma transação do lote ({@link CalculoPontuacao}, acumulado do teto nos contadores do lote).
+     * Atualiza os contadores em memória para que transações seguintes do mesmo mês vejam o acumulado.
+     * @return pontos totais gerados (0 se nenhuma regra aplicável ou teto atingido)
+     */
+    private long calcularPontos(Transacao t,
+                                BigDecimal valorBrl,
+                                CalculoPontuacao calculo,
+                                Map<AcumuloMensalId, Long> contadores,
+                                Map<AcumuloMensalId, Long> incrementos,
+                                List<MovimentoPontos> movimentos,
+                                LocalDateTime agora) {
+        int anoMes = AcumuloMensal.anoMes(t.dataEvento.toLocalDate());
+        CalculoPontuacao.Resultado r = calculo.calcular(valorBrl, t.mcc, t.categoria, t.parceiroId, t.dataEvento, t.usuario.id,
+                regra -> contadores.getOrDefault(new AcumuloMensalId(t.usuario.id, t.cartao.id, regra.id, anoMes), 0L),
+                orcamentoCampanhas::aplicarBonus);
+        long pontosTotais = r.pontosTotais();
+        if (pontosTotais <= 0) {
+            return 0L;
+        }
+
+        AcumuloMensalId chave = new AcumuloMensalId(t.usuario.id, t.cartao.id, r.regra.id, anoMes);
+        contadores.merge(chave, pontosTotais, Long::sum);
+        incrementos.merge(chave, pontosTotais, Long::sum);
+
+        MovimentoPontos movimento = new MovimentoPontos(
+                t.usuario,
+                t.cartao,
+                MovimentoPontos.TipoMovimento.ACUMULO,
+                Math.toIntExact(pontosTotais),
+                t,
+                OBSERVACAO_ACUMULO
+        );
+        movimento.regraAplicada = String.valueOf(r.regra.id);
+        movimento.criadoEm = agora;
+        movimentos.add(movimento);
+        return pontosTotais;
+    }
+}
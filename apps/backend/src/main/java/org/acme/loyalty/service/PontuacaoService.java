@@ -6,18 +6,24 @@ import jakarta.transaction.Transactional;
 import org.acme.loyalty.dto.event.PointsAccruedEvent;
 import org.acme.loyalty.entity.*;
 import org.acme.loyalty.repository.*;
+import org.acme.loyalty.service.pontuacao.CalculoPontuacao;
+import org.acme.loyalty.service.pontuacao.CalendarioCampanhasHolder;
+import org.acme.loyalty.service.pontuacao.NiveisUsuariosHolder;
+import org.acme.loyalty.service.pontuacao.OrcamentoCampanhas;
+import org.acme.loyalty.service.pontuacao.SegmentosUsuariosHolder;
+import org.acme.loyalty.service.pontuacao.TabelaCambioHolder;
+import org.acme.loyalty.service.pontuacao.RegrasSnapshotHolder;
 
-
-import java.time.LocalDate;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Serviço de Pontuação conforme regras de negócio 17.4, 17.5 e 17.6.
  * Responsável por:
  * - Aplicar regras de conversão
  * - Aplicar campanhas de bônus
+ * - Aplicar o bônus do nível de fidelidade (gasto dos últimos 12 meses)
  * - Gerar movimentos de pontos
  * - Atualizar saldos
  */
@@ -25,10 +31,22 @@ import java.util.Optional;
 public class PontuacaoService {
 
     @Inject
-    RegraConversaoRepository regraConversaoRepository;
+    RegrasSnapshotHolder regrasSnapshotHolder;
     
     @Inject
-    CampanhaBonusRepository campanhaBonusRepository;
+    CalendarioCampanhasHolder calendarioCampanhasHolder;
+
+    @Inject
+    OrcamentoCampanhas orcamentoCampanhas;
+
+    @Inject
+    SegmentosUsuariosHolder segmentosUsuariosHolder;
+
+    @Inject
+    TabelaCambioHolder tabelaCambioHolder;
+
+    @Inject
+    NiveisUsuariosHolder niveisUsuariosHolder;
     
     @Inject
     MovimentoPontosRepository movimentoPontosRepository;
@@ -36,6 +54,15 @@ public class PontuacaoService {
     @Inject
     SaldoPontosRepository saldoPontosRepository;
     
+    @Inject
+    AcumuloMensalRepository acumuloMensalRepository;
+    
+    @Inject
+    GastoMensalRepository gastoMensalRepository;
+    
+    @Inject
+    PassivoParceiroRepository passivoParceiroRepository;
+    
     @Inject
     TransacaoRepository transacaoRepository;
     
@@ -56,23 +83,71 @@ public class PontuacaoService {
             return; // NEGADA não gera pontos
         }
         
-        // Verificar se já foi processada (idempotência)
-        if (movimentoPontosRepository.existeMovimentoParaTransacao(transacaoId, MovimentoPontos.TipoMovimento.ACUMULO)) {
+        // Reivindica a transação antes de qualquer efeito colateral (câmbio, teto, reserva de campanha):
+        // segunda chamada ou lote concorrente encontram processado_em preenchido e desistem aqui
+        if (!transacaoRepository.reivindicarParaPontuacao(transacaoId, LocalDateTime.now())) {
             return; // Já processada
         }
         
-        // Aplicar regra de conversão conforme regra 17.4
-        Long pontosBase = calcularPontosBase(transacao);
-        if (pontosBase <= 0) {
-            return; // Nenhum ponto a ser gerado
-        }
+        // Valor em BRL na data do evento (tabela de câmbio em memória)
+        BigDecimal valorBrl = converterParaBrl(transacao);
+        int anoMes = AcumuloMensal.anoMes(transacao.dataEvento.toLocalDate());
         
-        // Aplicar campanha de bônus conforme regra 17.5
-        Long pontosTotais = aplicarCampanhaBonus(transacao, pontosBase);
+        // Gasto do mês para os níveis de fidelidade: toda transação aprovada conta, mesmo sem pontos (teto, sem regra)
+        gastoMensalRepository.registrarGasto(
+            transacao.usuario.id,
+            anoMes,
+            GastoMensal.centavos(valorBrl)
+        );
+        
+        // Regra (17.4), teto mensal, campanha (17.5) e nível de fidelidade sobre os snapshots em memória:
+        // acumulado do teto lido do contador do mês (1 linha), bônus da campanha reservado no orçamento local
+        CalculoPontuacao.Resultado calculo = calculoPontuacao().calcular(
+            valorBrl,
+            transacao.mcc,
+            transacao.categoria,
+            transacao.parceiroId,
+            transacao.dataEvento,
+            transacao.usuario.id,
+            regra -> acumuloMensalRepository.pontosNoMes(transacao.usuario.id, transacao.cartao.id, regra.id, anoMes),
+            orcamentoCampanhas::aplicarBonus
+        );
+        Long pontosTotais = calculo.pontosTotais();
+        if (pontosTotais <= 0) {
+            return; // Nenhuma regra aplicável ou teto mensal atingido
+        }
         
         // Gerar movimento de pontos conforme regra 17.6
         MovimentoPontos movimento = criarMovimentoAcumulo(transacao, pontosTotais);
-        movimentoPontosRepository.persist(movimento);
+        movimento.regraAplicada = String.valueOf(calculo.regra.id);
+        
+        // Última barreira (movimentos anteriores à reivindicação): índice único (ref_transacao_id, tipo) + ON CONFLICT DO NOTHING
+        if (!movimentoPontosRepository.inserirSeAusente(movimento)) {
+            // Já processada: o bônus reservado não foi concedido e volta ao orçamento da campanha
+            if (calculo.campanha != null) {
+                orcamentoCampanhas.devolverBonus(calculo.campanha, calculo.pontosCampanha);
+            }
+            // O gasto foi contado junto com o movimento existente
+            gastoMensalRepository.registrarGasto(
+                transacao.usuario.id,
+                anoMes,
+                -GastoMensal.centavos(valorBrl)
+            );
+            return;
+        }
+        
+        // Contador mensal do teto (mesma transação do movimento ACUMULO)
+        acumuloMensalRepository.registrarAcumulo(
+            transacao.usuario.id,
+            transacao.cartao.id,
+            calculo.regra.id,
+            anoMes,
+            pontosTotais
+        );
+        
+        // Passivo do parceiro no dia do movimento (mesma transação do movimento ACUMULO)
+        passivoParceiroRepository.registrarAcumulo(
+            transacao.parceiroId, movimento.criadoEm.toLocalDate(), pontosTotais);
         
         // Atualizar saldo conforme regra 17.7
         saldoPontosRepository.creditarSaldoAtomicamente(
@@ -97,66 +172,26 @@ public class PontuacaoService {
     }
     
     /**
-     * Calcula pontos base conforme regra 17.4:
-     * - Seleção por vigência e prioridade (maior primeiro)
-     * - Escopo por mcc_regex / categoria / parceiro_id
-     * - pontos_base = floor(valor * multiplicador)
+     * Converte o valor da transação para BRL pela taxa vigente em data_evento (sem consulta ao banco).
+     * Sem taxa cadastrada a transação não é pontuada: a falha mantém o item na fila para nova tentativa.
      */
-    private Long calcularPontosBase(Transacao transacao) {
-        LocalDate dataTransacao = transacao.dataEvento.toLocalDate();
-        
-        // Buscar regra mais prioritária
-        Optional<RegraConversao> regraOpt = regraConversaoRepository.selecionarRegraMaisPrioritaria(
-            transacao.mcc,
-            transacao.categoria,
-            transacao.parceiroId,
-            dataTransacao
-        );
-        
-        if (regraOpt.isEmpty()) {
-            return 0L; // Nenhuma regra aplicável
-        }
-        
-        RegraConversao regra = regraOpt.get();
-        
-        // Verificar se aplica para esta transação
-        if (!regra.aplicaParaMcc(transacao.mcc) ||
-            !regra.aplicaParaCategoria(transacao.categoria) ||
-            !regra.aplicaParaParceiro(transacao.parceiroId)) {
-            return 0L;
-        }
-        
-        // Calcular pontos base
-        Long pontosBase = regra.calcularPontos(transacao.valor);
-        
-        // Aplicar teto mensal se definido
-        if (regra.temTetoMensal()) {
-            Long pontosMes = calcularPontosMes(transacao.usuario.id, transacao.cartao.id, dataTransacao);
-            if (pontosMes + pontosBase > regra.tetoMensal) {
-                pontosBase = Math.max(0, regra.tetoMensal - pontosMes);
-            }
+    private BigDecimal converterParaBrl(Transacao transacao) {
+        BigDecimal valorBrl = tabelaCambioHolder.atual().paraBrl(transacao.valor, transacao.moeda, transacao.dataEvento);
+        if (valorBrl == null) {
+            throw new IllegalStateException("Sem taxa de câmbio " + transacao.moeda + "/BRL vigente em "
+                    + transacao.dataEvento + " (transação " + transacao.id + ")");
         }
-        
-        return pontosBase;
+        return valorBrl;
     }
     
-    /**
-     * Aplica campanha de bônus conforme regra 17.5:
-     * pontos_totais = floor(pontos_base * (1 + multiplicador_extra))
-     */
-    private Long aplicarCampanhaBonus(Transacao transacao, Long pontosBase) {
-        LocalDate dataTransacao = transacao.dataEvento.toLocalDate();
-        
-        // Buscar campanhas vigentes
-        List<CampanhaBonus> campanhas = campanhaBonusRepository.listarVigentes(dataTransacao);
-        
-        for (CampanhaBonus campanha : campanhas) {
-            if (campanha.aplicaParaSegmento(null)) { // Implementar segmento do usuário quando necessário
-                return campanha.calcularPontosComBonus(pontosBase);
-            }
-        }
-        
-        return pontosBase; // Nenhuma campanha aplicável
+    /** Cálculo sobre os snapshots correntes (regras, calendário de campanhas, segmentos e níveis). */
+    private CalculoPontuacao calculoPontuacao() {
+        return new CalculoPontuacao(
+            regrasSnapshotHolder.atual(),
+            calendarioCampanhasHolder.atual(),
+            segmentosUsuariosHolder.atual(),
+            niveisUsuariosHolder.atual()
+        );
     }
     
     /**
@@ -178,6 +213,8 @@ public class PontuacaoService {
     /**
      * Processa estorno de transação conforme regra 17.3:
      * ESTORNADA deve produzir movimento_pontos(ESTORNO)
+     * - O ESTORNO retira os pontos líquidos da transação: ACUMULO mais os AJUSTEs de reprocessamento vinculados a ela
+     * - O gasto do mês é retirado mesmo quando a transação não gerou pontos
      */
     @Transactional
     public void processarEstornoTransacao(Long transacaoId) {
@@ -188,51 +225,63 @@ public class PontuacaoService {
             throw new IllegalArgumentException("Transação não foi estornada: " + transacaoId);
         }
         
-        // Verificar se já foi processado o estorno
-        if (movimentoPontosRepository.existeMovimentoParaTransacao(transacaoId, MovimentoPontos.TipoMovimento.ESTORNO)) {
-            return; // Já processado
-        }
-        
-        // Buscar movimento de acúmulo original
+        // Pontos líquidos da transação: acúmulo original e ajustes posteriores (reprocessamento retroativo)
         List<MovimentoPontos> movimentosOriginais = movimentoPontosRepository
             .listarVinculadosATransacao(transacaoId);
-        
+        long pontosLiquidos = 0;
         for (MovimentoPontos movimentoOriginal : movimentosOriginais) {
-            if (movimentoOriginal.isAcumulo()) {
-                // Criar movimento de estorno (valor negativo)
-                MovimentoPontos movimentoEstorno = new MovimentoPontos(
-                    transacao.usuario,
-                    transacao.cartao,
-                    MovimentoPontos.TipoMovimento.ESTORNO,
-                    -movimentoOriginal.pontos,
-                    transacao,
-                    "Estorno de transação"
-                );
-                
-                movimentoPontosRepository.persist(movimentoEstorno);
-                
-                // Atualizar saldo
-                saldoPontosRepository.debitarSaldoAtomicamente(
-                    transacao.usuario.id,
-                    transacao.cartao.id,
-                    (long) Math.abs(movimentoOriginal.pontos)
-                );
+            if (movimentoOriginal.isAcumulo() || movimentoOriginal.isAjuste()) {
+                pontosLiquidos += movimentoOriginal.pontos;
             }
         }
+        
+        // Gasto do mês sai com a transação, mesmo sem pontos (idempotência pela própria transação)
+        estornarGasto(transacao);
+        if (pontosLiquidos == 0) {
+            return; // Nenhum ponto a estornar
+        }
+        
+        // Criar movimento de estorno (sinal oposto aos pontos líquidos)
+        MovimentoPontos movimentoEstorno = new MovimentoPontos(
+            transacao.usuario,
+            transacao.cartao,
+            MovimentoPontos.TipoMovimento.ESTORNO,
+            Math.toIntExact(-pontosLiquidos),
+            transacao,
+            "Estorno de transação"
+        );
+        
+        // Idempotência: índice único (ref_transacao_id, tipo) + ON CONFLICT DO NOTHING
+        if (!movimentoPontosRepository.inserirSeAusente(movimentoEstorno)) {
+            return; // Já processado
+        }
+        
+        // Atualizar saldo
+        if (pontosLiquidos > 0) {
+            saldoPontosRepository.debitarSaldoAtomicamente(transacao.usuario.id, transacao.cartao.id, pontosLiquidos);
+        } else {
+            saldoPontosRepository.creditarSaldoAtomicamente(transacao.usuario.id, transacao.cartao.id, -pontosLiquidos);
+        }
+        
+        // Passivo do parceiro no dia do estorno
+        passivoParceiroRepository.registrarAcumulo(
+            transacao.parceiroId, movimentoEstorno.criadoEm.toLocalDate(), movimentoEstorno.pontos);
     }
     
     /**
-     * Calcula pontos acumulados no mês para aplicação de teto
+     * Retira o valor da transação do balde do mês (níveis de fidelidade), uma única vez por transação e somente se
+     * ele foi contado na pontuação.
      */
-    private Long calcularPontosMes(Long usuarioId, Long cartaoId, LocalDate dataTransacao) {
-        LocalDateTime inicioMes = dataTransacao.withDayOfMonth(1).atStartOfDay();
-        LocalDateTime fimMes = dataTransacao.withDayOfMonth(dataTransacao.lengthOfMonth()).atTime(23, 59, 59);
-        
-        return movimentoPontosRepository.sumPontosByUsuarioAndTipoInPeriodo(
-            usuarioId,
-            MovimentoPontos.TipoMovimento.ACUMULO,
-            inicioMes,
-            fimMes
+    private void estornarGasto(Transacao transacao) {
+        BigDecimal valorBrl = tabelaCambioHolder.atual()
+            .paraBrl(transacao.valor, transacao.moeda, transacao.dataEvento);
+        if (valorBrl == null || !transacaoRepository.reivindicarEstornoDoGasto(transacao.id, LocalDateTime.now())) {
+            return;
+        }
+        gastoMensalRepository.registrarGasto(
+            transacao.usuario.id,
+            AcumuloMensal.anoMes(transacao.dataEvento.toLocalDate()),
+            -GastoMensal.centavos(valorBrl)
         );
     }
 }
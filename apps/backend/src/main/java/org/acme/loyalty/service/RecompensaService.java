@@ -10,6 +10,8 @@ import org.acme.loyalty.dto.RecompensaResponseDTO;
 import org.acme.loyalty.dto.RecompensaUpdateDTO;
 import org.acme.loyalty.entity.Recompensa;
 import org.acme.loyalty.repository.RecompensaRepository;
+import org.acme.loyalty.service.pontuacao.BarramentoInvalidacao;
+import org.acme.loyalty.service.pontuacao.InvalidacaoCache;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -25,6 +27,9 @@ public class RecompensaService {
     @Inject
     EntityManager entityManager;
 
+    @Inject
+    BarramentoInvalidacao barramentoInvalidacao;
+
     // ===================== CRUD =====================
 
     @Transactional
@@ -78,6 +83,7 @@ public class RecompensaService {
         entityManager.persist(r);
         entityManager.flush();
         entityManager.refresh(r);
+        barramentoInvalidacao.publicar(InvalidacaoCache.RECOMPENSA, r.id);
         
         // Usar o método factory do DTO para garantir que todos os campos derivados sejam preenchidos
         RecompensaResponseDTO dto = RecompensaResponseDTO.fromEntity(r);
@@ -168,6 +174,7 @@ public class RecompensaService {
 
         r.atualizadoEm = LocalDateTime.now();
         recompensaRepository.persist(r);
+        barramentoInvalidacao.publicar(InvalidacaoCache.RECOMPENSA, id);
 
         return toDTO(r);
     }
@@ -178,6 +185,7 @@ public class RecompensaService {
         if (!ok) {
             throw new NotFoundException("Recompensa não encontrada: " + id);
         }
+        barramentoInvalidacao.publicar(InvalidacaoCache.RECOMPENSA, id);
     }
 
     // ===================== Ativação =====================
@@ -187,6 +195,7 @@ public class RecompensaService {
         Recompensa r = recompensaRepository.findByIdOptional(id)
                 .orElseThrow(() -> new NotFoundException("Recompensa não encontrada: " + id));
         recompensaRepository.ativar(id);
+        barramentoInvalidacao.publicar(InvalidacaoCache.RECOMPENSA, id);
         r.ativo = true;
         r.atualizadoEm = LocalDateTime.now();
         return toDTO(r);
@@ -197,6 +206,7 @@ public class RecompensaService {
         Recompensa r = recompensaRepository.findByIdOptional(id)
                 .orElseThrow(() -> new NotFoundException("Recompensa não encontrada: " + id));
         recompensaRepository.desativar(id);
+        barramentoInvalidacao.publicar(InvalidacaoCache.RECOMPENSA, id);
         r.ativo = false;
         r.atualizadoEm = LocalDateTime.now();
         return toDTO(r);
@@ -230,6 +240,7 @@ public class RecompensaService {
             }
             throw new IllegalStateException("Falha ao ajustar estoque");
         }
+        barramentoInvalidacao.publicar(InvalidacaoCache.RECOMPENSA, id);
         // retorna estado atual
         Recompensa r = recompensaRepository.findByIdOptional(id).orElseThrow();
         return toDTO(r);
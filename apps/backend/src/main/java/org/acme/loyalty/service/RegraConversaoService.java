@@ -9,6 +9,11 @@ import org.acme.loyalty.dto.RegraConversaoResponseDTO;
 import org.acme.loyalty.dto.RegraConversaoUpdateDTO;
 import org.acme.loyalty.entity.RegraConversao;
 import org.acme.loyalty.repository.RegraConversaoRepository;
+import org.acme.loyalty.service.pontuacao.BarramentoInvalidacao;
+import org.acme.loyalty.service.pontuacao.ExpressaoRegra;
+import org.acme.loyalty.service.pontuacao.InvalidacaoCache;
+import org.acme.loyalty.service.pontuacao.MccTabela;
+import org.acme.loyalty.service.pontuacao.RegrasSnapshotHolder;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -22,6 +27,12 @@ public class RegraConversaoService {
     @Inject
     RegraConversaoRepository regraConversaoRepository;
 
+    @Inject
+    RegrasSnapshotHolder regrasSnapshotHolder;
+
+    @Inject
+    BarramentoInvalidacao barramentoInvalidacao;
+
     // ===================== CRUD =====================
 
     @Transactional
@@ -46,6 +57,8 @@ public class RegraConversaoService {
         regra.atualizadoEm = regra.criadoEm;
 
         regraConversaoRepository.persist(regra);
+        regrasSnapshotHolder.invalidarAposCommit();
+        barramentoInvalidacao.publicar(InvalidacaoCache.REGRA, regra.id);
         return toDTO(regra);
     }
 
@@ -104,10 +117,13 @@ public class RegraConversaoService {
             }
             regra.nome = request.nome;
         }
+        if (request.mccRegex != null)       MccTabela.validar(request.mccRegex);
+        if (request.expressao != null)      ExpressaoRegra.validar(request.expressao);
         if (request.multiplicador != null)  regra.multiplicador = request.multiplicador;
         if (request.mccRegex != null)       regra.mccRegex      = request.mccRegex;
         if (request.categoria != null)      regra.categoria     = request.categoria;
         if (request.parceiroId != null)     regra.parceiroId    = request.parceiroId;
+        if (request.expressao != null)      regra.expressao     = request.expressao.isBlank() ? null : request.expressao.trim();
         if (request.vigenciaIni != null)    regra.vigenciaIni   = request.vigenciaIni;
         if (request.vigenciaFim != null)    regra.vigenciaFim   = request.vigenciaFim;
         if (request.prioridade != null)     regra.prioridade    = request.prioridade;
@@ -122,6 +138,8 @@ public class RegraConversaoService {
 
         regra.atualizadoEm = LocalDateTime.now();
         regraConversaoRepository.persist(regra);
+        regrasSnapshotHolder.invalidarAposCommit();
+        barramentoInvalidacao.publicar(InvalidacaoCache.REGRA, regra.id);
 
         return toDTO(regra);
     }
@@ -132,6 +150,8 @@ public class RegraConversaoService {
         if (!ok) {
             throw new NotFoundException("Regra de conversão não encontrada: " + id);
         }
+        regrasSnapshotHolder.invalidarAposCommit();
+        barramentoInvalidacao.publicar(InvalidacaoCache.REGRA, id);
     }
 
     // ===================== Ativação =====================
@@ -143,6 +163,8 @@ public class RegraConversaoService {
         regra.ativo = Boolean.TRUE;
         regra.atualizadoEm = LocalDateTime.now();
         regraConversaoRepository.persist(regra);
+        regrasSnapshotHolder.invalidarAposCommit();
+        barramentoInvalidacao.publicar(InvalidacaoCache.REGRA, id);
         return toDTO(regra);
     }
 
@@ -153,6 +175,8 @@ public class RegraConversaoService {
         regra.ativo = Boolean.FALSE;
         regra.atualizadoEm = LocalDateTime.now();
         regraConversaoRepository.persist(regra);
+        regrasSnapshotHolder.invalidarAposCommit();
+        barramentoInvalidacao.publicar(InvalidacaoCache.REGRA, id);
         return toDTO(regra);
     }
 
@@ -186,6 +210,10 @@ public class RegraConversaoService {
         if (req.tetoMensal != null && req.tetoMensal <= 0) {
             throw new IllegalArgumentException("Teto mensal deve ser maior que zero");
         }
+        // mccRegex é expandida para a tabela de MCC na pontuação; rejeitar aqui em vez de ignorar depois
+        MccTabela.validar(req.mccRegex);
+        // expressao é compilada em predicado no snapshot; erro de sintaxe volta como 400 com a posição
+        ExpressaoRegra.validar(req.expressao);
     }
 
     private RegraConversaoResponseDTO toDTO(RegraConversao r) {
@@ -196,6 +224,7 @@ public class RegraConversaoService {
         dto.mccRegex      = r.mccRegex;
         dto.categoria     = r.categoria;
         dto.parceiroId    = r.parceiroId;
+        dto.expressao     = r.expressao;
         dto.vigenciaIni   = r.vigenciaIni;
         dto.vigenciaFim   = r.vigenciaFim;
         dto.prioridade    = r.prioridade;
@@ -0,0 +1,538 @@
+package org.acme.loyalty.service;
+
+import io.agroal.api.AgroalDataSource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.NotFoundException;
+import org.acme.loyalty.dto.ReprocessamentoPontosDTO;
+import org.acme.loyalty.dto.ReprocessamentoPontosRequestDTO;
+import org.acme.loyalty.entity.*;
+import org.acme.loyalty.repository.*;
+import org.acme.loyalty.service.pontuacao.CalculoPontuacao;
+import org.acme.loyalty.service.pontuacao.CalendarioCampanhasHolder;
+import org.acme.loyalty.service.pontuacao.NiveisUsuariosHolder;
+import org.acme.loyalty.service.pontuacao.RegrasSnapshotHolder;
+import org.acme.loyalty.service.pontuacao.SegmentosUsuariosHolder;
+import org.acme.loyalty.service.pontuacao.TabelaCambio;
+import org.acme.loyalty.service.pontuacao.TabelaCambioHolder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Reprocessamento retroativo de pontos após a correção de uma regra de conversão (regras 17.4, 17.5 e 17.6).
+ * - O período é percorrido mês a mês; cada mês é lido em streaming (cursor JDBC), ordenado por cartão,
+ *   então o teto mensal é recalculado apenas para o cartão corrente: memória constante em relação ao volume
+ * - Cada transação pontuada é recalculada com as regras/campanhas atuais (já corrigidas); quando a regra do job
+ *   estava ou passa a estar envolvida e o total muda, é gerado um AJUSTE líquido (novo - já creditado)
+ *   vinculado à transação, com job_id
+ * - Ajustes, saldos, contadores de teto, passivo por parceiro e o checkpoint (mês + último cartão) são gravados no mesmo commit,
+ *   a cada lote de cartões: locks de saldo duram apenas o commit do lote e o job pode ser retomado do checkpoint
+ * - O já creditado inclui AJUSTEs anteriores: reprocessar o mesmo período de novo não gera diferença
+ */
+@ApplicationScoped
+public class ReprocessamentoPontosService {
+
+    private static final Logger LOG = Logger.getLogger(ReprocessamentoPontosService.class);
+
+    public static final int TAMANHO_LOTE_PADRAO = 1000;
+    public static final int TAMANHO_LOTE_MAXIMO = 10_000;
+
+    private static final String SQL_MES =
+            "SELECT t.id, t.usuario_id, t.cartao_id, t.valor, t.mcc, t.categoria, t.parceiro_id, t.data_evento, " +
+            "       COALESCE(m.pontos, 0), m.regra, t.moeda " +
+            "FROM loyalty.transacao t " +
+            "LEFT JOIN LATERAL (" +
+            "    SELECT SUM(mp.pontos) AS pontos, " +
+            "           (array_agg(mp.regra_aplicada ORDER BY mp.id DESC) " +
+            "               FILTER (WHERE mp.tipo IN ('ACUMULO', 'AJUSTE') AND mp.regra_aplicada IS NOT NULL))[1] AS regra " +
+            "    FROM loyalty.movimento_pontos mp " +
+            "    WHERE mp.ref_transacao_id = t.id AND mp.tipo IN ('ACUMULO', 'ESTORNO', 'AJUSTE')) m ON TRUE " +
+            "WHERE t.status = 'APROVADA' AND t.processado_em IS NOT NULL " +
+            "  AND t.data_evento >= ? AND t.data_evento < ? AND t.cartao_id > ? " +
+            "ORDER BY t.cartao_id, t.data_evento, t.id";
+
+    @Inject
+    RegrasSnapshotHolder regrasSnapshotHolder;
+
+    @Inject
+    CalendarioCampanhasHolder calendarioCampanhasHolder;
+
+    @Inject
+    SegmentosUsuariosHolder segmentosUsuariosHolder;
+
+    @Inject
+    TabelaCambioHolder tabelaCambioHolder;
+
+    @Inject
+    NiveisUsuariosHolder niveisUsuariosHolder;
+
+    @Inject
+    RegraConversaoRepository regraConversaoRepository;
+
+    @Inject
+    ReprocessamentoPontosRepository reprocessamentoPontosRepository;
+
+    @Inject
+    MovimentoPontosRepository movimentoPontosRepository;
+
+    @Inject
+    SaldoPontosRepository saldoPontosRepository;
+
+    @Inject
+    AcumuloMensalRepository acumuloMensalRepository;
+
+    @Inject
+    PassivoParceiroRepository passivoParceiroRepository;
+
+    @Inject
+    TransacaoRepository transacaoRepository;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @ConfigProperty(name = "loyalty.reprocessamento.fetch-size", defaultValue = "5000")
+    int fetchSize;
+
+    // ===================== API =====================
+
+    /**
+     * Cria o job (ou reaproveita o existente com o mesmo jobId e parâmetros) e executa até {@code maxLotes} lotes.
+     */
+    public ReprocessamentoPontosDTO iniciar(ReprocessamentoPontosRequestDTO request, int maxLotes) {
+        String jobId = registrarJob(request);
+        return executar(jobId, maxLotes);
+    }
+
+    /**
+     * Continua o job a partir do checkpoint, por até {@code maxLotes} lotes (um commit por lote).
+     * Job concluído é retornado sem reprocessar.
+     */
+    public ReprocessamentoPontosDTO executar(String jobId, int maxLotes) {
+        if (maxLotes <= 0) {
+            throw new IllegalArgumentException("Quantidade máxima de lotes deve ser maior que zero");
+        }
+        ReprocessamentoPontos job = buscarJob(jobId);
+        if (job.isConcluido()) {
+            return ReprocessamentoPontosDTO.fromEntity(job);
+        }
+
+        long inicioNs = System.nanoTime();
+        Parametros p = new Parametros(job);
+        CalculoPontuacao calculo = new CalculoPontuacao(regrasSnapshotHolder.atual(), calendarioCampanhasHolder.atual(),
+                segmentosUsuariosHolder.atual(), niveisUsuariosHolder.atual());
+        TabelaCambio cambio = tabelaCambioHolder.atual();
+
+        Checkpoint checkpoint = new Checkpoint(job.mesAtual, job.ultimoCartaoId);
+        int restantes = maxLotes;
+        try {
+            while (restantes > 0 && checkpoint != null) {
+                ResultadoMes r = processarMes(p, checkpoint, calculo, cambio, restantes);
+                restantes -= r.lotes;
+                checkpoint = r.checkpoint;
+                if (!r.mesConcluido) {
+                    break; // limite de lotes atingido no meio do mês
+                }
+            }
+        } catch (CheckpointDivergenteException e) {
+            throw e; // outra execução está avançando o job; não marcar como ERRO
+        } catch (RuntimeException e) {
+            registrarErro(jobId, e);
+            throw e;
+        }
+
+        ReprocessamentoPontosDTO dto = consultar(jobId);
+        LOG.infof("Reprocessamento %s: %d lotes nesta execução em %d ms (status %s, checkpoint %d/%d)",
+                jobId, maxLotes - restantes, (System.nanoTime() - inicioNs) / 1_000_000,
+                dto.status, dto.mesAtual, dto.ultimoCartaoId);
+        return dto;
+    }
+
+    /** Transação própria: relê o job do banco (os lotes foram gravados em outras transações). */
+    @Transactional
+    public ReprocessamentoPontosDTO consultar(String jobId) {
+        return ReprocessamentoPontosDTO.fromEntity(buscarJob(jobId));
+    }
+
+    // ===================== Registro do job =====================
+
+    @Transactional
+    public String registrarJob(ReprocessamentoPontosRequestDTO request) {
+        validar(request);
+        regraConversaoRepository.findByIdOptional(request.regraId)
+                .orElseThrow(() -> new NotFoundException("Regra de conversão não encontrada: " + request.regraId));
+
+        String jobId = (request.jobId == null || request.jobId.isBlank())
+                ? "reprocessamento-" + request.regraId + "-" + UUID.randomUUID()
+                : request.jobId.trim();
+        int tamanhoLote = request.tamanhoLote != null ? request.tamanhoLote : TAMANHO_LOTE_PADRAO;
+
+        Optional<ReprocessamentoPontos> existente = reprocessamentoPontosRepository.travar(jobId);
+        if (existente.isPresent()) {
+            ReprocessamentoPontos j = existente.get();
+            if (!j.regraId.equals(request.regraId) || !j.dataInicio.equals(request.dataInicio) || !j.dataFim.equals(request.dataFim)) {
+                throw new IllegalArgumentException("jobId já utilizado com outra regra ou período: " + jobId);
+            }
+            return jobId; // retomada
+        }
+
+        ReprocessamentoPontos job = new ReprocessamentoPontos();
+        job.jobId = jobId;
+        job.regraId = request.regraId;
+        job.dataInicio = request.dataInicio;
+        job.dataFim = request.dataFim;
+        job.tamanhoLote = tamanhoLote;
+        job.mesAtual = AcumuloMensal.anoMes(request.dataInicio);
+        job.ultimoCartaoId = 0L;
+        reprocessamentoPontosRepository.persist(job);
+
+        LOG.infof("Reprocessamento %s criado - regra: %d, período: %s a %s", jobId, job.regraId, job.dataInicio, job.dataFim);
+        return jobId;
+    }
+
+    private void validar(ReprocessamentoPontosRequestDTO request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Dados do reprocessamento são obrigatórios");
+        }
+        if (request.regraId == null) {
+            throw new IllegalArgumentException("Regra é obrigatória");
+        }
+        if (request.dataInicio == null || request.dataFim == null) {
+            throw new IllegalArgumentException("Data inicial e final são obrigatórias");
+        }
+        if (request.dataFim.isBefore(request.dataInicio)) {
+            throw new IllegalArgumentException("Data final não pode ser anterior à data inicial");
+        }
+        if (request.dataFim.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("Data final não pode ser futura");
+        }
+        if (request.tamanhoLote != null && (request.tamanhoLote <= 0 || request.tamanhoLote > TAMANHO_LOTE_MAXIMO)) {
+            throw new IllegalArgumentException("Tamanho do lote deve estar entre 1 e " + TAMANHO_LOTE_MAXIMO);
+        }
+    }
+
+    private ReprocessamentoPontos buscarJob(String jobId) {
+        if (jobId == null || jobId.isBlank()) {
+            throw new IllegalArgumentException("jobId é obrigatório");
+        }
+        return reprocessamentoPontosRepository.findByIdOptional(jobId.trim())
+                .orElseThrow(() -> new NotFoundException("Reprocessamento não encontrado: " + jobId));
+    }
+
+    // ===================== Leitura em streaming =====================
+
+    /**
+     * Lê o mês do checkpoint a partir do primeiro cartão pendente e grava um lote a cada
+     * {@code tamanhoLote} transações lidas, sempre em fronteira de cartão.
+     * O mês inteiro é lido (não só o período) para que o teto mensal veja todo o acumulado do cartão.
+     */
+    private ResultadoMes processarMes(Parametros p, Checkpoint inicio, CalculoPontuacao calculo,
+                                      TabelaCambio cambio, int maxLotes) {
+        YearMonth mes = YearMonth.of(inicio.mes / 100, inicio.mes % 100);
+        Checkpoint gravado = inicio;
+        int lotes = 0;
+
+        Lote lote = new Lote();
+        Map<Long, Long> contadoresCartao = new HashMap<>(); // regraId -> pontos do cartão corrente no mês
+        long cartaoCorrente = Long.MIN_VALUE;
+
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false); // o driver PostgreSQL só usa cursor (fetch size) fora de auto-commit
+            conn.setReadOnly(true);
+            try (PreparedStatement ps = conn.prepareStatement(SQL_MES,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(fetchSize);
+                ps.setObject(1, mes.atDay(1).atStartOfDay());
+                ps.setObject(2, mes.plusMonths(1).atDay(1).atStartOfDay());
+                ps.setLong(3, inicio.ultimoCartaoId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long transacaoId = rs.getLong(1);
+                        long usuarioId = rs.getLong(2);
+                        long cartaoId = rs.getLong(3);
+                        BigDecimal valor = rs.getBigDecimal(4);
+                        String mcc = rs.getString(5);
+                        String categoria = rs.getString(6);
+                        long parceiro = rs.getLong(7);
+                        Long parceiroId = rs.wasNull() ? null : parceiro;
+                        LocalDateTime dataEvento = rs.getObject(8, LocalDateTime.class);
+                        long pontosAtuais = rs.getLong(9);
+                        Long regraAnterior = regraId(rs.getString(10));
+                        String moeda = rs.getString(11);
+
+                        if (cartaoId != cartaoCorrente) {
+                            if (cartaoCorrente != Long.MIN_VALUE && lote.transacoesLidas >= p.tamanhoLote) {
+                                Checkpoint proximo = new Checkpoint(inicio.mes, cartaoCorrente);
+                                gravarLote(p, gravado, proximo, lote);
+                                gravado = proximo;
+                                lote = new Lote();
+                                if (++lotes >= maxLotes) {
+                                    return new ResultadoMes(lotes, gravado, false);
+                                }
+                            }
+                            // Teto mensal é por usuário/cartão: o acumulado do cartão anterior não é mais necessário
+                            contadoresCartao.clear();
+                            cartaoCorrente = cartaoId;
+                        }
+
+                        lote.transacoesLidas++;
+                        BigDecimal valorBrl = cambio.paraBrl(valor, moeda, dataEvento);
+                        if (valorBrl == null) {
+                            // Sem taxa vigente: mantém o já creditado (também no acumulado do teto)
+                            if (regraAnterior != null) {
+                                contadoresCartao.merge(regraAnterior, pontosAtuais, Long::sum);
+                            }
+                            continue;
+                        }
+                        CalculoPontuacao.Resultado calculado = pontuar(calculo, valorBrl, mcc, categoria, parceiroId,
+                                dataEvento, usuarioId, contadoresCartao);
+                        long pontosNovos = calculado.pontosTotais();
+                        Long regraNova = calculado.regra != null ? calculado.regra.id : null;
+
+                        LocalDate data = dataEvento.toLocalDate();
+                        if (pontosNovos != pontosAtuais
+                                && !data.isBefore(p.dataInicio) && !data.isAfter(p.dataFim)
+                                && (p.regraId.equals(regraAnterior) || p.regraId.equals(regraNova))) {
+                            lote.ajustar(transacaoId, usuarioId, cartaoId, parceiroId, inicio.mes,
+                                    pontosAtuais, regraAnterior, pontosNovos, regraNova);
+                        }
+                    }
+                }
+            } finally {
+                conn.rollback();
+                conn.setReadOnly(false);
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Falha ao ler transações do mês " + mes + ": " + e.getMessage(), e);
+        }
+
+        // Fim do mês: o último lote também avança o checkpoint para o mês seguinte (ou conclui o job)
+        YearMonth seguinte = mes.plusMonths(1);
+        Checkpoint proximo = seguinte.isAfter(YearMonth.from(p.dataFim))
+                ? null
+                : new Checkpoint(AcumuloMensal.anoMes(seguinte.atDay(1)), 0L);
+        gravarLote(p, gravado, proximo, lote);
+        return new ResultadoMes(lotes + 1, proximo, true);
+    }
+
+    /**
+     * Mesmo cálculo da pontuação ({@link CalculoPontuacao}), com o bônus integral da campanha (nada é reservado).
+     * Segmentos e nível do usuário: a materialização atual (não há histórico de pertinência).
+     * {@code contadoresCartao} guarda o acumulado do mês do cartão corrente.
+     */
+    private static CalculoPontuacao.Resultado pontuar(CalculoPontuacao calculo, BigDecimal valor, String mcc, String categoria,
+                                                      Long parceiroId, LocalDateTime dataEvento, long usuarioId,
+                                                      Map<Long, Long> contadoresCartao) {
+        CalculoPontuacao.Resultado r = calculo.calcular(valor, mcc, categoria, parceiroId, dataEvento, usuarioId,
+                regra -> contadoresCartao.getOrDefault(regra.id, 0L), CalculoPontuacao.BONUS_INTEGRAL);
+        if (r.regra != null && r.regra.temTetoMensal() && r.pontosTotais() > 0) {
+            contadoresCartao.merge(r.regra.id, r.pontosTotais(), Long::sum);
+        }
+        return r;
+    }
+
+    /** regra_aplicada guarda o id da regra como texto; outros formatos (legado) não identificam regra. */
+    private static Long regraId(String regraAplicada) {
+        if (regraAplicada == null) return null;
+        try {
+            return Long.valueOf(regraAplicada.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // ===================== Escrita por lote =====================
+
+    /**
+     * Grava os ajustes do lote e avança o checkpoint no mesmo commit.
+     * O checkpoint esperado é conferido sob lock da linha do job: um lote nunca é aplicado duas vezes,
+     * mesmo com duas execuções concorrentes do mesmo job.
+     *
+     * @param proximo novo checkpoint; {@code null} conclui o job
+     */
+    @Transactional
+    void gravarLote(Parametros p, Checkpoint esperado, Checkpoint proximo, Lote lote) {
+        ReprocessamentoPontos job = reprocessamentoPontosRepository.travar(p.jobId)
+                .orElseThrow(() -> new NotFoundException("Reprocessamento não encontrado: " + p.jobId));
+        if (job.isConcluido() || !job.mesAtual.equals(esperado.mes) || !job.ultimoCartaoId.equals(esperado.ultimoCartaoId)) {
+            throw new CheckpointDivergenteException(p.jobId);
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        List<MovimentoPontos> movimentos = new ArrayList<>(lote.ajustes.size());
+        for (Ajuste a : lote.ajustes) {
+            MovimentoPontos m = new MovimentoPontos();
+            m.usuario = movimentoPontosRepository.getEntityManager().getReference(Usuario.class, a.usuarioId);
+            m.cartao = movimentoPontosRepository.getEntityManager().getReference(Cartao.class, a.cartaoId);
+            m.tipo = MovimentoPontos.TipoMovimento.AJUSTE;
+            m.pontos = a.pontos;
+            m.refTransacaoId = a.transacaoId;
+            m.observacao = "Reprocessamento retroativo da regra " + p.regraId;
+            m.criadoEm = agora;
+            m.jobId = p.jobId;
+            m.regraAplicada = a.regraNova != null ? String.valueOf(a.regraNova) : null;
+            movimentos.add(m);
+        }
+
+        Map<SaldoPontosId, Long> creditos = new HashMap<>();
+        Map<SaldoPontosId, Long> debitos = new HashMap<>();
+        lote.deltas.forEach((conta, delta) -> {
+            if (delta > 0) creditos.put(conta, delta);
+            else if (delta < 0) debitos.put(conta, -delta);
+        });
+
+        // Passivo do parceiro no dia do AJUSTE (data do movimento, não do evento)
+        Map<PassivoParceiroId, Long> passivos = new HashMap<>();
+        lote.passivos.forEach((parceiroId, delta) -> passivos.put(new PassivoParceiroId(parceiroId, agora.toLocalDate()), delta));
+
+        movimentoPontosRepository.inserirEmLote(movimentos);
+        saldoPontosRepository.creditarSaldosEmLote(creditos);
+        long naoDebitados = saldoPontosRepository.debitarSaldosEmLote(debitos);
+        acumuloMensalRepository.registrarAcumulosEmLote(lote.contadores);
+        transacaoRepository.atualizarPontosGeradosEmLote(lote.pontosGerados);
+        passivoParceiroRepository.registrarAcumulosEmLote(passivos);
+
+        job.lotes += 1;
+        job.transacoesLidas += lote.transacoesLidas;
+        job.transacoesAjustadas += lote.ajustes.size();
+        job.pontosCreditados += lote.pontosCreditados;
+        job.pontosDebitados += lote.pontosDebitados - naoDebitados;
+        job.pontosNaoDebitados += naoDebitados;
+        job.ultimoErro = null;
+        if (proximo == null) {
+            job.status = ReprocessamentoPontos.StatusReprocessamento.CONCLUIDO;
+            job.concluidoEm = agora;
+        } else {
+            job.status = ReprocessamentoPontos.StatusReprocessamento.EM_ANDAMENTO;
+            job.mesAtual = proximo.mes;
+            job.ultimoCartaoId = proximo.ultimoCartaoId;
+        }
+        reprocessamentoPontosRepository.persist(job);
+
+        if (naoDebitados > 0) {
+            LOG.warnf("Reprocessamento %s: %d pontos não debitados por saldo insuficiente", p.jobId, naoDebitados);
+        }
+        LOG.debugf("Reprocessamento %s: lote com %d transações, %d ajustes, checkpoint %s",
+                p.jobId, lote.transacoesLidas, movimentos.size(), proximo != null ? proximo.mes + "/" + proximo.ultimoCartaoId : "CONCLUIDO");
+    }
+
+    @Transactional
+    void registrarErro(String jobId, RuntimeException erro) {
+        reprocessamentoPontosRepository.travar(jobId).ifPresent(job -> {
+            String msg = String.valueOf(erro.getMessage());
+            job.status = ReprocessamentoPontos.StatusReprocessamento.ERRO;
+            job.ultimoErro = msg.length() > 500 ? msg.substring(0, 500) : msg;
+            reprocessamentoPontosRepository.persist(job);
+        });
+        LOG.error("Reprocessamento " + jobId + " interrompido: " + erro.getMessage(), erro);
+    }
+
+    // ---- Estruturas internas ----
+
+    /** Parâmetros imutáveis do job (lidos uma vez por execução). */
+    static final class Parametros {
+        final String jobId;
+        final Long regraId;
+        final LocalDate dataInicio;
+        final LocalDate dataFim;
+        final int tamanhoLote;
+
+        Parametros(ReprocessamentoPontos job) {
+            this.jobId = job.jobId;
+            this.regraId = job.regraId;
+            this.dataInicio = job.dataInicio;
+            this.dataFim = job.dataFim;
+            this.tamanhoLote = job.tamanhoLote;
+        }
+    }
+
+    /** Posição do job: mês (yyyyMM) e maior cartão já concluído nele. */
+    static final class Checkpoint {
+        final int mes;
+        final long ultimoCartaoId;
+
+        Checkpoint(int mes, long ultimoCartaoId) {
+            this.mes = mes;
+            this.ultimoCartaoId = ultimoCartaoId;
+        }
+    }
+
+    private static final class ResultadoMes {
+        final int lotes;
+        final Checkpoint checkpoint;
+        final boolean mesConcluido;
+
+        ResultadoMes(int lotes, Checkpoint checkpoint, boolean mesConcluido) {
+            this.lotes = lotes;
+            this.checkpoint = checkpoint;
+            this.mesConcluido = mesConcluido;
+        }
+    }
+
+    /** AJUSTE de uma transação: diferença entre o total recalculado e o já creditado. */
+    private static final class Ajuste {
+        final long transacaoId;
+        final long usuarioId;
+        final long cartaoId;
+        final int pontos;
+        final Long regraNova;
+
+        Ajuste(long transacaoId, long usuarioId, long cartaoId, int pontos, Long regraNova) {
+            this.transacaoId = transacaoId;
+            this.usuarioId = usuarioId;
+            this.cartaoId = cartaoId;
+            this.pontos = pontos;
+            this.regraNova = regraNova;
+        }
+    }
+
+    /** Alterações de um lote, já consolidadas por conta e por contador de teto. */
+    static final class Lote {
+        long transacoesLidas;
+        long pontosCreditados;
+        long pontosDebitados;
+        final List<Ajuste> ajustes = new ArrayList<>();
+        final Map<SaldoPontosId, Long> deltas = new HashMap<>();
+        final Map<AcumuloMensalId, Long> contadores = new HashMap<>();
+        final Map<Long, Integer> pontosGerados = new HashMap<>();
+        final Map<Long, Long> passivos = new HashMap<>();
+
+        void ajustar(long transacaoId, long usuarioId, long cartaoId, Long parceiroId, int anoMes,
+                     long pontosAtuais, Long regraAnterior, long pontosNovos, Long regraNova) {
+            long delta = pontosNovos - pontosAtuais;
+            if (parceiroId != null) passivos.merge(parceiroId, delta, Long::sum);
+            ajustes.add(new Ajuste(transacaoId, usuarioId, cartaoId, Math.toIntExact(delta), regraNova));
+            deltas.merge(new SaldoPontosId(usuarioId, cartaoId), delta, Long::sum);
+            if (delta > 0) pontosCreditados += delta;
+            else pontosDebitados += -delta;
+
+            // O contador de teto da regra anterior perde o que ela havia gerado; o da nova recebe o total
+            if (regraAnterior != null && pontosAtuais != 0) {
+                contadores.merge(new AcumuloMensalId(usuarioId, cartaoId, regraAnterior, anoMes), -pontosAtuais, Long::sum);
+            }
+            if (regraNova != null && pontosNovos != 0) {
+                contadores.merge(new AcumuloMensalId(usuarioId, cartaoId, regraNova, anoMes), pontosNovos, Long::sum);
+            }
+            pontosGerados.put(transacaoId, Math.toIntExact(pontosNovos));
+        }
+    }
+
+    /** O checkpoint no banco não é o esperado: outra execução do mesmo job gravou antes. */
+    public static final class CheckpointDivergenteException extends IllegalStateException {
+        CheckpointDivergenteException(String jobId) {
+            super("Checkpoint do reprocessamento " + jobId + " foi alterado por outra execução; consulte o job e retome");
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.acme.loyalty.service;
 
+import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
@@ -15,6 +17,7 @@ import org.acme.loyalty.entity.SaldoPontos;
 import org.acme.loyalty.entity.Usuario;
 import org.acme.loyalty.repository.CartaoRepository;
 import org.acme.loyalty.repository.MovimentoPontosRepository;
+import org.acme.loyalty.repository.PassivoParceiroRepository;
 import org.acme.loyalty.repository.RecompensaRepository;
 import org.acme.loyalty.repository.ResgateRepository;
 import org.acme.loyalty.repository.SaldoPontosRepository;
@@ -28,6 +31,9 @@ import java.util.stream.Collectors;
 @ApplicationScoped
 public class ResgateService {
 
+    /** Ordem das listagens (igual ao cursor e ao índice idx_resgate_usuario_criado_id da V19). */
+    private static final Sort ORDEM_LISTAGEM = Sort.descending("criadoEm", "id");
+
     @Inject
     ResgateRepository resgateRepository;
     @Inject
@@ -40,6 +46,8 @@ public class ResgateService {
     SaldoPontosRepository saldoPontosRepository;
     @Inject
     MovimentoPontosRepository movimentoPontosRepository;
+    @Inject
+    PassivoParceiroRepository passivoParceiroRepository;
 
     // ===================== Solicitação =====================
 
@@ -112,6 +120,9 @@ public class ResgateService {
 
         resgateRepository.persist(r);
         
+        // Passivo do parceiro da recompensa no dia do resgate
+        passivoParceiroRepository.registrarResgate(recompensa.parceiroId, r.criadoEm.toLocalDate(), r.pontosUtilizados);
+        
         // Força o flush para garantir que o ID seja gerado
         resgateRepository.getEntityManager().flush();
         
@@ -185,8 +196,8 @@ public class ResgateService {
         }
 
         var query = (ql.length() > 0)
-                ? resgateRepository.find(ql.toString(), params.toArray())
-                : resgateRepository.findAll();
+                ? resgateRepository.find(ql.toString(), ORDEM_LISTAGEM, params.toArray())
+                : resgateRepository.findAll(ORDEM_LISTAGEM);
 
         // paginação (Panache usa índice zero-based)
         int pageIndex = (pagina == null || pagina < 1) ? 0 : pagina - 1;
@@ -199,7 +210,15 @@ public class ResgateService {
 
     }
 
-    public PageResponseDTO<ResgateResponseDTO> listarResgatesUsuario(Long usuarioId, String status, Integer pagina, Integer tamanho) {
+    /**
+     * Resgates do usuário, mais recentes primeiro. Primeira página e cursor: por chave (criadoEm, id), sem OFFSET;
+     * página por número (a partir da 2ª): OFFSET. Uma linha a mais indica se há próxima página ({@code nextCursor});
+     * o total (COUNT) só é calculado quando pedido ({@code incluirTotal}).
+     */
+    public PageResponseDTO<ResgateResponseDTO> listarResgatesUsuario(Long usuarioId, String status, Integer pagina,
+                                                                     Integer tamanho, String cursor, boolean incluirTotal) {
+        PageResponseDTO.Cursor apos = PageResponseDTO.Cursor.decode(cursor);
+
         StringBuilder ql = new StringBuilder("usuario.id = ?1");
         List<Object> params = new ArrayList<>();
         params.add(usuarioId);
@@ -208,24 +227,52 @@ public class ResgateService {
             ql.append(" and status = ?2");
             params.add(Resgate.StatusResgate.valueOf(status.trim().toUpperCase()));
         }
+        String filtro = ql.toString();
+        Object[] filtroParams = params.toArray();
 
         // Paginação
         int pageIndex = (pagina == null || pagina < 1) ? 0 : pagina - 1;
         int pageSize = (tamanho == null || tamanho < 1) ? 20 : tamanho;
-        
-        // Busca paginada
-        var query = resgateRepository.find(ql.toString(), params.toArray());
-        List<Resgate> lista = query.page(pageIndex, pageSize).list();
-        
-        // Conta total
-        Long totalElements = resgateRepository.count(ql.toString(), params.toArray());
-        
+
+        List<Resgate> lista;
+        if (apos != null || pageIndex == 0) {
+            if (apos != null) {
+                ql.append(" and (criadoEm, id) < (?").append(params.size() + 1)
+                  .append(", ?").append(params.size() + 2).append(")");
+                params.add(apos.instante);
+                params.add(apos.id);
+            }
+            lista = resgateRepository.find(ql.toString(), ORDEM_LISTAGEM, params.toArray())
+                    .page(Page.ofSize(pageSize + 1)).list();
+        } else {
+            int inicio = pageIndex * pageSize;
+            lista = resgateRepository.find(filtro, ORDEM_LISTAGEM, filtroParams)
+                    .range(inicio, inicio + pageSize).list();
+        }
+        boolean temMais = lista.size() > pageSize;
+        if (temMais) lista = lista.subList(0, pageSize);
+
         // Converte para DTO
         List<ResgateResponseDTO> content = lista.stream()
                 .map(ResgateResponseDTO::fromEntity)
                 .collect(Collectors.toList());
-        
-        return PageResponseDTO.of(content, totalElements, pageSize, pageIndex);
+        String proximo = temMais ? cursorDe(lista.get(lista.size() - 1)) : null;
+
+        PageResponseDTO<ResgateResponseDTO> page;
+        if (apos != null) {
+            page = PageResponseDTO.ofCursor(content, pageSize, false, proximo);
+        } else {
+            page = PageResponseDTO.ofPage(content, pageSize, pageIndex, temMais);
+            page.nextCursor = proximo;
+        }
+        if (incluirTotal) {
+            page.withTotal(resgateRepository.count(filtro, filtroParams));
+        }
+        return page;
+    }
+
+    private static String cursorDe(Resgate r) {
+        return new PageResponseDTO.Cursor(r.criadoEm, r.id).encode();
     }
 
     public Object acompanharResgate(Long id) {
@@ -0,0 +1,450 @@
+package org.acme.loyalty.service;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.NotFoundException;
+import org.acme.loyalty.dto.SegmentoUsuarioDTO;
+import org.acme.loyalty.dto.SegmentoUsuarioRequestDTO;
+import org.acme.loyalty.entity.SegmentoUsuario;
+import org.acme.loyalty.repository.SegmentoUsuarioRepository;
+import org.acme.loyalty.service.pontuacao.BarramentoInvalidacao;
+import org.acme.loyalty.service.pontuacao.InvalidacaoCache;
+import org.acme.loyalty.service.pontuacao.SegmentosUsuarios;
+import org.acme.loyalty.service.pontuacao.SegmentosUsuariosHolder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Segmentos de usuários para direcionamento de campanhas (campanha_bonus.segmento).
+ * - Definição: gasto, mix de MCC e antiguidade na janela de dias do segmento
+ * - Reconstrução periódica materializa cada segmento como BitSet de usuario_id (comprimido em segmento_usuario.bitmap)
+ * - Cada segmento é lido em partições (mod(usuario_id, paralelismo)) processadas em paralelo via fork-join
+ * - Incremental: só usuários com transação nova, com transação que saiu da janela ou que completaram a antiguidade
+ *   são reavaliados; a reconstrução completa ocorre na primeira vez, após alteração da definição
+ *   e a cada {@code loyalty.segmentos.completa-a-cada} (cobre estornos de transações antigas)
+ * - A pontuação consulta apenas o bitmap em memória ({@link SegmentosUsuariosHolder})
+ */
+@ApplicationScoped
+public class SegmentoUsuarioService {
+
+    private static final Logger LOG = Logger.getLogger(SegmentoUsuarioService.class);
+
+    /** Gasto total e gasto nos MCCs do segmento por usuário (o WHERE/GROUP BY vêm de quem usa). */
+    private static final String SQL_GASTO =
+            "SELECT t.usuario_id, SUM(t.valor) AS gasto, " +
+            "       SUM(CASE WHEN t.mcc = ANY(?) THEN t.valor ELSE 0 END) AS gasto_mcc " +
+            "FROM loyalty.transacao t ";
+
+    /** Critérios do segmento: corte de cadastro, gasto mínimo, participação mínima (duas vezes). */
+    private static final String SQL_PREDICADO =
+            "u.data_cadastro <= ? AND COALESCE(g.gasto, 0) >= ? " +
+            "AND COALESCE(g.gasto_mcc, 0) >= ? * COALESCE(g.gasto, 0) " +
+            "AND (? = 0 OR COALESCE(g.gasto, 0) > 0)";
+
+    private static final String SQL_COMPLETO =
+            "SELECT u.id FROM loyalty.usuario u " +
+            "LEFT JOIN (" + SQL_GASTO +
+            "           WHERE t.status = 'APROVADA' AND t.data_evento >= ? AND mod(t.usuario_id, ?) = ? " +
+            "           GROUP BY t.usuario_id) g ON g.usuario_id = u.id " +
+            "WHERE mod(u.id, ?) = ? AND " + SQL_PREDICADO;
+
+    private static final String SQL_INCREMENTAL =
+            "WITH afetados AS (" +
+            "    SELECT usuario_id AS id FROM loyalty.transacao WHERE id > ? AND mod(usuario_id, ?) = ? " +
+            "    UNION " +
+            "    SELECT usuario_id FROM loyalty.transacao " +
+            "    WHERE status = 'APROVADA' AND data_evento >= ? AND data_evento < ? AND mod(usuario_id, ?) = ? " +
+            "    UNION " +
+            "    SELECT id FROM loyalty.usuario WHERE data_cadastro > ? AND data_cadastro <= ? AND mod(id, ?) = ?) " +
+            "SELECT u.id, (" + SQL_PREDICADO + ") AS membro " +
+            "FROM afetados a JOIN loyalty.usuario u ON u.id = a.id " +
+            "LEFT JOIN (" + SQL_GASTO + "JOIN afetados x ON x.id = t.usuario_id " +
+            "           WHERE t.status = 'APROVADA' AND t.data_evento >= ? " +
+            "           GROUP BY t.usuario_id) g ON g.usuario_id = u.id";
+
+    private static final String SQL_MAIOR_TRANSACAO = "SELECT COALESCE(MAX(id), 0) FROM loyalty.transacao";
+
+    @Inject
+    SegmentoUsuarioRepository segmentoUsuarioRepository;
+
+    @Inject
+    SegmentosUsuariosHolder segmentosUsuariosHolder;
+
+    @Inject
+    BarramentoInvalidacao barramentoInvalidacao;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @ConfigProperty(name = "loyalty.segmentos.paralelismo", defaultValue = "4")
+    int paralelismo;
+
+    @ConfigProperty(name = "loyalty.segmentos.fetch-size", defaultValue = "5000")
+    int fetchSize;
+
+    @ConfigProperty(name = "loyalty.segmentos.completa-a-cada", defaultValue = "24h")
+    Duration completaACada;
+
+    // ===================== Definições =====================
+
+    @Transactional
+    public List<SegmentoUsuarioDTO> listar() {
+        return segmentoUsuarioRepository.listAll().stream()
+                .sorted((a, b) -> Long.compare(a.id, b.id))
+                .map(SegmentoUsuarioDTO::fromEntity)
+                .toList();
+    }
+
+    @Transactional
+    public SegmentoUsuarioDTO criar(SegmentoUsuarioRequestDTO request) {
+        validar(request);
+        if (segmentoUsuarioRepository.existsByNomeIgnoringId(request.nome, null)) {
+            throw new IllegalArgumentException("Já existe um segmento com esse nome");
+        }
+        SegmentoUsuario s = request.toEntity();
+        segmentoUsuarioRepository.persist(s);
+        LOG.info("Segmento de usuários criado: " + s.nome + " (id " + s.id + ")");
+        return SegmentoUsuarioDTO.fromEntity(s);
+    }
+
+    /** Substitui a definição; o bitmap é descartado e a próxima reconstrução do segmento é completa. */
+    @Transactional
+    public SegmentoUsuarioDTO atualizar(Long id, SegmentoUsuarioRequestDTO request) {
+        validar(request);
+        SegmentoUsuario s = segmentoUsuarioRepository.travar(id)
+                .orElseThrow(() -> new NotFoundException("Segmento não encontrado: " + id));
+        if (segmentoUsuarioRepository.existsByNomeIgnoringId(request.nome, id)) {
+            throw new IllegalArgumentException("Já existe um segmento com esse nome");
+        }
+        request.applyToEntity(s);
+        s.invalidarBitmap();
+        segmentosUsuariosHolder.invalidarAposCommit();
+        barramentoInvalidacao.publicar(InvalidacaoCache.SEGMENTO, s.id);
+        return SegmentoUsuarioDTO.fromEntity(s);
+    }
+
+    private static void validar(SegmentoUsuarioRequestDTO request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Definição do segmento é obrigatória");
+        }
+        if (request.nome == null || request.nome.isBlank()) {
+            throw new IllegalArgumentException("Nome é obrigatório");
+        }
+        boolean temMccs = request.mccs != null && !request.mccs.isEmpty();
+        if (temMccs != (request.participacaoMccMinima != null)) {
+            throw new IllegalArgumentException("Participação mínima exige a lista de MCCs (e vice-versa)");
+        }
+        if (request.gastoMinimo == null && request.participacaoMccMinima == null && request.antiguidadeMinimaDias == null) {
+            throw new IllegalArgumentException("Informe ao menos um critério (gasto mínimo, participação de MCC ou antiguidade)");
+        }
+    }
+
+    // ===================== Reconstrução =====================
+
+    @Scheduled(identity = "segmentos-usuario",
+               every = "${loyalty.segmentos.reconstrucao:1h}",
+               delayed = "${loyalty.segmentos.reconstrucao-atraso:1m}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void reconstruirAgendado() {
+        try {
+            reconstruir(false);
+        } catch (RuntimeException e) {
+            LOG.error("Falha na reconstrução agendada dos segmentos: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reconstrói os segmentos ativos (incremental quando possível).
+     * Um segmento alterado durante a construção tem o resultado descartado (a definição mudou).
+     */
+    public List<SegmentoUsuarioDTO> reconstruir(boolean completa) {
+        List<Definicao> definicoes = carregarDefinicoes();
+        if (definicoes.isEmpty()) {
+            return List.of();
+        }
+        long ultimoTransacaoId = maiorTransacaoId();
+        LocalDate hoje = LocalDate.now();
+        LocalDateTime limiteCompleta = LocalDateTime.now().minus(completaACada);
+        int grupos = Math.max(1, paralelismo);
+
+        List<SegmentoUsuarioDTO> resultado = new ArrayList<>(definicoes.size());
+        ForkJoinPool pool = new ForkJoinPool(grupos);
+        try {
+            for (Definicao d : definicoes) {
+                Construcao c = new Construcao(d, hoje, ultimoTransacaoId,
+                        !completa && d.permiteIncremental(hoje, limiteCompleta));
+                long inicioNs = System.nanoTime();
+                Parcial total = construir(pool, d, c, grupos);
+                SegmentoUsuarioDTO dto = gravar(d, c, total.membros);
+                if (dto != null) {
+                    dto.usuariosReavaliados = c.incremental ? total.lidos : null;
+                    dto.duracaoMs = (System.nanoTime() - inicioNs) / 1_000_000;
+                    resultado.add(dto);
+                    LOG.infof("Segmento %s: reconstrução %s em %d ms (%d membros)",
+                            d.nome, dto.reconstrucao, dto.duracaoMs, dto.membros);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return resultado;
+    }
+
+    @Transactional
+    List<Definicao> carregarDefinicoes() {
+        return segmentoUsuarioRepository.listarAtivos().stream().map(Definicao::new).toList();
+    }
+
+    /**
+     * Grava o bitmap sob lock da linha, se a definição não mudou desde o início da construção.
+     * Outro nó pode ter gravado antes: a versão diferente também descarta (o resultado dele vale).
+     */
+    @Transactional
+    SegmentoUsuarioDTO gravar(Definicao d, Construcao c, BitSet membros) {
+        SegmentoUsuario s = segmentoUsuarioRepository.travar(d.id).orElse(null);
+        if (s == null) {
+            return null;
+        }
+        if (!Objects.equals(s.versao, d.versao) || !Boolean.TRUE.equals(s.ativo)) {
+            SegmentoUsuarioDTO dto = SegmentoUsuarioDTO.fromEntity(s);
+            dto.reconstrucao = SegmentoUsuarioDTO.TipoReconstrucao.DESCARTADA;
+            return dto;
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        s.bitmap = SegmentosUsuarios.comprimir(membros);
+        s.membros = membros.cardinality();
+        s.versao = d.versao + 1;
+        s.janelaIni = c.janelaIni;
+        s.corteCadastro = c.corteCadastro;
+        s.ultimoTransacaoId = c.ultimoTransacaoId;
+        s.construidoEm = agora;
+        if (!c.incremental) {
+            s.completoEm = agora;
+        }
+        segmentosUsuariosHolder.invalidarAposCommit();
+        barramentoInvalidacao.publicar(InvalidacaoCache.SEGMENTO, s.id);
+
+        SegmentoUsuarioDTO dto = SegmentoUsuarioDTO.fromEntity(s);
+        dto.reconstrucao = c.incremental
+                ? SegmentoUsuarioDTO.TipoReconstrucao.INCREMENTAL
+                : SegmentoUsuarioDTO.TipoReconstrucao.COMPLETA;
+        return dto;
+    }
+
+    /** Lê as partições em paralelo e aplica sobre o bitmap anterior (incremental) ou um vazio (completa). */
+    private Parcial construir(ForkJoinPool pool, Definicao d, Construcao c, int grupos) {
+        List<Callable<Parcial>> tarefas = new ArrayList<>(grupos);
+        for (int g = 0; g < grupos; g++) {
+            final int grupo = g;
+            tarefas.add(() -> c.incremental ? lerIncremental(d, c, grupos, grupo) : lerCompleto(d, c, grupos, grupo));
+        }
+
+        Parcial total = new Parcial();
+        if (c.incremental) {
+            total.membros = SegmentosUsuarios.descomprimir(d.bitmap);
+        }
+        for (Future<Parcial> f : pool.invokeAll(tarefas)) {
+            Parcial p = obter(f);
+            total.membros.andNot(p.afetados);
+            total.membros.or(p.membros);
+            total.lidos += p.lidos;
+        }
+        return total;
+    }
+
+    private Parcial lerCompleto(Definicao d, Construcao c, int grupos, int grupo) throws SQLException {
+        return ler(d, SQL_COMPLETO, false, (conn, ps) -> {
+            int i = 1;
+            ps.setArray(i++, mccs(conn, d));
+            ps.setObject(i++, c.janelaIni.atStartOfDay());
+            ps.setInt(i++, grupos);
+            ps.setInt(i++, grupo);
+            ps.setInt(i++, grupos);
+            ps.setInt(i++, grupo);
+            vincularPredicado(ps, i, d, c);
+        });
+    }
+
+    private Parcial lerIncremental(Definicao d, Construcao c, int grupos, int grupo) throws SQLException {
+        return ler(d, SQL_INCREMENTAL, true, (conn, ps) -> {
+            int i = 1;
+            ps.setLong(i++, d.ultimoTransacaoId);
+            ps.setInt(i++, grupos);
+            ps.setInt(i++, grupo);
+            ps.setObject(i++, d.janelaIni.atStartOfDay());
+            ps.setObject(i++, c.janelaIni.atStartOfDay());
+            ps.setInt(i++, grupos);
+            ps.setInt(i++, grupo);
+            // Sem critério de antiguidade o intervalo fica vazio
+            ps.setObject(i++, d.antiguidadeMinimaDias != null ? d.corteCadastro : c.corteCadastro);
+            ps.setObject(i++, c.corteCadastro);
+            ps.setInt(i++, grupos);
+            ps.setInt(i++, grupo);
+            i = vincularPredicado(ps, i, d, c);
+            ps.setArray(i++, mccs(conn, d));
+            ps.setObject(i, c.janelaIni.atStartOfDay());
+        });
+    }
+
+    private static int vincularPredicado(PreparedStatement ps, int i, Definicao d, Construcao c) throws SQLException {
+        BigDecimal participacao = d.participacaoMccMinima != null ? d.participacaoMccMinima : BigDecimal.ZERO;
+        ps.setObject(i++, c.corteCadastro);
+        ps.setBigDecimal(i++, d.gastoMinimo != null ? d.gastoMinimo : BigDecimal.ZERO);
+        ps.setBigDecimal(i++, participacao);
+        ps.setBigDecimal(i++, participacao);
+        return i;
+    }
+
+    private static Array mccs(Connection conn, Definicao d) throws SQLException {
+        return conn.createArrayOf("varchar", d.mccs);
+    }
+
+    @FunctionalInterface
+    private interface Vinculo {
+        void aplicar(Connection conn, PreparedStatement ps) throws SQLException;
+    }
+
+    /** Cursor JDBC com fetch size; a consulta incremental traz (id, membro), a completa só os membros. */
+    private Parcial ler(Definicao d, String sql, boolean comFlag, Vinculo vinculo) throws SQLException {
+        Parcial p = new Parcial();
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false); // o driver PostgreSQL só usa cursor (fetch size) fora de auto-commit
+            conn.setReadOnly(true);
+            try (PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(fetchSize);
+                vinculo.aplicar(conn, ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long id = rs.getLong(1);
+                        p.lidos++;
+                        if (id > Integer.MAX_VALUE) {
+                            p.foraDoBitmap++;
+                            continue;
+                        }
+                        p.afetados.set((int) id);
+                        if (!comFlag || rs.getBoolean(2)) {
+                            p.membros.set((int) id);
+                        }
+                    }
+                }
+            } finally {
+                conn.setReadOnly(false);
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        if (p.foraDoBitmap > 0) {
+            LOG.warnf("Segmento %s: %d usuários com id acima do limite do bitmap foram ignorados", d.nome, p.foraDoBitmap);
+        }
+        return p;
+    }
+
+    private long maiorTransacaoId() {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_MAIOR_TRANSACAO);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Erro ao ler a última transação: " + e.getMessage(), e);
+        }
+    }
+
+    private static Parcial obter(Future<Parcial> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconstrução de segmento interrompida", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Erro ao ler partição do segmento: " + causa.getMessage(), causa);
+        }
+    }
+
+    // ===================== Estruturas internas =====================
+
+    /** Cópia da definição lida no início da construção (sem sessão Hibernate). */
+    static final class Definicao {
+        final Long id;
+        final String nome;
+        final long versao;
+        final int janelaDias;
+        final BigDecimal gastoMinimo;
+        final String[] mccs;
+        final BigDecimal participacaoMccMinima;
+        final Integer antiguidadeMinimaDias;
+        final byte[] bitmap;
+        final LocalDate janelaIni;
+        final LocalDate corteCadastro;
+        final Long ultimoTransacaoId;
+        final LocalDateTime completoEm;
+
+        Definicao(SegmentoUsuario s) {
+            this.id = s.id;
+            this.nome = s.nome;
+            this.versao = s.versao != null ? s.versao : 0L;
+            this.janelaDias = s.janelaDias;
+            this.gastoMinimo = s.gastoMinimo;
+            this.mccs = s.listaMccs().toArray(new String[0]);
+            this.participacaoMccMinima = s.participacaoMccMinima;
+            this.antiguidadeMinimaDias = s.antiguidadeMinimaDias;
+            this.bitmap = s.bitmap;
+            this.janelaIni = s.janelaIni;
+            this.corteCadastro = s.corteCadastro;
+            this.ultimoTransacaoId = s.ultimoTransacaoId;
+            this.completoEm = s.completoEm;
+        }
+
+        /** Há bitmap construído com esta definição e a última construção completa é recente. */
+        boolean permiteIncremental(LocalDate hoje, LocalDateTime limiteCompleta) {
+            return bitmap != null && janelaIni != null && corteCadastro != null && ultimoTransacaoId != null
+                    && completoEm != null && completoEm.isAfter(limiteCompleta)
+                    && !janelaIni.isAfter(hoje.minusDays(janelaDias));
+        }
+    }
+
+    /** Parâmetros desta construção (viram o estado gravado para a próxima incremental). */
+    static final class Construcao {
+        final LocalDate janelaIni;
+        final LocalDate corteCadastro;
+        final long ultimoTransacaoId;
+        final boolean incremental;
+
+        Construcao(Definicao d, LocalDate hoje, long ultimoTransacaoId, boolean incremental) {
+            this.janelaIni = hoje.minusDays(d.janelaDias);
+            this.corteCadastro = d.antiguidadeMinimaDias != null ? hoje.minusDays(d.antiguidadeMinimaDias) : hoje;
+            this.ultimoTransacaoId = ultimoTransacaoId;
+            this.incremental = incremental;
+        }
+    }
+
+    /** Resultado de uma partição: usuários lidos (afetados) e os que atendem aos critérios. */
+    static final class Parcial {
+        BitSet afetados = new BitSet();
+        BitSet membros = new BitSet();
+        long lidos;
+        long foraDoBitmap;
+    }
+}
@@ -0,0 +1,383 @@
+package org.acme.loyalty.service;
+
+import io.agroal.api.AgroalDataSource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.loyalty.dto.CampanhaBonusRequestDTO;
+import org.acme.loyalty.dto.RegraConversaoRequestDTO;
+import org.acme.loyalty.dto.SimulacaoImpactoDTO;
+import org.acme.loyalty.dto.SimulacaoImpactoRequestDTO;
+import org.acme.loyalty.entity.AcumuloMensal;
+import org.acme.loyalty.entity.AcumuloMensalId;
+import org.acme.loyalty.entity.CampanhaBonus;
+import org.acme.loyalty.entity.RegraConversao;
+import org.acme.loyalty.repository.CampanhaBonusRepository;
+import org.acme.loyalty.repository.RegraConversaoRepository;
+import org.acme.loyalty.service.pontuacao.CalculoPontuacao;
+import org.acme.loyalty.service.pontuacao.CalendarioCampanhas;
+import org.acme.loyalty.service.pontuacao.CalendarioCampanhasHolder;
+import org.acme.loyalty.service.pontuacao.NiveisUsuarios;
+import org.acme.loyalty.service.pontuacao.NiveisUsuariosHolder;
+import org.acme.loyalty.service.pontuacao.RegrasSnapshot;
+import org.acme.loyalty.service.pontuacao.RegrasSnapshotHolder;
+import org.acme.loyalty.service.pontuacao.SegmentosUsuarios;
+import org.acme.loyalty.service.pontuacao.SegmentosUsuariosHolder;
+import org.acme.loyalty.service.pontuacao.TabelaCambio;
+import org.acme.loyalty.service.pontuacao.TabelaCambioHolder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Simulação do impacto de regras de conversão e campanhas de bônus propostas (regras 17.4 e 17.5)
+ * sobre o histórico de transações, sem gravar nada.
+ * - O período é dividido em partições (mês x grupo de cartões) processadas em paralelo via fork-join
+ * - Cada partição lê as transações APROVADAS em streaming (cursor JDBC com fetch size), ordenadas por cartão,
+ *   então o teto mensal é controlado apenas para o cartão corrente: memória constante em relação ao volume
+ * - Cada transação é pontuada com o cenário atual (snapshot/calendário em uso) e com o proposto;
+ *   o resultado agrega os pontos por categoria, MCC e parceiro
+ * - Valores em moeda estrangeira são convertidos para BRL pela taxa vigente; sem taxa, a transação é ignorada
+ */
+@ApplicationScoped
+public class SimulacaoImpactoService {
+
+    private static final Logger LOG = Logger.getLogger(SimulacaoImpactoService.class);
+
+    public static final int MESES_MAXIMO = 24;
+
+    private static final String SQL_PARTICAO =
+            "SELECT usuario_id, cartao_id, valor, mcc, categoria, parceiro_id, data_evento, moeda " +
+            "FROM loyalty.transacao " +
+            "WHERE status = 'APROVADA' AND data_evento >= ? AND data_evento < ? AND mod(cartao_id, ?) = ? " +
+            "ORDER BY cartao_id, data_evento, id";
+
+    @Inject
+    RegrasSnapshotHolder regrasSnapshotHolder;
+
+    @Inject
+    CalendarioCampanhasHolder calendarioCampanhasHolder;
+
+    @Inject
+    SegmentosUsuariosHolder segmentosUsuariosHolder;
+
+    @Inject
+    NiveisUsuariosHolder niveisUsuariosHolder;
+
+    @Inject
+    TabelaCambioHolder tabelaCambioHolder;
+
+    @Inject
+    RegraConversaoRepository regraConversaoRepository;
+
+    @Inject
+    CampanhaBonusRepository campanhaBonusRepository;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @ConfigProperty(name = "loyalty.simulacao.paralelismo", defaultValue = "4")
+    int paralelismo;
+
+    @ConfigProperty(name = "loyalty.simulacao.fetch-size", defaultValue = "5000")
+    int fetchSize;
+
+    /**
+     * Simula a proposta sobre os últimos {@code meses} meses (inclui o mês corrente).
+     */
+    public SimulacaoImpactoDTO simular(SimulacaoImpactoRequestDTO request) {
+        request.ensureDefaults();
+        if (request.meses < 1 || request.meses > MESES_MAXIMO) {
+            throw new IllegalArgumentException("Quantidade de meses deve estar entre 1 e " + MESES_MAXIMO);
+        }
+
+        long inicioNs = System.nanoTime();
+        SegmentosUsuarios segmentos = segmentosUsuariosHolder.atual();
+        NiveisUsuarios niveis = niveisUsuariosHolder.atual();
+        Cenario atual = new Cenario(new CalculoPontuacao(regrasSnapshotHolder.atual(), calendarioCampanhasHolder.atual(),
+                segmentos, niveis));
+        Cenario proposto = montarCenarioProposto(request, segmentos, niveis);
+
+        YearMonth mesFinal = YearMonth.now();
+        YearMonth mesInicial = mesFinal.minusMonths(request.meses - 1L);
+        int grupos = Math.max(1, paralelismo);
+
+        List<Particao> particoes = new ArrayList<>();
+        for (YearMonth mes = mesInicial; !mes.isAfter(mesFinal); mes = mes.plusMonths(1)) {
+            for (int g = 0; g < grupos; g++) {
+                particoes.add(new Particao(mes, grupos, g));
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(grupos);
+        Impacto total;
+        try {
+            total = pool.invoke(new TarefaSimulacao(particoes, 0, particoes.size(), atual, proposto,
+                    tabelaCambioHolder.atual(), dataSource, fetchSize));
+        } finally {
+            pool.shutdown();
+        }
+
+        SimulacaoImpactoDTO dto = new SimulacaoImpactoDTO();
+        dto.inicio = mesInicial.atDay(1).atStartOfDay();
+        dto.fim = mesFinal.plusMonths(1).atDay(1).atStartOfDay();
+        dto.particoes = particoes.size();
+        dto.transacoesLidas = total.transacoes;
+        dto.transacoesAfetadas = total.afetadas;
+        dto.pontosAtuais = total.pontosAtuais;
+        dto.pontosSimulados = total.pontosSimulados;
+        dto.delta = total.pontosSimulados - total.pontosAtuais;
+        dto.porCategoria = itens(total.porCategoria, request.limiteItens);
+        dto.porMcc = itens(total.porMcc, request.limiteItens);
+        dto.porParceiro = itens(total.porParceiro, request.limiteItens);
+        dto.duracaoMs = (System.nanoTime() - inicioNs) / 1_000_000;
+
+        LOG.infof("Simulação de impacto: %d transações em %d partições, delta de %d pontos em %d ms",
+                dto.transacoesLidas, dto.particoes, dto.delta, dto.duracaoMs);
+        return dto;
+    }
+
+    /**
+     * Cenário proposto: regras ativas e campanhas atuais, sem as removidas, mais as novas.
+     * As entidades novas não são persistidas; recebem IDs negativos para não colidir com as existentes.
+     * Segmentos e níveis dos usuários são os mesmos do cenário atual.
+     */
+    private Cenario montarCenarioProposto(SimulacaoImpactoRequestDTO request, SegmentosUsuarios segmentos,
+                                          NiveisUsuarios niveis) {
+        Set<Long> regrasRemovidas = new HashSet<>(request.regrasRemovidas);
+        List<RegraConversao> regras = new ArrayList<>();
+        for (RegraConversao r : regraConversaoRepository.listarAtivas()) {
+            if (!regrasRemovidas.contains(r.id)) regras.add(r);
+        }
+        long idProvisorio = 0;
+        for (RegraConversaoRequestDTO req : request.regras) {
+            RegraConversao r = req.toEntity();
+            r.id = --idProvisorio;
+            regras.add(r);
+        }
+
+        Set<Long> campanhasRemovidas = new HashSet<>(request.campanhasRemovidas);
+        List<CampanhaBonus> campanhas = new ArrayList<>();
+        for (CampanhaBonus c : campanhaBonusRepository.listAll()) {
+            if (!campanhasRemovidas.contains(c.id)) campanhas.add(c);
+        }
+        idProvisorio = 0;
+        for (CampanhaBonusRequestDTO req : request.campanhas) {
+            CampanhaBonus c = new CampanhaBonus(
+                req.nome,
+                req.multiplicadorExtra != null ? req.multiplicadorExtra : BigDecimal.ZERO,
+                req.vigenciaIni,
+                req.vigenciaFim,
+                req.segmento,
+                req.prioridade,
+                req.teto
+            );
+            c.id = --idProvisorio;
+            campanhas.add(c);
+        }
+
+        return new Cenario(new CalculoPontuacao(RegrasSnapshot.compilar(0, regras), CalendarioCampanhas.compilar(0, campanhas),
+                segmentos, niveis));
+    }
+
+    private static List<SimulacaoImpactoDTO.ItemImpacto> itens(Map<String, long[]> grupos, int limite) {
+        List<SimulacaoImpactoDTO.ItemImpacto> itens = new ArrayList<>(grupos.size());
+        for (Map.Entry<String, long[]> e : grupos.entrySet()) {
+            long[] v = e.getValue();
+            itens.add(new SimulacaoImpactoDTO.ItemImpacto(e.getKey(), v[0], v[1], v[2]));
+        }
+        itens.sort(Comparator
+                .comparingLong((SimulacaoImpactoDTO.ItemImpacto i) -> Math.abs(i.delta)).reversed()
+                .thenComparing(i -> i.chave, Comparator.nullsLast(Comparator.naturalOrder())));
+        return itens.size() > limite ? new ArrayList<>(itens.subList(0, limite)) : itens;
+    }
+
+    // ---- Estruturas internas ----
+
+    /** Regras, campanhas, segmentos e níveis de um cenário (imutáveis, compartilhados entre as threads). */
+    private static final class Cenario {
+        final CalculoPontuacao calculo;
+
+        Cenario(CalculoPontuacao calculo) {
+            this.calculo = calculo;
+        }
+
+        /**
+         * Mesmo cálculo da pontuação ({@link CalculoPontuacao}): regra (17.4), teto mensal, campanha (17.5) pelos
+         * segmentos do usuário e nível de fidelidade; o bônus da campanha não é limitado pelo teto dela (nada é reservado).
+         * {@code contadores} guarda o acumulado do mês do cartão corrente neste cenário.
+         */
+        long pontuar(long usuarioId, long cartaoId, int anoMes, BigDecimal valor, String mcc, String categoria,
+                     Long parceiroId, LocalDateTime dataEvento, Map<AcumuloMensalId, Long> contadores) {
+            CalculoPontuacao.Resultado r = calculo.calcular(valor, mcc, categoria, parceiroId, dataEvento, usuarioId,
+                    regra -> contadores.getOrDefault(new AcumuloMensalId(usuarioId, cartaoId, regra.id, anoMes), 0L),
+                    CalculoPontuacao.BONUS_INTEGRAL);
+            long pontosTotais = r.pontosTotais();
+            if (r.regra != null && r.regra.temTetoMensal() && pontosTotais > 0) {
+                contadores.merge(new AcumuloMensalId(usuarioId, cartaoId, r.regra.id, anoMes), pontosTotais, Long::sum);
+            }
+            return pontosTotais;
+        }
+    }
+
+    /** Um mês do histórico restrito aos cartões com cartao_id mod grupos = grupo. */
+    private static final class Particao {
+        final YearMonth mes;
+        final int grupos;
+        final int grupo;
+
+        Particao(YearMonth mes, int grupos, int grupo) {
+            this.mes = mes;
+            this.grupos = grupos;
+            this.grupo = grupo;
+        }
+    }
+
+    /** Totais de uma ou mais partições; agrupamentos limitados pela cardinalidade das chaves, não pelo volume. */
+    private static final class Impacto {
+        long transacoes;
+        long afetadas;
+        long pontosAtuais;
+        long pontosSimulados;
+        /** chave -> {transações, pontos atuais, pontos simulados} */
+        final Map<String, long[]> porCategoria = new HashMap<>();
+        final Map<String, long[]> porMcc = new HashMap<>();
+        final Map<String, long[]> porParceiro = new HashMap<>();
+
+        void registrar(String categoria, String mcc, Long parceiroId, long atual, long simulado) {
+            transacoes++;
+            if (atual != simulado) afetadas++;
+            pontosAtuais += atual;
+            pontosSimulados += simulado;
+            acumular(porCategoria, categoria, 1, atual, simulado);
+            acumular(porMcc, mcc, 1, atual, simulado);
+            acumular(porParceiro, parceiroId != null ? String.valueOf(parceiroId) : null, 1, atual, simulado);
+        }
+
+        Impacto somar(Impacto outro) {
+            transacoes += outro.transacoes;
+            afetadas += outro.afetadas;
+            pontosAtuais += outro.pontosAtuais;
+            pontosSimulados += outro.pontosSimulados;
+            outro.porCategoria.forEach((k, v) -> acumular(porCategoria, k, v[0], v[1], v[2]));
+            outro.porMcc.forEach((k, v) -> acumular(porMcc, k, v[0], v[1], v[2]));
+            outro.porParceiro.forEach((k, v) -> acumular(porParceiro, k, v[0], v[1], v[2]));
+            return this;
+        }
+
+        private static void acumular(Map<String, long[]> mapa, String chave, long transacoes, long atual, long simulado) {
+            long[] v = mapa.computeIfAbsent(chave, k -> new long[3]);
+            v[0] += transacoes;
+            v[1] += atual;
+            v[2] += simulado;
+        }
+    }
+
+    /** Divide a lista de partições ao meio até sobrar uma por tarefa. */
+    private static final class TarefaSimulacao extends RecursiveTask<Impacto> {
+        private final List<Particao> particoes;
+        private final int inicio;
+        private final int fim;
+        private final Cenario atual;
+        private final Cenario proposto;
+        private final TabelaCambio cambio;
+        private final AgroalDataSource dataSource;
+        private final int fetchSize;
+
+        TarefaSimulacao(List<Particao> particoes, int inicio, int fim, Cenario atual, Cenario proposto,
+                        TabelaCambio cambio, AgroalDataSource dataSource, int fetchSize) {
+            this.particoes = particoes;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.atual = atual;
+            this.proposto = proposto;
+            this.cambio = cambio;
+            this.dataSource = dataSource;
+            this.fetchSize = fetchSize;
+        }
+
+        @Override
+        protected Impacto compute() {
+            if (fim - inicio <= 1) {
+                return inicio < fim ? simularParticao(particoes.get(inicio)) : new Impacto();
+            }
+            int meio = (inicio + fim) >>> 1;
+            TarefaSimulacao esquerda = new TarefaSimulacao(particoes, inicio, meio, atual, proposto, cambio, dataSource, fetchSize);
+            esquerda.fork();
+            Impacto direita = new TarefaSimulacao(particoes, meio, fim, atual, proposto, cambio, dataSource, fetchSize).compute();
+            return direita.somar(esquerda.join());
+        }
+
+        private Impacto simularParticao(Particao p) {
+            Impacto impacto = new Impacto();
+            LocalDate primeiroDia = p.mes.atDay(1);
+            int anoMes = AcumuloMensal.anoMes(primeiroDia);
+            Map<AcumuloMensalId, Long> contadoresAtual = new HashMap<>();
+            Map<AcumuloMensalId, Long> contadoresProposto = new HashMap<>();
+            long cartaoCorrente = Long.MIN_VALUE;
+
+            try (Connection conn = dataSource.getConnection()) {
+                boolean autoCommit = conn.getAutoCommit();
+                conn.setAutoCommit(false); // o driver PostgreSQL só usa cursor (fetch size) fora de auto-commit
+                conn.setReadOnly(true);
+                try (PreparedStatement ps = conn.prepareStatement(SQL_PARTICAO,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    ps.setFetchSize(fetchSize);
+                    ps.setObject(1, primeiroDia.atStartOfDay());
+                    ps.setObject(2, p.mes.plusMonths(1).atDay(1).atStartOfDay());
+                    ps.setInt(3, p.grupos);
+                    ps.setInt(4, p.grupo);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            long usuarioId = rs.getLong(1);
+                            long cartaoId = rs.getLong(2);
+                            BigDecimal valor = rs.getBigDecimal(3);
+                            String mcc = rs.getString(4);
+                            String categoria = rs.getString(5);
+                            long parceiro = rs.getLong(6);
+                            Long parceiroId = rs.wasNull() ? null : parceiro;
+                            LocalDateTime dataEvento = rs.getObject(7, LocalDateTime.class);
+                            BigDecimal valorBrl = cambio.paraBrl(valor, rs.getString(8), dataEvento);
+
+                            if (cartaoId != cartaoCorrente) {
+                                // Teto mensal é por usuário/cartão: o acumulado do cartão anterior não é mais necessário
+                                contadoresAtual.clear();
+                                contadoresProposto.clear();
+                                cartaoCorrente = cartaoId;
+                            }
+
+                            if (valorBrl == null) {
+                                continue; // moeda sem taxa vigente: também não seria pontuada
+                            }
+
+                            long pontosAtuais = atual.pontuar(usuarioId, cartaoId, anoMes, valorBrl, mcc, categoria,
+                                    parceiroId, dataEvento, contadoresAtual);
+                            long pontosSimulados = proposto.pontuar(usuarioId, cartaoId, anoMes, valorBrl, mcc, categoria,
+                                    parceiroId, dataEvento, contadoresProposto);
+                            impacto.registrar(categoria, mcc, parceiroId, pontosAtuais, pontosSimulados);
+                        }
+                    }
+                } finally {
+                    conn.rollback();
+                    conn.setReadOnly(false);
+                    conn.setAutoCommit(autoCommit);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("Falha ao ler transações da partição " + p.mes + "/" + p.grupo + ": " + e.getMessage(), e);
+            }
+
+            LOG.debugf("Partição %s grupo %d simulada: %d transações", p.mes, p.grupo, impacto.transacoes);
+            return impacto;
+        }
+    }
+}
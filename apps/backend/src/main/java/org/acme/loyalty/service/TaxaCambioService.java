@@ -0,0 +1,75 @@
+package org.acme.loyalty.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.loyalty.dto.TaxaCambioDTO;
+import org.acme.loyalty.dto.TaxaCambioRequestDTO;
+import org.acme.loyalty.entity.TaxaCambio;
+import org.acme.loyalty.repository.TaxaCambioRepository;
+import org.acme.loyalty.service.pontuacao.BarramentoInvalidacao;
+import org.acme.loyalty.service.pontuacao.InvalidacaoCache;
+import org.acme.loyalty.service.pontuacao.TabelaCambioHolder;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Taxas de câmbio para pontuação de transações em moeda estrangeira.
+ * - Cada cadastro é uma nova vigência (as anteriores permanecem para eventos passados e reprocessamentos)
+ * - A pontuação usa a tabela em memória ({@link TabelaCambioHolder}), invalidada após o commit em todos os nós
+ */
+@ApplicationScoped
+public class TaxaCambioService {
+
+    private static final Logger LOG = Logger.getLogger(TaxaCambioService.class);
+
+    @Inject
+    TaxaCambioRepository taxaCambioRepository;
+
+    @Inject
+    TabelaCambioHolder tabelaCambioHolder;
+
+    @Inject
+    BarramentoInvalidacao barramentoInvalidacao;
+
+    @Transactional
+    public List<TaxaCambioDTO> listar(String moedaOrigem) {
+        List<TaxaCambio> taxas = (moedaOrigem == null || moedaOrigem.isBlank())
+                ? taxaCambioRepository.listarOrdenadas()
+                : taxaCambioRepository.listarPorMoeda(moedaOrigem.trim().toUpperCase());
+        return taxas.stream().map(TaxaCambioDTO::fromEntity).toList();
+    }
+
+    @Transactional
+    public TaxaCambioDTO registrar(TaxaCambioRequestDTO request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Taxa de câmbio é obrigatória");
+        }
+        TaxaCambio taxa = request.toEntity();
+        if (taxa.moedaOrigem == null || !taxa.moedaOrigem.matches("[A-Z]{3}")) {
+            throw new IllegalArgumentException("Moeda de origem deve ser ISO-4217 em 3 letras (ex.: USD)");
+        }
+        if (TaxaCambio.MOEDA_BASE.equals(taxa.moedaOrigem)) {
+            throw new IllegalArgumentException("Moeda de origem deve ser diferente de " + TaxaCambio.MOEDA_BASE);
+        }
+        if (taxa.taxa == null || taxa.taxa.signum() <= 0) {
+            throw new IllegalArgumentException("Taxa deve ser maior que zero");
+        }
+        if (taxa.vigenteDesde == null) {
+            taxa.vigenteDesde = LocalDateTime.now();
+        }
+        if (taxaCambioRepository.existeVigencia(taxa.moedaOrigem, taxa.moedaDestino, taxa.vigenteDesde)) {
+            throw new IllegalArgumentException("Já existe taxa " + taxa.moedaOrigem + "/" + taxa.moedaDestino
+                    + " vigente desde " + taxa.vigenteDesde);
+        }
+        taxaCambioRepository.persist(taxa);
+        tabelaCambioHolder.invalidarAposCommit();
+        barramentoInvalidacao.publicar(InvalidacaoCache.CAMBIO, taxa.id);
+
+        LOG.info("Taxa de câmbio registrada: " + taxa.moedaOrigem + "/" + taxa.moedaDestino + " = " + taxa.taxa
+                + " desde " + taxa.vigenteDesde);
+        return TaxaCambioDTO.fromEntity(taxa);
+    }
+}
@@ -0,0 +1,336 @@
+package org.acme.loyalty.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.acme.loyalty.dto.TransacaoLoteResultadoDTO;
+import org.acme.loyalty.dto.TransacaoLoteResultadoDTO.Status;
+import org.acme.loyalty.dto.TransacaoRequestDTO;
+import org.acme.loyalty.dto.event.TransactionCreatedEvent;
+import org.acme.loyalty.entity.Cartao;
+import org.acme.loyalty.entity.FilaPontuacao;
+import org.acme.loyalty.entity.FilaPontuacao.StatusFila;
+import org.acme.loyalty.entity.Transacao;
+import org.acme.loyalty.entity.Usuario;
+import org.acme.loyalty.repository.CartaoRepository;
+import org.acme.loyalty.repository.FilaPontuacaoRepository;
+import org.acme.loyalty.repository.TransacaoRepository;
+import org.acme.loyalty.service.pontuacao.ControleVelocidade;
+import org.acme.loyalty.service.pontuacao.IdempotenciaTransacoes;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Carga de transações em lote (NDJSON: um TransacaoRequestDTO por linha), para parceiros que enviam milhares
+ * de transações de uma vez.
+ * - Lê e responde em streaming, em blocos de {@code loyalty.transacoes-lote.tamanho-bloco} linhas: memória limitada
+ *   ao bloco, independentemente do tamanho da carga
+ * - Mesmas regras da criação unitária (validação, dono e validade do cartão, idempotência pela chave natural,
+ *   controle de velocidade, fila de pontuação e evento TransactionCreated)
+ * - Cartões do bloco carregados numa única consulta; transações gravadas via COPY e fila via JDBC batch,
+ *   uma transação de banco por bloco
+ * - Falha num bloco marca as linhas dele como ERRO e a carga segue com os próximos blocos
+ */
+@ApplicationScoped
+public class TransacaoLoteService {
+
+    private static final Logger LOG = Logger.getLogger(TransacaoLoteService.class);
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    Validator validator;
+
+    @Inject
+    TransacaoRepository transacaoRepository;
+
+    @Inject
+    CartaoRepository cartaoRepository;
+
+    @Inject
+    FilaPontuacaoRepository filaPontuacaoRepository;
+
+    @Inject
+    EventPublisherService eventPublisherService;
+
+    @Inject
+    ControleVelocidade controleVelocidade;
+
+    @Inject
+    IdempotenciaTransacoes idempotencia;
+
+    @ConfigProperty(name = "loyalty.transacoes-lote.tamanho-bloco", defaultValue = "5000")
+    int tamanhoBloco;
+
+    private ObjectReader leitor;
+
+    @PostConstruct
+    void iniciar() {
+        leitor = objectMapper.readerFor(TransacaoRequestDTO.class);
+    }
+
+    /** Totais de uma carga. */
+    public static class Resumo {
+        public long linhas;
+        public long criadas;
+        public long retidas;
+        public long duplicadas;
+        public long rejeitadas;
+        public long erros;
+
+        void contar(Status status) {
+            linhas++;
+            switch (status) {
+                case CRIADA -> criadas++;
+                case RETIDA -> retidas++;
+                case DUPLICADA -> duplicadas++;
+                case REJEITADA -> rejeitadas++;
+                case ERRO -> erros++;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("linhas=%d, criadas=%d, retidas=%d, duplicadas=%d, rejeitadas=%d, erros=%d",
+                    linhas, criadas, retidas, duplicadas, rejeitadas, erros);
+        }
+    }
+
+    /** Linha da carga em processamento. */
+    private static final class Linha {
+        final long numero;
+        final TransacaoRequestDTO request;
+        final TransacaoLoteResultadoDTO resultado;
+        /** Primeira linha do bloco com a mesma chave natural (esta é repetição dela). */
+        Linha original;
+        Transacao transacao;
+
+        Linha(long numero, TransacaoRequestDTO request, TransacaoLoteResultadoDTO resultado) {
+            this.numero = numero;
+            this.request = request;
+            this.resultado = resultado;
+        }
+    }
+
+    /**
+     * Processa a carga NDJSON da entrada e escreve na saída uma linha NDJSON de {@link TransacaoLoteResultadoDTO}
+     * por linha recebida (linhas em branco são ignoradas), na mesma ordem; a saída é descarregada a cada bloco.
+     */
+    public Resumo processar(InputStream entrada, OutputStream saida) throws IOException {
+        long inicio = System.nanoTime();
+        int bloco = Math.max(1, tamanhoBloco);
+        Resumo resumo = new Resumo();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+
+        List<Linha> linhas = new ArrayList<>(Math.min(bloco, 1024));
+        long numero = 0;
+        String texto;
+        while ((texto = reader.readLine()) != null) {
+            numero++;
+            if (texto.isBlank()) continue;
+            linhas.add(ler(numero, texto));
+            if (linhas.size() >= bloco) {
+                processarBloco(linhas, writer, resumo);
+                linhas.clear();
+            }
+        }
+        if (!linhas.isEmpty()) {
+            processarBloco(linhas, writer, resumo);
+        }
+        writer.flush();
+
+        LOG.infof("Carga de transações em lote concluída em %d ms: %s",
+                (System.nanoTime() - inicio) / 1_000_000L, resumo);
+        return resumo;
+    }
+
+    /** Converte e valida a linha; inválida já sai REJEITADA. */
+    private Linha ler(long numero, String texto) {
+        TransacaoRequestDTO request;
+        try {
+            request = leitor.readValue(texto);
+        } catch (JsonProcessingException e) {
+            return rejeitada(numero, "JSON inválido: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            return rejeitada(numero, "JSON inválido: " + e.getMessage());
+        }
+        if (request == null) {
+            return rejeitada(numero, "JSON inválido: linha sem objeto");
+        }
+
+        Set<ConstraintViolation<TransacaoRequestDTO>> violacoes = validator.validate(request);
+        if (!violacoes.isEmpty()) {
+            String erro = violacoes.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            return rejeitada(numero, erro);
+        }
+        request.normalize();
+        return new Linha(numero, request, new TransacaoLoteResultadoDTO(numero, null, null, null));
+    }
+
+    private static Linha rejeitada(long numero, String erro) {
+        return new Linha(numero, null, new TransacaoLoteResultadoDTO(numero, Status.REJEITADA, null, erro));
+    }
+
+    private void processarBloco(List<Linha> linhas, Writer writer, Resumo resumo) throws IOException {
+        List<TransactionCreatedEvent> eventos = new ArrayList<>();
+        try {
+            QuarkusTransaction.requiringNew().run(() -> gravarBloco(linhas, eventos));
+        } catch (RuntimeException e) {
+            LOG.errorf(e, "Falha ao gravar bloco da carga de transações (linhas %d a %d)",
+                    linhas.get(0).numero, linhas.get(linhas.size() - 1).numero);
+            eventos.clear();
+            String erro = "Falha ao gravar o bloco: " + e.getMessage();
+            for (Linha linha : linhas) {
+                if (linha.resultado.status == Status.REJEITADA) continue;
+                linha.resultado.status = Status.ERRO;
+                linha.resultado.transacaoId = null;
+                linha.resultado.erro = erro;
+            }
+        }
+
+        // Eventos só depois do commit do bloco
+        for (TransactionCreatedEvent evento : eventos) {
+            eventPublisherService.publishEvent(evento);
+        }
+
+        for (Linha linha : linhas) {
+            resumo.contar(linha.resultado.status);
+            writer.write(objectMapper.writeValueAsString(linha.resultado));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /** Grava as linhas válidas do bloco (chamado dentro de uma transação nova). */
+    private void gravarBloco(List<Linha> linhas, List<TransactionCreatedEvent> eventos) {
+        Map<Long, Object[]> cartoes = carregarCartoes(linhas);
+        LocalDate hoje = LocalDate.now();
+
+        List<Linha> novas = new ArrayList<>();
+        Map<String, Linha> porChave = new HashMap<>();
+        for (Linha linha : linhas) {
+            if (linha.request == null) continue;
+            TransacaoRequestDTO r = linha.request;
+
+            String erro = verificarCartao(r, cartoes.get(r.cartaoId), hoje);
+            if (erro != null) {
+                linha.resultado.status = Status.REJEITADA;
+                linha.resultado.erro = erro;
+                continue;
+            }
+
+            // Idempotência dentro do bloco: repetição da chave natural aponta para a primeira linha
+            String chave = r.cartaoId + "|" + r.dataEvento + "|" + (r.autorizacao != null ? r.autorizacao : "");
+            Linha primeira = porChave.putIfAbsent(chave, linha);
+            if (primeira != null) {
+                linha.original = primeira;
+                continue;
+            }
+
+            Transacao tx = r.toEntity(
+                    transacaoRepository.getEntityManager().getReference(Cartao.class, r.cartaoId),
+                    transacaoRepository.getEntityManager().getReference(Usuario.class, r.usuarioId));
+            tx.valor = tx.valor.setScale(2, RoundingMode.HALF_UP);
+            linha.transacao = tx;
+            novas.add(linha);
+        }
+
+        List<Transacao> transacoes = new ArrayList<>(novas.size());
+        for (Linha linha : novas) transacoes.add(linha.transacao);
+        BitSet criadas = transacaoRepository.carregarViaCopy(transacoes);
+
+        List<FilaPontuacao> itens = new ArrayList<>(criadas.cardinality());
+        for (int i = 0; i < novas.size(); i++) {
+            Linha linha = novas.get(i);
+            Transacao tx = linha.transacao;
+            linha.resultado.transacaoId = tx.id;
+            idempotencia.registrar(linha.request.cartaoId, tx.dataEvento, tx.autorizacao);
+            if (!criadas.get(i)) {
+                linha.resultado.status = Status.DUPLICADA;
+                continue;
+            }
+
+            // Mesmo tratamento da criação unitária: velocidade do cartão e fila de pontuação
+            FilaPontuacao item = new FilaPontuacao(tx);
+            String excesso = controleVelocidade.registrar(linha.request.cartaoId, tx.valor, tx.moeda, tx.dataEvento);
+            if (excesso != null && controleVelocidade.reter()) {
+                item.status = StatusFila.RETIDA;
+                item.ultimoErro = excesso;
+                linha.resultado.status = Status.RETIDA;
+                linha.resultado.erro = excesso;
+            } else {
+                linha.resultado.status = Status.CRIADA;
+            }
+            itens.add(item);
+            eventos.add(new TransactionCreatedEvent(
+                    tx.id, linha.request.usuarioId, linha.request.cartaoId,
+                    tx.valor, tx.moeda, tx.mcc, tx.categoria, tx.dataEvento));
+        }
+        filaPontuacaoRepository.enfileirarEmLote(itens);
+
+        for (Linha linha : linhas) {
+            if (linha.original == null) continue;
+            linha.resultado.status = Status.DUPLICADA;
+            linha.resultado.transacaoId = linha.original.resultado.transacaoId;
+        }
+    }
+
+    /** {id, usuario.id, validade} dos cartões referenciados pelas linhas válidas do bloco. */
+    private Map<Long, Object[]> carregarCartoes(List<Linha> linhas) {
+        Set<Long> ids = new HashSet<>();
+        for (Linha linha : linhas) {
+            if (linha.request != null) ids.add(linha.request.cartaoId);
+        }
+        Map<Long, Object[]> cartoes = new HashMap<>(ids.size() * 2);
+        for (Object[] c : cartaoRepository.listarDonoEValidade(ids)) {
+            cartoes.put((Long) c[0], c);
+        }
+        return cartoes;
+    }
+
+    /** Mesmas verificações (e mensagens) de {@link TransacaoService#criarTransacao}; null se o cartão aceita a transação. */
+    private static String verificarCartao(TransacaoRequestDTO r, Object[] cartao, LocalDate hoje) {
+        if (cartao == null) {
+            return "Cartão não encontrado: " + r.cartaoId;
+        }
+        if (!r.usuarioId.equals(cartao[1])) {
+            return "Cartão não pertence ao usuário informado";
+        }
+        LocalDate validade = (LocalDate) cartao[2];
+        if (validade != null && hoje.isAfter(validade)) {
+            return "Cartão não pode receber transações (vencido ou inativo)";
+        }
+        return null;
+    }
+}
@@ -10,12 +10,15 @@ import org.acme.loyalty.dto.TransacaoResponseDTO;
 import org.acme.loyalty.dto.event.TransactionCreatedEvent;
 import org.acme.loyalty.entity.Cartao;
 import org.acme.loyalty.entity.Transacao;
-import org.acme.loyalty.entity.Transacao.StatusTransacao;
 import org.acme.loyalty.entity.Usuario;
-import org.acme.loyalty.repository.CartaoRepository;
+import org.acme.loyalty.entity.Transacao.StatusTransacao;
+import org.acme.loyalty.repository.FilaPontuacaoRepository;
 import org.acme.loyalty.repository.TransacaoRepository;
-import org.acme.loyalty.repository.UsuarioRepository;
+import org.acme.loyalty.service.pontuacao.CadastroCache;
+import org.acme.loyalty.service.pontuacao.ControleVelocidade;
+import org.acme.loyalty.service.pontuacao.IdempotenciaTransacoes;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -29,13 +32,19 @@ public class TransacaoService {
     TransacaoRepository transacaoRepository;
 
     @Inject
-    UsuarioRepository usuarioRepository;
+    FilaPontuacaoRepository filaPontuacaoRepository;
 
     @Inject
-    CartaoRepository cartaoRepository;
+    EventPublisherService eventPublisherService;
 
     @Inject
-    EventPublisherService eventPublisherService;
+    ControleVelocidade controleVelocidade;
+
+    @Inject
+    IdempotenciaTransacoes idempotencia;
+
+    @Inject
+    CadastroCache cadastroCache;
 
     // Construtor sem argumentos necessário para proxy CDI
     public TransacaoService() {
@@ -43,6 +52,12 @@ public class TransacaoService {
 
     // ===================== Criação =====================
 
+    /**
+     * Cria a transação com um número fixo de comandos quando a chave é nova: INSERT da transação e INSERT na fila,
+     * com os ids tirados das sequências nos próprios INSERTs. Usuário, cartão, dono e validade vêm do
+     * {@link CadastroCache} (um SELECT por chave primária só quando ainda não conhecidos). Resposta e evento são
+     * montados com os dados em mãos, sem flush nem recarga.
+     */
     @Transactional
     public Transacao criarTransacao(TransacaoRequestDTO request) {
         // Validações básicas
@@ -50,43 +65,50 @@ public class TransacaoService {
             throw new IllegalArgumentException("Valor deve ser >= 0");
         }
 
-        // Usuário
-        Usuario usuario = usuarioRepository.findByIdOptional(request.usuarioId)
-                .orElseThrow(() -> new NotFoundException("Usuário não encontrado: " + request.usuarioId));
-
-        // Cartão
-        Cartao cartao = cartaoRepository.findByIdOptional(request.cartaoId)
-                .orElseThrow(() -> new NotFoundException("Cartão não encontrado: " + request.cartaoId));
-
-        if (!cartao.usuario.id.equals(request.usuarioId)) {
-            throw new IllegalArgumentException("Cartão não pertence ao usuário informado");
-        }
-        if (!cartao.podeReceberTransacoes()) {
+        // Usuário e cartão pelo cache de cadastro (sem SELECT quando já conhecidos); entidades só como referência
+        CadastroCache.CartaoRef cartao = cadastroCache.exigirCartaoDoUsuario(request.cartaoId, request.usuarioId);
+        if (!cartao.podeReceberTransacoes(LocalDate.now())) {
             throw new IllegalArgumentException("Cartão não pode receber transações (vencido ou inativo)");
         }
 
-        // Idempotência conforme regra 17.3
-        var transacaoExistente = transacaoRepository.findByChaveNatural(
-            request.cartaoId, request.dataEvento, request.autorizacao);
-        if (transacaoExistente.isPresent()) {
-            return transacaoExistente.get(); // Retorna transação existente
-        }
-
         // Criar nova transação
-        Transacao tx = request.toEntity(cartao, usuario);
+        var em = transacaoRepository.getEntityManager();
+        Transacao tx = request.toEntity(em.getReference(Cartao.class, cartao.id),
+                em.getReference(Usuario.class, cartao.usuarioId));
         tx.status = StatusTransacao.APROVADA; // Conforme regra 17.3
         tx.processadoEm = null; // será processada posteriormente
 
-        transacaoRepository.persist(tx);
-        transacaoRepository.flush(); // Força a sincronização com o banco
-        
-        // Recarrega a entidade com as relações usando JOIN FETCH
-        tx = transacaoRepository.findWithCartaoAndUsuario(tx.id)
-                .orElseThrow(() -> new RuntimeException("Erro ao recarregar transação"));
+        // Idempotência conforme regra 17.3: chave nunca vista neste nó vai direto ao INSERT;
+        // reenvio (ou falso positivo do filtro) consulta antes. O índice único decide em qualquer caso.
+        if (idempotencia.talvezRecebida(cartao.id, tx.dataEvento, tx.autorizacao)) {
+            var transacaoExistente = transacaoRepository.findByChaveNatural(
+                cartao.id, tx.dataEvento, tx.autorizacao);
+            if (transacaoExistente.isPresent()) {
+                return transacaoExistente.get(); // Retorna transação existente
+            }
+        }
+        if (!transacaoRepository.inserirSeAusente(tx)) {
+            // Gravada por requisição concorrente, outro nó ou antes do reinício
+            idempotencia.registrarConflito();
+            idempotencia.registrar(cartao.id, tx.dataEvento, tx.autorizacao);
+            return transacaoRepository.findByChaveNatural(cartao.id, tx.dataEvento, tx.autorizacao)
+                    .orElseThrow(() -> new IllegalStateException("Transação duplicada não encontrada pela chave natural"));
+        }
+        idempotencia.registrar(cartao.id, tx.dataEvento, tx.autorizacao);
+
+        // Controle de velocidade do cartão (em memória): acima do limite, retida antes da pontuação
+        String excesso = controleVelocidade.registrar(cartao.id, tx.valor, tx.moeda, tx.dataEvento);
 
-        // Evento de domínio
+        // Enfileira para pontuação (mesmo commit da transação)
+        if (excesso != null && controleVelocidade.reter()) {
+            filaPontuacaoRepository.enfileirarRetida(tx, excesso);
+        } else {
+            filaPontuacaoRepository.enfileirar(tx);
+        }
+
+        // Evento de domínio (dados já em mãos)
         TransactionCreatedEvent event = new TransactionCreatedEvent(
-                tx.id, tx.usuario.id, tx.cartao.id,
+                tx.id, request.usuarioId, cartao.id,
                 tx.valor, tx.moeda, tx.mcc, tx.categoria, tx.dataEvento
         );
         eventPublisherService.publishEvent(event);
@@ -96,40 +118,65 @@ public class TransacaoService {
 
     // ===================== Consulta =====================
 
+    /**
+     * Lista transações mais recentes primeiro (dataEvento desc, id desc). Primeira página e páginas seguintes por
+     * cursor: consulta por chave, com custo constante em qualquer profundidade. Página por número (a partir da 2ª,
+     * sem cursor): OFFSET. Em todas, uma linha a mais indica se há próxima página e {@code nextCursor} permite
+     * seguir por chave; o total (COUNT) só é calculado quando pedido ({@code incluirTotal}).
+     */
     public PageResponseDTO<TransacaoResponseDTO> listarTransacoes(Long usuarioId,
                                                                     Long cartaoId,
                                                                     String status,
                                                                     String dataInicio,
                                                                     String dataFim,
                                                                     Integer pagina,
-                                                                    Integer tamanho) {
+                                                                    Integer tamanho,
+                                                                    String cursor,
+                                                                    boolean incluirTotal) {
 
         int pageIndex = (pagina == null || pagina < 1) ? 0 : (pagina - 1);
         int pageSize  = (tamanho == null || tamanho < 1) ? 20 : tamanho;
 
+        PageResponseDTO.Cursor apos = PageResponseDTO.Cursor.decode(cursor);
         StatusTransacao statusEnum = parseStatus(status);
         LocalDateTime ini = parseDateTimeNullable(dataInicio);
         LocalDateTime fim = parseDateTimeNullable(dataFim);
 
-        // Buscar dados paginados
-        List<Transacao> lista = transacaoRepository
-                .queryAvancada(usuarioId, cartaoId, null, null, statusEnum, ini, fim, pageIndex, pageSize)
-                .list();
-
-        // Contar total de elementos
-        long totalElements = transacaoRepository
-                .queryAvancadaCount(usuarioId, cartaoId, null, null, statusEnum, ini, fim);
+        List<Transacao> lista;
+        if (apos != null || pageIndex == 0) {
+            lista = transacaoRepository.listarAvancadaAposChave(usuarioId, cartaoId, null, null, statusEnum, ini, fim,
+                    apos != null ? apos.instante : null, apos != null ? apos.id : null, pageSize + 1);
+        } else {
+            // Página por número: mesma janela do OFFSET, com uma linha a mais
+            int inicio = pageIndex * pageSize;
+            lista = transacaoRepository
+                    .queryAvancada(usuarioId, cartaoId, null, null, statusEnum, ini, fim, pageIndex, pageSize)
+                    .range(inicio, inicio + pageSize)
+                    .list();
+        }
+        boolean temMais = lista.size() > pageSize;
+        if (temMais) lista = lista.subList(0, pageSize);
 
         List<TransacaoResponseDTO> content = lista.stream()
                 .map(this::toTransacaoResponseDTO)
                 .collect(Collectors.toList());
+        String proximo = temMais ? cursorDe(lista.get(lista.size() - 1)) : null;
 
-        return PageResponseDTO.of(
-                content,
-                totalElements,
-                tamanho,
-                pagina - 1
-        );
+        PageResponseDTO<TransacaoResponseDTO> page;
+        if (apos != null) {
+            page = PageResponseDTO.ofCursor(content, pageSize, false, proximo);
+        } else {
+            page = PageResponseDTO.ofPage(content, pageSize, pageIndex, temMais);
+            page.nextCursor = proximo;
+        }
+        if (incluirTotal) {
+            page.withTotal(transacaoRepository.queryAvancadaCount(usuarioId, cartaoId, null, null, statusEnum, ini, fim));
+        }
+        return page;
+    }
+
+    private static String cursorDe(Transacao t) {
+        return new PageResponseDTO.Cursor(t.dataEvento, t.id).encode();
     }
 
     public TransacaoResponseDTO buscarTransacaoPorId(Long id) {
@@ -0,0 +1,80 @@
+package org.acme.loyalty.service.pontuacao;
+
+/**
+ * Anel de 12 posições com o gasto mensal (centavos) de um usuário na janela móvel de 12 meses
+ * terminada em {@link #anoMesRef()}. A posição de um mês é fixa (mês - 1): rolar a janela só zera
+ * as posições cujo mês saiu dela, sem somar o histórico de novo.
+ */
+public final class AnelGastoMensal {
+
+    public static final int MESES = 12;
+
+    private final long[] centavos = new long[MESES];
+    /** ano_mes gravado em cada posição (0 = vazia). */
+    private final int[] meses = new int[MESES];
+    private int anoMesRef;
+
+    public AnelGastoMensal(int anoMesRef) {
+        this.anoMesRef = anoMesRef;
+    }
+
+    public int anoMesRef() {
+        return anoMesRef;
+    }
+
+    /** Soma o gasto do mês; meses fora da janela são ignorados. */
+    public void adicionar(int anoMes, long valorCentavos) {
+        if (!naJanela(anoMes)) return;
+        int i = posicao(anoMes);
+        if (meses[i] != anoMes) {
+            meses[i] = anoMes;
+            centavos[i] = 0L;
+        }
+        centavos[i] += valorCentavos;
+    }
+
+    /** Avança a janela para terminar em {@code novoAnoMesRef}, zerando os meses que saíram. */
+    public void rolarPara(int novoAnoMesRef) {
+        anoMesRef = novoAnoMesRef;
+        for (int i = 0; i < MESES; i++) {
+            if (meses[i] != 0 && !naJanela(meses[i])) {
+                meses[i] = 0;
+                centavos[i] = 0L;
+            }
+        }
+    }
+
+    /** Gasto do mês (0 se fora da janela ou sem gasto). */
+    public long noMes(int anoMes) {
+        int i = posicao(anoMes);
+        return meses[i] == anoMes && naJanela(anoMes) ? centavos[i] : 0L;
+    }
+
+    /** Gasto total da janela (estornos acima do gasto não deixam o total negativo). */
+    public long total() {
+        long soma = 0L;
+        for (int i = 0; i < MESES; i++) {
+            if (meses[i] != 0) soma += centavos[i];
+        }
+        return Math.max(0L, soma);
+    }
+
+    public boolean naJanela(int anoMes) {
+        int d = sequencia(anoMesRef) - sequencia(anoMes);
+        return d >= 0 && d < MESES;
+    }
+
+    /** Primeiro mês (yyyyMM) da janela de 12 meses terminada em {@code anoMesRef}. */
+    public static int inicioJanela(int anoMesRef) {
+        int s = sequencia(anoMesRef) - (MESES - 1);
+        return (s / 12) * 100 + (s % 12) + 1;
+    }
+
+    private static int posicao(int anoMes) {
+        return (anoMes % 100) - 1;
+    }
+
+    private static int sequencia(int anoMes) {
+        return (anoMes / 100) * 12 + (anoMes % 100) - 1;
+    }
+}
@@ -0,0 +1,53 @@
+package org.acme.loyalty.service.pontuacao;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Executa uma ação somente após o commit da transação JTA corrente (ex.: invalidar snapshots em memória).
+ * Sem transação ativa, executa imediatamente; em rollback, não executa.
+ * {@link #desfazerSeRollback} é o inverso: compensa um efeito em memória se a transação não fizer commit.
+ */
+final class AposCommit {
+
+    private AposCommit() {}
+
+    static void executar(TransactionSynchronizationRegistry registry, Runnable acao) {
+        if (registry.getTransactionKey() == null) {
+            acao.run();
+            return;
+        }
+        registry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    acao.run();
+                }
+            }
+        });
+    }
+
+    /** Executa a compensação somente se a transação corrente terminar sem commit; sem transação, nada a fazer. */
+    static void desfazerSeRollback(TransactionSynchronizationRegistry registry, Runnable compensacao) {
+        if (registry.getTransactionKey() == null) {
+            return;
+        }
+        registry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != Status.STATUS_COMMITTED) {
+                    compensacao.run();
+                }
+            }
+        });
+    }
+}
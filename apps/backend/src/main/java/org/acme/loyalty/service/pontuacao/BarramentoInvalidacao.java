@@ -0,0 +1,194 @@
+package org.acme.loyalty.service.pontuacao;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.postgresql.Driver;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Invalidação de caches em memória entre nós via LISTEN/NOTIFY do PostgreSQL (canal {@value #CANAL}).
+ * - Escritas administrativas chamam {@link #publicar} na própria transação: o NOTIFY só é entregue no commit
+ * - Cada nó mantém uma conexão dedicada (fora do pool) em LISTEN e dispara {@link InvalidacaoCache}
+ *   para os caches observadores (inclusive no nó que publicou)
+ * - Conexão perdida: reconecta com espera crescente e dispara {@link InvalidacaoCache#todas()},
+ *   pois notificações do intervalo sem listener não são reenviadas
+ */
+@ApplicationScoped
+public class BarramentoInvalidacao {
+
+    private static final Logger LOG = Logger.getLogger(BarramentoInvalidacao.class);
+
+    static final String CANAL = "loyalty_cache";
+
+    private static final Duration ESPERA_INICIAL = Duration.ofMillis(500);
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    Event<InvalidacaoCache> eventos;
+
+    @ConfigProperty(name = "loyalty.invalidacao.habilitada", defaultValue = "true")
+    boolean habilitada;
+
+    /** Espera máxima por notificações antes de testar a conexão (detecta conexão caída). */
+    @ConfigProperty(name = "loyalty.invalidacao.verificacao", defaultValue = "5s")
+    Duration verificacao;
+
+    @ConfigProperty(name = "loyalty.invalidacao.reconexao-maxima", defaultValue = "30s")
+    Duration reconexaoMaxima;
+
+    @ConfigProperty(name = "quarkus.datasource.jdbc.url")
+    String url;
+
+    @ConfigProperty(name = "quarkus.datasource.username")
+    Optional<String> usuario;
+
+    @ConfigProperty(name = "quarkus.datasource.password")
+    Optional<String> senha;
+
+    private volatile boolean ativo;
+    private volatile boolean conectado;
+    private volatile Connection conexao;
+    private Thread listener;
+
+    /**
+     * Emite {@code NOTIFY loyalty_cache, '<entidade>:<id>'} na transação corrente.
+     * Rollback descarta a notificação; sem transação, é entregue imediatamente.
+     */
+    public void publicar(String entidade, Object id) {
+        String payload = new InvalidacaoCache(entidade, id != null ? String.valueOf(id) : null).payload();
+        entityManager.createNativeQuery("SELECT pg_notify(?1, ?2)")
+                .setParameter(1, CANAL)
+                .setParameter(2, payload)
+                .getSingleResult();
+    }
+
+    /** Listener conectado e em LISTEN. */
+    public boolean isConectado() {
+        return conectado;
+    }
+
+    void aoIniciar(@Observes StartupEvent evento) {
+        if (!habilitada) {
+            LOG.info("Barramento de invalidação de cache desabilitado");
+            return;
+        }
+        ativo = true;
+        listener = new Thread(this::executar, "loyalty-invalidacao");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    void aoDesligar(@Observes ShutdownEvent evento) {
+        ativo = false;
+        fecharConexao(); // desbloqueia getNotifications
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    // ---- Listener ----
+
+    private void executar() {
+        Duration espera = ESPERA_INICIAL;
+        while (ativo) {
+            try {
+                escutar();
+            } catch (SQLException | RuntimeException e) {
+                if (!ativo) break;
+                if (conectado) {
+                    espera = ESPERA_INICIAL; // queda após sessão estabelecida: reconecta logo
+                }
+                LOG.warnf("Listener de invalidação desconectado (%s); nova tentativa em %d ms",
+                        e.getMessage(), espera.toMillis());
+            } finally {
+                conectado = false;
+                fecharConexao();
+            }
+            if (!dormir(espera)) break;
+            espera = espera.multipliedBy(2).compareTo(reconexaoMaxima) > 0 ? reconexaoMaxima : espera.multipliedBy(2);
+        }
+    }
+
+    /** Uma sessão de LISTEN: retorna/lança quando a conexão cai ou o nó desliga. */
+    private void escutar() throws SQLException {
+        Properties props = new Properties();
+        usuario.ifPresent(u -> props.setProperty("user", u));
+        senha.ifPresent(s -> props.setProperty("password", s));
+        Connection conn = new Driver().connect(url, props);
+        if (conn == null) {
+            throw new SQLException("URL não suportada pelo driver PostgreSQL: " + url);
+        }
+        conexao = conn;
+        try (Statement st = conn.createStatement()) {
+            st.execute("LISTEN " + CANAL);
+        }
+        PGConnection pg = conn.unwrap(PGConnection.class);
+        conectado = true;
+        LOG.info("Listener de invalidação conectado ao canal " + CANAL);
+
+        // Notificações emitidas enquanto não havia listener foram perdidas: todos os caches recarregam
+        despachar(InvalidacaoCache.todas());
+
+        int timeoutMs = (int) Math.max(1L, verificacao.toMillis());
+        while (ativo) {
+            PGNotification[] notificacoes = pg.getNotifications(timeoutMs);
+            if (notificacoes == null || notificacoes.length == 0) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("SELECT 1"); // conexão caída sem notificação pendente só aparece aqui
+                }
+                continue;
+            }
+            for (PGNotification n : notificacoes) {
+                despachar(InvalidacaoCache.doPayload(n.getParameter()));
+            }
+        }
+    }
+
+    private void despachar(InvalidacaoCache evento) {
+        try {
+            eventos.fire(evento);
+            LOG.debug("Invalidação de cache recebida: " + evento);
+        } catch (RuntimeException e) {
+            LOG.warn("Falha ao aplicar invalidação " + evento + ": " + e.getMessage());
+        }
+    }
+
+    private void fecharConexao() {
+        Connection c = conexao;
+        conexao = null;
+        if (c != null) {
+            try {
+                c.close();
+            } catch (SQLException ignorada) {
+                // conexão já perdida
+            }
+        }
+    }
+
+    private boolean dormir(Duration espera) {
+        try {
+            Thread.sleep(espera.toMillis());
+            return ativo;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package org.acme.loyalty.service.pontuacao;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import org.acme.loyalty.repository.CartaoRepository;
+import org.acme.loyalty.repository.UsuarioRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache de referência de usuários e cartões para as validações de entrada (existência, dono do cartão, validade).
+ * - Guarda descritores compactos e imutáveis ({@link UsuarioRef}, {@link CartaoRef}), nunca entidades
+ * - Leitura de 1 linha pela chave primária só no primeiro acesso ou após o TTL; ids inexistentes não são guardados
+ * - Invalidação explícita pelo {@link BarramentoInvalidacao}: triggers de usuario/cartao (V18) notificam
+ *   {@code usuario:<id>} e {@code cartao:<id>} no commit de UPDATE/DELETE, de qualquer escritor
+ * - Tamanho limitado: ao atingir o máximo, o mapa é esvaziado (entradas são baratas de recarregar)
+ * - Carga concorrente com uma invalidação não grava o valor lido (pode ser anterior à alteração)
+ */
+@ApplicationScoped
+public class CadastroCache {
+
+    @Inject
+    UsuarioRepository usuarioRepository;
+
+    @Inject
+    CartaoRepository cartaoRepository;
+
+    @ConfigProperty(name = "loyalty.cadastro-cache.ttl", defaultValue = "5m")
+    Duration ttl;
+
+    @ConfigProperty(name = "loyalty.cadastro-cache.max", defaultValue = "200000")
+    int maxEntradas;
+
+    /** Usuário existente. */
+    public static final class UsuarioRef {
+        public final long id;
+
+        UsuarioRef(long id) {
+            this.id = id;
+        }
+    }
+
+    /** Cartão existente, com o dono e a validade. */
+    public static final class CartaoRef {
+        public final long id;
+        public final long usuarioId;
+        public final LocalDate validade;
+
+        CartaoRef(long id, long usuarioId, LocalDate validade) {
+            this.id = id;
+            this.usuarioId = usuarioId;
+            this.validade = validade;
+        }
+
+        public boolean pertenceA(Long usuarioId) {
+            return usuarioId != null && this.usuarioId == usuarioId;
+        }
+
+        /** Mesma regra de {@code Cartao.podeReceberTransacoes()}: não vencido (cartão ativo por padrão). */
+        public boolean podeReceberTransacoes(LocalDate hoje) {
+            return validade == null || !hoje.isAfter(validade);
+        }
+    }
+
+    private static final class Entrada<T> {
+        final T valor;
+        final long expiraEm;
+
+        Entrada(T valor, long expiraEm) {
+            this.valor = valor;
+            this.expiraEm = expiraEm;
+        }
+    }
+
+    private final ConcurrentHashMap<Long, Entrada<UsuarioRef>> usuarios = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Entrada<CartaoRef>> cartoes = new ConcurrentHashMap<>();
+    /** Incrementada a cada invalidação: carga iniciada antes não é gravada. */
+    private final AtomicLong geracao = new AtomicLong();
+
+    // ---- Consultas ----
+
+    public Optional<UsuarioRef> usuario(Long id) {
+        if (id == null) return Optional.empty();
+        long agora = System.nanoTime();
+        Entrada<UsuarioRef> e = usuarios.get(id);
+        if (e != null && agora - e.expiraEm < 0) {
+            return Optional.of(e.valor);
+        }
+        long g = geracao.get();
+        if (usuarioRepository.count("id = ?1", id) == 0) {
+            usuarios.remove(id);
+            return Optional.empty();
+        }
+        UsuarioRef ref = new UsuarioRef(id);
+        guardar(usuarios, id, ref, agora, g);
+        return Optional.of(ref);
+    }
+
+    public Optional<CartaoRef> cartao(Long id) {
+        if (id == null) return Optional.empty();
+        long agora = System.nanoTime();
+        Entrada<CartaoRef> e = cartoes.get(id);
+        if (e != null && agora - e.expiraEm < 0) {
+            return Optional.of(e.valor);
+        }
+        long g = geracao.get();
+        List<Object[]> linhas = cartaoRepository.listarDonoEValidade(List.of(id));
+        if (linhas.isEmpty()) {
+            cartoes.remove(id);
+            return Optional.empty();
+        }
+        Object[] c = linhas.get(0);
+        CartaoRef ref = new CartaoRef(id, (Long) c[1], (LocalDate) c[2]);
+        guardar(cartoes, id, ref, agora, g);
+        return Optional.of(ref);
+    }
+
+    // ---- Validações (mesmas mensagens das consultas diretas) ----
+
+    public UsuarioRef exigirUsuario(Long id) {
+        return usuario(id).orElseThrow(() -> new NotFoundException("Usuário não encontrado: " + id));
+    }
+
+    public CartaoRef exigirCartao(Long id) {
+        return cartao(id).orElseThrow(() -> new NotFoundException("Cartão não encontrado: " + id));
+    }
+
+    /** Usuário e cartão existentes e cartão do usuário (404 usuário, 404 cartão, 400 dono, nessa ordem). */
+    public CartaoRef exigirCartaoDoUsuario(Long cartaoId, Long usuarioId) {
+        exigirUsuario(usuarioId);
+        CartaoRef cartao = exigirCartao(cartaoId);
+        if (!cartao.pertenceA(usuarioId)) {
+            throw new IllegalArgumentException("Cartão não pertence ao usuário informado");
+        }
+        return cartao;
+    }
+
+    // ---- Invalidação ----
+
+    void aoInvalidar(@Observes InvalidacaoCache evento) {
+        if (evento.afeta(InvalidacaoCache.USUARIO)) {
+            geracao.incrementAndGet();
+            remover(usuarios, evento);
+        }
+        if (evento.afeta(InvalidacaoCache.CARTAO)) {
+            geracao.incrementAndGet();
+            remover(cartoes, evento);
+        }
+    }
+
+    public void limpar() {
+        geracao.incrementAndGet();
+        usuarios.clear();
+        cartoes.clear();
+    }
+
+    public int tamanho() {
+        return usuarios.size() + cartoes.size();
+    }
+
+    private <T> void guardar(ConcurrentHashMap<Long, Entrada<T>> mapa, Long id, T valor, long agora, long g) {
+        if (mapa.size() >= maxEntradas) {
+            mapa.clear();
+        }
+        mapa.put(id, new Entrada<>(valor, agora + ttl.toNanos()));
+        if (geracao.get() != g) {
+            mapa.remove(id); // invalidação chegou durante a leitura
+        }
+    }
+
+    private static void remover(ConcurrentHashMap<Long, ?> mapa, InvalidacaoCache evento) {
+        if (evento.id == null) {
+            mapa.clear();
+            return;
+        }
+        try {
+            mapa.remove(Long.valueOf(evento.id));
+        } catch (NumberFormatException e) {
+            mapa.clear();
+        }
+    }
+}
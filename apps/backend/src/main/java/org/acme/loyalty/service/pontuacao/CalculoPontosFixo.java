@@ -0,0 +1,80 @@
+package org.acme.loyalty.service.pontuacao;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Núcleo de cálculo de pontos em ponto fixo (long), sem BigDecimal no caminho quente.
+ * - Valor em centavos (NUMERIC(12,2))
+ * - Multiplicadores escalados por 10.000 (NUMERIC(8,4))
+ * - Mesma semântica de BigDecimal.longValue() das entidades: truncamento em direção a zero
+ *   (= floor para valores não negativos, conforme regras 17.4 e 17.5)
+ * - Overflow verificado: lança ArithmeticException em vez de truncar os bits altos
+ * Valores que não cabem na escala (mais casas decimais) retornam {@link #NAO_REPRESENTAVEL};
+ * o chamador usa então o cálculo em BigDecimal.
+ */
+public final class CalculoPontosFixo {
+
+    /** Centavos por unidade monetária. */
+    public static final long ESCALA_VALOR = 100L;
+    /** Escala dos multiplicadores (4 casas decimais). */
+    public static final long ESCALA_MULTIPLICADOR = 10_000L;
+    /** Sentinela: o número não é representável exatamente na escala fixa. */
+    public static final long NAO_REPRESENTAVEL = Long.MIN_VALUE;
+
+    private static final long ESCALA_VALOR_X_MULTIPLICADOR = ESCALA_VALOR * ESCALA_MULTIPLICADOR;
+
+    private CalculoPontosFixo() {}
+
+    // ---- Conversões (fora do laço: uma vez por regra/campanha ou por transação) ----
+
+    /** valor em centavos, ou {@link #NAO_REPRESENTAVEL} se tiver mais de 2 casas significativas ou não couber em long. */
+    public static long centavos(BigDecimal valor) {
+        return escalar(valor, 2);
+    }
+
+    /** multiplicador * 10.000, ou {@link #NAO_REPRESENTAVEL} se tiver mais de 4 casas significativas ou não couber em long. */
+    public static long multiplicadorEscalado(BigDecimal multiplicador) {
+        return escalar(multiplicador, 4);
+    }
+
+    private static long escalar(BigDecimal v, int casas) {
+        if (v == null) return NAO_REPRESENTAVEL;
+        if (v.scale() > casas) {
+            v = v.stripTrailingZeros();
+            if (v.scale() > casas) return NAO_REPRESENTAVEL;
+        }
+        BigInteger u = v.setScale(casas).unscaledValue(); // aumentar a escala é exato
+        return u.bitLength() < Long.SIZE ? u.longValue() : NAO_REPRESENTAVEL;
+    }
+
+    // ---- Núcleo (sem alocação) ----
+
+    /**
+     * pontos_base = floor(valor * multiplicador) conforme regra 17.4.
+     * @param centavos valor em centavos
+     * @param multiplicadorEscalado multiplicador * 10.000
+     */
+    public static long pontosBase(long centavos, long multiplicadorEscalado) {
+        return multiplicarDividir(centavos, multiplicadorEscalado, ESCALA_VALOR_X_MULTIPLICADOR);
+    }
+
+    /**
+     * pontos_totais = floor(pontos_base * (1 + multiplicador_extra)) conforme regra 17.5.
+     * @param fatorEscalado (1 + multiplicador_extra) * 10.000
+     */
+    public static long pontosComBonus(long pontosBase, long fatorEscalado) {
+        return multiplicarDividir(pontosBase, fatorEscalado, ESCALA_MULTIPLICADOR);
+    }
+
+    /**
+     * trunc(a * m / divisor) sem overflow intermediário: a = q * divisor + r, logo
+     * a * m / divisor = q * m + (r * m) / divisor, com |r| < divisor.
+     * Só lança ArithmeticException se o próprio resultado não couber em long.
+     */
+    static long multiplicarDividir(long a, long m, long divisor) {
+        long q = a / divisor;
+        long r = a % divisor;
+        return Math.addExact(Math.multiplyExact(q, m), Math.multiplyExact(r, m) / divisor);
+    }
+}
@@ -0,0 +1,128 @@
+package org.acme.loyalty.service.pontuacao;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Cálculo de pontos de uma transação, único para todos os caminhos (online, lote, reprocessamento, cotação e simulação):
+ * regra (17.4) → teto mensal da regra → campanha (17.5, pelos segmentos do usuário) → bônus do nível de fidelidade.
+ * - Opera sobre snapshots imutáveis (regras, calendário, segmentos, níveis): sem consulta ao banco
+ * - O que difere entre os caminhos fica com o chamador:
+ *   {@link AcumuladoMes} (banco, contadores do lote, cache) e {@link BonusCampanha} (reserva, consulta ou bônus integral)
+ * - Não atualiza contadores: o chamador soma {@link Resultado#pontosTotais} ao acumulado do mês
+ */
+public final class CalculoPontuacao {
+
+    /** Pontos já acumulados no mês para a regra (consultado somente para regras com teto mensal). */
+    @FunctionalInterface
+    public interface AcumuladoMes {
+        long pontosNoMes(RegraCompilada regra);
+    }
+
+    /** Pontos com a campanha: com o bônus se o teto da campanha comportar, senão só a base. */
+    @FunctionalInterface
+    public interface BonusCampanha {
+        long pontosComCampanha(CampanhaCompilada campanha, long pontosBase);
+    }
+
+    /** Bônus integral, sem considerar o teto da campanha (reprocessamento e simulação: nada é reservado). */
+    public static final BonusCampanha BONUS_INTEGRAL = (campanha, pontosBase) -> campanha.calcularPontosComBonus(pontosBase);
+
+    /** Teto mensal ignorado (sem usuário/cartão, o teto é considerado integralmente disponível). */
+    public static final AcumuladoMes SEM_ACUMULADO = regra -> 0L;
+
+    /** Detalhamento do cálculo; {@link #regra} nula = nenhuma regra aplicável (0 pontos). */
+    public static final class Resultado {
+        public final RegraCompilada regra;
+        /** floor(valor_brl * multiplicador), antes do teto mensal. */
+        public final long pontosRegra;
+        /** Acumulado do mês na regra (0 se ela não tem teto mensal). */
+        public final long acumuladoNoMes;
+        /** Pontos base após o teto mensal. */
+        public final long pontosBase;
+        /** Campanha aplicada (nula sem campanha vigente ou com o teto da campanha esgotado). */
+        public final CampanhaCompilada campanha;
+        public final long pontosCampanha;
+        /** Nível do usuário (nulo no nível base). */
+        public final NiveisFidelidade.Nivel nivel;
+        public final long pontosNivel;
+
+        private Resultado(RegraCompilada regra, long pontosRegra, long acumuladoNoMes, long pontosBase,
+                          CampanhaCompilada campanha, long pontosCampanha, NiveisFidelidade.Nivel nivel, long pontosNivel) {
+            this.regra = regra;
+            this.pontosRegra = pontosRegra;
+            this.acumuladoNoMes = acumuladoNoMes;
+            this.pontosBase = pontosBase;
+            this.campanha = campanha;
+            this.pontosCampanha = pontosCampanha;
+            this.nivel = nivel;
+            this.pontosNivel = pontosNivel;
+        }
+
+        /** pontos base + bônus da campanha + bônus do nível. */
+        public long pontosTotais() {
+            return pontosBase + pontosCampanha + pontosNivel;
+        }
+    }
+
+    private static final Resultado SEM_REGRA = new Resultado(null, 0L, 0L, 0L, null, 0L, null, 0L);
+
+    public final RegrasSnapshot regras;
+    public final CalendarioCampanhas calendario;
+    public final SegmentosUsuarios segmentos;
+    public final NiveisUsuarios niveis;
+
+    public CalculoPontuacao(RegrasSnapshot regras, CalendarioCampanhas calendario,
+                            SegmentosUsuarios segmentos, NiveisUsuarios niveis) {
+        this.regras = regras;
+        this.calendario = calendario;
+        this.segmentos = segmentos;
+        this.niveis = niveis;
+    }
+
+    /** Seleciona a regra mais prioritária (17.4) e calcula com ela. */
+    public Resultado calcular(BigDecimal valorBrl, String mcc, String categoria, Long parceiroId,
+                              LocalDateTime dataEvento, Long usuarioId,
+                              AcumuladoMes acumulado, BonusCampanha bonusCampanha) {
+        RegraCompilada regra = regras.selecionarRegraMaisPrioritaria(valorBrl, mcc, categoria, parceiroId, dataEvento);
+        return calcular(regra, valorBrl, dataEvento, usuarioId, acumulado, bonusCampanha);
+    }
+
+    /**
+     * Calcula com a regra já selecionada:
+     * pontos_base = floor(valor_brl * multiplicador), limitado ao teto_mensal da regra;
+     * pontos_totais = floor(pontos_base * (1 + multiplicador_extra)) + bônus do nível sobre os pontos base.
+     */
+    public Resultado calcular(RegraCompilada regra, BigDecimal valorBrl, LocalDateTime dataEvento, Long usuarioId,
+                              AcumuladoMes acumulado, BonusCampanha bonusCampanha) {
+        if (regra == null) {
+            return SEM_REGRA;
+        }
+        long pontosRegra = regra.calcularPontos(valorBrl);
+        long pontosBase = pontosRegra;
+        long pontosMes = 0L;
+        if (regra.temTetoMensal()) {
+            pontosMes = acumulado.pontosNoMes(regra);
+            pontosBase = Math.min(pontosBase, Math.max(0, regra.tetoMensal - pontosMes));
+        }
+        if (pontosBase <= 0) {
+            return new Resultado(regra, pontosRegra, pontosMes, 0L, null, 0L, null, 0L);
+        }
+
+        CampanhaCompilada campanha = calendario.melhorCampanha(dataEvento.toLocalDate(), usuarioId, segmentos);
+        long pontosCampanha = 0L;
+        if (campanha != null) {
+            long integral = campanha.calcularPontosComBonus(pontosBase);
+            long concedido = bonusCampanha.pontosComCampanha(campanha, pontosBase);
+            if (concedido == integral) {
+                pontosCampanha = integral - pontosBase;
+            } else {
+                campanha = null; // teto da campanha esgotado: vale apenas a regra base
+            }
+        }
+
+        NiveisFidelidade.Nivel nivel = niveis.nivel(usuarioId);
+        long pontosNivel = nivel != null ? nivel.bonus(pontosBase) : 0L;
+        return new Resultado(regra, pontosRegra, pontosMes, pontosBase, campanha, pontosCampanha, nivel, pontosNivel);
+    }
+}
@@ -0,0 +1,167 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.acme.loyalty.entity.CampanhaBonus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Calendário imutável e versionado das campanhas de bônus (regra 17.5).
+ * Índice de intervalos sobre vigencia_ini/vigencia_fim: as datas de início e fim+1 de todas as campanhas
+ * dividem o tempo em faixas; cada faixa guarda a melhor campanha geral e a melhor por segmento.
+ * A consulta "melhor campanha para data e segmento" é uma busca binária sem acesso ao banco.
+ * Critério de escolha (o mesmo de CampanhaBonusService.escolherMelhorCampanha):
+ * prioridade ASC (menor número = maior prioridade), multiplicador_extra DESC, id ASC.
+ * Vale também para a pontuação em lote, que antes escolhia pela prioridade DESC (maior número) e id:
+ * com campanhas sobrepostas de prioridades diferentes, o lote passa a conceder a mesma campanha do online.
+ */
+public final class CalendarioCampanhas {
+
+    static final Comparator<CampanhaCompilada> ORDEM_PRIORIDADE = Comparator
+            .comparingInt((CampanhaCompilada c) -> c.prioridade)
+            .thenComparing((CampanhaCompilada c) -> c.multiplicadorExtra, Comparator.reverseOrder())
+            .thenComparing(c -> c.id, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    public final long versao;
+    public final LocalDateTime carregadoEm;
+
+    private final List<CampanhaCompilada> campanhas;
+    /** Dia (epoch day) em que cada faixa começa; a faixa i vale até inicioFaixa[i + 1] - 1. */
+    private final long[] inicioFaixa;
+    private final Faixa[] faixas;
+
+    /** Campanhas vigentes em uma faixa, já reduzidas à melhor por segmento. */
+    private static final class Faixa {
+        final CampanhaCompilada geral;
+        final Map<String, CampanhaCompilada> porSegmento;
+        final CampanhaCompilada melhor;
+
+        Faixa(CampanhaCompilada geral, Map<String, CampanhaCompilada> porSegmento, CampanhaCompilada melhor) {
+            this.geral = geral;
+            this.porSegmento = porSegmento;
+            this.melhor = melhor;
+        }
+    }
+
+    private CalendarioCampanhas(long versao, List<CampanhaCompilada> campanhas) {
+        this.versao = versao;
+        this.carregadoEm = LocalDateTime.now();
+        this.campanhas = Collections.unmodifiableList(campanhas);
+
+        TreeSet<Long> limites = new TreeSet<>();
+        for (CampanhaCompilada c : campanhas) {
+            limites.add(c.vigenciaIni.toEpochDay());
+            if (c.vigenciaFim != null) {
+                limites.add(c.vigenciaFim.toEpochDay() + 1);
+            }
+        }
+
+        this.inicioFaixa = new long[limites.size()];
+        this.faixas = new Faixa[limites.size()];
+        int i = 0;
+        for (Long dia : limites) {
+            inicioFaixa[i] = dia;
+            faixas[i] = montarFaixa(campanhas, LocalDate.ofEpochDay(dia));
+            i++;
+        }
+    }
+
+    /** As campanhas chegam ordenadas: a primeira vigente de cada segmento é a melhor. */
+    private static Faixa montarFaixa(List<CampanhaCompilada> campanhas, LocalDate dia) {
+        CampanhaCompilada geral = null;
+        CampanhaCompilada melhor = null;
+        Map<String, CampanhaCompilada> porSegmento = new HashMap<>();
+        for (CampanhaCompilada c : campanhas) {
+            if (!c.estaVigenteEm(dia)) continue;
+            if (melhor == null) melhor = c;
+            if (c.chaveSegmento == null) {
+                if (geral == null) geral = c;
+            } else {
+                porSegmento.putIfAbsent(c.chaveSegmento, c);
+            }
+        }
+        if (melhor == null) {
+            return null;
+        }
+        return new Faixa(geral, porSegmento.isEmpty() ? Map.of() : porSegmento, melhor);
+    }
+
+    /** Compila as campanhas informadas (sem vigência inicial ou com período inválido ficam de fora). */
+    public static CalendarioCampanhas compilar(long versao, List<CampanhaBonus> fonte) {
+        List<CampanhaCompilada> compiladas = new ArrayList<>(fonte.size());
+        for (CampanhaBonus c : fonte) {
+            if (c.vigenciaIni == null) continue;
+            if (c.vigenciaFim != null && c.vigenciaFim.isBefore(c.vigenciaIni)) continue;
+            compiladas.add(new CampanhaCompilada(c));
+        }
+        compiladas.sort(ORDEM_PRIORIDADE);
+        return new CalendarioCampanhas(versao, compiladas);
+    }
+
+    /**
+     * Melhor campanha vigente na data aplicável ao segmento:
+     * campanhas gerais (sem segmento) e as do próprio segmento concorrem pelo mesmo critério.
+     * Segmento null/vazio considera apenas campanhas gerais.
+     */
+    public CampanhaCompilada melhorCampanha(LocalDate data, String segmento) {
+        Faixa f = faixa(data);
+        if (f == null) return null;
+        String chave = CampanhaCompilada.chaveSegmento(segmento);
+        CampanhaCompilada doSegmento = chave != null ? f.porSegmento.get(chave) : null;
+        if (doSegmento == null) return f.geral;
+        if (f.geral == null) return doSegmento;
+        return ORDEM_PRIORIDADE.compare(f.geral, doSegmento) <= 0 ? f.geral : doSegmento;
+    }
+
+    /**
+     * Melhor campanha vigente na data para o usuário: concorrem as gerais e as de todos os segmentos
+     * dos quais ele é membro (pertinência O(1) no bitmap de cada segmento).
+     */
+    public CampanhaCompilada melhorCampanha(LocalDate data, Long usuarioId, SegmentosUsuarios segmentos) {
+        Faixa f = faixa(data);
+        if (f == null) return null;
+        CampanhaCompilada melhor = f.geral;
+        if (usuarioId == null || segmentos == null || f.porSegmento.isEmpty()) return melhor;
+        for (Map.Entry<String, CampanhaCompilada> e : f.porSegmento.entrySet()) {
+            CampanhaCompilada c = e.getValue();
+            if ((melhor == null || ORDEM_PRIORIDADE.compare(c, melhor) < 0)
+                    && segmentos.pertence(e.getKey(), usuarioId)) {
+                melhor = c;
+            }
+        }
+        return melhor;
+    }
+
+    /** Melhor campanha vigente na data, de qualquer segmento. */
+    public CampanhaCompilada melhorCampanhaQualquerSegmento(LocalDate data) {
+        Faixa f = faixa(data);
+        return f != null ? f.melhor : null;
+    }
+
+    public int tamanho() {
+        return campanhas.size();
+    }
+
+    public int quantidadeFaixas() {
+        return faixas.length;
+    }
+
+    public List<CampanhaCompilada> campanhas() {
+        return campanhas;
+    }
+
+    private Faixa faixa(LocalDate data) {
+        if (data == null || inicioFaixa.length == 0) return null;
+        int pos = Arrays.binarySearch(inicioFaixa, data.toEpochDay());
+        int idx = pos >= 0 ? pos : -(pos + 1) - 1;
+        return idx >= 0 ? faixas[idx] : null;
+    }
+}
@@ -0,0 +1,77 @@
+package org.acme.loyalty.service.pontuacao;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.acme.loyalty.repository.CampanhaBonusRepository;
+import org.jboss.logging.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mantém o {@link CalendarioCampanhas} corrente usado na pontuação.
+ * - Leitura sem lock (AtomicReference)
+ * - Escritas em CampanhaBonusService (em qualquer nó, via {@link BarramentoInvalidacao}) marcam o calendário como obsoleto após o commit
+ * - A próxima leitura recompila e troca o calendário atomicamente (nova versão)
+ */
+@ApplicationScoped
+public class CalendarioCampanhasHolder {
+
+    private static final Logger LOG = Logger.getLogger(CalendarioCampanhasHolder.class);
+
+    @Inject
+    CampanhaBonusRepository campanhaBonusRepository;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    private final AtomicReference<CalendarioCampanhas> atual = new AtomicReference<>();
+    private final AtomicLong versao = new AtomicLong();
+    private volatile boolean obsoleto = true;
+
+    /** Calendário corrente; recompila se houve alteração desde a última carga. */
+    public CalendarioCampanhas atual() {
+        CalendarioCampanhas c = atual.get();
+        if (c != null && !obsoleto) {
+            return c;
+        }
+        return recarregarSeObsoleto();
+    }
+
+    /** Marca o calendário como obsoleto; a próxima leitura recompila. */
+    public void invalidar() {
+        obsoleto = true;
+    }
+
+    /** Invalida o calendário somente quando a transação corrente fizer commit. */
+    public void invalidarAposCommit() {
+        AposCommit.executar(transactionSynchronizationRegistry, this::invalidar);
+    }
+
+    /** Alteração publicada por qualquer nó (inclusive este) ou ressincronização completa. */
+    void aoInvalidar(@Observes InvalidacaoCache evento) {
+        if (evento.afeta(InvalidacaoCache.CAMPANHA)) {
+            invalidar();
+        }
+    }
+
+    private synchronized CalendarioCampanhas recarregarSeObsoleto() {
+        CalendarioCampanhas c = atual.get();
+        if (c != null && !obsoleto) {
+            return c; // outra thread já recompilou
+        }
+        obsoleto = false;
+        try {
+            c = CalendarioCampanhas.compilar(versao.incrementAndGet(), campanhaBonusRepository.listAll());
+        } catch (RuntimeException e) {
+            obsoleto = true;
+            throw e;
+        }
+        atual.set(c);
+        LOG.debug("Calendário de campanhas v" + c.versao + " carregado com " + c.tamanho()
+                + " campanhas em " + c.quantidadeFaixas() + " faixas");
+        return c;
+    }
+}
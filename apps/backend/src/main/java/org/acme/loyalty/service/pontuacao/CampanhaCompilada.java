@@ -0,0 +1,71 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.acme.loyalty.entity.CampanhaBonus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Cópia imutável de uma {@link CampanhaBonus}, usada pelo calendário de campanhas em memória.
+ * Não é entidade gerenciada: pode ser compartilhada entre threads sem sessão Hibernate.
+ */
+public final class CampanhaCompilada {
+
+    public final Long id;
+    public final String nome;
+    public final BigDecimal multiplicadorExtra;
+    public final LocalDate vigenciaIni;
+    public final LocalDate vigenciaFim;
+    /** Segmento normalizado (trim); null = aplica a todos. */
+    public final String segmento;
+    public final int prioridade;
+    public final Long teto;
+
+    /** Chave do segmento no calendário (minúsculas); null = campanha geral. */
+    final String chaveSegmento;
+
+    private final BigDecimal multiplicadorTotal;
+    /** (1 + multiplicador_extra) * 10.000 ({@link CalculoPontosFixo}); NAO_REPRESENTAVEL usa BigDecimal. */
+    private final long fatorEscalado;
+
+    CampanhaCompilada(CampanhaBonus c) {
+        this.id = c.id;
+        this.nome = c.nome;
+        this.multiplicadorExtra = c.multiplicadorExtra != null ? c.multiplicadorExtra : BigDecimal.ZERO;
+        this.vigenciaIni = c.vigenciaIni;
+        this.vigenciaFim = c.vigenciaFim;
+        this.segmento = (c.segmento == null || c.segmento.isBlank()) ? null : c.segmento.trim();
+        this.prioridade = c.prioridade != null ? c.prioridade : Integer.MAX_VALUE;
+        this.teto = c.teto;
+        this.chaveSegmento = chaveSegmento(segmento);
+        this.multiplicadorTotal = BigDecimal.ONE.add(multiplicadorExtra);
+        this.fatorEscalado = CalculoPontosFixo.multiplicadorEscalado(multiplicadorTotal);
+    }
+
+    public boolean estaVigenteEm(LocalDate data) {
+        if (vigenciaIni == null || data == null) return false;
+        return !data.isBefore(vigenciaIni) && (vigenciaFim == null || !data.isAfter(vigenciaFim));
+    }
+
+    /** Se segmento não informado, aplica para todos. */
+    public boolean aplicaParaSegmento(String segmentoUsuario) {
+        if (segmento == null) return true;
+        return segmento.equalsIgnoreCase(segmentoUsuario);
+    }
+
+    /** pontos_totais = floor(pontos_base * (1 + multiplicador_extra)), idêntico a {@link CampanhaBonus#calcularPontosComBonus}. */
+    public Long calcularPontosComBonus(Long pontosBase) {
+        if (pontosBase == null || pontosBase <= 0) return 0L;
+        if (fatorEscalado != CalculoPontosFixo.NAO_REPRESENTAVEL) {
+            return CalculoPontosFixo.pontosComBonus(pontosBase, fatorEscalado);
+        }
+        return BigDecimal.valueOf(pontosBase).multiply(multiplicadorTotal).longValue();
+    }
+
+    static String chaveSegmento(String segmento) {
+        if (segmento == null) return null;
+        String t = segmento.trim();
+        return t.isEmpty() ? null : t.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,66 @@
+package org.acme.loyalty.service.pontuacao;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.loyalty.entity.AcumuloMensalId;
+import org.acme.loyalty.repository.AcumuloMensalRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache somente leitura dos contadores de teto mensal (acumulo_mensal), usado pela cotação de pontos.
+ * - Leitura de 1 linha pela chave primária apenas no primeiro acesso ou após o TTL
+ * - Não é atualizado pelo caminho de escrita: a cotação é indicativa e pode atrasar até o TTL
+ * - Tamanho limitado: ao atingir o máximo, o cache é esvaziado (entradas são baratas de recarregar)
+ */
+@ApplicationScoped
+public class ContadoresMensaisCache {
+
+    @Inject
+    AcumuloMensalRepository acumuloMensalRepository;
+
+    @ConfigProperty(name = "loyalty.cotacao.contadores-ttl", defaultValue = "5s")
+    Duration ttl;
+
+    @ConfigProperty(name = "loyalty.cotacao.contadores-max", defaultValue = "100000")
+    int maxEntradas;
+
+    private final ConcurrentHashMap<AcumuloMensalId, Entrada> entradas = new ConcurrentHashMap<>();
+
+    private static final class Entrada {
+        final long pontos;
+        final long expiraEm;
+
+        Entrada(long pontos, long expiraEm) {
+            this.pontos = pontos;
+            this.expiraEm = expiraEm;
+        }
+    }
+
+    /** Pontos já acumulados no mês pela regra, com no máximo {@code ttl} de atraso. */
+    public long pontosNoMes(Long usuarioId, Long cartaoId, Long regraId, int anoMes) {
+        if (usuarioId == null || cartaoId == null || regraId == null) return 0L;
+        AcumuloMensalId chave = new AcumuloMensalId(usuarioId, cartaoId, regraId, anoMes);
+        long agora = System.nanoTime();
+        Entrada e = entradas.get(chave);
+        if (e != null && agora - e.expiraEm < 0) {
+            return e.pontos;
+        }
+        long pontos = acumuloMensalRepository.pontosNoMes(usuarioId, cartaoId, regraId, anoMes);
+        if (entradas.size() >= maxEntradas) {
+            entradas.clear();
+        }
+        entradas.put(chave, new Entrada(pontos, agora + ttl.toNanos()));
+        return pontos;
+    }
+
+    public void limpar() {
+        entradas.clear();
+    }
+
+    public int tamanho() {
+        return entradas.size();
+    }
+}
@@ -0,0 +1,143 @@
+package org.acme.loyalty.service.pontuacao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Controle de velocidade por cartão na entrada de transações (antes da pontuação).
+ * - Quantidade e valor recebidos por cartão em 1 min, 1 h e 24 h ({@link RastreadorVelocidade}, em memória neste nó)
+ * - Acima de um limite a transação é gravada normalmente, mas fica RETIDA na fila de pontuação até liberação
+ *   administrativa ({@code loyalty.velocidade.acao=RETER}) ou apenas sinalizada em log/métrica ({@code SINALIZAR})
+ * - Contagem por nó: com N nós atrás de um balanceador o limite efetivo por cartão chega a N vezes o configurado
+ * - Valores convertidos para BRL pela {@link TabelaCambio} em memória (taxa vigente na data do evento), em centavos;
+ *   moeda sem taxa conta só na quantidade
+ * - O registro acontece antes do commit (a decisão de reter vai no mesmo commit da fila) e é desfeito se a
+ *   transação JTA não fizer commit
+ */
+@ApplicationScoped
+public class ControleVelocidade {
+
+    private static final Logger LOG = Logger.getLogger(ControleVelocidade.class);
+
+    public enum Acao { RETER, SINALIZAR }
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    TabelaCambioHolder tabelaCambioHolder;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    @ConfigProperty(name = "loyalty.velocidade.habilitado", defaultValue = "true")
+    boolean habilitado;
+
+    @ConfigProperty(name = "loyalty.velocidade.acao", defaultValue = "RETER")
+    String acaoConfig;
+
+    /** Cartões rastreados simultaneamente (8 * (2 + 3 janelas + 30 baldes) = 280 bytes por cartão). */
+    @ConfigProperty(name = "loyalty.velocidade.capacidade", defaultValue = "131072")
+    int capacidade;
+
+    @ConfigProperty(name = "loyalty.velocidade.travas", defaultValue = "1024")
+    int travas;
+
+    @ConfigProperty(name = "loyalty.velocidade.1m.transacoes", defaultValue = "20")
+    long maxTransacoes1m;
+
+    @ConfigProperty(name = "loyalty.velocidade.1m.valor", defaultValue = "5000")
+    BigDecimal maxValor1m;
+
+    @ConfigProperty(name = "loyalty.velocidade.1h.transacoes", defaultValue = "200")
+    long maxTransacoes1h;
+
+    @ConfigProperty(name = "loyalty.velocidade.1h.valor", defaultValue = "50000")
+    BigDecimal maxValor1h;
+
+    @ConfigProperty(name = "loyalty.velocidade.24h.transacoes", defaultValue = "1000")
+    long maxTransacoes24h;
+
+    @ConfigProperty(name = "loyalty.velocidade.24h.valor", defaultValue = "200000")
+    BigDecimal maxValor24h;
+
+    private Acao acao;
+    private RastreadorVelocidade rastreador;
+    private Counter sinalizadas;
+    private Counter retidas;
+
+    @PostConstruct
+    void iniciar() {
+        try {
+            acao = Acao.valueOf(acaoConfig.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("loyalty.velocidade.acao deve ser RETER ou SINALIZAR: " + acaoConfig);
+        }
+        rastreador = new RastreadorVelocidade(capacidade, travas,
+                new RastreadorVelocidade.Janela("1m", 60_000L, 6, maxTransacoes1m, centavos(maxValor1m)),
+                new RastreadorVelocidade.Janela("1h", 3_600_000L, 12, maxTransacoes1h, centavos(maxValor1h)),
+                new RastreadorVelocidade.Janela("24h", 86_400_000L, 12, maxTransacoes24h, centavos(maxValor24h)));
+        sinalizadas = Counter.builder("transacao.velocidade.excedida")
+                .description("Transações recebidas acima de um limite de velocidade do cartão")
+                .register(registry);
+        retidas = Counter.builder("transacao.velocidade.retidas")
+                .description("Transações retidas na fila de pontuação pelo controle de velocidade")
+                .register(registry);
+    }
+
+    /**
+     * Registra a transação do cartão; chamado uma vez por transação nova (não em reenvios idempotentes), dentro da
+     * transação JTA que a grava. Em rollback o registro é desfeito.
+     * @return null se dentro dos limites; senão, a descrição dos limites excedidos
+     */
+    public String registrar(Long cartaoId, BigDecimal valor, String moeda, LocalDateTime dataEvento) {
+        if (!habilitado || cartaoId == null) return null;
+        BigDecimal valorBrl = tabelaCambioHolder.atual().paraBrl(valor, moeda, dataEvento);
+        long centavos = valorBrl != null ? centavos(valorBrl) : 0L;
+        long agora = System.currentTimeMillis();
+        int violacoes = rastreador.registrar(cartaoId, centavos, agora);
+        AposCommit.desfazerSeRollback(transactionSynchronizationRegistry,
+                () -> rastreador.desfazer(cartaoId, centavos, agora));
+        if (violacoes == 0) return null;
+
+        String motivo = "Limite de velocidade excedido (" + rastreador.descrever(violacoes) + ")";
+        sinalizadas.increment();
+        if (acao == Acao.RETER) {
+            retidas.increment();
+        }
+        LOG.warnf("Cartão %d: %s; ação: %s", cartaoId, motivo, acao);
+        return motivo;
+    }
+
+    /** Transações acima do limite ficam retidas (true) ou são apenas sinalizadas (false). */
+    public boolean reter() {
+        return acao == Acao.RETER;
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public Acao acao() {
+        return acao;
+    }
+
+    public RastreadorVelocidade rastreador() {
+        return rastreador;
+    }
+
+    private static long centavos(BigDecimal valor) {
+        return Math.max(0L, valor.setScale(2, RoundingMode.DOWN).unscaledValue().longValue());
+    }
+}
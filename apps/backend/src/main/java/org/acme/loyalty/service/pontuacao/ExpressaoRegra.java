@@ -0,0 +1,396 @@
+package org.acme.loyalty.service.pontuacao;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compilador da expressão opcional de regra_conversao.expressao.
+ * A expressão é analisada uma única vez (ao compilar o snapshot) e vira uma árvore de lambdas
+ * especializadas em primitivos; a avaliação na pontuação não aloca nem interpreta texto.
+ *
+ * Gramática (palavras-chave sem distinção de maiúsculas):
+ * <pre>
+ *   expressao  := termo ( "or" termo )*
+ *   termo      := fator ( "and" fator )*
+ *   fator      := "not" fator | "(" expressao ")" | "fim_de_semana" | comparacao
+ *   comparacao := campo operador literal | campo "in" "(" literal ( "," literal )* ")"
+ *   operador   := "=" | "!=" | "&lt;&gt;" | "&lt;" | "&lt;=" | "&gt;" | "&gt;="
+ * </pre>
+ * Campos:
+ * - valor: valor da transação (até 2 casas decimais; comparado em centavos)
+ * - mcc: MCC de 4 dígitos ('5812' ou 5812)
+ * - categoria: texto, apenas = / != / in, sem distinção de maiúsculas
+ * - parceiro: parceiro_id
+ * - dia_semana: 1 (segunda) a 7 (domingo) ou SEG, TER, QUA, QUI, SEX, SAB, DOM
+ * - hora: 0 a 23 (hora da data do evento)
+ * - fim_de_semana: verdadeiro no sábado e no domingo
+ * Comparação sobre atributo ausente (MCC inválido, categoria/parceiro nulos) é sempre falsa, inclusive "!=".
+ *
+ * Exemplo: {@code valor > 500 and categoria in ('RESTAURANTE', 'BAR') and fim_de_semana}
+ */
+public final class ExpressaoRegra {
+
+    public static final int TAMANHO_MAXIMO = 500;
+    static final int PROFUNDIDADE_MAXIMA = 32;
+
+    /** Sentinela de atributo ausente (igual a {@link CalculoPontosFixo#NAO_REPRESENTAVEL}). */
+    private static final long AUSENTE = Long.MIN_VALUE;
+
+    /**
+     * Condição compilada. Os atributos da transação chegam já normalizados pelo snapshot:
+     * valor em centavos (ou Long.MIN_VALUE) e MCC como índice direto 0..9999 (ou -1).
+     */
+    @FunctionalInterface
+    public interface Condicao {
+        boolean testar(long centavos, int mcc, String categoria, Long parceiroId, LocalDateTime data);
+    }
+
+    /** Leitura de um atributo numérico; {@link #AUSENTE} quando não há valor. */
+    @FunctionalInterface
+    private interface Campo {
+        long ler(long centavos, int mcc, Long parceiroId, LocalDateTime data);
+    }
+
+    private enum Operador { IGUAL, DIFERENTE, MENOR, MENOR_IGUAL, MAIOR, MAIOR_IGUAL }
+
+    private static final Condicao FIM_DE_SEMANA = (c, m, cat, p, d) -> d != null && d.getDayOfWeek().getValue() >= 6;
+
+    private ExpressaoRegra() {}
+
+    /**
+     * Compila a expressão.
+     *
+     * @return a condição, ou {@code null} se a expressão for nula/vazia (regra sem condição extra)
+     * @throws IllegalArgumentException se a expressão for inválida
+     */
+    public static Condicao compilar(String expressao) {
+        if (expressao == null || expressao.isBlank()) return null;
+        if (expressao.length() > TAMANHO_MAXIMO) {
+            throw new IllegalArgumentException("expressao deve ter no máximo " + TAMANHO_MAXIMO + " caracteres");
+        }
+        Parser parser = new Parser(tokenizar(expressao));
+        Condicao c = parser.expressao(0);
+        parser.esperarFim();
+        return c;
+    }
+
+    /**
+     * Validação usada ao salvar a regra. Expressão vazia/nula é válida.
+     *
+     * @throws IllegalArgumentException com mensagem de negócio
+     */
+    public static void validar(String expressao) {
+        compilar(expressao);
+    }
+
+    // ---- Léxico ----
+
+    private enum TipoToken { PALAVRA, NUMERO, TEXTO, OPERADOR, ABRE, FECHA, VIRGULA, FIM }
+
+    private static final class Token {
+        final TipoToken tipo;
+        final String texto;
+        final int posicao;
+
+        Token(TipoToken tipo, String texto, int posicao) {
+            this.tipo = tipo;
+            this.texto = texto;
+            this.posicao = posicao;
+        }
+
+        boolean palavra(String p) {
+            return tipo == TipoToken.PALAVRA && texto.equals(p);
+        }
+    }
+
+    private static List<Token> tokenizar(String s) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < s.length()) {
+            char ch = s.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                i++;
+            } else if (ch == '(') {
+                tokens.add(new Token(TipoToken.ABRE, "(", i++));
+            } else if (ch == ')') {
+                tokens.add(new Token(TipoToken.FECHA, ")", i++));
+            } else if (ch == ',') {
+                tokens.add(new Token(TipoToken.VIRGULA, ",", i++));
+            } else if (ch == '\'') {
+                int fim = s.indexOf('\'', i + 1);
+                if (fim < 0) throw erro("texto sem aspas de fechamento", i);
+                tokens.add(new Token(TipoToken.TEXTO, s.substring(i + 1, fim), i));
+                i = fim + 1;
+            } else if (ch == '=' || ch == '!' || ch == '<' || ch == '>') {
+                int ini = i++;
+                if (i < s.length() && (s.charAt(i) == '=' || (ch == '<' && s.charAt(i) == '>'))) i++;
+                String op = s.substring(ini, i);
+                if (op.equals("!")) throw erro("operador inválido '!'", ini);
+                tokens.add(new Token(TipoToken.OPERADOR, op, ini));
+            } else if (Character.isDigit(ch) || ch == '-') {
+                int ini = i++;
+                while (i < s.length() && (Character.isDigit(s.charAt(i)) || s.charAt(i) == '.')) i++;
+                tokens.add(new Token(TipoToken.NUMERO, s.substring(ini, i), ini));
+            } else if (Character.isLetter(ch) || ch == '_') {
+                int ini = i;
+                while (i < s.length() && (Character.isLetterOrDigit(s.charAt(i)) || s.charAt(i) == '_')) i++;
+                tokens.add(new Token(TipoToken.PALAVRA, s.substring(ini, i).toLowerCase(Locale.ROOT), ini));
+            } else {
+                throw erro("caractere inesperado '" + ch + "'", i);
+            }
+        }
+        tokens.add(new Token(TipoToken.FIM, "", s.length()));
+        return tokens;
+    }
+
+    // ---- Sintaxe + geração das lambdas ----
+
+    private static final class Parser {
+        private final List<Token> tokens;
+        private int pos;
+
+        Parser(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        Condicao expressao(int profundidade) {
+            if (profundidade > PROFUNDIDADE_MAXIMA) {
+                throw erro("expressão aninhada demais", atual().posicao);
+            }
+            Condicao esquerda = termo(profundidade);
+            while (atual().palavra("or")) {
+                pos++;
+                Condicao a = esquerda;
+                Condicao b = termo(profundidade);
+                esquerda = (c, m, cat, p, d) -> a.testar(c, m, cat, p, d) || b.testar(c, m, cat, p, d);
+            }
+            return esquerda;
+        }
+
+        private Condicao termo(int profundidade) {
+            Condicao esquerda = fator(profundidade);
+            while (atual().palavra("and")) {
+                pos++;
+                Condicao a = esquerda;
+                Condicao b = fator(profundidade);
+                esquerda = (c, m, cat, p, d) -> a.testar(c, m, cat, p, d) && b.testar(c, m, cat, p, d);
+            }
+            return esquerda;
+        }
+
+        private Condicao fator(int profundidade) {
+            Token t = atual();
+            if (t.palavra("not")) {
+                pos++;
+                if (profundidade + 1 > PROFUNDIDADE_MAXIMA) throw erro("expressão aninhada demais", t.posicao);
+                Condicao a = fator(profundidade + 1);
+                return (c, m, cat, p, d) -> !a.testar(c, m, cat, p, d);
+            }
+            if (t.tipo == TipoToken.ABRE) {
+                pos++;
+                Condicao a = expressao(profundidade + 1);
+                esperar(TipoToken.FECHA, "')'");
+                return a;
+            }
+            if (t.palavra("fim_de_semana")) {
+                pos++;
+                return FIM_DE_SEMANA;
+            }
+            if (t.tipo != TipoToken.PALAVRA) {
+                throw erro("campo esperado", t.posicao);
+            }
+            pos++;
+            switch (t.texto) {
+                case "categoria":
+                    return comparacaoTexto(t);
+                case "valor":
+                    return comparacaoNumerica((c, m, p, d) -> c, ExpressaoRegra::literalCentavos);
+                case "mcc":
+                    return comparacaoNumerica((c, m, p, d) -> m < 0 ? AUSENTE : m, ExpressaoRegra::literalMcc);
+                case "parceiro":
+                    return comparacaoNumerica((c, m, p, d) -> p == null ? AUSENTE : p, ExpressaoRegra::literalInteiro);
+                case "dia_semana":
+                    return comparacaoNumerica((c, m, p, d) -> d == null ? AUSENTE : d.getDayOfWeek().getValue(),
+                            ExpressaoRegra::literalDiaSemana);
+                case "hora":
+                    return comparacaoNumerica((c, m, p, d) -> d == null ? AUSENTE : d.getHour(), ExpressaoRegra::literalHora);
+                default:
+                    throw erro("campo desconhecido '" + t.texto + "'", t.posicao);
+            }
+        }
+
+        private Condicao comparacaoNumerica(Campo campo, ConversorLiteral conversor) {
+            Token t = atual();
+            if (t.palavra("in")) {
+                pos++;
+                List<Token> literais = lista();
+                long[] valores = new long[literais.size()];
+                for (int i = 0; i < valores.length; i++) valores[i] = conversor.converter(literais.get(i));
+                Arrays.sort(valores);
+                return (c, m, cat, p, d) -> {
+                    long x = campo.ler(c, m, p, d);
+                    return x != AUSENTE && Arrays.binarySearch(valores, x) >= 0;
+                };
+            }
+            Operador op = operador();
+            long v = conversor.converter(literal());
+            switch (op) {
+                case IGUAL:       return (c, m, cat, p, d) -> { long x = campo.ler(c, m, p, d); return x != AUSENTE && x == v; };
+                case DIFERENTE:   return (c, m, cat, p, d) -> { long x = campo.ler(c, m, p, d); return x != AUSENTE && x != v; };
+                case MENOR:       return (c, m, cat, p, d) -> { long x = campo.ler(c, m, p, d); return x != AUSENTE && x < v; };
+                case MENOR_IGUAL: return (c, m, cat, p, d) -> { long x = campo.ler(c, m, p, d); return x != AUSENTE && x <= v; };
+                case MAIOR:       return (c, m, cat, p, d) -> { long x = campo.ler(c, m, p, d); return x != AUSENTE && x > v; };
+                default:          return (c, m, cat, p, d) -> { long x = campo.ler(c, m, p, d); return x != AUSENTE && x >= v; };
+            }
+        }
+
+        private Condicao comparacaoTexto(Token campoToken) {
+            Token t = atual();
+            if (t.palavra("in")) {
+                pos++;
+                List<Token> literais = lista();
+                String[] valores = new String[literais.size()];
+                for (int i = 0; i < valores.length; i++) valores[i] = literalTexto(literais.get(i));
+                return (c, m, cat, p, d) -> {
+                    if (cat == null) return false;
+                    for (String v : valores) {
+                        if (v.equalsIgnoreCase(cat)) return true;
+                    }
+                    return false;
+                };
+            }
+            Operador op = operador();
+            if (op != Operador.IGUAL && op != Operador.DIFERENTE) {
+                throw erro("categoria aceita apenas =, != ou in", campoToken.posicao);
+            }
+            String v = literalTexto(literal());
+            return op == Operador.IGUAL
+                    ? (c, m, cat, p, d) -> cat != null && v.equalsIgnoreCase(cat)
+                    : (c, m, cat, p, d) -> cat != null && !v.equalsIgnoreCase(cat);
+        }
+
+        private Operador operador() {
+            Token t = atual();
+            if (t.tipo != TipoToken.OPERADOR) throw erro("operador esperado", t.posicao);
+            pos++;
+            switch (t.texto) {
+                case "=":  return Operador.IGUAL;
+                case "!=":
+                case "<>": return Operador.DIFERENTE;
+                case "<":  return Operador.MENOR;
+                case "<=": return Operador.MENOR_IGUAL;
+                case ">":  return Operador.MAIOR;
+                case ">=": return Operador.MAIOR_IGUAL;
+                default:   throw erro("operador inválido '" + t.texto + "'", t.posicao);
+            }
+        }
+
+        private List<Token> lista() {
+            esperar(TipoToken.ABRE, "'('");
+            List<Token> literais = new ArrayList<>();
+            literais.add(literal());
+            while (atual().tipo == TipoToken.VIRGULA) {
+                pos++;
+                literais.add(literal());
+            }
+            esperar(TipoToken.FECHA, "')'");
+            return literais;
+        }
+
+        private Token literal() {
+            Token t = atual();
+            if (t.tipo != TipoToken.NUMERO && t.tipo != TipoToken.TEXTO && t.tipo != TipoToken.PALAVRA) {
+                throw erro("valor esperado", t.posicao);
+            }
+            pos++;
+            return t;
+        }
+
+        private void esperar(TipoToken tipo, String descricao) {
+            Token t = atual();
+            if (t.tipo != tipo) throw erro(descricao + " esperado", t.posicao);
+            pos++;
+        }
+
+        void esperarFim() {
+            Token t = atual();
+            if (t.tipo != TipoToken.FIM) throw erro("trecho inesperado '" + t.texto + "'", t.posicao);
+        }
+
+        private Token atual() {
+            return tokens.get(pos);
+        }
+    }
+
+    // ---- Literais ----
+
+    @FunctionalInterface
+    private interface ConversorLiteral {
+        long converter(Token t);
+    }
+
+    private static long literalCentavos(Token t) {
+        if (t.tipo != TipoToken.NUMERO) throw erro("valor numérico esperado", t.posicao);
+        long c;
+        try {
+            c = CalculoPontosFixo.centavos(new BigDecimal(t.texto));
+        } catch (NumberFormatException e) {
+            throw erro("número inválido '" + t.texto + "'", t.posicao);
+        }
+        if (c == CalculoPontosFixo.NAO_REPRESENTAVEL) throw erro("valor com mais de 2 casas decimais", t.posicao);
+        return c;
+    }
+
+    private static long literalInteiro(Token t) {
+        if (t.tipo != TipoToken.NUMERO) throw erro("número inteiro esperado", t.posicao);
+        try {
+            return Long.parseLong(t.texto);
+        } catch (NumberFormatException e) {
+            throw erro("número inteiro inválido '" + t.texto + "'", t.posicao);
+        }
+    }
+
+    private static long literalMcc(Token t) {
+        int idx = t.tipo == TipoToken.TEXTO ? MccTabela.indice(t.texto) : -1;
+        if (t.tipo == TipoToken.NUMERO) {
+            long v = literalInteiro(t);
+            idx = v >= 0 && v < MccTabela.TOTAL_MCC ? (int) v : -1;
+        }
+        if (idx < 0) throw erro("MCC deve ter 4 dígitos", t.posicao);
+        return idx;
+    }
+
+    private static long literalHora(Token t) {
+        long h = literalInteiro(t);
+        if (h < 0 || h > 23) throw erro("hora deve estar entre 0 e 23", t.posicao);
+        return h;
+    }
+
+    private static final String[] DIAS = {"seg", "ter", "qua", "qui", "sex", "sab", "dom"};
+
+    private static long literalDiaSemana(Token t) {
+        if (t.tipo == TipoToken.NUMERO) {
+            long d = literalInteiro(t);
+            if (d < 1 || d > 7) throw erro("dia_semana deve estar entre 1 (segunda) e 7 (domingo)", t.posicao);
+            return d;
+        }
+        String nome = t.texto.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < DIAS.length; i++) {
+            if (DIAS[i].equals(nome)) return i + 1;
+        }
+        throw erro("dia_semana inválido '" + t.texto + "' (use SEG, TER, QUA, QUI, SEX, SAB, DOM)", t.posicao);
+    }
+
+    private static String literalTexto(Token t) {
+        if (t.tipo != TipoToken.TEXTO) throw erro("texto entre aspas simples esperado", t.posicao);
+        return t.texto.trim();
+    }
+
+    private static IllegalArgumentException erro(String mensagem, int posicao) {
+        return new IllegalArgumentException("expressao inválida: " + mensagem + " (posição " + posicao + ")");
+    }
+}
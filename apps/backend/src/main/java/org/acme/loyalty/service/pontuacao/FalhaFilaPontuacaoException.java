@@ -0,0 +1,15 @@
+package org.acme.loyalty.service.pontuacao;
+
+/**
+ * Falha ao pontuar um item da fila; carrega o id do item para registrar a nova tentativa
+ * depois do rollback da transação que o reivindicou.
+ */
+public class FalhaFilaPontuacaoException extends RuntimeException {
+
+    public final Long itemId;
+
+    public FalhaFilaPontuacaoException(Long itemId, Throwable cause) {
+        super("Falha ao pontuar item da fila " + itemId + ": " + cause.getMessage(), cause);
+        this.itemId = itemId;
+    }
+}
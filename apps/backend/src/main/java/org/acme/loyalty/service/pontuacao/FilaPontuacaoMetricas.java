@@ -0,0 +1,69 @@
+package org.acme.loyalty.service.pontuacao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Métricas da fila de pontuação (expostas em /q/metrics).
+ * - pontuacao.fila.profundidade / pontuacao.fila.erros: itens PENDENTE / ERRO (atualizados a cada loyalty.fila-pontuacao.metricas-intervalo)
+ * - pontuacao.fila.reivindicacao: latência da reivindicação (SELECT ... FOR UPDATE SKIP LOCKED)
+ * - pontuacao.fila.processados / pontuacao.fila.falhas: itens pontuados / falhas por nó
+ */
+@ApplicationScoped
+public class FilaPontuacaoMetricas {
+
+    @Inject
+    MeterRegistry registry;
+
+    private final AtomicLong profundidade = new AtomicLong();
+    private final AtomicLong erros = new AtomicLong();
+
+    private Timer reivindicacao;
+    private Counter processados;
+    private Counter falhas;
+
+    @PostConstruct
+    void registrar() {
+        Gauge.builder("pontuacao.fila.profundidade", profundidade, AtomicLong::get)
+                .description("Itens PENDENTES na fila de pontuação")
+                .register(registry);
+        Gauge.builder("pontuacao.fila.erros", erros, AtomicLong::get)
+                .description("Itens da fila de pontuação com tentativas esgotadas")
+                .register(registry);
+        reivindicacao = Timer.builder("pontuacao.fila.reivindicacao")
+                .description("Latência para reivindicar a cabeça de um cartão")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        processados = Counter.builder("pontuacao.fila.processados")
+                .description("Transações pontuadas a partir da fila")
+                .register(registry);
+        falhas = Counter.builder("pontuacao.fila.falhas")
+                .description("Falhas ao pontuar itens da fila")
+                .register(registry);
+    }
+
+    public void atualizarProfundidade(long pendentes, long comErro) {
+        profundidade.set(pendentes);
+        erros.set(comErro);
+    }
+
+    public void registrarReivindicacao(long nanos) {
+        reivindicacao.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void registrarProcessados(int quantidade) {
+        processados.increment(quantidade);
+    }
+
+    public void registrarFalha() {
+        falhas.increment();
+    }
+}
@@ -0,0 +1,129 @@
+package org.acme.loyalty.service.pontuacao;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom particionado no tempo para chaves recentes (ex.: chave natural das transações recebidas).
+ * - Anel de {@code particoes} filtros, cada um recebendo as chaves de um intervalo de {@code duracaoParticaoMs};
+ *   a consulta olha as partições ainda dentro da janela e a partição mais antiga é zerada ao ser reutilizada,
+ *   então o filtro não satura com o tempo
+ * - "Não contém" é definitivo para chaves adicionadas dentro da janela; "talvez contenha" erra com a taxa
+ *   configurada (por partição, até a capacidade)
+ * - Bits em {@link AtomicLongArray} pré-alocados (tamanho potência de 2): adição e consulta sem lock e sem alocação;
+ *   o lock só é usado ao virar a partição. Uma adição concorrente com a virada pode se perder: quem usa o filtro
+ *   deve tratar o "não contém" como otimização, nunca como garantia
+ * - Recebe o hash (64 bits) da chave; os k índices saem por hashing duplo
+ */
+public final class FiltroBloomTemporal {
+
+    private static final int MAX_FUNCOES = 16;
+
+    private final long duracaoParticaoMs;
+    private final AtomicLongArray[] bits;
+    /** Época (instante / duração da partição) de cada partição; -1 = vazia. */
+    private final AtomicLongArray epocas;
+    private final int funcoes;
+    private final long mascara;
+
+    /**
+     * @param particoes partições no anel (janela = particoes * duracaoParticaoMs)
+     * @param capacidadePorParticao chaves esperadas por partição
+     * @param taxaFalsosPositivos taxa desejada por partição cheia (0 &lt; taxa &lt; 1)
+     */
+    public FiltroBloomTemporal(int particoes, long duracaoParticaoMs, long capacidadePorParticao, double taxaFalsosPositivos) {
+        if (particoes < 1 || duracaoParticaoMs <= 0 || capacidadePorParticao < 1) {
+            throw new IllegalArgumentException("Partições, duração e capacidade devem ser positivas");
+        }
+        if (!(taxaFalsosPositivos > 0 && taxaFalsosPositivos < 1)) {
+            throw new IllegalArgumentException("Taxa de falsos positivos deve estar entre 0 e 1: " + taxaFalsosPositivos);
+        }
+        double ln2 = Math.log(2);
+        long ideal = (long) Math.ceil(-capacidadePorParticao * Math.log(taxaFalsosPositivos) / (ln2 * ln2));
+        long tamanho = Long.highestOneBit(Math.max(64L, ideal));
+        if (tamanho < ideal) tamanho <<= 1;
+        if (tamanho / 64 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacidade por partição grande demais: " + capacidadePorParticao);
+        }
+
+        this.duracaoParticaoMs = duracaoParticaoMs;
+        this.mascara = tamanho - 1;
+        this.funcoes = (int) Math.max(1, Math.min(MAX_FUNCOES, Math.round((double) tamanho / capacidadePorParticao * ln2)));
+        this.bits = new AtomicLongArray[particoes];
+        this.epocas = new AtomicLongArray(particoes);
+        for (int p = 0; p < particoes; p++) {
+            bits[p] = new AtomicLongArray((int) (tamanho / 64));
+            epocas.set(p, -1L);
+        }
+    }
+
+    /** Adiciona a chave na partição corrente. */
+    public void adicionar(long hash, long agoraMs) {
+        AtomicLongArray alvo = particaoCorrente(agoraMs / duracaoParticaoMs);
+        long h2 = segundoHash(hash);
+        for (int i = 0; i < funcoes; i++) {
+            long bit = (hash + i * h2) & mascara;
+            int palavra = (int) (bit >>> 6);
+            long m = 1L << bit;
+            long atual = alvo.get(palavra);
+            while ((atual & m) == 0 && !alvo.compareAndSet(palavra, atual, atual | m)) {
+                atual = alvo.get(palavra);
+            }
+        }
+    }
+
+    /** false: a chave não foi adicionada dentro da janela; true: talvez tenha sido. */
+    public boolean talvezContenha(long hash, long agoraMs) {
+        long epoca = agoraMs / duracaoParticaoMs;
+        long h2 = segundoHash(hash);
+        for (int p = 0; p < bits.length; p++) {
+            long e = epocas.get(p);
+            if (e < 0 || e > epoca || epoca - e >= bits.length) continue; // vazia ou fora da janela
+            if (contem(bits[p], hash, h2)) return true;
+        }
+        return false;
+    }
+
+    public int particoes() {
+        return bits.length;
+    }
+
+    /** Bits por partição. */
+    public long tamanhoParticao() {
+        return mascara + 1;
+    }
+
+    public int funcoes() {
+        return funcoes;
+    }
+
+    private boolean contem(AtomicLongArray alvo, long hash, long h2) {
+        for (int i = 0; i < funcoes; i++) {
+            long bit = (hash + i * h2) & mascara;
+            if ((alvo.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /** Partição da época; ao reutilizar a posição de uma época antiga, zera os bits antes. */
+    private AtomicLongArray particaoCorrente(long epoca) {
+        int p = (int) (epoca % bits.length);
+        if (epocas.get(p) != epoca) {
+            synchronized (this) {
+                if (epocas.get(p) < epoca) {
+                    AtomicLongArray alvo = bits[p];
+                    for (int i = 0; i < alvo.length(); i++) alvo.set(i, 0L);
+                    epocas.set(p, epoca);
+                }
+            }
+        }
+        return bits[p];
+    }
+
+    /** Segundo hash ímpar (percorre todas as posições de uma tabela potência de 2). */
+    private static long segundoHash(long x) {
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x | 1L;
+    }
+}
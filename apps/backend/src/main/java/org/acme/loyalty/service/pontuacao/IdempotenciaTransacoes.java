@@ -0,0 +1,117 @@
+package org.acme.loyalty.service.pontuacao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Frente em memória da idempotência na entrada de transações (chave natural: cartão + data do evento + autorização).
+ * - A garantia é o índice único uk_transacao_chave_natural (V17) com INSERT ... ON CONFLICT DO NOTHING
+ * - Este filtro ({@link FiltroBloomTemporal}) só decide se vale consultar antes de inserir: chave nunca vista
+ *   neste nó dentro da janela vai direto ao INSERT; "talvez vista" (reenvio ou falso positivo) consulta primeiro
+ * - Por nó e sem persistência: reenvio que chega a outro nó ou após reinício é resolvido pela constraint
+ */
+@ApplicationScoped
+public class IdempotenciaTransacoes {
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "loyalty.idempotencia.filtro.habilitado", defaultValue = "true")
+    boolean habilitado;
+
+    @ConfigProperty(name = "loyalty.idempotencia.filtro.particoes", defaultValue = "4")
+    int particoes;
+
+    @ConfigProperty(name = "loyalty.idempotencia.filtro.duracao-particao", defaultValue = "1h")
+    Duration duracaoParticao;
+
+    /** Chaves esperadas por partição (500 mil a 1% = 1 MiB por partição). */
+    @ConfigProperty(name = "loyalty.idempotencia.filtro.capacidade", defaultValue = "500000")
+    long capacidade;
+
+    @ConfigProperty(name = "loyalty.idempotencia.filtro.taxa-falsos-positivos", defaultValue = "0.01")
+    double taxaFalsosPositivos;
+
+    private FiltroBloomTemporal filtro;
+    private Counter consultasEvitadas;
+    private Counter consultas;
+    private Counter conflitos;
+
+    @PostConstruct
+    void iniciar() {
+        filtro = new FiltroBloomTemporal(particoes, duracaoParticao.toMillis(), capacidade, taxaFalsosPositivos);
+        consultasEvitadas = Counter.builder("transacao.idempotencia.consultas.evitadas")
+                .description("Transações novas gravadas sem consulta prévia da chave natural (filtro negativo)")
+                .register(registry);
+        consultas = Counter.builder("transacao.idempotencia.consultas")
+                .description("Consultas prévias da chave natural (filtro positivo: reenvio ou falso positivo)")
+                .register(registry);
+        conflitos = Counter.builder("transacao.idempotencia.conflitos")
+                .description("Transações repetidas resolvidas pelo índice único da chave natural")
+                .register(registry);
+    }
+
+    /** false: chave certamente nova neste nó (insere direto); true: consultar a chave natural antes de inserir. */
+    public boolean talvezRecebida(Long cartaoId, LocalDateTime dataEvento, String autorizacao) {
+        if (!habilitado || filtro.talvezContenha(hash(cartaoId, dataEvento, autorizacao), System.currentTimeMillis())) {
+            consultas.increment();
+            return true;
+        }
+        consultasEvitadas.increment();
+        return false;
+    }
+
+    /** Marca a chave como recebida (após gravar a transação ou encontrá-la já gravada). */
+    public void registrar(Long cartaoId, LocalDateTime dataEvento, String autorizacao) {
+        if (!habilitado) return;
+        filtro.adicionar(hash(cartaoId, dataEvento, autorizacao), System.currentTimeMillis());
+    }
+
+    /** INSERT que não gravou por já existir a chave natural (reenvio concorrente, de outro nó ou após reinício). */
+    public void registrarConflito() {
+        conflitos.increment();
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public FiltroBloomTemporal filtro() {
+        return filtro;
+    }
+
+    /** Hash 64 bits da chave natural; autorização nula, vazia ou em branco são a mesma chave. */
+    static long hash(Long cartaoId, LocalDateTime dataEvento, String autorizacao) {
+        long h = 0xcbf29ce484222325L; // FNV-1a
+        if (autorizacao != null) {
+            String a = autorizacao.trim();
+            for (int i = 0; i < a.length(); i++) {
+                h ^= a.charAt(i);
+                h *= 0x100000001b3L;
+            }
+        }
+        h = misturar(h ^ (cartaoId != null ? cartaoId : 0L));
+        if (dataEvento != null) {
+            h = misturar(h ^ dataEvento.toEpochSecond(ZoneOffset.UTC));
+            h = misturar(h ^ dataEvento.getNano());
+        }
+        return h;
+    }
+
+    private static long misturar(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+}
@@ -0,0 +1,60 @@
+package org.acme.loyalty.service.pontuacao;
+
+/**
+ * Evento CDI disparado pelo {@link BarramentoInvalidacao} a cada notificação recebida (de qualquer nó).
+ * Payload da notificação: {@code <entidade>:<id>}; {@link #TODAS} = ressincronização completa
+ * (listener reconectado: notificações podem ter sido perdidas).
+ */
+public final class InvalidacaoCache {
+
+    public static final String REGRA = "regra";
+    public static final String CAMPANHA = "campanha";
+    public static final String RECOMPENSA = "recompensa";
+    public static final String SEGMENTO = "segmento";
+    public static final String CAMBIO = "cambio";
+    public static final String NIVEL = "nivel";
+    public static final String USUARIO = "usuario";
+    public static final String CARTAO = "cartao";
+    public static final String TODAS = "*";
+
+    /** Entidade alterada (ex.: {@link #REGRA}) ou {@link #TODAS}. */
+    public final String entidade;
+    /** Id da entidade alterada; null = não informado (invalida a entidade inteira). */
+    public final String id;
+
+    public InvalidacaoCache(String entidade, String id) {
+        this.entidade = entidade;
+        this.id = id;
+    }
+
+    /** Evento da notificação {@code <entidade>:<id>} (id opcional). */
+    public static InvalidacaoCache doPayload(String payload) {
+        if (payload == null || payload.isBlank()) {
+            return new InvalidacaoCache(TODAS, null);
+        }
+        int sep = payload.indexOf(':');
+        if (sep < 0) {
+            return new InvalidacaoCache(payload.trim(), null);
+        }
+        String id = payload.substring(sep + 1).trim();
+        return new InvalidacaoCache(payload.substring(0, sep).trim(), id.isEmpty() ? null : id);
+    }
+
+    public static InvalidacaoCache todas() {
+        return new InvalidacaoCache(TODAS, null);
+    }
+
+    /** O evento afeta o cache da entidade informada (inclui a ressincronização completa). */
+    public boolean afeta(String entidadeCache) {
+        return TODAS.equals(entidade) || entidadeCache.equals(entidade);
+    }
+
+    public String payload() {
+        return id != null ? entidade + ":" + id : entidade;
+    }
+
+    @Override
+    public String toString() {
+        return payload();
+    }
+}
@@ -0,0 +1,80 @@
+package org.acme.loyalty.service.pontuacao;
+
+import java.nio.CharBuffer;
+import java.util.BitSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Compilador de mcc_regex para tabela de endereçamento direto.
+ * MCC tem exatamente 4 dígitos (Transacao.mcc: ^\d{4}$), então o universo é 0000..9999:
+ * cada regex é expandida uma única vez num BitSet de 10.000 posições e o teste de MCC
+ * vira {@code bits.get(indice(mcc))}, sem regex nem alocação no caminho de pontuação.
+ */
+public final class MccTabela {
+
+    public static final int TOTAL_MCC = 10_000;
+
+    private MccTabela() {
+    }
+
+    /**
+     * Índice direto do MCC (0..9999) ou -1 se nulo/fora do formato de 4 dígitos.
+     * Não aloca.
+     */
+    public static int indice(String mcc) {
+        if (mcc == null || mcc.length() != 4) return -1;
+        int v = 0;
+        for (int i = 0; i < 4; i++) {
+            char c = mcc.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    /**
+     * Expande a regex para o conjunto de MCCs que ela aceita.
+     *
+     * @throws IllegalArgumentException se a regex não compila
+     */
+    public static BitSet expandir(String mccRegex) {
+        Pattern pattern = compilar(mccRegex);
+        BitSet bits = new BitSet(TOTAL_MCC);
+        char[] buf = new char[4];
+        CharBuffer cb = CharBuffer.wrap(buf);
+        Matcher m = pattern.matcher(cb);
+        for (int mcc = 0; mcc < TOTAL_MCC; mcc++) {
+            buf[0] = (char) ('0' + mcc / 1000);
+            buf[1] = (char) ('0' + (mcc / 100) % 10);
+            buf[2] = (char) ('0' + (mcc / 10) % 10);
+            buf[3] = (char) ('0' + mcc % 10);
+            if (m.reset(cb).matches()) {
+                bits.set(mcc);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Validação usada ao salvar a regra: a regex precisa compilar e aceitar ao menos um MCC.
+     * Regex vazia/nula é válida (regra vale para qualquer MCC).
+     *
+     * @throws IllegalArgumentException com mensagem de negócio
+     */
+    public static void validar(String mccRegex) {
+        if (mccRegex == null || mccRegex.isBlank()) return;
+        if (expandir(mccRegex.trim()).isEmpty()) {
+            throw new IllegalArgumentException("mccRegex não corresponde a nenhum MCC de 4 dígitos: " + mccRegex);
+        }
+    }
+
+    private static Pattern compilar(String mccRegex) {
+        try {
+            return Pattern.compile(mccRegex);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("mccRegex inválido: " + e.getDescription());
+        }
+    }
+}
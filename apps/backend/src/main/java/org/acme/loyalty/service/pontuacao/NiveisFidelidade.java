@@ -0,0 +1,123 @@
+package org.acme.loyalty.service.pontuacao;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Definição dos níveis de fidelidade ({@code loyalty.niveis.definicao}), em ordem crescente de gasto:
+ * {@code NOME:gastoMinimo12m:multiplicadorExtra,...} (ex.: {@code PRATA:10000:0.10,OURO:50000:0.25}).
+ * Abaixo do primeiro gasto mínimo o usuário fica no nível base (sem bônus).
+ */
+public final class NiveisFidelidade {
+
+    public static final NiveisFidelidade NENHUM = new NiveisFidelidade(List.of());
+
+    /** Nível de fidelidade: bônus = floor(pontos_base * multiplicadorExtra). */
+    public static final class Nivel {
+        public final String nome;
+        /** Índice na definição, a partir de 1 (0 = nível base). */
+        public final int ordem;
+        public final long gastoMinimoCentavos;
+        public final BigDecimal multiplicadorExtra;
+        final long extraEscalado;
+
+        Nivel(String nome, int ordem, long gastoMinimoCentavos, BigDecimal multiplicadorExtra, long extraEscalado) {
+            this.nome = nome;
+            this.ordem = ordem;
+            this.gastoMinimoCentavos = gastoMinimoCentavos;
+            this.multiplicadorExtra = multiplicadorExtra;
+            this.extraEscalado = extraEscalado;
+        }
+
+        /** floor(pontos_base * multiplicadorExtra). */
+        public long bonus(long pontosBase) {
+            return CalculoPontosFixo.multiplicarDividir(pontosBase, extraEscalado, CalculoPontosFixo.ESCALA_MULTIPLICADOR);
+        }
+    }
+
+    private final List<Nivel> niveis;
+
+    private NiveisFidelidade(List<Nivel> niveis) {
+        this.niveis = niveis;
+    }
+
+    /**
+     * Interpreta a definição; vazia = sem níveis.
+     * @throws IllegalArgumentException se o formato, a ordem dos gastos ou os multiplicadores forem inválidos
+     */
+    public static NiveisFidelidade interpretar(String definicao) {
+        if (definicao == null || definicao.isBlank()) {
+            return NENHUM;
+        }
+        List<Nivel> niveis = new ArrayList<>();
+        long gastoAnterior = 0L;
+        for (String item : definicao.split(",")) {
+            String[] partes = item.trim().split(":");
+            if (partes.length != 3 || partes[0].isBlank()) {
+                throw new IllegalArgumentException("Nível inválido (esperado NOME:gastoMinimo:multiplicadorExtra): " + item.trim());
+            }
+            String nome = partes[0].trim().toUpperCase(Locale.ROOT);
+            long gasto = CalculoPontosFixo.centavos(decimal(partes[1], item));
+            BigDecimal multiplicador = decimal(partes[2], item);
+            long extra = CalculoPontosFixo.multiplicadorEscalado(multiplicador);
+            if (gasto == CalculoPontosFixo.NAO_REPRESENTAVEL || gasto <= gastoAnterior) {
+                throw new IllegalArgumentException("Gasto mínimo do nível " + nome + " deve ser positivo, com até 2 casas e maior que o do nível anterior");
+            }
+            if (extra == CalculoPontosFixo.NAO_REPRESENTAVEL || extra < 0) {
+                throw new IllegalArgumentException("Multiplicador do nível " + nome + " deve ser não negativo, com até 4 casas");
+            }
+            if (niveis.size() >= Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Quantidade máxima de níveis: " + Byte.MAX_VALUE);
+            }
+            if (niveis.stream().anyMatch(n -> n.nome.equals(nome))) {
+                throw new IllegalArgumentException("Nível repetido: " + nome);
+            }
+            niveis.add(new Nivel(nome, niveis.size() + 1, gasto, multiplicador, extra));
+            gastoAnterior = gasto;
+        }
+        return new NiveisFidelidade(Collections.unmodifiableList(niveis));
+    }
+
+    private static BigDecimal decimal(String texto, String item) {
+        try {
+            return new BigDecimal(texto.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número inválido no nível " + item.trim() + ": " + texto.trim());
+        }
+    }
+
+    /** Maior nível cujo gasto mínimo foi atingido, ou null (nível base). */
+    public Nivel avaliar(long gasto12mCentavos) {
+        Nivel r = null;
+        for (Nivel n : niveis) {
+            if (gasto12mCentavos < n.gastoMinimoCentavos) break;
+            r = n;
+        }
+        return r;
+    }
+
+    /** Nível pelo nome (sem diferenciar maiúsculas), ou null se não existe na definição atual. */
+    public Nivel porNome(String nome) {
+        if (nome == null) return null;
+        for (Nivel n : niveis) {
+            if (n.nome.equalsIgnoreCase(nome.trim())) return n;
+        }
+        return null;
+    }
+
+    /** Nível pela ordem (1..n), ou null. */
+    Nivel porOrdem(int ordem) {
+        return ordem >= 1 && ordem <= niveis.size() ? niveis.get(ordem - 1) : null;
+    }
+
+    public List<Nivel> niveis() {
+        return niveis;
+    }
+
+    public boolean isVazia() {
+        return niveis.isEmpty();
+    }
+}
@@ -0,0 +1,89 @@
+package org.acme.loyalty.service.pontuacao;
+
+import java.util.Arrays;
+
+/**
+ * Snapshot imutável e versionado dos níveis de fidelidade dos usuários (nivel_usuario).
+ * Somente usuários acima do nível base: ids ordenados (long[]) e a ordem do nível em byte[],
+ * com busca binária por usuario_id; a pontuação consulta apenas a memória.
+ */
+public final class NiveisUsuarios {
+
+    public static final NiveisUsuarios VAZIO =
+            new NiveisUsuarios(0L, NiveisFidelidade.NENHUM, new long[0], new byte[0]);
+
+    public final long versao;
+    public final NiveisFidelidade definicao;
+
+    private final long[] usuarioIds;
+    private final byte[] ordens;
+
+    private NiveisUsuarios(long versao, NiveisFidelidade definicao, long[] usuarioIds, byte[] ordens) {
+        this.versao = versao;
+        this.definicao = definicao;
+        this.usuarioIds = usuarioIds;
+        this.ordens = ordens;
+    }
+
+    /** Nível do usuário, ou null (nível base ou usuário não informado). */
+    public NiveisFidelidade.Nivel nivel(Long usuarioId) {
+        if (usuarioId == null || usuarioIds.length == 0) return null;
+        int i = Arrays.binarySearch(usuarioIds, usuarioId);
+        return i >= 0 ? definicao.porOrdem(ordens[i]) : null;
+    }
+
+    /** Bônus de nível sobre os pontos base (0 no nível base). */
+    public long bonus(Long usuarioId, long pontosBase) {
+        NiveisFidelidade.Nivel n = nivel(usuarioId);
+        return n != null && pontosBase > 0 ? n.bonus(pontosBase) : 0L;
+    }
+
+    public int tamanho() {
+        return usuarioIds.length;
+    }
+
+    /** Monta o snapshot a partir das linhas (em qualquer ordem) de nivel_usuario. */
+    public static final class Construtor {
+        private final long versao;
+        private final NiveisFidelidade definicao;
+        private long[] ids = new long[1024];
+        private byte[] niveis = new byte[1024];
+        private int n;
+        private boolean ordenado = true;
+
+        public Construtor(long versao, NiveisFidelidade definicao) {
+            this.versao = versao;
+            this.definicao = definicao;
+        }
+
+        /** Nível que não existe mais na definição atual conta como base. */
+        public Construtor adicionar(long usuarioId, String nivel) {
+            NiveisFidelidade.Nivel d = definicao.porNome(nivel);
+            if (d == null) return this;
+            if (n == ids.length) {
+                ids = Arrays.copyOf(ids, n * 2);
+                niveis = Arrays.copyOf(niveis, n * 2);
+            }
+            if (n > 0 && ids[n - 1] >= usuarioId) ordenado = false;
+            ids[n] = usuarioId;
+            niveis[n] = (byte) d.ordem;
+            n++;
+            return this;
+        }
+
+        public NiveisUsuarios construir() {
+            long[] i = Arrays.copyOf(ids, n);
+            byte[] o = Arrays.copyOf(niveis, n);
+            if (!ordenado) {
+                Integer[] idx = new Integer[n];
+                for (int k = 0; k < n; k++) idx[k] = k;
+                Arrays.sort(idx, (a, b) -> Long.compare(ids[a], ids[b]));
+                for (int k = 0; k < n; k++) {
+                    i[k] = ids[idx[k]];
+                    o[k] = niveis[idx[k]];
+                }
+            }
+            return new NiveisUsuarios(versao, definicao, i, o);
+        }
+    }
+}
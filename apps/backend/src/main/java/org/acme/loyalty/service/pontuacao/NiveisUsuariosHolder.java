@@ -0,0 +1,91 @@
+package org.acme.loyalty.service.pontuacao;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.acme.loyalty.repository.NivelUsuarioRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mantém o {@link NiveisUsuarios} corrente usado na pontuação (bônus de nível).
+ * - Leitura sem lock (AtomicReference)
+ * - A avaliação de níveis (em qualquer nó, via {@link BarramentoInvalidacao}) marca o snapshot como obsoleto
+ * - A próxima leitura recarrega e troca o snapshot atomicamente (nova versão)
+ * - Sem níveis definidos ({@code loyalty.niveis.definicao} vazia), nada é carregado
+ */
+@ApplicationScoped
+public class NiveisUsuariosHolder {
+
+    private static final Logger LOG = Logger.getLogger(NiveisUsuariosHolder.class);
+
+    @Inject
+    NivelUsuarioRepository nivelUsuarioRepository;
+
+    @ConfigProperty(name = "loyalty.niveis.definicao")
+    Optional<String> definicaoConfig;
+
+    private final AtomicReference<NiveisUsuarios> atual = new AtomicReference<>();
+    private final AtomicLong versao = new AtomicLong();
+    private volatile boolean obsoleto = true;
+    private volatile NiveisFidelidade definicao;
+
+    /** Níveis definidos na configuração (validados na primeira leitura). */
+    public NiveisFidelidade definicao() {
+        NiveisFidelidade d = definicao;
+        if (d == null) {
+            d = NiveisFidelidade.interpretar(definicaoConfig.orElse(null));
+            definicao = d;
+        }
+        return d;
+    }
+
+    /** Snapshot corrente; recarrega se houve avaliação desde a última carga. */
+    public NiveisUsuarios atual() {
+        NiveisUsuarios n = atual.get();
+        if (n != null && !obsoleto) {
+            return n;
+        }
+        return recarregarSeObsoleto();
+    }
+
+    /** Marca o snapshot como obsoleto; a próxima leitura recarrega. */
+    public void invalidar() {
+        obsoleto = true;
+    }
+
+    /** Avaliação publicada por qualquer nó (inclusive este) ou ressincronização completa. */
+    void aoInvalidar(@Observes InvalidacaoCache evento) {
+        if (evento.afeta(InvalidacaoCache.NIVEL)) {
+            invalidar();
+        }
+    }
+
+    private synchronized NiveisUsuarios recarregarSeObsoleto() {
+        NiveisUsuarios n = atual.get();
+        if (n != null && !obsoleto) {
+            return n; // outra thread já recarregou
+        }
+        obsoleto = false;
+        try {
+            NiveisFidelidade d = definicao();
+            if (d.isVazia()) {
+                n = NiveisUsuarios.VAZIO;
+            } else {
+                NiveisUsuarios.Construtor construtor = new NiveisUsuarios.Construtor(versao.incrementAndGet(), d);
+                nivelUsuarioRepository.carregarAcimaDoBase(construtor);
+                n = construtor.construir();
+            }
+        } catch (RuntimeException e) {
+            obsoleto = true;
+            throw e;
+        }
+        atual.set(n);
+        LOG.debug("Níveis de usuários v" + n.versao + " carregados: " + n.tamanho() + " usuários acima do nível base");
+        return n;
+    }
+}
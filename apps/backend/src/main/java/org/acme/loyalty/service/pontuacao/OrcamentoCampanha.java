@@ -0,0 +1,163 @@
+package org.acme.loyalty.service.pontuacao;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Saldo local (neste nó) do teto de bônus de uma campanha.
+ * - O saldo fica dividido em faixas (células separadas por padding, como no LongAdder);
+ *   cada thread debita por CAS na sua faixa e só olha as demais se a sua não bastar
+ * - Quando nenhuma faixa cobre o bônus, uma única thread pede nova fatia ao banco ({@link FonteFatias})
+ *   e redistribui o saldo entre as faixas: a linha durável é tocada uma vez por fatia, não por transação
+ * - Nunca concede mais que o total recebido em fatias: o teto global não é ultrapassado
+ */
+public final class OrcamentoCampanha {
+
+    /** Entrega de fatias do teto global; retorna o concedido (0 = teto esgotado). */
+    @FunctionalInterface
+    public interface FonteFatias {
+        long reservarFatia(long campanhaId, long pontos);
+    }
+
+    /** Distância entre faixas no array (8 longs = 64 bytes): faixas vizinhas não dividem linha de cache. */
+    private static final int PADDING_SHIFT = 3;
+
+    public final long campanhaId;
+    public final long teto;
+
+    private final int mascara;
+    private final AtomicLongArray faixas;
+    /** Bônus concedido ainda não sincronizado com campanha_consumo.consumido. */
+    private final LongAdder consumido = new LongAdder();
+    /** O banco já entregou todo o teto: sem saldo local, não adianta pedir nova fatia. */
+    private volatile boolean esgotado;
+
+    public OrcamentoCampanha(long campanhaId, long teto, int quantidadeFaixas) {
+        int n = Integer.highestOneBit(Math.max(1, quantidadeFaixas));
+        if (n < quantidadeFaixas) n <<= 1;
+        this.campanhaId = campanhaId;
+        this.teto = teto;
+        this.mascara = n - 1;
+        this.faixas = new AtomicLongArray(n << PADDING_SHIFT);
+    }
+
+    /**
+     * Reserva o bônus inteiro ou nada.
+     *
+     * @param fatia quantidade pedida ao banco quando o saldo local acaba
+     * @return false se o teto não comporta o bônus (pontuar só com a regra base)
+     */
+    public boolean reservar(long pontos, FonteFatias fonte, long fatia) {
+        if (pontos <= 0) return true;
+        if (debitarDeAlgumaFaixa(pontos)) {
+            consumido.add(pontos);
+            return true;
+        }
+        if (esgotado && saldoLocal() < pontos) return false; // sobras espalhadas ainda podem ser juntadas
+        return recarregarEReservar(pontos, fonte, fatia);
+    }
+
+    /** Devolve um bônus reservado e não concedido (rollback da pontuação). */
+    public void liberar(long pontos) {
+        if (pontos <= 0) return;
+        faixas.getAndAdd(indice(indiceDaThread()), pontos);
+        consumido.add(-pontos);
+    }
+
+    /** Bônus concedido desde a última chamada (zera o contador). */
+    public long consumidoParaSincronizar() {
+        return consumido.sumThenReset();
+    }
+
+    /** Devolve o contador de {@link #consumidoParaSincronizar()} quando a sincronização falha. */
+    public void restaurarConsumido(long pontos) {
+        consumido.add(pontos);
+    }
+
+    /** Saldo local ainda não concedido (soma das faixas; aproximado sob concorrência). */
+    public long saldoLocal() {
+        long total = 0;
+        for (int f = 0; f <= mascara; f++) total += faixas.get(indice(f));
+        return total;
+    }
+
+    /** Retira todo o saldo local (para devolver ao banco ao descartar este orçamento). */
+    public synchronized long drenar() {
+        esgotado = true;
+        long total = 0;
+        for (int f = 0; f <= mascara; f++) total += faixas.getAndSet(indice(f), 0);
+        return total;
+    }
+
+    /** Indica se o bônus caberia agora, sem reservar (cotação). */
+    public boolean comporta(long pontos) {
+        return !esgotado || saldoLocal() >= pontos;
+    }
+
+    public boolean isEsgotado() {
+        return esgotado;
+    }
+
+    // ---- Internos ----
+
+    private boolean debitarDeAlgumaFaixa(long pontos) {
+        int inicio = indiceDaThread();
+        for (int k = 0; k <= mascara; k++) {
+            int i = indice((inicio + k) & mascara);
+            for (;;) {
+                long v = faixas.get(i);
+                if (v < pontos) break;
+                if (faixas.compareAndSet(i, v, v - pontos)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Caminho lento (uma thread por vez): junta as sobras das faixas, pede nova fatia se preciso
+     * e redistribui. Sobras pequenas espalhadas não impedem um bônus que caberia no total.
+     */
+    private synchronized boolean recarregarEReservar(long pontos, FonteFatias fonte, long fatia) {
+        if (debitarDeAlgumaFaixa(pontos)) { // outra thread pode ter recarregado enquanto esta esperava
+            consumido.add(pontos);
+            return true;
+        }
+        long disponivel = 0;
+        for (int f = 0; f <= mascara; f++) disponivel += faixas.getAndSet(indice(f), 0);
+
+        if (disponivel < pontos && !esgotado) {
+            long pedido = Math.max(fatia, pontos - disponivel);
+            long concedido = Math.max(0L, fonte.reservarFatia(campanhaId, pedido));
+            if (concedido < pedido) {
+                esgotado = true; // o banco entregou o que restava do teto
+            }
+            disponivel += concedido;
+        }
+
+        boolean reservado = disponivel >= pontos;
+        if (reservado) {
+            disponivel -= pontos;
+            consumido.add(pontos);
+        }
+        distribuir(disponivel);
+        return reservado;
+    }
+
+    private void distribuir(long total) {
+        int n = mascara + 1;
+        long parte = total / n;
+        long resto = total % n;
+        for (int f = 0; f < n; f++) {
+            faixas.getAndAdd(indice(f), parte + (f == 0 ? resto : 0));
+        }
+    }
+
+    private int indiceDaThread() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & mascara;
+    }
+
+    private static int indice(int faixa) {
+        return faixa << PADDING_SHIFT;
+    }
+}
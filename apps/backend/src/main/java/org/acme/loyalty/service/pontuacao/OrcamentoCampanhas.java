@@ -0,0 +1,266 @@
+package org.acme.loyalty.service.pontuacao;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aplicação do teto (orçamento de bônus) das campanhas na pontuação (regra 17.5).
+ * - O bônus (pontos_totais - pontos_base) é reservado no {@link OrcamentoCampanha} local, sem lock
+ * - Fatias do teto são retiradas de campanha_consumo.reservado em transação própria e curta,
+ *   apenas quando o saldo local acaba: não há linha disputada a cada transação pontuada
+ * - O consumo efetivo é somado em campanha_consumo.consumido periodicamente
+ * - Teto esgotado: a transação recebe apenas os pontos da regra base
+ * - Rollback da pontuação devolve o bônus reservado ao saldo local
+ * Sobras de fatias de um nó que cai sem desligamento limpo ficam reservadas (o teto é subutilizado, nunca excedido).
+ */
+@ApplicationScoped
+public class OrcamentoCampanhas {
+
+    private static final Logger LOG = Logger.getLogger(OrcamentoCampanhas.class);
+
+    private static final String SQL_GARANTIR_LINHA =
+            "INSERT INTO loyalty.campanha_consumo (campanha_id, reservado, consumido, atualizado_em) " +
+            "VALUES (?, 0, 0, CURRENT_TIMESTAMP) ON CONFLICT (campanha_id) DO NOTHING";
+
+    private static final String SQL_RESERVAR_FATIA =
+            "WITH alvo AS (" +
+            "    SELECT c.campanha_id, LEAST(?, GREATEST(b.teto - c.reservado, 0)) AS concedido " +
+            "    FROM loyalty.campanha_consumo c JOIN loyalty.campanha_bonus b ON b.id = c.campanha_id " +
+            "    WHERE c.campanha_id = ? AND b.teto IS NOT NULL " +
+            "    FOR UPDATE OF c) " +
+            "UPDATE loyalty.campanha_consumo c SET reservado = c.reservado + alvo.concedido, atualizado_em = CURRENT_TIMESTAMP " +
+            "FROM alvo WHERE c.campanha_id = alvo.campanha_id " +
+            "RETURNING alvo.concedido";
+
+    private static final String SQL_SINCRONIZAR =
+            "UPDATE loyalty.campanha_consumo SET consumido = consumido + ?, atualizado_em = CURRENT_TIMESTAMP " +
+            "WHERE campanha_id = ?";
+
+    private static final String SQL_DEVOLVER =
+            "UPDATE loyalty.campanha_consumo SET reservado = GREATEST(reservado - ?, 0), consumido = consumido + ?, " +
+            "       atualizado_em = CURRENT_TIMESTAMP " +
+            "WHERE campanha_id = ?";
+
+    /** Chave das reservas da transação corrente no TransactionSynchronizationRegistry. */
+    private static final Object CHAVE_RESERVAS = new Object();
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    @ConfigProperty(name = "loyalty.campanha-orcamento.fatia-maxima", defaultValue = "10000")
+    long fatiaMaxima;
+
+    /** Faixas por campanha; 0 = número de processadores. */
+    @ConfigProperty(name = "loyalty.campanha-orcamento.faixas", defaultValue = "0")
+    int faixas;
+
+    private final Map<Long, OrcamentoCampanha> orcamentos = new ConcurrentHashMap<>();
+
+    /**
+     * Pontos totais da transação com a campanha: com bônus se o teto comportar, senão só a base.
+     * Dentro de uma transação JTA, a reserva é desfeita se ela não fizer commit.
+     */
+    public long aplicarBonus(CampanhaCompilada campanha, long pontosBase) {
+        long pontosTotais = campanha.calcularPontosComBonus(pontosBase);
+        long bonus = pontosTotais - pontosBase;
+        if (campanha.teto == null || bonus <= 0) {
+            return pontosTotais;
+        }
+        OrcamentoCampanha orcamento = orcamento(campanha);
+        if (!orcamento.reservar(bonus, this::reservarFatia, fatia(campanha.teto))) {
+            LOG.debugf("Teto da campanha %d esgotado; bônus de %d pontos não concedido", campanha.id, bonus);
+            return pontosBase;
+        }
+        registrarParaRollback(orcamento, bonus);
+        return pontosTotais;
+    }
+
+    /**
+     * Devolve ao saldo local um bônus reservado por {@link #aplicarBonus} que não chegou a ser concedido
+     * (ex.: movimento de acúmulo já existente). A reserva sai também do desfazimento por rollback da transação.
+     */
+    @SuppressWarnings("unchecked")
+    public void devolverBonus(CampanhaCompilada campanha, long bonus) {
+        if (campanha.teto == null || bonus <= 0) return;
+        OrcamentoCampanha orcamento = orcamentos.get(campanha.id);
+        if (orcamento == null || orcamento.teto != campanha.teto) {
+            return; // orçamento descartado: a sobra dele já voltou ao teto global
+        }
+        orcamento.liberar(bonus);
+        if (transactionSynchronizationRegistry.getTransactionKey() == null) {
+            return;
+        }
+        Map<OrcamentoCampanha, long[]> reservas =
+                (Map<OrcamentoCampanha, long[]>) transactionSynchronizationRegistry.getResource(CHAVE_RESERVAS);
+        long[] reservado = reservas != null ? reservas.get(orcamento) : null;
+        if (reservado != null) {
+            reservado[0] -= Math.min(bonus, reservado[0]);
+        }
+    }
+
+    /** Saldo de bônus da campanha ainda disponível neste nó (0 se nenhuma fatia foi retirada aqui). */
+    public long saldoLocal(long campanhaId) {
+        OrcamentoCampanha orcamento = orcamentos.get(campanhaId);
+        return orcamento != null ? orcamento.saldoLocal() : 0L;
+    }
+
+    /** Indica, sem reservar, se o bônus da campanha caberia agora (cotação). */
+    public boolean comporta(CampanhaCompilada campanha, long pontosBase) {
+        if (campanha.teto == null) return true;
+        OrcamentoCampanha orcamento = orcamentos.get(campanha.id);
+        long bonus = campanha.calcularPontosComBonus(pontosBase) - pontosBase;
+        return orcamento == null || orcamento.teto != campanha.teto || orcamento.comporta(bonus);
+    }
+
+    // ---- Sincronização com campanha_consumo ----
+
+    @Scheduled(identity = "campanha-orcamento",
+               every = "${loyalty.campanha-orcamento.sincronizacao:10s}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void sincronizar() {
+        if (orcamentos.isEmpty()) return;
+        Map<OrcamentoCampanha, Long> deltas = new HashMap<>();
+        for (OrcamentoCampanha o : orcamentos.values()) {
+            long delta = o.consumidoParaSincronizar();
+            if (delta != 0) deltas.put(o, delta);
+        }
+        if (deltas.isEmpty()) return;
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_SINCRONIZAR)) {
+            for (Map.Entry<OrcamentoCampanha, Long> e : deltas.entrySet()) {
+                ps.setLong(1, e.getValue());
+                ps.setLong(2, e.getKey().campanhaId);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } catch (SQLException e) {
+            deltas.forEach(OrcamentoCampanha::restaurarConsumido); // tenta de novo no próximo ciclo
+            LOG.warn("Falha ao sincronizar consumo de campanhas: " + e.getMessage());
+        }
+    }
+
+    /** Desligamento: grava o consumo pendente e devolve as sobras locais para outros nós usarem. */
+    void aoDesligar(@Observes ShutdownEvent evento) {
+        sincronizar();
+        for (OrcamentoCampanha o : orcamentos.values()) {
+            devolver(o);
+        }
+    }
+
+    // ---- Internos ----
+
+    /** Orçamento local da campanha; teto alterado descarta o anterior (e devolve a sobra dele). */
+    private OrcamentoCampanha orcamento(CampanhaCompilada campanha) {
+        OrcamentoCampanha o = orcamentos.get(campanha.id);
+        if (o != null && o.teto == campanha.teto) {
+            return o;
+        }
+        OrcamentoCampanha novo = new OrcamentoCampanha(campanha.id, campanha.teto,
+                faixas > 0 ? faixas : Runtime.getRuntime().availableProcessors());
+        if (o == null) {
+            return orcamentos.putIfAbsent(campanha.id, novo) == null ? novo : orcamento(campanha);
+        }
+        if (orcamentos.replace(campanha.id, o, novo)) {
+            devolver(o);
+            return novo;
+        }
+        return orcamento(campanha); // outra thread trocou primeiro
+    }
+
+    /** Fatia pedida ao banco: 2% do teto, entre 1 e fatia-maxima (poucas idas ao banco, pouca sobra parada). */
+    private long fatia(long teto) {
+        return Math.max(1L, Math.min(fatiaMaxima, teto / 50));
+    }
+
+    /**
+     * Retira até {@code pontos} do teto global em transação própria (a da pontuação fica suspensa):
+     * o lock da linha dura só este UPDATE e a fatia não volta em caso de rollback da pontuação.
+     */
+    private long reservarFatia(long campanhaId, long pontos) {
+        try {
+            return QuarkusTransaction.requiringNew().call(() -> executarReservaFatia(campanhaId, pontos));
+        } catch (RuntimeException e) {
+            // Sem acesso ao teto global não há como garantir o limite: pontua só com a base
+            LOG.warn("Falha ao reservar fatia do teto da campanha " + campanhaId + ": " + e.getMessage());
+            return 0L;
+        }
+    }
+
+    private long executarReservaFatia(long campanhaId, long pontos) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(SQL_GARANTIR_LINHA)) {
+                ps.setLong(1, campanhaId);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement(SQL_RESERVAR_FATIA)) {
+                ps.setLong(1, pontos);
+                ps.setLong(2, campanhaId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    long concedido = rs.next() ? rs.getLong(1) : 0L;
+                    LOG.debugf("Campanha %d: fatia de %d pontos pedida, %d concedida", campanhaId, pontos, concedido);
+                    return concedido;
+                }
+            }
+        }
+    }
+
+    /** Devolve a sobra local ao teto global e grava o consumo ainda não sincronizado do orçamento descartado. */
+    private void devolver(OrcamentoCampanha o) {
+        long sobra = o.drenar();
+        long consumidoPendente = o.consumidoParaSincronizar();
+        if (sobra <= 0 && consumidoPendente == 0) return;
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                try (Connection conn = dataSource.getConnection();
+                     PreparedStatement ps = conn.prepareStatement(SQL_DEVOLVER)) {
+                    ps.setLong(1, Math.max(0L, sobra));
+                    ps.setLong(2, consumidoPendente);
+                    ps.setLong(3, o.campanhaId);
+                    ps.executeUpdate();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            });
+        } catch (RuntimeException e) {
+            LOG.warn("Falha ao devolver sobra do teto da campanha " + o.campanhaId + ": " + e.getMessage());
+        }
+    }
+
+    /** Agrupa as reservas da transação corrente; uma única sincronização JTA por transação. */
+    @SuppressWarnings("unchecked")
+    private void registrarParaRollback(OrcamentoCampanha orcamento, long bonus) {
+        if (transactionSynchronizationRegistry.getTransactionKey() == null) {
+            return;
+        }
+        Map<OrcamentoCampanha, long[]> reservas =
+                (Map<OrcamentoCampanha, long[]>) transactionSynchronizationRegistry.getResource(CHAVE_RESERVAS);
+        if (reservas == null) {
+            Map<OrcamentoCampanha, long[]> novas = new HashMap<>();
+            transactionSynchronizationRegistry.putResource(CHAVE_RESERVAS, novas);
+            AposCommit.desfazerSeRollback(transactionSynchronizationRegistry,
+                    () -> novas.forEach((o, pontos) -> o.liberar(pontos[0])));
+            reservas = novas;
+        }
+        reservas.computeIfAbsent(orcamento, k -> new long[1])[0] += bonus;
+    }
+}
@@ -0,0 +1,289 @@
+package org.acme.loyalty.service.pontuacao;
+
+import java.math.BigDecimal;
+
+/**
+ * Contagem deslizante (quantidade e valor) de transações recebidas por cartão em janelas fixas (ex.: 1 min, 1 h, 24 h).
+ * - Cada janela de cada cartão é um anel de baldes de tempo (ex.: 1 h = 12 baldes de 5 min); o balde guarda
+ *   quantidade (16 bits) e centavos (48 bits) num único long. Rolar o anel zera só os baldes vencidos
+ * - Tabela associativa por conjuntos de {@link #VIAS} posições com capacidade fixa: memória limitada
+ *   (8 * (2 + janelas + total de baldes) bytes por cartão) independentemente da quantidade de cartões; cartão novo num
+ *   conjunto cheio substitui o de uso mais antigo (o cartão substituído recomeça do zero)
+ * - Arrays primitivos pré-alocados e um lock por faixa de conjuntos: nenhuma alocação por registro
+ * - A janela efetiva fica entre (duração - 1 balde) e a duração configurada
+ */
+public final class RastreadorVelocidade {
+
+    /** Posições por conjunto (um cartão só pode ocupar as posições do seu conjunto). */
+    public static final int VIAS = 8;
+
+    private static final int BITS_CENTAVOS = 48;
+    private static final long MAX_CENTAVOS = (1L << BITS_CENTAVOS) - 1;
+    private static final long MAX_QUANTIDADE = 0xFFFFL;
+
+    /** Janela deslizante e seus limites (0 = sem limite). */
+    public static final class Janela {
+        public final String nome;
+        public final long duracaoMs;
+        public final int baldes;
+        public final long maxTransacoes;
+        public final long maxCentavos;
+        final long baldeMs;
+
+        public Janela(String nome, long duracaoMs, int baldes, long maxTransacoes, long maxCentavos) {
+            if (duracaoMs <= 0 || baldes <= 0 || duracaoMs % baldes != 0) {
+                throw new IllegalArgumentException("Janela " + nome + ": duração deve ser positiva e múltipla da quantidade de baldes");
+            }
+            if (maxTransacoes < 0 || maxCentavos < 0) {
+                throw new IllegalArgumentException("Janela " + nome + ": limites não podem ser negativos");
+            }
+            this.nome = nome;
+            this.duracaoMs = duracaoMs;
+            this.baldes = baldes;
+            this.maxTransacoes = maxTransacoes;
+            this.maxCentavos = maxCentavos;
+            this.baldeMs = duracaoMs / baldes;
+        }
+    }
+
+    private final Janela[] janelas;
+    /** Deslocamento do anel de cada janela dentro da linha de baldes do cartão. */
+    private final int[] deslocamentos;
+    private final int baldesPorCartao;
+    private final long maiorDuracaoMs;
+    private final int mascaraConjuntos;
+    private final Object[] travas;
+    private final int mascaraTravas;
+
+    /** cartao_id por posição (0 = livre). */
+    private final long[] cartoes;
+    /** Último registro (ms) por posição: substituição do mais antigo. */
+    private final long[] ultimoUso;
+    /** Época (instante / balde) do balde mais recente de cada janela, por posição. */
+    private final long[] epocas;
+    /** Baldes empacotados (quantidade << 48 | centavos), por posição. */
+    private final long[] baldes;
+
+    /**
+     * @param capacidade cartões rastreados simultaneamente (arredondada para potência de 2, mínimo {@link #VIAS})
+     * @param travas quantidade de locks (arredondada para potência de 2)
+     */
+    public RastreadorVelocidade(int capacidade, int travas, Janela... janelas) {
+        if (janelas.length == 0 || janelas.length > 16) {
+            throw new IllegalArgumentException("Informe de 1 a 16 janelas");
+        }
+        int posicoes = potenciaDe2(Math.max(VIAS, capacidade));
+        this.janelas = janelas.clone();
+        this.deslocamentos = new int[janelas.length];
+        int total = 0;
+        long maior = 0;
+        for (int j = 0; j < janelas.length; j++) {
+            deslocamentos[j] = total;
+            total += janelas[j].baldes;
+            maior = Math.max(maior, janelas[j].duracaoMs);
+        }
+        this.baldesPorCartao = total;
+        this.maiorDuracaoMs = maior;
+        this.mascaraConjuntos = posicoes / VIAS - 1;
+
+        int n = potenciaDe2(Math.max(1, travas));
+        this.travas = new Object[n];
+        for (int i = 0; i < n; i++) this.travas[i] = new Object();
+        this.mascaraTravas = n - 1;
+
+        this.cartoes = new long[posicoes];
+        this.ultimoUso = new long[posicoes];
+        this.epocas = new long[Math.multiplyExact(posicoes, janelas.length)];
+        this.baldes = new long[Math.multiplyExact(posicoes, total)];
+    }
+
+    /**
+     * Registra uma transação do cartão e verifica os limites de todas as janelas (o registro conta mesmo se exceder).
+     *
+     * @return 0 se dentro dos limites; senão, bit {@code 2*j} = quantidade e bit {@code 2*j+1} = valor excedidos na janela j
+     */
+    public int registrar(long cartaoId, long centavos, long agoraMs) {
+        long valor = Math.max(0L, centavos);
+        int conjunto = (int) (misturar(cartaoId) & mascaraConjuntos);
+        synchronized (travas[conjunto & mascaraTravas]) {
+            int p = localizar(conjunto, cartaoId, agoraMs);
+            ultimoUso[p] = agoraMs;
+            int violacoes = 0;
+            for (int j = 0; j < janelas.length; j++) {
+                Janela janela = janelas[j];
+                int base = p * baldesPorCartao + deslocamentos[j];
+                long epoca = rolar(p, j, base, agoraMs / janela.baldeMs);
+
+                int atual = base + (int) (epoca % janela.baldes);
+                baldes[atual] = somar(baldes[atual], 1L, valor);
+
+                long quantidade = 0L;
+                long soma = 0L;
+                for (int b = base, fim = base + janela.baldes; b < fim; b++) {
+                    long balde = baldes[b];
+                    quantidade += balde >>> BITS_CENTAVOS;
+                    soma += balde & MAX_CENTAVOS;
+                }
+                if (janela.maxTransacoes > 0 && quantidade > janela.maxTransacoes) violacoes |= 1 << (2 * j);
+                if (janela.maxCentavos > 0 && soma > janela.maxCentavos) violacoes |= 1 << (2 * j + 1);
+            }
+            return violacoes;
+        }
+    }
+
+    /**
+     * Desfaz um {@link #registrar} (ex.: a transação que o originou não fez commit): retira a quantidade e o valor
+     * do balde em que o registro caiu, em cada janela em que ele ainda não venceu. Cartão substituído ou registro
+     * já fora de todas as janelas: nada a desfazer.
+     */
+    public void desfazer(long cartaoId, long centavos, long registradoMs) {
+        long valor = Math.max(0L, centavos);
+        int conjunto = (int) (misturar(cartaoId) & mascaraConjuntos);
+        synchronized (travas[conjunto & mascaraTravas]) {
+            for (int p = conjunto * VIAS; p < (conjunto + 1) * VIAS; p++) {
+                if (cartoes[p] != cartaoId) continue;
+                for (int j = 0; j < janelas.length; j++) {
+                    Janela janela = janelas[j];
+                    long epoca = registradoMs / janela.baldeMs;
+                    long ultima = epocas[p * janelas.length + j];
+                    if (epoca > ultima || ultima - epoca >= janela.baldes) continue;
+                    int b = p * baldesPorCartao + deslocamentos[j] + (int) (epoca % janela.baldes);
+                    baldes[b] = subtrair(baldes[b], 1L, valor);
+                }
+                return;
+            }
+        }
+    }
+
+    /** Quantidade de transações do cartão na janela j (0 se não rastreado). */
+    public long quantidade(long cartaoId, int j, long agoraMs) {
+        return somarJanela(cartaoId, j, agoraMs, true);
+    }
+
+    /** Valor (centavos) das transações do cartão na janela j (0 se não rastreado). */
+    public long centavos(long cartaoId, int j, long agoraMs) {
+        return somarJanela(cartaoId, j, agoraMs, false);
+    }
+
+    /** Cartões com registro dentro da maior janela (varredura completa: uso administrativo). */
+    public int cartoesAtivos(long agoraMs) {
+        int n = 0;
+        for (int p = 0; p < cartoes.length; p++) {
+            if (cartoes[p] != 0 && agoraMs - ultimoUso[p] < maiorDuracaoMs) n++;
+        }
+        return n;
+    }
+
+    public int capacidade() {
+        return cartoes.length;
+    }
+
+    public Janela janela(int j) {
+        return janelas[j];
+    }
+
+    public int quantidadeJanelas() {
+        return janelas.length;
+    }
+
+    /** Texto das violações retornadas por {@link #registrar} (ex.: "1m: mais de 30 transações"). */
+    public String descrever(int violacoes) {
+        StringBuilder sb = new StringBuilder();
+        for (int j = 0; j < janelas.length; j++) {
+            if ((violacoes & (1 << (2 * j))) != 0) {
+                if (sb.length() > 0) sb.append("; ");
+                sb.append(janelas[j].nome).append(": mais de ").append(janelas[j].maxTransacoes).append(" transações");
+            }
+            if ((violacoes & (1 << (2 * j + 1))) != 0) {
+                if (sb.length() > 0) sb.append("; ");
+                sb.append(janelas[j].nome).append(": valor acima de ")
+                        .append(BigDecimal.valueOf(janelas[j].maxCentavos, 2).toPlainString());
+            }
+        }
+        return sb.toString();
+    }
+
+    // ---- Internos (chamados com a trava do conjunto) ----
+
+    /** Posição do cartão no conjunto; ocupa uma livre/vencida ou substitui a de uso mais antigo. */
+    private int localizar(int conjunto, long cartaoId, long agoraMs) {
+        int inicio = conjunto * VIAS;
+        int candidata = inicio;
+        for (int p = inicio; p < inicio + VIAS; p++) {
+            if (cartoes[p] == cartaoId) return p;
+            if (ultimoUso[p] < ultimoUso[candidata]) candidata = p;
+            if (cartoes[p] == 0) {
+                candidata = p;
+                break;
+            }
+        }
+        // livre ou substituída: recomeça do zero
+        cartoes[candidata] = cartaoId;
+        int base = candidata * baldesPorCartao;
+        for (int b = base; b < base + baldesPorCartao; b++) baldes[b] = 0L;
+        for (int j = 0; j < janelas.length; j++) epocas[candidata * janelas.length + j] = agoraMs / janelas[j].baldeMs;
+        return candidata;
+    }
+
+    /** Avança o anel da janela até {@code epoca}, zerando os baldes que saíram; retorna a época corrente. */
+    private long rolar(int p, int j, int base, long epoca) {
+        int e = p * janelas.length + j;
+        long ultima = epocas[e];
+        if (epoca <= ultima) {
+            return ultima; // mesmo balde (ou relógio voltou: conta no balde mais recente)
+        }
+        int n = janelas[j].baldes;
+        long vencidos = Math.min(epoca - ultima, n);
+        for (long k = 1; k <= vencidos; k++) {
+            baldes[base + (int) ((ultima + k) % n)] = 0L;
+        }
+        epocas[e] = epoca;
+        return epoca;
+    }
+
+    private long somarJanela(long cartaoId, int j, long agoraMs, boolean quantidade) {
+        int conjunto = (int) (misturar(cartaoId) & mascaraConjuntos);
+        synchronized (travas[conjunto & mascaraTravas]) {
+            for (int p = conjunto * VIAS; p < (conjunto + 1) * VIAS; p++) {
+                if (cartoes[p] != cartaoId) continue;
+                Janela janela = janelas[j];
+                int base = p * baldesPorCartao + deslocamentos[j];
+                rolar(p, j, base, agoraMs / janela.baldeMs);
+                long soma = 0L;
+                for (int b = 0; b < janela.baldes; b++) {
+                    long balde = baldes[base + b];
+                    soma += quantidade ? balde >>> BITS_CENTAVOS : balde & MAX_CENTAVOS;
+                }
+                return soma;
+            }
+            return 0L;
+        }
+    }
+
+    /** Soma saturada (quantidade em 16 bits, centavos em 48 bits). */
+    private static long somar(long balde, long quantidade, long centavos) {
+        long q = Math.min(MAX_QUANTIDADE, (balde >>> BITS_CENTAVOS) + quantidade);
+        long c = (balde & MAX_CENTAVOS) + centavos;
+        if (c > MAX_CENTAVOS || c < 0) c = MAX_CENTAVOS;
+        return (q << BITS_CENTAVOS) | c;
+    }
+
+    /** Subtração com piso em zero (inverso de {@link #somar}). */
+    private static long subtrair(long balde, long quantidade, long centavos) {
+        long q = Math.max(0L, (balde >>> BITS_CENTAVOS) - quantidade);
+        long c = Math.max(0L, (balde & MAX_CENTAVOS) - centavos);
+        return (q << BITS_CENTAVOS) | c;
+    }
+
+    private static long misturar(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        return x;
+    }
+
+    private static int potenciaDe2(int n) {
+        int p = Integer.highestOneBit(n);
+        return p < n ? p << 1 : p;
+    }
+}
@@ -0,0 +1,166 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.acme.loyalty.entity.RegraConversao;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+
+/**
+ * Cópia imutável de uma {@link RegraConversao} ativa, usada pelo snapshot em memória.
+ * Não é entidade gerenciada: pode ser compartilhada entre threads sem sessão Hibernate.
+ */
+public final class RegraCompilada {
+
+    public final Long id;
+    public final String nome;
+    public final BigDecimal multiplicador;
+    public final String mccRegex;
+    public final String categoria;
+    public final Long parceiroId;
+    public final LocalDateTime vigenciaIni;
+    public final LocalDateTime vigenciaFim;
+    public final int prioridade;
+    public final Long tetoMensal;
+    public final int especificidade;
+    /** Regex persistida que não compila (legado); a regra nunca casa com MCC algum. */
+    public final boolean mccRegexInvalido;
+    public final String expressao;
+    /** Expressão persistida que não compila (legado); a regra nunca se aplica. */
+    public final boolean expressaoInvalida;
+
+    /** MCCs aceitos pela mcc_regex, expandidos via {@link MccTabela}; null = qualquer MCC. */
+    private final BitSet mccs;
+
+    /** Expressão compilada ({@link ExpressaoRegra}); null = sem condição extra. */
+    private final ExpressaoRegra.Condicao condicao;
+
+    /** multiplicador * 10.000 ({@link CalculoPontosFixo}); NAO_REPRESENTAVEL usa BigDecimal. */
+    private final long multiplicadorEscalado;
+
+    RegraCompilada(RegraConversao r) {
+        this.id = r.id;
+        this.nome = r.nome;
+        this.multiplicador = r.multiplicador;
+        this.mccRegex = vazioParaNull(r.mccRegex);
+        this.categoria = vazioParaNull(r.categoria);
+        this.parceiroId = r.parceiroId;
+        this.vigenciaIni = r.vigenciaIni;
+        this.vigenciaFim = r.vigenciaFim;
+        this.prioridade = r.prioridade != null ? r.prioridade : 0;
+        this.tetoMensal = r.tetoMensal;
+        this.multiplicadorEscalado = CalculoPontosFixo.multiplicadorEscalado(r.multiplicador);
+
+        // Especificidade conforme regra 17.4: parceiro_id (4) > categoria (3) > mcc_regex (2) > geral (1)
+        if (parceiroId != null) this.especificidade = 4;
+        else if (categoria != null) this.especificidade = 3;
+        else if (mccRegex != null) this.especificidade = 2;
+        else this.especificidade = 1;
+
+        BitSet bits = null;
+        boolean invalido = false;
+        if (mccRegex != null) {
+            try {
+                bits = MccTabela.expandir(mccRegex);
+            } catch (IllegalArgumentException e) {
+                bits = new BitSet(0);
+                invalido = true; // mesmo comportamento de RegraConversao.aplicaParaMcc
+            }
+        }
+        this.mccs = bits;
+        this.mccRegexInvalido = invalido;
+
+        this.expressao = vazioParaNull(r.expressao);
+        ExpressaoRegra.Condicao c;
+        boolean expressaoInvalida = false;
+        try {
+            c = ExpressaoRegra.compilar(expressao);
+        } catch (IllegalArgumentException e) {
+            c = (centavos, mcc, cat, parceiro, data) -> false;
+            expressaoInvalida = true;
+        }
+        this.condicao = c;
+        this.expressaoInvalida = expressaoInvalida;
+    }
+
+    // ---- Escopo conforme regra 17.4 ----
+
+    public boolean estaVigenteEm(LocalDateTime data) {
+        if (vigenciaIni == null || data == null) return false;
+        return !data.isBefore(vigenciaIni) && (vigenciaFim == null || !data.isAfter(vigenciaFim));
+    }
+
+    public boolean aplicaParaMcc(String mcc) {
+        if (mccs == null) return true;
+        int idx = MccTabela.indice(mcc);
+        return idx >= 0 && mccs.get(idx);
+    }
+
+    /** Teste pelo índice direto (0..9999) do MCC. */
+    boolean aplicaParaMcc(int indiceMcc) {
+        return mccs == null || mccs.get(indiceMcc);
+    }
+
+    /** Regra restrita por mcc_regex? (false = vale para qualquer MCC, inclusive transação sem MCC) */
+    public boolean restritaPorMcc() {
+        return mccs != null;
+    }
+
+    public boolean aplicaParaCategoria(String categoriaTransacao) {
+        if (categoria == null) return true;
+        return categoria.equalsIgnoreCase(categoriaTransacao);
+    }
+
+    public boolean aplicaParaParceiro(Long parceiroIdTransacao) {
+        if (parceiroId == null) return true;
+        return parceiroId.equals(parceiroIdTransacao);
+    }
+
+    public boolean aplicaPara(BigDecimal valor, String mcc, String categoriaTransacao, Long parceiroIdTransacao, LocalDateTime data) {
+        return aplicaParaMcc(mcc)
+                && aplicaSemMcc(RegrasSnapshot.centavosParaExpressao(valor), MccTabela.indice(mcc),
+                        categoriaTransacao, parceiroIdTransacao, data);
+    }
+
+    /** Regra com expressão (condição além dos campos fixos)? */
+    public boolean temExpressao() {
+        return condicao != null;
+    }
+
+    /**
+     * Vigência, parceiro, categoria e expressão; o MCC já foi resolvido pela tabela direta do snapshot.
+     * A expressão é avaliada por último: só roda quando os campos fixos já casaram.
+     */
+    boolean aplicaSemMcc(long centavos, int indiceMcc, String categoriaTransacao, Long parceiroIdTransacao, LocalDateTime data) {
+        return estaVigenteEm(data)
+                && aplicaParaParceiro(parceiroIdTransacao)
+                && aplicaParaCategoria(categoriaTransacao)
+                && (condicao == null || condicao.testar(centavos, indiceMcc, categoriaTransacao, parceiroIdTransacao, data));
+    }
+
+    // ---- Cálculo ----
+
+    /** pontos_base = floor(valor * multiplicador), idêntico a {@link RegraConversao#calcularPontos}. */
+    public Long calcularPontos(BigDecimal valor) {
+        if (valor == null || multiplicador == null) {
+            return 0L;
+        }
+        if (multiplicadorEscalado != CalculoPontosFixo.NAO_REPRESENTAVEL) {
+            long centavos = CalculoPontosFixo.centavos(valor);
+            if (centavos != CalculoPontosFixo.NAO_REPRESENTAVEL) {
+                return CalculoPontosFixo.pontosBase(centavos, multiplicadorEscalado);
+            }
+        }
+        return valor.multiply(multiplicador).longValue();
+    }
+
+    public boolean temTetoMensal() {
+        return tetoMensal != null && tetoMensal > 0;
+    }
+
+    private static String vazioParaNull(String s) {
+        if (s == null) return null;
+        String t = s.trim();
+        return t.isEmpty() ? null : t;
+    }
+}
@@ -0,0 +1,133 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.acme.loyalty.entity.RegraConversao;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot imutável e versionado das regras de conversão ativas.
+ * As regras ficam pré-ordenadas conforme regra 17.4 (prioridade DESC, especificidade DESC, id ASC),
+ * então a seleção é a primeira regra candidata que cobre a transação.
+ * Candidatas por MCC vêm de uma tabela de endereçamento direto (10.000 posições, ver {@link MccTabela}):
+ * cada posição guarda os índices das regras que aceitam aquele MCC, já na ordem de prioridade.
+ * Regras com expressão ({@link ExpressaoRegra}) são avaliadas na mesma passada, depois dos campos fixos.
+ */
+public final class RegrasSnapshot {
+
+    static final Comparator<RegraCompilada> ORDEM_PRIORIDADE = Comparator
+            .comparingInt((RegraCompilada r) -> r.prioridade).reversed()
+            .thenComparing(Comparator.comparingInt((RegraCompilada r) -> r.especificidade).reversed())
+            .thenComparing(r -> r.id, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    public final long versao;
+    public final LocalDateTime carregadoEm;
+
+    private final RegraCompilada[] regras;
+    /** Índices (em {@link #regras}) das candidatas por MCC; posições iguais compartilham o mesmo array. */
+    private final int[][] candidatasPorMcc;
+    /** Candidatas para transação sem MCC válido: apenas regras sem mcc_regex. */
+    private final int[] candidatasSemMcc;
+    /** Alguma regra tem expressão? Se não, o valor nem é convertido para centavos. */
+    private final boolean temExpressoes;
+
+    private RegrasSnapshot(long versao, RegraCompilada[] regras) {
+        this.versao = versao;
+        this.carregadoEm = LocalDateTime.now();
+        this.regras = regras;
+
+        boolean expressoes = false;
+        for (RegraCompilada r : regras) {
+            if (r.temExpressao()) expressoes = true;
+        }
+        this.temExpressoes = expressoes;
+
+        int qtdSemMcc = 0;
+        for (RegraCompilada r : regras) {
+            if (!r.restritaPorMcc()) qtdSemMcc++;
+        }
+        this.candidatasSemMcc = new int[qtdSemMcc];
+        for (int i = 0, j = 0; i < regras.length; i++) {
+            if (!regras[i].restritaPorMcc()) candidatasSemMcc[j++] = i;
+        }
+
+        this.candidatasPorMcc = new int[MccTabela.TOTAL_MCC][];
+        Map<List<Integer>, int[]> canonicos = new HashMap<>();
+        List<Integer> buffer = new ArrayList<>(regras.length);
+        for (int mcc = 0; mcc < MccTabela.TOTAL_MCC; mcc++) {
+            buffer.clear();
+            for (int i = 0; i < regras.length; i++) {
+                RegraCompilada r = regras[i];
+                if (!r.restritaPorMcc() || r.aplicaParaMcc(mcc)) buffer.add(i);
+            }
+            int[] arr = canonicos.get(buffer);
+            if (arr == null) {
+                arr = buffer.stream().mapToInt(Integer::intValue).toArray();
+                canonicos.put(new ArrayList<>(buffer), arr);
+            }
+            candidatasPorMcc[mcc] = arr;
+        }
+    }
+
+    /** Compila as regras informadas (apenas as ativas entram no snapshot). */
+    public static RegrasSnapshot compilar(long versao, List<RegraConversao> fonte) {
+        List<RegraCompilada> compiladas = new ArrayList<>(fonte.size());
+        for (RegraConversao r : fonte) {
+            if (Boolean.TRUE.equals(r.ativo)) {
+                compiladas.add(new RegraCompilada(r));
+            }
+        }
+        compiladas.sort(ORDEM_PRIORIDADE);
+        return new RegrasSnapshot(versao, compiladas.toArray(new RegraCompilada[0]));
+    }
+
+    /**
+     * Seleciona a regra mais prioritária conforme regra 17.4:
+     * - Vigência na data do evento
+     * - Escopo por mcc_regex / categoria / parceiro_id / expressao
+     * - Maior prioridade primeiro; empate → a mais específica
+     *
+     * @return a regra aplicável ou {@code null} se nenhuma cobrir a transação
+     */
+    public RegraCompilada selecionarRegraMaisPrioritaria(BigDecimal valor, String mcc, String categoria, Long parceiroId, LocalDateTime data) {
+        int idx = MccTabela.indice(mcc);
+        int[] candidatas = idx < 0 ? candidatasSemMcc : candidatasPorMcc[idx];
+        long centavos = temExpressoes ? centavosParaExpressao(valor) : CalculoPontosFixo.NAO_REPRESENTAVEL;
+        for (int i : candidatas) {
+            RegraCompilada r = regras[i];
+            if (r.aplicaSemMcc(centavos, idx, categoria, parceiroId, data)) {
+                return r;
+            }
+        }
+        return null;
+    }
+
+    /** Valor em centavos para as expressões; valores com mais de 2 casas (só na cotação) são arredondados para baixo. */
+    static long centavosParaExpressao(BigDecimal valor) {
+        if (valor == null) return CalculoPontosFixo.NAO_REPRESENTAVEL;
+        long c = CalculoPontosFixo.centavos(valor);
+        return c != CalculoPontosFixo.NAO_REPRESENTAVEL ? c : CalculoPontosFixo.centavos(valor.setScale(2, RoundingMode.FLOOR));
+    }
+
+    /** Regras candidatas (já ordenadas por prioridade) para o MCC informado. */
+    public int quantidadeCandidatas(String mcc) {
+        int idx = MccTabela.indice(mcc);
+        return idx < 0 ? candidatasSemMcc.length : candidatasPorMcc[idx].length;
+    }
+
+    public int tamanho() {
+        return regras.length;
+    }
+
+    public List<RegraCompilada> regras() {
+        return Collections.unmodifiableList(Arrays.asList(regras));
+    }
+}
@@ -0,0 +1,94 @@
+package org.acme.loyalty.service.pontuacao;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.acme.loyalty.repository.RegraConversaoRepository;
+import org.jboss.logging.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mantém o {@link RegrasSnapshot} corrente usado na pontuação.
+ * - Leitura sem lock (AtomicReference)
+ * - Escritas em RegraConversaoService (em qualquer nó, via {@link BarramentoInvalidacao}) marcam o snapshot como obsoleto após o commit
+ * - A próxima leitura recompila e troca o snapshot atomicamente (nova versão)
+ */
+@ApplicationScoped
+public class RegrasSnapshotHolder {
+
+    private static final Logger LOG = Logger.getLogger(RegrasSnapshotHolder.class);
+
+    @Inject
+    RegraConversaoRepository regraConversaoRepository;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    private final AtomicReference<RegrasSnapshot> atual = new AtomicReference<>();
+    private final AtomicLong versao = new AtomicLong();
+    private volatile boolean obsoleto = true;
+
+    /** Snapshot corrente; recompila se houve alteração desde a última carga. */
+    public RegrasSnapshot atual() {
+        RegrasSnapshot s = atual.get();
+        if (s != null && !obsoleto) {
+            return s;
+        }
+        return recarregarSeObsoleto();
+    }
+
+    /** Força recompilação imediata (ex.: endpoint administrativo). */
+    public RegrasSnapshot recarregar() {
+        obsoleto = true;
+        return recarregarSeObsoleto();
+    }
+
+    /** Marca o snapshot como obsoleto; a próxima leitura recompila. */
+    public void invalidar() {
+        obsoleto = true;
+    }
+
+    /**
+     * Invalida o snapshot somente quando a transação corrente fizer commit.
+     * Sem transação ativa, invalida imediatamente.
+     */
+    public void invalidarAposCommit() {
+        AposCommit.executar(transactionSynchronizationRegistry, this::invalidar);
+    }
+
+    /** Alteração publicada por qualquer nó (inclusive este) ou ressincronização completa. */
+    void aoInvalidar(@Observes InvalidacaoCache evento) {
+        if (evento.afeta(InvalidacaoCache.REGRA)) {
+            invalidar();
+        }
+    }
+
+    private synchronized RegrasSnapshot recarregarSeObsoleto() {
+        RegrasSnapshot s = atual.get();
+        if (s != null && !obsoleto) {
+            return s; // outra thread já recompilou
+        }
+        // Zera antes de consultar: uma invalidação concorrente volta a marcar e força nova carga
+        obsoleto = false;
+        try {
+            s = RegrasSnapshot.compilar(versao.incrementAndGet(), regraConversaoRepository.listarAtivas());
+        } catch (RuntimeException e) {
+            obsoleto = true;
+            throw e;
+        }
+        atual.set(s);
+        for (RegraCompilada r : s.regras()) {
+            if (r.mccRegexInvalido) {
+                LOG.warn("Regra de conversão " + r.id + " possui mccRegex inválido e não será aplicada: " + r.mccRegex);
+            }
+            if (r.expressaoInvalida) {
+                LOG.warn("Regra de conversão " + r.id + " possui expressao inválida e não será aplicada: " + r.expressao);
+            }
+        }
+        LOG.debug("Snapshot de regras de conversão v" + s.versao + " carregado com " + s.tamanho() + " regras ativas");
+        return s;
+    }
+}
@@ -0,0 +1,140 @@
+package org.acme.loyalty.service.pontuacao;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Snapshot imutável e versionado dos segmentos materializados (segmento_usuario).
+ * - Persistido como BitSet indexado por usuario_id, comprimido com Deflate
+ * - Em memória, cada segmento fica na forma menor: BitSet (denso, pertinência em O(1)) ou array ordenado de ids
+ *   (esparso, busca binária). Segmento pequeno com ids altos não ocupa um bit por usuário cadastrado
+ */
+public final class SegmentosUsuarios {
+
+    public static final SegmentosUsuarios VAZIO = new SegmentosUsuarios(0L, Map.of());
+
+    public final long versao;
+
+    /** Chave = {@link CampanhaCompilada#chaveSegmento(String)} do nome do segmento. */
+    private final Map<String, Membros> membros;
+
+    private SegmentosUsuarios(long versao, Map<String, Membros> membros) {
+        this.versao = versao;
+        this.membros = membros;
+    }
+
+    /** Monta o snapshot a partir dos bitmaps persistidos (nome do segmento -> bytes comprimidos). */
+    public static SegmentosUsuarios carregar(long versao, Map<String, byte[]> bitmaps) {
+        Map<String, Membros> m = new HashMap<>();
+        bitmaps.forEach((nome, bytes) -> {
+            String chave = CampanhaCompilada.chaveSegmento(nome);
+            if (chave != null && bytes != null) {
+                m.put(chave, Membros.de(descomprimir(bytes)));
+            }
+        });
+        return new SegmentosUsuarios(versao, Collections.unmodifiableMap(m));
+    }
+
+    /** Usuário pertence ao segmento (chave já normalizada). */
+    boolean pertence(String chaveSegmento, long usuarioId) {
+        Membros b = membros.get(chaveSegmento);
+        return b != null && usuarioId >= 0 && usuarioId <= Integer.MAX_VALUE && b.contem((int) usuarioId);
+    }
+
+    /** Usuário pertence ao segmento (nome livre, sem diferenciar maiúsculas). */
+    public boolean contem(String segmento, long usuarioId) {
+        String chave = CampanhaCompilada.chaveSegmento(segmento);
+        return chave != null && pertence(chave, usuarioId);
+    }
+
+    public int tamanho() {
+        return membros.size();
+    }
+
+    /** Bytes ocupados pelos membros de todos os segmentos (aproximado: só os arrays). */
+    public long bytesEmMemoria() {
+        long total = 0;
+        for (Membros b : membros.values()) total += b.bytes();
+        return total;
+    }
+
+    /** Membros de um segmento: BitSet se denso, array ordenado de ids se esparso (o que ocupar menos). */
+    static final class Membros {
+        private final BitSet denso;
+        private final int[] esparso;
+
+        private Membros(BitSet denso, int[] esparso) {
+            this.denso = denso;
+            this.esparso = esparso;
+        }
+
+        static Membros de(BitSet bitmap) {
+            // BitSet: 1 bit por id até o maior; array: 4 bytes por membro (abaixo de 1 membro a cada 32 ids)
+            long bytesDenso = (bitmap.length() + 63L) / 64 * 8;
+            long bytesEsparso = 4L * bitmap.cardinality();
+            if (bytesEsparso < bytesDenso) {
+                return new Membros(null, bitmap.stream().toArray());
+            }
+            return new Membros(bitmap, null);
+        }
+
+        boolean contem(int usuarioId) {
+            return denso != null ? denso.get(usuarioId) : Arrays.binarySearch(esparso, usuarioId) >= 0;
+        }
+
+        boolean esparso() {
+            return esparso != null;
+        }
+
+        long bytes() {
+            return denso != null ? denso.size() / 8 : 4L * esparso.length;
+        }
+    }
+
+    // ---- Formato persistido ----
+
+    public static byte[] comprimir(BitSet bitmap) {
+        byte[] bruto = bitmap.toByteArray();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bruto);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, bruto.length / 8));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static BitSet descomprimir(byte[] comprimido) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(comprimido);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(comprimido.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Bitmap de segmento truncado");
+                }
+                out.write(buffer, 0, n);
+            }
+            return BitSet.valueOf(out.toByteArray());
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Bitmap de segmento inválido: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.acme.loyalty.service.pontuacao;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.acme.loyalty.entity.SegmentoUsuario;
+import org.acme.loyalty.repository.SegmentoUsuarioRepository;
+import org.jboss.logging.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mantém o {@link SegmentosUsuarios} corrente usado na pontuação.
+ * - Leitura sem lock (AtomicReference)
+ * - A reconstrução dos segmentos marca o snapshot como obsoleto após o commit
+ * - Reconstruções feitas por outro nó chegam como {@link InvalidacaoCache} (LISTEN/NOTIFY)
+ * - A próxima leitura recarrega e troca o snapshot atomicamente
+ */
+@ApplicationScoped
+public class SegmentosUsuariosHolder {
+
+    private static final Logger LOG = Logger.getLogger(SegmentosUsuariosHolder.class);
+
+    @Inject
+    SegmentoUsuarioRepository segmentoUsuarioRepository;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    private final AtomicReference<SegmentosUsuarios> atual = new AtomicReference<>();
+    private volatile boolean obsoleto = true;
+
+    /** Snapshot corrente; recarrega se houve reconstrução desde a última carga. */
+    public SegmentosUsuarios atual() {
+        SegmentosUsuarios s = atual.get();
+        if (s != null && !obsoleto) {
+            return s;
+        }
+        return recarregarSeObsoleto();
+    }
+
+    /** Marca o snapshot como obsoleto; a próxima leitura recarrega. */
+    public void invalidar() {
+        obsoleto = true;
+    }
+
+    /** Invalida o snapshot somente quando a transação corrente fizer commit. */
+    public void invalidarAposCommit() {
+        AposCommit.executar(transactionSynchronizationRegistry, this::invalidar);
+    }
+
+    /** Reconstrução ou alteração de segmento em qualquer nó ({@link BarramentoInvalidacao}). */
+    void aoInvalidar(@Observes InvalidacaoCache evento) {
+        if (evento.afeta(InvalidacaoCache.SEGMENTO)) {
+            invalidar();
+        }
+    }
+
+    private synchronized SegmentosUsuarios recarregarSeObsoleto() {
+        SegmentosUsuarios s = atual.get();
+        if (s != null && !obsoleto) {
+            return s; // outra thread já recarregou
+        }
+        obsoleto = false;
+        try {
+            long versao = 0;
+            Map<String, byte[]> bitmaps = new HashMap<>();
+            for (SegmentoUsuario seg : segmentoUsuarioRepository.listarMaterializados()) {
+                bitmaps.put(seg.nome, seg.bitmap);
+                versao += seg.versao;
+            }
+            s = SegmentosUsuarios.carregar(versao, bitmaps);
+        } catch (RuntimeException e) {
+            obsoleto = true;
+            throw e;
+        }
+        atual.set(s);
+        LOG.debug("Segmentos de usuários v" + s.versao + " carregados: " + s.tamanho() + " segmentos, "
+                + s.bytesEmMemoria() + " bytes");
+        return s;
+    }
+}
@@ -0,0 +1,116 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.acme.loyalty.entity.TaxaCambio;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot imutável e versionado das taxas de câmbio (taxa_cambio), indexado por vigência.
+ * - Por par de moedas: vigências ordenadas (long[]) e taxas correspondentes, busca binária pela data do evento
+ * - Taxa vigente em t = a de maior vigente_desde <= t; antes da primeira vigência não há taxa
+ * - Conversão para BRL sem acesso ao banco; resultado truncado em centavos (mesma semântica de floor da 17.4)
+ */
+public final class TabelaCambio {
+
+    public static final TabelaCambio VAZIA = new TabelaCambio(0L, Map.of());
+
+    public final long versao;
+
+    /** Chave = {@link #par(String, String)}. */
+    private final Map<String, Serie> series;
+
+    private TabelaCambio(long versao, Map<String, Serie> series) {
+        this.versao = versao;
+        this.series = series;
+    }
+
+    /** Compila a tabela a partir das taxas (em qualquer ordem; mesma vigência do mesmo par: vale a última). */
+    public static TabelaCambio compilar(long versao, List<TaxaCambio> taxas) {
+        Map<String, List<TaxaCambio>> porPar = new HashMap<>();
+        for (TaxaCambio t : taxas) {
+            if (t.moedaOrigem == null || t.moedaDestino == null || t.taxa == null || t.vigenteDesde == null) continue;
+            porPar.computeIfAbsent(par(t.moedaOrigem, t.moedaDestino), k -> new ArrayList<>()).add(t);
+        }
+        Map<String, Serie> series = new HashMap<>();
+        porPar.forEach((par, lista) -> series.put(par, Serie.de(lista)));
+        return new TabelaCambio(versao, Collections.unmodifiableMap(series));
+    }
+
+    /** Taxa do par vigente em {@code data}, ou null se não houver. */
+    public BigDecimal taxa(String moedaOrigem, String moedaDestino, LocalDateTime data) {
+        if (moedaOrigem == null || moedaDestino == null || data == null) return null;
+        Serie s = series.get(par(moedaOrigem, moedaDestino));
+        return s != null ? s.vigenteEm(instante(data)) : null;
+    }
+
+    /**
+     * Valor em BRL na data do evento: BRL (ou moeda não informada) passa direto;
+     * demais moedas usam a taxa vigente, truncando em centavos.
+     * @return null se não houver taxa vigente para a moeda na data
+     */
+    public BigDecimal paraBrl(BigDecimal valor, String moeda, LocalDateTime data) {
+        if (valor == null || moeda == null || TaxaCambio.MOEDA_BASE.equalsIgnoreCase(moeda)) {
+            return valor;
+        }
+        BigDecimal taxa = taxa(moeda.toUpperCase(), TaxaCambio.MOEDA_BASE, data);
+        return taxa != null ? valor.multiply(taxa).setScale(2, RoundingMode.DOWN) : null;
+    }
+
+    /** Quantidade de pares de moedas com ao menos uma vigência. */
+    public int tamanho() {
+        return series.size();
+    }
+
+    static String par(String moedaOrigem, String moedaDestino) {
+        return moedaOrigem + moedaDestino;
+    }
+
+    private static long instante(LocalDateTime data) {
+        return data.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + data.getNano();
+    }
+
+    /** Vigências (nanossegundos desde a época, sem fuso) ordenadas e taxas nos mesmos índices. */
+    private static final class Serie {
+        final long[] vigencias;
+        final BigDecimal[] taxas;
+
+        private Serie(long[] vigencias, BigDecimal[] taxas) {
+            this.vigencias = vigencias;
+            this.taxas = taxas;
+        }
+
+        static Serie de(List<TaxaCambio> lista) {
+            lista.sort((a, b) -> a.vigenteDesde.compareTo(b.vigenteDesde));
+            long[] v = new long[lista.size()];
+            BigDecimal[] t = new BigDecimal[lista.size()];
+            int n = 0;
+            for (TaxaCambio taxa : lista) {
+                long i = instante(taxa.vigenteDesde);
+                if (n > 0 && v[n - 1] == i) {
+                    n--; // mesma vigência: a última substitui
+                }
+                v[n] = i;
+                t[n] = taxa.taxa;
+                n++;
+            }
+            return new Serie(Arrays.copyOf(v, n), Arrays.copyOf(t, n));
+        }
+
+        BigDecimal vigenteEm(long instante) {
+            int i = Arrays.binarySearch(vigencias, instante);
+            if (i < 0) {
+                i = -i - 2; // maior vigência anterior ao instante
+            }
+            return i >= 0 ? taxas[i] : null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.acme.loyalty.service.pontuacao;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.acme.loyalty.repository.TaxaCambioRepository;
+import org.jboss.logging.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mantém a {@link TabelaCambio} corrente usada na pontuação.
+ * - Leitura sem lock (AtomicReference)
+ * - Novas taxas (TaxaCambioService, em qualquer nó, via {@link BarramentoInvalidacao}) marcam a tabela como obsoleta após o commit
+ * - A próxima leitura recompila e troca a tabela atomicamente (nova versão)
+ */
+@ApplicationScoped
+public class TabelaCambioHolder {
+
+    private static final Logger LOG = Logger.getLogger(TabelaCambioHolder.class);
+
+    @Inject
+    TaxaCambioRepository taxaCambioRepository;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    private final AtomicReference<TabelaCambio> atual = new AtomicReference<>();
+    private final AtomicLong versao = new AtomicLong();
+    private volatile boolean obsoleto = true;
+
+    /** Tabela corrente; recompila se houve alteração desde a última carga. */
+    public TabelaCambio atual() {
+        TabelaCambio t = atual.get();
+        if (t != null && !obsoleto) {
+            return t;
+        }
+        return recarregarSeObsoleto();
+    }
+
+    /** Marca a tabela como obsoleta; a próxima leitura recompila. */
+    public void invalidar() {
+        obsoleto = true;
+    }
+
+    /** Invalida a tabela somente quando a transação corrente fizer commit. */
+    public void invalidarAposCommit() {
+        AposCommit.executar(transactionSynchronizationRegistry, this::invalidar);
+    }
+
+    /** Alteração publicada por qualquer nó (inclusive este) ou ressincronização completa. */
+    void aoInvalidar(@Observes InvalidacaoCache evento) {
+        if (evento.afeta(InvalidacaoCache.CAMBIO)) {
+            invalidar();
+        }
+    }
+
+    private synchronized TabelaCambio recarregarSeObsoleto() {
+        TabelaCambio t = atual.get();
+        if (t != null && !obsoleto) {
+            return t; // outra thread já recompilou
+        }
+        obsoleto = false;
+        try {
+            t = TabelaCambio.compilar(versao.incrementAndGet(), taxaCambioRepository.listarOrdenadas());
+        } catch (RuntimeException e) {
+            obsoleto = true;
+            throw e;
+        }
+        atual.set(t);
+        LOG.debug("Tabela de câmbio v" + t.versao + " carregada com " + t.tamanho() + " pares de moedas");
+        return t;
+    }
+}
@@ -0,0 +1,43 @@
+-- =====================================================
+-- V10: REPROCESSAMENTO RETROATIVO DE PONTOS
+-- Sistema de Pontos do Cartão (Quarkus/Java 17)
+-- =====================================================
+
+-- Configurações iniciais
+SET search_path TO loyalty, public;
+
+-- =====================================================
+-- TABELA REPROCESSAMENTO_PONTOS
+-- Um job por correção de regra (job_id informado pelo operador ou gerado).
+-- O checkpoint (mes_atual, ultimo_cartao_id) é gravado no mesmo commit do lote de ajustes:
+-- ao retomar, o job continua do primeiro cartão ainda não ajustado no mês corrente.
+-- =====================================================
+CREATE TABLE IF NOT EXISTS loyalty.reprocessamento_pontos (
+    job_id VARCHAR(100) NOT NULL,
+    regra_id BIGINT NOT NULL,
+    data_inicio DATE NOT NULL,
+    data_fim DATE NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'EM_ANDAMENTO',
+    tamanho_lote INTEGER NOT NULL,
+    mes_atual INTEGER NOT NULL,
+    ultimo_cartao_id BIGINT NOT NULL DEFAULT 0,
+    lotes BIGINT NOT NULL DEFAULT 0,
+    transacoes_lidas BIGINT NOT NULL DEFAULT 0,
+    transacoes_ajustadas BIGINT NOT NULL DEFAULT 0,
+    pontos_creditados BIGINT NOT NULL DEFAULT 0,
+    pontos_debitados BIGINT NOT NULL DEFAULT 0,
+    pontos_nao_debitados BIGINT NOT NULL DEFAULT 0,
+    ultimo_erro VARCHAR(500),
+    criado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    atualizado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    concluido_em TIMESTAMP,
+
+    CONSTRAINT pk_reprocessamento_pontos PRIMARY KEY (job_id),
+    CONSTRAINT fk_reprocessamento_regra FOREIGN KEY (regra_id) REFERENCES loyalty.regra_conversao(id),
+    CONSTRAINT chk_reprocessamento_status CHECK (status IN ('EM_ANDAMENTO', 'CONCLUIDO', 'ERRO')),
+    CONSTRAINT chk_reprocessamento_periodo CHECK (data_fim >= data_inicio),
+    CONSTRAINT chk_reprocessamento_tamanho_lote CHECK (tamanho_lote > 0)
+);
+
+-- Movimentos AJUSTE gerados por um job (auditoria e conferência)
+CREATE INDEX IF NOT EXISTS idx_movimento_job_id ON loyalty.movimento_pontos(job_id) WHERE job_id IS NOT NULL;
@@ -0,0 +1,26 @@
+-- =====================================================
+-- V11: ORÇAMENTO (TETO) DE CAMPANHAS DE BÔNUS
+-- Sistema de Pontos do Cartão (Quarkus/Java 17)
+-- =====================================================
+
+-- Configurações iniciais
+SET search_path TO loyalty, public;
+
+-- =====================================================
+-- TABELA CAMPANHA_CONSUMO
+-- Uma linha por campanha com teto.
+-- reservado: pontos de bônus já entregues aos nós em fatias (nunca passa do teto);
+--            a linha só é tocada quando um nó esgota a fatia local, não a cada transação
+-- consumido: bônus efetivamente concedido, sincronizado periodicamente pelos nós
+-- =====================================================
+CREATE TABLE IF NOT EXISTS loyalty.campanha_consumo (
+    campanha_id BIGINT NOT NULL,
+    reservado BIGINT NOT NULL DEFAULT 0,
+    consumido BIGINT NOT NULL DEFAULT 0,
+    atualizado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT pk_campanha_consumo PRIMARY KEY (campanha_id),
+    CONSTRAINT fk_campanha_consumo_campanha FOREIGN KEY (campanha_id) REFERENCES loyalty.campanha_bonus(id) ON DELETE CASCADE,
+    CONSTRAINT chk_campanha_consumo_reservado CHECK (reservado >= 0),
+    CONSTRAINT chk_campanha_consumo_consumido CHECK (consumido >= 0)
+);
@@ -0,0 +1,54 @@
+-- =====================================================
+-- V12: SEGMENTOS DE USUÁRIOS (BITMAPS PRÉ-CALCULADOS)
+-- Sistema de Pontos do Cartão (Quarkus/Java 17)
+-- =====================================================
+
+-- Configurações iniciais
+SET search_path TO loyalty, public;
+
+-- Sequência para segmento_usuario (PanacheEntity)
+CREATE SEQUENCE IF NOT EXISTS loyalty.segmento_usuario_SEQ
+    START WITH 1
+    INCREMENT BY 50
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+-- =====================================================
+-- TABELA SEGMENTO_USUARIO
+-- Definição do segmento (gasto, mix de MCC e antiguidade na janela de janela_dias)
+-- e o conjunto de usuários materializado como bitmap comprimido de usuario_id.
+-- nome casa com campanha_bonus.segmento (sem diferenciar maiúsculas).
+-- Estado da última construção (janela_ini, corte_cadastro, ultimo_transacao_id) permite
+-- reconstrução incremental: só usuários afetados desde então são reavaliados.
+-- =====================================================
+CREATE TABLE IF NOT EXISTS loyalty.segmento_usuario (
+    id BIGINT NOT NULL DEFAULT nextval('loyalty.segmento_usuario_SEQ'),
+    nome VARCHAR(60) NOT NULL,
+    janela_dias INTEGER NOT NULL DEFAULT 90,
+    gasto_minimo NUMERIC(12,2),
+    mccs VARCHAR(200),
+    participacao_mcc_minima NUMERIC(5,4),
+    antiguidade_minima_dias INTEGER,
+    ativo BOOLEAN NOT NULL DEFAULT TRUE,
+    bitmap BYTEA,
+    membros INTEGER NOT NULL DEFAULT 0,
+    versao BIGINT NOT NULL DEFAULT 0,
+    janela_ini DATE,
+    corte_cadastro DATE,
+    ultimo_transacao_id BIGINT,
+    construido_em TIMESTAMP,
+    completo_em TIMESTAMP,
+    criado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    atualizado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT pk_segmento_usuario PRIMARY KEY (id),
+    CONSTRAINT chk_segmento_usuario_janela CHECK (janela_dias BETWEEN 1 AND 730),
+    CONSTRAINT chk_segmento_usuario_gasto CHECK (gasto_minimo IS NULL OR gasto_minimo > 0),
+    CONSTRAINT chk_segmento_usuario_participacao CHECK (participacao_mcc_minima IS NULL
+        OR (participacao_mcc_minima > 0 AND participacao_mcc_minima <= 1 AND mccs IS NOT NULL)),
+    CONSTRAINT chk_segmento_usuario_antiguidade CHECK (antiguidade_minima_dias IS NULL OR antiguidade_minima_dias >= 1),
+    CONSTRAINT chk_segmento_usuario_membros CHECK (membros >= 0)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_segmento_usuario_nome ON loyalty.segmento_usuario(lower(nome));
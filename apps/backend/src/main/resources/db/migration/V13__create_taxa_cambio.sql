@@ -0,0 +1,39 @@
+-- =====================================================
+-- V13: TAXAS DE CÂMBIO (PONTUAÇÃO DE TRANSAÇÕES EM MOEDA ESTRANGEIRA)
+-- Sistema de Pontos do Cartão (Quarkus/Java 17)
+-- =====================================================
+
+-- Configurações iniciais
+SET search_path TO loyalty, public;
+
+-- Sequência para taxa_cambio (PanacheEntity)
+CREATE SEQUENCE IF NOT EXISTS loyalty.taxa_cambio_SEQ
+    START WITH 1
+    INCREMENT BY 50
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+-- =====================================================
+-- TABELA TAXA_CAMBIO
+-- Taxas versionadas por vigência: 1 unidade de moeda_origem = taxa unidades de moeda_destino
+-- a partir de vigente_desde (até a próxima vigência do mesmo par).
+-- Linhas não são alteradas: uma nova taxa é uma nova vigência; a unicidade (par, vigente_desde)
+-- impede duas taxas para o mesmo instante.
+-- =====================================================
+CREATE TABLE IF NOT EXISTS loyalty.taxa_cambio (
+    id BIGINT NOT NULL DEFAULT nextval('loyalty.taxa_cambio_SEQ'),
+    moeda_origem CHAR(3) NOT NULL,
+    moeda_destino CHAR(3) NOT NULL DEFAULT 'BRL',
+    taxa NUMERIC(18,8) NOT NULL,
+    vigente_desde TIMESTAMP NOT NULL,
+    fonte VARCHAR(60),
+    criado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT pk_taxa_cambio PRIMARY KEY (id),
+    CONSTRAINT chk_taxa_cambio_taxa CHECK (taxa > 0),
+    CONSTRAINT chk_taxa_cambio_par CHECK (moeda_origem <> moeda_destino)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_taxa_cambio_vigencia
+    ON loyalty.taxa_cambio(moeda_origem, moeda_destino, vigente_desde);
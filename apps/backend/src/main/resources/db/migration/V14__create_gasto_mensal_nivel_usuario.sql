@@ -0,0 +1,55 @@
+-- =====================================================
+-- V14: NÍVEIS DE FIDELIDADE (GASTO DOS ÚLTIMOS 12 MESES)
+-- Sistema de Pontos do Cartão (Quarkus/Java 17)
+-- =====================================================
+
+-- Configurações iniciais
+SET search_path TO loyalty, public;
+
+-- =====================================================
+-- TABELA GASTO_MENSAL
+-- Gasto pontuado (em centavos de BRL) por (usuário, ano/mês do evento).
+-- Mantida na mesma transação do movimento ACUMULO (estorno subtrai); os 12 últimos meses
+-- formam o anel de gasto do usuário. alterado/versao marcam o balde para a próxima avaliação
+-- de nível: a avaliação só limpa a marca se a versão não mudou desde a leitura.
+-- =====================================================
+CREATE TABLE IF NOT EXISTS loyalty.gasto_mensal (
+    usuario_id BIGINT NOT NULL,
+    ano_mes INTEGER NOT NULL,
+    centavos BIGINT NOT NULL DEFAULT 0,
+    versao BIGINT NOT NULL DEFAULT 0,
+    alterado BOOLEAN NOT NULL DEFAULT TRUE,
+    atualizado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (usuario_id, ano_mes),
+
+    CONSTRAINT fk_gasto_mensal_usuario FOREIGN KEY (usuario_id) REFERENCES loyalty.usuario(id) ON DELETE CASCADE,
+    CONSTRAINT chk_gasto_mensal_ano_mes CHECK (ano_mes BETWEEN 190001 AND 999912)
+);
+
+-- Baldes pendentes de avaliação (poucos em relação ao total)
+CREATE INDEX IF NOT EXISTS idx_gasto_mensal_alterado ON loyalty.gasto_mensal(usuario_id) WHERE alterado;
+
+-- Expurgo de baldes fora da janela
+CREATE INDEX IF NOT EXISTS idx_gasto_mensal_ano_mes ON loyalty.gasto_mensal(ano_mes);
+
+-- =====================================================
+-- TABELA NIVEL_USUARIO
+-- Nível de fidelidade vigente por usuário (ex.: PRATA, OURO, BLACK; ausente = nível base)
+-- e o gasto de 12 meses que o definiu. ano_mes_ref = último mês da janela avaliada:
+-- usuários com gasto e referência antiga precisam de reavaliação (a janela andou).
+-- =====================================================
+CREATE TABLE IF NOT EXISTS loyalty.nivel_usuario (
+    usuario_id BIGINT NOT NULL,
+    nivel VARCHAR(30),
+    gasto_12m_centavos BIGINT NOT NULL DEFAULT 0,
+    ano_mes_ref INTEGER NOT NULL,
+    avaliado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT pk_nivel_usuario PRIMARY KEY (usuario_id),
+    CONSTRAINT fk_nivel_usuario_usuario FOREIGN KEY (usuario_id) REFERENCES loyalty.usuario(id) ON DELETE CASCADE,
+    CONSTRAINT chk_nivel_usuario_gasto CHECK (gasto_12m_centavos >= 0)
+);
+
+-- Candidatos à reavaliação na virada do mês
+CREATE INDEX IF NOT EXISTS idx_nivel_usuario_ref ON loyalty.nivel_usuario(ano_mes_ref) WHERE gasto_12m_centavos > 0;
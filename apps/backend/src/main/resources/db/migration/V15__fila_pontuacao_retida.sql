@@ -0,0 +1,16 @@
+-- =====================================================
+-- V15: RETENÇÃO POR VELOCIDADE NA FILA DE PONTUAÇÃO
+-- Sistema de Pontos do Cartão (Quarkus/Java 17)
+-- =====================================================
+
+-- Configurações iniciais
+SET search_path TO loyalty, public;
+
+-- Transações acima do limite de velocidade do cartão ficam RETIDAS (não são pontuadas)
+-- até liberação administrativa; o motivo fica em ultimo_erro.
+ALTER TABLE loyalty.fila_pontuacao DROP CONSTRAINT IF EXISTS chk_fila_pontuacao_status;
+ALTER TABLE loyalty.fila_pontuacao ADD CONSTRAINT chk_fila_pontuacao_status
+    CHECK (status IN ('PENDENTE', 'ERRO', 'RETIDA'));
+
+-- Retidas por ordem de chegada (listagem administrativa) e exclusão no lote de pontuação
+CREATE INDEX IF NOT EXISTS idx_fila_pontuacao_retida ON loyalty.fila_pontuacao(transacao_id) WHERE status = 'RETIDA';
@@ -0,0 +1,50 @@
+-- =====================================================
+-- V16: PASSIVO DE PONTOS POR PARCEIRO (AGREGADO DIÁRIO)
+-- Sistema de Pontos do Cartão (Quarkus/Java 17)
+-- =====================================================
+
+-- Configurações iniciais
+SET search_path TO loyalty, public;
+
+-- =====================================================
+-- TABELA PASSIVO_PARCEIRO
+-- Pontos gerados em transações de parceiro (ACUMULO, ESTORNO e AJUSTE vinculados à transação)
+-- e pontos resgatados em recompensas de parceiro, por parceiro e dia do movimento.
+-- Atualizada (UPSERT incremental) na mesma transação que grava o movimento/resgate;
+-- conferida todas as noites contra movimento_pontos/transacao e resgate/recompensa.
+-- =====================================================
+CREATE TABLE IF NOT EXISTS loyalty.passivo_parceiro (
+    parceiro_id BIGINT NOT NULL,
+    dia DATE NOT NULL,
+    pontos_acumulados BIGINT NOT NULL DEFAULT 0,
+    pontos_resgatados BIGINT NOT NULL DEFAULT 0,
+    atualizado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT pk_passivo_parceiro PRIMARY KEY (parceiro_id, dia)
+);
+
+-- Consulta de período de todos os parceiros
+CREATE INDEX IF NOT EXISTS idx_passivo_parceiro_dia ON loyalty.passivo_parceiro(dia);
+
+-- Conferência por dia nas tabelas brutas
+CREATE INDEX IF NOT EXISTS idx_movimento_criado_em ON loyalty.movimento_pontos(criado_em);
+CREATE INDEX IF NOT EXISTS idx_resgate_criado_em ON loyalty.resgate(criado_em);
+
+-- Carga inicial a partir do histórico
+INSERT INTO loyalty.passivo_parceiro (parceiro_id, dia, pontos_acumulados, pontos_resgatados)
+SELECT parceiro_id, dia, SUM(acumulados), SUM(resgatados)
+FROM (
+    SELECT t.parceiro_id, CAST(mp.criado_em AS DATE) AS dia, SUM(mp.pontos) AS acumulados, 0 AS resgatados
+    FROM loyalty.movimento_pontos mp
+    JOIN loyalty.transacao t ON t.id = mp.ref_transacao_id
+    WHERE mp.tipo IN ('ACUMULO', 'ESTORNO', 'AJUSTE') AND t.parceiro_id IS NOT NULL
+    GROUP BY t.parceiro_id, CAST(mp.criado_em AS DATE)
+    UNION ALL
+    SELECT rc.parceiro_id, CAST(r.criado_em AS DATE), 0, SUM(r.pontos_utilizados)
+    FROM loyalty.resgate r
+    JOIN loyalty.recompensa rc ON rc.id = r.recompensa_id
+    WHERE rc.parceiro_id IS NOT NULL
+    GROUP BY rc.parceiro_id, CAST(r.criado_em AS DATE)
+) x
+GROUP BY parceiro_id, dia
+ON CONFLICT (parceiro_id, dia) DO NOTHING;
@@ -0,0 +1,34 @@
+-- =====================================================
+-- V17: IDEMPOTÊNCIA DA ENTRADA DE TRANSAÇÕES POR CONSTRAINT
+-- Sistema de Pontos do Cartão (Quarkus/Java 17)
+-- =====================================================
+
+-- Configurações iniciais
+SET search_path TO loyalty, public;
+
+-- =====================================================
+-- DUPLICATAS LEGADAS
+-- Antes do índice único, reenvios concorrentes podiam gravar duas transações com a mesma chave natural.
+-- As excedentes são mantidas (podem já ter movimentos de pontos), mas recebem a autorização sufixada
+-- com o próprio id para não violar o índice.
+-- =====================================================
+UPDATE loyalty.transacao t
+SET autorizacao = LEFT(COALESCE(t.autorizacao, ''), 100 - LENGTH('#dup-' || t.id)) || '#dup-' || t.id
+FROM (
+    SELECT id,
+           ROW_NUMBER() OVER (PARTITION BY cartao_id, data_evento, COALESCE(autorizacao, '') ORDER BY id) AS ordem
+    FROM loyalty.transacao
+) d
+WHERE t.id = d.id AND d.ordem > 1;
+
+-- =====================================================
+-- ÍNDICE ÚNICO DA CHAVE NATURAL
+-- Cartão + data do evento + autorização (vazia equivale a nula).
+-- A criação usa INSERT ... ON CONFLICT DO NOTHING: o reenvio é detectado pelo próprio INSERT,
+-- sem consulta prévia obrigatória e sem corrida entre requisições concorrentes.
+-- Substitui idx_transacao_cartao_data (mesmo prefixo).
+-- =====================================================
+CREATE UNIQUE INDEX IF NOT EXISTS uk_transacao_chave_natural
+    ON loyalty.transacao(cartao_id, data_evento, (COALESCE(autorizacao, '')));
+
+DROP INDEX IF EXISTS loyalty.idx_transacao_cartao_data;
@@ -0,0 +1,31 @@
+-- =====================================================
+-- V18: INVALIDAÇÃO DO CACHE DE CADASTRO (USUÁRIO E CARTÃO)
+-- Sistema de Pontos do Cartão (Quarkus/Java 17)
+-- =====================================================
+
+-- Configurações iniciais
+SET search_path TO loyalty, public;
+
+-- =====================================================
+-- NOTIFICAÇÃO NO CANAL loyalty_cache
+-- Usuários e cartões são mantidos fora da aplicação (cadastro/emissor). Toda alteração ou exclusão
+-- notifica '<entidade>:<id>' no canal do BarramentoInvalidacao; o NOTIFY só é entregue no commit,
+-- então os nós descartam a entrada do CadastroCache assim que a alteração fica visível.
+-- =====================================================
+CREATE OR REPLACE FUNCTION loyalty.notificar_alteracao_cadastro() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('loyalty_cache', TG_ARGV[0] || ':' || OLD.id);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_usuario_notificar_cache ON loyalty.usuario;
+CREATE TRIGGER trg_usuario_notificar_cache
+    AFTER UPDATE OR DELETE ON loyalty.usuario
+    FOR EACH ROW EXECUTE FUNCTION loyalty.notificar_alteracao_cadastro('usuario');
+
+-- Cartão: só colunas usadas na validação (dono e validade) ou troca de id
+DROP TRIGGER IF EXISTS trg_cartao_notificar_cache ON loyalty.cartao;
+CREATE TRIGGER trg_cartao_notificar_cache
+    AFTER UPDATE OF id, id_usuario, validade OR DELETE ON loyalty.cartao
+    FOR EACH ROW EXECUTE FUNCTION loyalty.notificar_alteracao_cadastro('cartao');
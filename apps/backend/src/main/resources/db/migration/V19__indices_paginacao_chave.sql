@@ -0,0 +1,36 @@
+-- =====================================================
+-- V19: ÍNDICES PARA PAGINAÇÃO POR CHAVE (CURSOR)
+-- Sistema de Pontos do Cartão (Quarkus/Java 17)
+-- =====================================================
+
+-- Configurações iniciais
+SET search_path TO loyalty, public;
+
+-- =====================================================
+-- ORDEM DAS LISTAGENS: (instante DESC, id DESC)
+-- As listagens de transações, extrato e resgates filtram por usuário ou cartão e pedem a página seguinte
+-- com (instante, id) < (cursor). Com o índice na mesma ordem, cada página é uma descida no índice
+-- seguida da leitura de "tamanho + 1" entradas, em qualquer profundidade.
+-- O id desempata eventos no mesmo instante (cursor estável).
+-- =====================================================
+
+-- Transações (GET /transacoes)
+CREATE INDEX IF NOT EXISTS idx_transacao_usuario_data_id
+    ON loyalty.transacao(usuario_id, data_evento DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_transacao_cartao_data_id
+    ON loyalty.transacao(cartao_id, data_evento DESC, id DESC);
+-- Substituído pelo índice acima (mesmo prefixo)
+DROP INDEX IF EXISTS loyalty.idx_transacao_usuario_data;
+
+-- Movimentos de pontos (extrato)
+CREATE INDEX IF NOT EXISTS idx_movimento_usuario_criado_id
+    ON loyalty.movimento_pontos(usuario_id, criado_em DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_movimento_cartao_criado_id
+    ON loyalty.movimento_pontos(cartao_id, criado_em DESC, id DESC);
+DROP INDEX IF EXISTS loyalty.idx_movimento_usuario_criado;
+DROP INDEX IF EXISTS loyalty.idx_movimento_cartao_criado;
+
+-- Resgates do usuário
+CREATE INDEX IF NOT EXISTS idx_resgate_usuario_criado_id
+    ON loyalty.resgate(usuario_id, criado_em DESC, id DESC);
+DROP INDEX IF EXISTS loyalty.idx_resgate_usuario;
@@ -0,0 +1,21 @@
+-- =====================================================
+-- V20: ESTORNO DO GASTO MENSAL POR TRANSAÇÃO
+-- Sistema de Pontos do Cartão (Quarkus/Java 17)
+-- =====================================================
+
+-- Configurações iniciais
+SET search_path TO loyalty, public;
+
+-- =====================================================
+-- GASTO ESTORNADO
+-- O estorno retira o valor da transação do gasto do mês (níveis de fidelidade) também quando ela não gerou
+-- pontos (sem regra, teto atingido). A idempotência é da própria transação: o UPDATE que preenche
+-- gasto_estornado_em (somente se nulo) decide quem retira o gasto, sem depender do movimento ESTORNO.
+-- =====================================================
+ALTER TABLE loyalty.transacao ADD COLUMN IF NOT EXISTS gasto_estornado_em TIMESTAMP;
+
+-- Estornos já processados retiraram o gasto junto com o movimento ESTORNO
+UPDATE loyalty.transacao t
+SET gasto_estornado_em = m.criado_em
+FROM loyalty.movimento_pontos m
+WHERE m.ref_transacao_id = t.id AND m.tipo = 'ESTORNO' AND t.gasto_estornado_em IS NULL;
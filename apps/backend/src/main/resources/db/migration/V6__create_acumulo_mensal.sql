@@ -0,0 +1,34 @@
+-- =====================================================
+-- V6: CONTADORES MENSAIS DE ACÚMULO (TETO MENSAL)
+-- Sistema de Pontos do Cartão (Quarkus/Java 17)
+-- =====================================================
+
+-- Configurações iniciais
+SET search_path TO loyalty, public;
+
+-- =====================================================
+-- TABELA ACUMULO_MENSAL
+-- Pontos acumulados por (usuário, cartão, regra, ano/mês do evento).
+-- Mantida na mesma transação do movimento ACUMULO; verificação de teto_mensal = leitura de 1 linha.
+-- Pode ser reconstruída a partir de movimento_pontos (POST /admin/acumulos-mensais/reconstruir).
+-- =====================================================
+CREATE TABLE IF NOT EXISTS loyalty.acumulo_mensal (
+    usuario_id BIGINT NOT NULL,
+    cartao_id BIGINT NOT NULL,
+    regra_id BIGINT NOT NULL,
+    ano_mes INTEGER NOT NULL,
+    pontos BIGINT NOT NULL DEFAULT 0,
+    atualizado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (usuario_id, cartao_id, regra_id, ano_mes),
+
+    CONSTRAINT fk_acumulo_mensal_usuario FOREIGN KEY (usuario_id) REFERENCES loyalty.usuario(id) ON DELETE CASCADE,
+    CONSTRAINT fk_acumulo_mensal_cartao FOREIGN KEY (cartao_id) REFERENCES loyalty.cartao(id) ON DELETE CASCADE,
+    CONSTRAINT chk_acumulo_mensal_ano_mes CHECK (ano_mes BETWEEN 190001 AND 999912)
+);
+
+-- Índice para reconstrução por período
+CREATE INDEX IF NOT EXISTS idx_acumulo_mensal_ano_mes ON loyalty.acumulo_mensal(ano_mes);
+
+-- Índice para a reconstrução a partir do histórico (movimentos ACUMULO por transação)
+CREATE INDEX IF NOT EXISTS idx_movimento_ref_transacao_tipo ON loyalty.movimento_pontos(ref_transacao_id, tipo);
@@ -0,0 +1,54 @@
+-- =====================================================
+-- V7: FILA DE PONTUAÇÃO (MULTI-NÓ)
+-- Sistema de Pontos do Cartão (Quarkus/Java 17)
+-- =====================================================
+
+-- Configurações iniciais
+SET search_path TO loyalty, public;
+
+-- Sequência para fila_pontuacao (PanacheEntity)
+CREATE SEQUENCE IF NOT EXISTS loyalty.fila_pontuacao_SEQ
+    START WITH 1
+    INCREMENT BY 50
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+-- =====================================================
+-- TABELA FILA_PONTUACAO
+-- Uma linha por transação a pontuar, gravada junto com a transação.
+-- Os nós reivindicam a cabeça de cada cartão com FOR UPDATE SKIP LOCKED:
+-- cartões diferentes são pontuados em paralelo, um mesmo cartão sempre em ordem de id.
+-- A linha é removida quando a transação é pontuada.
+-- =====================================================
+CREATE TABLE IF NOT EXISTS loyalty.fila_pontuacao (
+    id BIGINT NOT NULL DEFAULT nextval('loyalty.fila_pontuacao_SEQ'),
+    transacao_id BIGINT NOT NULL,
+    cartao_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDENTE',
+    tentativas INTEGER NOT NULL DEFAULT 0,
+    disponivel_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    criado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ultimo_erro VARCHAR(500),
+
+    CONSTRAINT pk_fila_pontuacao PRIMARY KEY (id),
+    CONSTRAINT fk_fila_pontuacao_transacao FOREIGN KEY (transacao_id) REFERENCES loyalty.transacao(id) ON DELETE CASCADE,
+    CONSTRAINT fk_fila_pontuacao_cartao FOREIGN KEY (cartao_id) REFERENCES loyalty.cartao(id) ON DELETE CASCADE,
+    CONSTRAINT uk_fila_pontuacao_transacao UNIQUE (transacao_id),
+    CONSTRAINT chk_fila_pontuacao_status CHECK (status IN ('PENDENTE', 'ERRO')),
+    CONSTRAINT chk_fila_pontuacao_tentativas CHECK (tentativas >= 0)
+);
+
+-- Cabeça da fila por cartão (NOT EXISTS de id menor no mesmo cartão)
+CREATE INDEX IF NOT EXISTS idx_fila_pontuacao_cartao_id ON loyalty.fila_pontuacao(cartao_id, id) WHERE status = 'PENDENTE';
+
+-- Varredura de itens disponíveis
+CREATE INDEX IF NOT EXISTS idx_fila_pontuacao_disponivel ON loyalty.fila_pontuacao(disponivel_em, id) WHERE status = 'PENDENTE';
+
+-- Enfileirar transações aprovadas ainda não pontuadas
+INSERT INTO loyalty.fila_pontuacao (id, transacao_id, cartao_id)
+SELECT nextval('loyalty.fila_pontuacao_SEQ'), t.id, t.cartao_id
+FROM loyalty.transacao t
+WHERE t.status = 'APROVADA' AND t.processado_em IS NULL
+ORDER BY t.id
+ON CONFLICT (transacao_id) DO NOTHING;
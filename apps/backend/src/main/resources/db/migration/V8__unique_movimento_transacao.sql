@@ -0,0 +1,34 @@
+-- =====================================================
+-- V8: IDEMPOTÊNCIA DE ACÚMULO/ESTORNO POR CONSTRAINT
+-- Sistema de Pontos do Cartão (Quarkus/Java 17)
+-- =====================================================
+
+-- Configurações iniciais
+SET search_path TO loyalty, public;
+
+-- =====================================================
+-- DUPLICATAS LEGADAS
+-- Antes do índice único, duas pontuações concorrentes podiam gravar o mesmo ACUMULO/ESTORNO.
+-- Os movimentos excedentes são mantidos (o saldo já os considera), mas desvinculados
+-- de ref_transacao_id para não violar o índice; a observação registra a origem.
+-- =====================================================
+UPDATE loyalty.movimento_pontos m
+SET ref_transacao_id = NULL,
+    observacao = LEFT(COALESCE(m.observacao, '') || ' [duplicado da transação ' || m.ref_transacao_id || ']', 500)
+FROM (
+    SELECT id,
+           ROW_NUMBER() OVER (PARTITION BY ref_transacao_id, tipo ORDER BY id) AS ordem
+    FROM loyalty.movimento_pontos
+    WHERE tipo IN ('ACUMULO', 'ESTORNO') AND ref_transacao_id IS NOT NULL
+) d
+WHERE m.id = d.id AND d.ordem > 1;
+
+-- =====================================================
+-- ÍNDICE ÚNICO PARCIAL
+-- No máximo um ACUMULO e um ESTORNO por transação.
+-- A inserção usa INSERT ... ON CONFLICT DO NOTHING: a duplicata é detectada pelo próprio INSERT,
+-- sem consulta de existência prévia e sem corrida entre pontuações concorrentes.
+-- =====================================================
+CREATE UNIQUE INDEX IF NOT EXISTS uk_movimento_transacao_tipo
+    ON loyalty.movimento_pontos(ref_transacao_id, tipo)
+    WHERE tipo IN ('ACUMULO', 'ESTORNO') AND ref_transacao_id IS NOT NULL;
@@ -0,0 +1,16 @@
+-- =====================================================
+-- V9: CONDIÇÃO ADICIONAL (EXPRESSÃO) NA REGRA DE CONVERSÃO
+-- Sistema de Pontos do Cartão (Quarkus/Java 17)
+-- =====================================================
+
+-- Configurações iniciais
+SET search_path TO loyalty, public;
+
+-- =====================================================
+-- REGRA_CONVERSAO.EXPRESSAO
+-- Texto da DSL (ex.: valor > 500 and fim_de_semana), compilado em predicado
+-- no snapshot de regras. NULL = sem condição adicional.
+-- =====================================================
+ALTER TABLE loyalty.regra_conversao ADD COLUMN IF NOT EXISTS expressao VARCHAR(500);
+
+COMMENT ON COLUMN loyalty.regra_conversao.expressao IS 'Condição adicional da regra (DSL compilada em memória)';
@@ -0,0 +1,163 @@
+package org.acme.loyalty.repository;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.acme.loyalty.entity.Cartao;
+import org.acme.loyalty.entity.MovimentoPontos;
+import org.acme.loyalty.entity.RegraConversao;
+import org.acme.loyalty.entity.Transacao;
+import org.acme.loyalty.entity.Usuario;
+import org.acme.loyalty.service.PontuacaoService;
+import org.acme.loyalty.service.pontuacao.RegrasSnapshotHolder;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Contadores de teto mensal (acumulo_mensal): incremento, teto entre transações, virada do mês e reconstrução.
+ */
+@QuarkusTest
+class AcumuloMensalRepositoryTest {
+
+    @Inject
+    AcumuloMensalRepository acumuloMensalRepository;
+
+    @Inject
+    PontuacaoService pontuacaoService;
+
+    @Inject
+    RegrasSnapshotHolder regrasSnapshotHolder;
+
+    @Test
+    void testRegistrarAcumuloSomaNoMesENaoAfetaOutroMes() {
+        long[] ids = QuarkusTransaction.requiringNew().call(() -> {
+            Cartao cartao = criarUsuarioECartao("acumulo-upsert");
+            RegraConversao regra = criarRegra("Regra acumulo upsert", 9029L, 1000L);
+            return new long[] { cartao.usuario.id, cartao.id, regra.id };
+        });
+
+        QuarkusTransaction.requiringNew().run(() -> {
+            acumuloMensalRepository.registrarAcumulo(ids[0], ids[1], ids[2], 202306, 120);
+            acumuloMensalRepository.registrarAcumulo(ids[0], ids[1], ids[2], 202306, 30);
+            acumuloMensalRepository.registrarAcumulo(ids[0], ids[1], ids[2], 202306, 0); // ignorado
+        });
+
+        assertEquals(150L, pontosNoMes(ids, 202306));
+        assertEquals(0L, pontosNoMes(ids, 202307));
+    }
+
+    @Test
+    void testTetoMensalEntreTransacoesEReinicioNoMesSeguinte() {
+        Transacao[] transacoes = QuarkusTransaction.requiringNew().call(() -> {
+            Cartao cartao = criarUsuarioECartao("acumulo-teto");
+            criarRegra("Regra acumulo teto", 9031L, 150L);
+            return new Transacao[] {
+                criarTransacao(cartao, new BigDecimal("100.00"), 9031L, LocalDateTime.of(2023, 7, 10, 10, 0)),
+                criarTransacao(cartao, new BigDecimal("100.00"), 9031L, LocalDateTime.of(2023, 7, 31, 23, 59)),
+                criarTransacao(cartao, new BigDecimal("100.00"), 9031L, LocalDateTime.of(2023, 8, 1, 0, 0))
+            };
+        });
+        regrasSnapshotHolder.invalidar();
+
+        for (Transacao t : transacoes) {
+            pontuacaoService.processarTransacaoParaPontos(t.id);
+        }
+
+        assertEquals(100L, pontosDoAcumulo(transacoes[0].id));
+        assertEquals(50L, pontosDoAcumulo(transacoes[1].id));   // só o que faltava para o teto de 150
+        assertEquals(100L, pontosDoAcumulo(transacoes[2].id));  // agosto: contador novo
+        long[] ids = idsDoContador(transacoes[0], "Regra acumulo teto");
+        assertEquals(150L, pontosNoMes(ids, 202307));
+        assertEquals(100L, pontosNoMes(ids, 202308));
+    }
+
+    @Test
+    void testReconstruirReproduzContadoresDosMovimentos() {
+        Transacao[] transacoes = QuarkusTransaction.requiringNew().call(() -> {
+            Cartao cartao = criarUsuarioECartao("acumulo-reconstruir");
+            criarRegra("Regra acumulo reconstruir", 9037L, 1000L);
+            return new Transacao[] {
+                criarTransacao(cartao, new BigDecimal("40.00"), 9037L, LocalDateTime.of(2023, 9, 5, 10, 0)),
+                criarTransacao(cartao, new BigDecimal("60.00"), 9037L, LocalDateTime.of(2023, 9, 20, 10, 0)),
+                criarTransacao(cartao, new BigDecimal("25.00"), 9037L, LocalDateTime.of(2023, 10, 2, 10, 0))
+            };
+        });
+        regrasSnapshotHolder.invalidar();
+        for (Transacao t : transacoes) {
+            pontuacaoService.processarTransacaoParaPontos(t.id);
+        }
+        long[] ids = idsDoContador(transacoes[0], "Regra acumulo reconstruir");
+        assertEquals(100L, pontosNoMes(ids, 202309));
+        assertEquals(25L, pontosNoMes(ids, 202310));
+
+        // Contadores divergentes do histórico (ex.: falha parcial)
+        QuarkusTransaction.requiringNew().run(() -> {
+            acumuloMensalRepository.registrarAcumulo(ids[0], ids[1], ids[2], 202309, 999);
+            acumuloMensalRepository.delete("usuarioId = ?1 and anoMes = ?2", ids[0], 202310);
+        });
+
+        given()
+            .queryParam("mesInicio", "2023-09")
+            .queryParam("mesFim", "2023-10")
+            .when().post("/admin/acumulos-mensais/reconstruir")
+            .then()
+            .statusCode(200)
+            .body("data", notNullValue());
+
+        assertEquals(100L, pontosNoMes(ids, 202309));
+        assertEquals(25L, pontosNoMes(ids, 202310));
+    }
+
+    // ---- Fixtures (cada teste cria os próprios dados) ----
+
+    private long pontosNoMes(long[] ids, int anoMes) {
+        return QuarkusTransaction.requiringNew().call(() ->
+                acumuloMensalRepository.pontosNoMes(ids[0], ids[1], ids[2], anoMes));
+    }
+
+    private static long[] idsDoContador(Transacao transacao, String nomeRegra) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            RegraConversao regra = RegraConversao.find("nome", nomeRegra).firstResult();
+            return new long[] { transacao.usuario.id, transacao.cartao.id, regra.id };
+        });
+    }
+
+    private static long pontosDoAcumulo(Long transacaoId) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            MovimentoPontos m = MovimentoPontos.find("refTransacaoId = ?1 and tipo = ?2",
+                    transacaoId, MovimentoPontos.TipoMovimento.ACUMULO).firstResult();
+            return m != null ? m.pontos.longValue() : 0L;
+        });
+    }
+
+    private static Cartao criarUsuarioECartao(String sufixo) {
+        Usuario usuario = new Usuario("Usuário " + sufixo, sufixo + "@teste.com");
+        usuario.persist();
+        String numero = String.format("%016d", Math.abs(sufixo.hashCode()));
+        Cartao cartao = new Cartao(numero, "USUARIO TESTE", LocalDate.now().plusYears(3),
+                new BigDecimal("10000.00"), usuario);
+        cartao.persist();
+        return cartao;
+    }
+
+    /** Regra exclusiva do parceiro do teste, de prioridade máxima, 1 ponto por real. */
+    private static RegraConversao criarRegra(String nome, Long parceiroId, Long tetoMensal) {
+        RegraConversao regra = new RegraConversao(nome, BigDecimal.ONE, null, null, parceiroId,
+                LocalDateTime.of(2023, 1, 1, 0, 0), null, 100000, tetoMensal);
+        regra.persist();
+        return regra;
+    }
+
+    private static Transacao criarTransacao(Cartao cartao, BigDecimal valor, Long parceiroId, LocalDateTime dataEvento) {
+        Transacao transacao = new Transacao(cartao, cartao.usuario, valor, "BRL", null, null, parceiroId, dataEvento);
+        transacao.persist();
+        return transacao;
+    }
+}
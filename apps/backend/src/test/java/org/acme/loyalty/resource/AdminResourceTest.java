@@ -5,7 +5,9 @@ import io.restassured.http.ContentType;
 import org.junit.jupiter.api.Test;
 
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 
 @QuarkusTest
 class AdminResourceTest {
@@ -44,4 +46,263 @@ class AdminResourceTest {
              .body("message", notNullValue())
              .body("status", notNullValue());
     }
+
+    @Test
+    void testProcessarPendentesEmLote() {
+        given()
+          .queryParam("tamanhoLote", 100)
+          .queryParam("maxLotes", 2)
+          .when().post("/admin/pontuacao/processar-pendentes")
+          .then()
+             .statusCode(200)
+             .contentType(ContentType.JSON)
+             .body("data.transacoesLidas", notNullValue())
+             .body("data.pontosGerados", notNullValue());
+    }
+
+    @Test
+    void testProcessarPendentesLoteInvalido() {
+        given()
+          .queryParam("tamanhoLote", 50000)
+          .when().post("/admin/pontuacao/processar-pendentes")
+          .then()
+             .statusCode(400);
+    }
+
+    @Test
+    void testSimularImpactoSemAlteracoes() {
+        given()
+          .contentType(ContentType.JSON)
+          .body("{\"meses\": 1}")
+          .when().post("/admin/simulacoes/impacto")
+          .then()
+             .statusCode(200)
+             .contentType(ContentType.JSON)
+             .body("data.transacoesLidas", notNullValue())
+             .body("data.transacoesAfetadas", is(0))
+             .body("data.delta", is(0));
+    }
+
+    @Test
+    void testSimularImpactoPeriodoInvalido() {
+        given()
+          .contentType(ContentType.JSON)
+          .body("{\"meses\": 100}")
+          .when().post("/admin/simulacoes/impacto")
+          .then()
+             .statusCode(400);
+    }
+
+    @Test
+    void testReprocessarPontosERetomarJobConcluido() {
+        String regraJson = """
+            {
+                "nome": "Regra Reprocessamento",
+                "multiplicador": 2.0,
+                "mccRegex": "5812",
+                "vigenciaIni": "2024-01-01T00:00:00",
+                "prioridade": 1,
+                "ativo": true
+            }
+            """;
+        Integer regraId = given()
+            .contentType(ContentType.JSON)
+            .body(regraJson)
+            .when().post("/regras-conversao")
+            .then()
+               .statusCode(200)
+               .extract().path("data.id");
+
+        String hoje = java.time.LocalDate.now().toString();
+        String inicio = java.time.LocalDate.now().minusMonths(1).toString();
+        String pedido = "{\"jobId\": \"teste-reprocessamento\", \"regraId\": " + regraId
+                + ", \"dataInicio\": \"" + inicio + "\", \"dataFim\": \"" + hoje + "\", \"tamanhoLote\": 100}";
+
+        given()
+          .contentType(ContentType.JSON)
+          .body(pedido)
+          .when().post("/admin/reprocessamentos")
+          .then()
+             .statusCode(200)
+             .body("data.jobId", is("teste-reprocessamento"))
+             .body("data.status", is("CONCLUIDO"));
+
+        // Mesmo jobId: job já concluído, nada é reprocessado
+        given()
+          .contentType(ContentType.JSON)
+          .body(pedido)
+          .when().post("/admin/reprocessamentos")
+          .then()
+             .statusCode(200)
+             .body("data.status", is("CONCLUIDO"));
+
+        given()
+          .when().get("/admin/reprocessamentos/teste-reprocessamento")
+          .then()
+             .statusCode(200)
+             .body("data.regraId", is(regraId));
+    }
+
+    @Test
+    void testReprocessarPontosRegraInexistente() {
+        given()
+          .contentType(ContentType.JSON)
+          .body("{\"regraId\": 999999, \"dataInicio\": \"2024-01-01\", \"dataFim\": \"2024-01-31\"}")
+          .when().post("/admin/reprocessamentos")
+          .then()
+             .statusCode(404);
+    }
+
+    @Test
+    void testReprocessarPontosPeriodoInvalido() {
+        given()
+          .contentType(ContentType.JSON)
+          .body("{\"regraId\": 1, \"dataInicio\": \"2024-02-01\", \"dataFim\": \"2024-01-01\"}")
+          .when().post("/admin/reprocessamentos")
+          .then()
+             .statusCode(400);
+    }
+
+    @Test
+    void testCriarEReconstruirSegmento() {
+        String segmentoJson = """
+            {
+                "nome": "TESTE_RESTAURANTES",
+                "janelaDias": 90,
+                "gastoMinimo": 100.00,
+                "mccs": ["5812", "5814"],
+                "participacaoMccMinima": 0.5
+            }
+            """;
+        given()
+          .contentType(ContentType.JSON)
+          .body(segmentoJson)
+          .when().post("/admin/segmentos")
+          .then()
+             .statusCode(201)
+             .body("data.id", notNullValue())
+             .body("data.nome", is("TESTE_RESTAURANTES"));
+
+        given()
+          .when().post("/admin/segmentos/reconstruir?completa=true")
+          .then()
+             .statusCode(200)
+             .body("data.find { it.nome == 'TESTE_RESTAURANTES' }.reconstrucao", is("COMPLETA"))
+             .body("data.find { it.nome == 'TESTE_RESTAURANTES' }.tamanhoBitmap", notNullValue());
+
+        // Logo após a completa: só usuários afetados desde então são reavaliados
+        given()
+          .when().post("/admin/segmentos/reconstruir")
+          .then()
+             .statusCode(200)
+             .body("data.find { it.nome == 'TESTE_RESTAURANTES' }.reconstrucao", is("INCREMENTAL"));
+    }
+
+    @Test
+    void testCriarSegmentoSemCriterioValido() {
+        // MCCs sem participação mínima
+        given()
+          .contentType(ContentType.JSON)
+          .body("{\"nome\": \"TESTE_INVALIDO\", \"mccs\": [\"5812\"]}")
+          .when().post("/admin/segmentos")
+          .then()
+             .statusCode(400);
+    }
+
+    @Test
+    void testRegistrarEListarTaxaCambio() {
+        given()
+          .contentType(ContentType.JSON)
+          .body("{\"moedaOrigem\": \"eur\", \"taxa\": 5.98760000, \"vigenteDesde\": \"2024-01-01T00:00:00\", \"fonte\": \"TESTE\"}")
+          .when().post("/admin/cambio")
+          .then()
+             .statusCode(201)
+             .body("data.moedaOrigem", is("EUR"))
+             .body("data.moedaDestino", is("BRL"));
+
+        // Mesma vigência do mesmo par
+        given()
+          .contentType(ContentType.JSON)
+          .body("{\"moedaOrigem\": \"EUR\", \"taxa\": 6.0, \"vigenteDesde\": \"2024-01-01T00:00:00\"}")
+          .when().post("/admin/cambio")
+          .then()
+             .statusCode(400);
+
+        given()
+          .queryParam("moeda", "EUR")
+          .when().get("/admin/cambio")
+          .then()
+             .statusCode(200)
+             .body("data.size()", greaterThanOrEqualTo(1));
+    }
+
+    @Test
+    void testRegistrarTaxaCambioMoedaBase() {
+        given()
+          .contentType(ContentType.JSON)
+          .body("{\"moedaOrigem\": \"BRL\", \"taxa\": 1.0}")
+          .when().post("/admin/cambio")
+          .then()
+             .statusCode(400);
+    }
+
+    @Test
+    void testListarNiveis() {
+        given()
+          .when().get("/admin/niveis")
+          .then()
+             .statusCode(200)
+             .body("data.size()", is(4))
+             .body("data[0].nome", is(""))
+             .body("data[1].nome", is("PRATA"))
+             .body("data[3].nome", is("BLACK"));
+    }
+
+    @Test
+    void testAvaliarNiveisCompleta() {
+        given()
+          .queryParam("completa", true)
+          .when().post("/admin/niveis/avaliar")
+          .then()
+             .statusCode(200)
+             .body("data.completa", is(true))
+             .body("data.usuariosAvaliados", greaterThanOrEqualTo(0));
+    }
+
+    @Test
+    void testConsultarControleVelocidade() {
+        given()
+          .when().get("/admin/velocidade")
+          .then()
+             .statusCode(200)
+             .body("data.acao", is("RETER"))
+             .body("data.janelas.size()", is(3))
+             .body("data.janelas[0].nome", is("1m"));
+
+        given()
+          .when().get("/admin/velocidade/retidas")
+          .then()
+             .statusCode(200);
+    }
+
+    @Test
+    void testLiberarTransacaoNaoRetida() {
+        given()
+          .when().post("/admin/velocidade/retidas/999999/liberar")
+          .then()
+             .statusCode(404);
+    }
+
+    @Test
+    void testVerificarPassivoParceiros() {
+        given()
+          .queryParam("dataInicio", "2025-01-01")
+          .queryParam("dataFim", "2025-01-31")
+          .queryParam("corrigir", true)
+          .when().post("/admin/passivo-parceiros/verificar")
+          .then()
+             .statusCode(200)
+             .body("data.linhasVerificadas", notNullValue())
+             .body("data.divergencias", notNullValue());
+    }
 }
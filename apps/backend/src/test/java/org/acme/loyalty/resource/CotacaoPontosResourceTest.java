@@ -0,0 +1,80 @@
+package org.acme.loyalty.resource;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.*;
+
+@QuarkusTest
+class CotacaoPontosResourceTest {
+
+    @Test
+    void testCotarPontos() {
+        given()
+            .queryParam("valor", "150.00")
+            .queryParam("mcc", "5812")
+            .queryParam("usuarioId", 1)
+            .queryParam("cartaoId", 1)
+            .when()
+            .get("/pontos/cotacao")
+            .then()
+            .statusCode(200)
+            .contentType(ContentType.JSON)
+            .body("data.pontosTotais", notNullValue())
+            .body("data.versaoRegras", notNullValue());
+    }
+
+    @Test
+    void testCotarPontosSemValor() {
+        given()
+            .queryParam("mcc", "5812")
+            .when()
+            .get("/pontos/cotacao")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    void testCotarPontosValorNegativo() {
+        given()
+            .queryParam("valor", "-1.00")
+            .when()
+            .get("/pontos/cotacao")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    void testCotarPontosMoedaSemTaxa() {
+        given()
+            .queryParam("valor", "100.00")
+            .queryParam("moeda", "XTS")
+            .when()
+            .get("/pontos/cotacao")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    void testCotarPontosMoedaEstrangeira() {
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"moedaOrigem\": \"USD\", \"taxa\": 5.0, \"vigenteDesde\": \"2000-01-01T00:00:00\"}")
+            .when()
+            .post("/admin/cambio")
+            .then()
+            .statusCode(anyOf(is(201), is(400))); // 400 se a vigência já foi registrada por outro teste
+
+        given()
+            .queryParam("valor", "10.00")
+            .queryParam("moeda", "usd")
+            .when()
+            .get("/pontos/cotacao")
+            .then()
+            .statusCode(200)
+            .body("data.moeda", is("USD"))
+            .body("data.valorBrl", notNullValue());
+    }
+}
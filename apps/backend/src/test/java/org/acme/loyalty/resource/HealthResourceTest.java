@@ -19,4 +19,15 @@ class HealthResourceTest {
              .contentType(ContentType.JSON)
              .body("data.status", is("UP"));
     }
+
+    @Test
+    void testReadinessComAquecimentoDesabilitado() {
+        given()
+          .when().get("/health/ready")
+          .then()
+             .statusCode(200)
+             .contentType(ContentType.JSON)
+             .body("data.status", is("READY"))
+             .body("data.aquecimento", is("DESABILITADO"));
+    }
 }
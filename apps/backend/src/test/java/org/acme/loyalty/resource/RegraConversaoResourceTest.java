@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Order;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
 
@@ -99,4 +100,55 @@ class RegraConversaoResourceTest {
             .then()
             .statusCode(400);
     }
+
+    @Test
+    void testCriarRegraComMccRegexInvalidoRetorna400() {
+        given()
+            .contentType(ContentType.JSON)
+            .body(regraComMccRegex("Regra MCC regex inválida", "58[12"))
+            .when()
+            .post("/regras")
+            .then()
+            .statusCode(400)
+            .body("message", containsString("mccRegex inválido"));
+    }
+
+    @Test
+    void testCriarRegraComMccRegexSemNenhumMccRetorna400() {
+        // Compila, mas nenhum MCC de 4 dígitos casa: a regra nunca seria aplicada
+        given()
+            .contentType(ContentType.JSON)
+            .body(regraComMccRegex("Regra MCC regex sem MCC", "^58[A-Z]{2}$"))
+            .when()
+            .post("/regras")
+            .then()
+            .statusCode(400)
+            .body("message", containsString("não corresponde a nenhum MCC"));
+    }
+
+    @Test
+    void testCriarRegraComMccRegexValido() {
+        given()
+            .contentType(ContentType.JSON)
+            .body(regraComMccRegex("Regra MCC restaurantes 5812-5814", "^58(1[2-4])$"))
+            .when()
+            .post("/regras")
+            .then()
+            .statusCode(201)
+            .body("data.id", notNullValue())
+            .body("data.mccRegex", is("^58(1[2-4])$"));
+    }
+
+    private static String regraComMccRegex(String nome, String mccRegex) {
+        return """
+            {
+                "nome": "%s",
+                "multiplicador": 2.0,
+                "mccRegex": "%s",
+                "vigenciaIni": "2025-01-01T00:00:00",
+                "prioridade": 1,
+                "ativo": true
+            }
+            """.formatted(nome, mccRegex);
+    }
 }
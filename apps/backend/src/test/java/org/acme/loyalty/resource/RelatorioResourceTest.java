@@ -102,4 +102,33 @@ class RelatorioResourceTest {
             .body("data", notNullValue())
             .body("data", hasSize(greaterThan(0)));
     }
+
+    @Test
+    @Order(7)
+    void testConsultarPassivoParceiro() {
+        given()
+            .queryParam("parceiroId", 1)
+            .queryParam("dataInicio", "2025-01-01")
+            .queryParam("dataFim", "2025-01-31")
+            .when()
+            .get("/relatorios/passivo-parceiros")
+            .then()
+            .statusCode(200)
+            .contentType(ContentType.JSON)
+            .body("data", hasSize(1))
+            .body("data[0].parceiroId", is(1))
+            .body("data[0].passivo", notNullValue());
+    }
+
+    @Test
+    @Order(8)
+    void testConsultarPassivoParceiroPeriodoInvertido() {
+        given()
+            .queryParam("dataInicio", "2025-02-01")
+            .queryParam("dataFim", "2025-01-01")
+            .when()
+            .get("/relatorios/passivo-parceiros")
+            .then()
+            .statusCode(400);
+    }
 }
@@ -1,18 +1,42 @@
 package org.acme.loyalty.resource;
 
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.acme.loyalty.dto.TransacaoRequestDTO;
+import org.acme.loyalty.service.TransacaoService;
+import org.acme.loyalty.service.pontuacao.CadastroCache;
+import org.hibernate.Session;
+import org.hibernate.SessionEventListener;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Order;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 @QuarkusTest
 class TransacaoResourceTest {
 
+    @Inject
+    TransacaoService transacaoService;
+
+    @Inject
+    CadastroCache cadastroCache;
+
+    @Inject
+    EntityManager entityManager;
+
     @Test
     @Order(1)
     void testCriarTransacao() {
@@ -97,4 +121,178 @@ class TransacaoResourceTest {
             .then()
             .statusCode(400);
     }
+
+    @Test
+    @Order(5)
+    void testCarregarTransacoesEmLote() {
+        String linha = "{\"usuarioId\": 1, \"cartaoId\": 1, \"valor\": 42.10, \"moeda\": \"BRL\", \"mcc\": \"5411\", "
+                + "\"dataEvento\": \"2025-09-10T08:00:00\", \"autorizacao\": \"LOTE-TESTE-001\"}";
+        String ndjson = linha + "\n" + linha + "\n" + "{ isto nao e json\n";
+
+        String resposta = given()
+            .contentType("application/x-ndjson")
+            .body(ndjson)
+            .when()
+            .post("/transacoes/lote")
+            .then()
+            .statusCode(200)
+            .extract().asString();
+
+        String[] linhas = resposta.trim().split("\n");
+        assertEquals(3, linhas.length);
+
+        JsonPath criada = JsonPath.from(linhas[0]);
+        assertEquals(1, criada.getInt("linha"));
+        assertEquals("CRIADA", criada.getString("status"));
+        assertNotNull(criada.get("transacaoId"));
+
+        JsonPath duplicada = JsonPath.from(linhas[1]);
+        assertEquals("DUPLICADA", duplicada.getString("status"));
+        assertEquals(criada.getLong("transacaoId"), duplicada.getLong("transacaoId"));
+
+        JsonPath rejeitada = JsonPath.from(linhas[2]);
+        assertEquals(3, rejeitada.getInt("linha"));
+        assertEquals("REJEITADA", rejeitada.getString("status"));
+        assertNotNull(rejeitada.getString("erro"));
+    }
+
+    @Test
+    @Order(6)
+    void testCriarTransacaoRepetidaRetornaAMesma() {
+        String transacaoJson = """
+            {
+                "usuarioId": 1,
+                "cartaoId": 1,
+                "valor": 15.00,
+                "moeda": "BRL",
+                "dataEvento": "2025-09-11T09:30:00",
+                "autorizacao": "IDEMP-TESTE-001"
+            }
+            """;
+
+        Integer primeira = given()
+            .contentType(ContentType.JSON)
+            .body(transacaoJson)
+            .when()
+            .post("/transacoes")
+            .then()
+            .statusCode(201)
+            .extract().path("data.id");
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(transacaoJson)
+            .when()
+            .post("/transacoes")
+            .then()
+            .statusCode(201)
+            .body("data.id", is(primeira));
+    }
+
+    @Test
+    @Order(7)
+    void testCriarTransacaoComNumeroFixoDeComandos() {
+        TransacaoRequestDTO request = new TransacaoRequestDTO();
+        request.usuarioId = 1L;
+        request.cartaoId = 1L;
+        request.valor = new BigDecimal("33.30");
+        request.moeda = "BRL";
+        request.dataEvento = LocalDateTime.of(2025, 9, 12, 14, 0);
+        request.autorizacao = "COMANDOS-TESTE-001";
+
+        // Usuário e cartão já conhecidos pelo cache de cadastro (caminho quente)
+        QuarkusTransaction.requiringNew().run(() -> cadastroCache.exigirCartaoDoUsuario(1L, 1L));
+
+        int comandos = QuarkusTransaction.requiringNew().call(() -> {
+            AtomicInteger contador = new AtomicInteger();
+            entityManager.unwrap(Session.class).addEventListeners(new SessionEventListener() {
+                @Override
+                public void jdbcPrepareStatementStart() {
+                    contador.incrementAndGet();
+                }
+            });
+            transacaoService.criarTransacao(request);
+            return contador.get();
+        });
+
+        // INSERT da transação e INSERT na fila de pontuação
+        assertEquals(2, comandos);
+    }
+
+    @Test
+    @Order(8)
+    void testListarTransacoesPorCursor() {
+        JsonPath primeira = given()
+            .queryParam("usuarioId", 1)
+            .queryParam("tamanho", 1)
+            .when()
+            .get("/transacoes")
+            .then()
+            .statusCode(200)
+            .body("data.content", hasSize(1))
+            .body("data.nextCursor", notNullValue())
+            .extract().jsonPath();
+
+        // Página seguinte por chave: sem total, sem repetir a linha anterior
+        given()
+            .queryParam("usuarioId", 1)
+            .queryParam("tamanho", 1)
+            .queryParam("cursor", primeira.getString("data.nextCursor"))
+            .when()
+            .get("/transacoes")
+            .then()
+            .statusCode(200)
+            .body("data.content", hasSize(1))
+            .body("data.totalElements", nullValue())
+            .body("data.first", is(false))
+            .body("data.content[0].id", not(primeira.getInt("data.content[0].id")));
+
+        given()
+            .queryParam("cursor", "nao-e-um-cursor")
+            .when()
+            .get("/transacoes")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    @Order(9)
+    void testTotalSoQuandoPedido() {
+        // Primeira página por chave: sem COUNT, total omitido
+        given()
+            .queryParam("usuarioId", 1)
+            .queryParam("tamanho", 1)
+            .when()
+            .get("/transacoes")
+            .then()
+            .statusCode(200)
+            .body("data.content", hasSize(1))
+            .body("data.first", is(true))
+            .body("data.totalElements", nullValue());
+
+        JsonPath comTotal = given()
+            .queryParam("usuarioId", 1)
+            .queryParam("tamanho", 1)
+            .queryParam("incluirTotal", true)
+            .when()
+            .get("/transacoes")
+            .then()
+            .statusCode(200)
+            .body("data.totalElements", notNullValue())
+            .extract().jsonPath();
+
+        // Página por número (OFFSET) continua disponível e também omite o total
+        given()
+            .queryParam("usuarioId", 1)
+            .queryParam("tamanho", 1)
+            .queryParam("pagina", 2)
+            .when()
+            .get("/transacoes")
+            .then()
+            .statusCode(200)
+            .body("data.content", hasSize(1))
+            .body("data.number", is(1))
+            .body("data.totalElements", nullValue())
+            .body("data.content[0].id", not(comTotal.getInt("data.content[0].id")));
+    }
 }
@@ -0,0 +1,131 @@
+package org.acme.loyalty.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.acme.loyalty.entity.Cartao;
+import org.acme.loyalty.entity.MovimentoPontos;
+import org.acme.loyalty.entity.RegraConversao;
+import org.acme.loyalty.entity.Transacao;
+import org.acme.loyalty.entity.Usuario;
+import org.acme.loyalty.repository.SaldoPontosRepository;
+import org.acme.loyalty.service.pontuacao.RegrasSnapshotHolder;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@QuarkusTest
+class AdminServiceTest {
+
+    @Inject
+    AdminService adminService;
+
+    @Inject
+    PontuacaoService pontuacaoService;
+
+    @Inject
+    SaldoPontosRepository saldoPontosRepository;
+
+    @Inject
+    RegrasSnapshotHolder regrasSnapshotHolder;
+
+    @Test
+    void testEstornarMesmoMovimentoDuasVezesDebitaUmaVez() {
+        Transacao transacao = pontuar("estorno-admin-duplo", 9041L, LocalDateTime.of(2024, 6, 10, 10, 0));
+        Long acumuloId = idDoMovimento(transacao.id, MovimentoPontos.TipoMovimento.ACUMULO);
+
+        adminService.estornarPontos(acumuloId, "Contestação");
+        assertThrows(AdminService.EstornoDuplicadoException.class,
+                () -> adminService.estornarPontos(acumuloId, "Contestação repetida"));
+
+        assertEquals(1, contarMovimentos(transacao.id, MovimentoPontos.TipoMovimento.ESTORNO));
+        assertEquals(0L, saldo(transacao));
+    }
+
+    @Test
+    void testEstornoAdministrativoAposEstornoDaTransacaoRetorna409() {
+        Transacao transacao = pontuar("estorno-admin-apos-transacao", 9043L, LocalDateTime.of(2024, 6, 11, 10, 0));
+        QuarkusTransaction.requiringNew().run(() -> {
+            Transacao t = Transacao.findById(transacao.id);
+            t.status = Transacao.StatusTransacao.ESTORNADA;
+        });
+        pontuacaoService.processarEstornoTransacao(transacao.id);
+
+        given()
+            .queryParam("transacaoId", transacao.id)
+            .queryParam("motivo", "Contestação")
+            .when().post("/admin/pontos/estorno")
+            .then()
+            .statusCode(409);
+
+        assertEquals(1, contarMovimentos(transacao.id, MovimentoPontos.TipoMovimento.ESTORNO));
+        assertEquals(0L, saldo(transacao));
+    }
+
+    @Test
+    void testEstornoAdministrativoPorTransacao() {
+        Transacao transacao = pontuar("estorno-admin-http", 9047L, LocalDateTime.of(2024, 6, 12, 10, 0));
+
+        given()
+            .queryParam("transacaoId", transacao.id)
+            .queryParam("motivo", "Contestação")
+            .when().post("/admin/pontos/estorno")
+            .then()
+            .statusCode(200);
+        given()
+            .queryParam("transacaoId", transacao.id)
+            .queryParam("motivo", "Contestação")
+            .when().post("/admin/pontos/estorno")
+            .then()
+            .statusCode(409);
+
+        assertEquals(0L, saldo(transacao));
+    }
+
+    // ---- Fixtures (cada teste cria os próprios dados) ----
+
+    /** Transação de R$ 100 pontuada por uma regra exclusiva do parceiro (1 ponto por real). */
+    private Transacao pontuar(String sufixo, Long parceiroId, LocalDateTime dataEvento) {
+        Transacao transacao = QuarkusTransaction.requiringNew().call(() -> {
+            Usuario usuario = new Usuario("Usuário " + sufixo, sufixo + "@teste.com");
+            usuario.persist();
+            Cartao cartao = new Cartao(String.format("%016d", Math.abs(sufixo.hashCode())), "USUARIO TESTE",
+                    LocalDate.now().plusYears(3), new BigDecimal("10000.00"), usuario);
+            cartao.persist();
+            new RegraConversao("Regra " + sufixo, BigDecimal.ONE, null, null, parceiroId,
+                    LocalDateTime.of(2024, 1, 1, 0, 0), null, 100000, null).persist();
+            Transacao t = new Transacao(cartao, usuario, new BigDecimal("100.00"), "BRL", null, null, parceiroId, dataEvento);
+            t.persist();
+            return t;
+        });
+        regrasSnapshotHolder.invalidar();
+        pontuacaoService.processarTransacaoParaPontos(transacao.id);
+        assertEquals(100L, saldo(transacao));
+        return transacao;
+    }
+
+    private static Long idDoMovimento(Long transacaoId, MovimentoPontos.TipoMovimento tipo) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            MovimentoPontos m = MovimentoPontos.find("refTransacaoId = ?1 and tipo = ?2", transacaoId, tipo).firstResult();
+            return m.id;
+        });
+    }
+
+    private static long contarMovimentos(Long transacaoId, MovimentoPontos.TipoMovimento tipo) {
+        return QuarkusTransaction.requiringNew().call(() ->
+                MovimentoPontos.count("refTransacaoId = ?1 and tipo = ?2", transacaoId, tipo));
+    }
+
+    private long saldo(Transacao transacao) {
+        return QuarkusTransaction.requiringNew().call(() -> saldoPontosRepository
+                .findByUsuarioAndCartao(transacao.usuario.id, transacao.cartao.id)
+                .map(s -> s.saldo)
+                .orElse(0L));
+    }
+}
@@ -0,0 +1,242 @@
+package org.acme.loyalty.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.acme.loyalty.entity.Cartao;
+import org.acme.loyalty.entity.FilaPontuacao;
+import org.acme.loyalty.entity.MovimentoPontos;
+import org.acme.loyalty.entity.RegraConversao;
+import org.acme.loyalty.entity.Transacao;
+import org.acme.loyalty.entity.Usuario;
+import org.acme.loyalty.repository.FilaPontuacaoRepository;
+import org.acme.loyalty.service.pontuacao.FalhaFilaPontuacaoException;
+import org.acme.loyalty.service.pontuacao.RegrasSnapshotHolder;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reivindicação da fila de pontuação (cabeça de cada cartão com FOR UPDATE SKIP LOCKED),
+ * ordem por cartão, backoff/ERRO e itens RETIDOS.
+ * O worker está desligado nos testes; cada teste começa com a fila vazia.
+ */
+@QuarkusTest
+class FilaPontuacaoServiceTest {
+
+    private static final Long PARCEIRO = 9051L;
+
+    @Inject
+    FilaPontuacaoService filaPontuacaoService;
+
+    @Inject
+    FilaPontuacaoRepository filaPontuacaoRepository;
+
+    @Inject
+    RegrasSnapshotHolder regrasSnapshotHolder;
+
+    @BeforeEach
+    void esvaziarFila() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            FilaPontuacao.deleteAll();
+            if (RegraConversao.count("parceiroId", PARCEIRO) == 0) {
+                new RegraConversao("Regra fila de pontuação", BigDecimal.ONE, null, null, PARCEIRO,
+                        LocalDateTime.of(2024, 1, 1, 0, 0), null, 100000, null).persist();
+            }
+        });
+        regrasSnapshotHolder.invalidar();
+    }
+
+    @Test
+    void testItensDoCartaoSaoPontuadosEmOrdem() {
+        List<Transacao> transacoes = QuarkusTransaction.requiringNew().call(() -> {
+            Cartao cartao = criarUsuarioECartao("fila-ordem");
+            List<Transacao> ts = List.of(
+                    criarTransacao(cartao, "30.00", LocalDateTime.of(2024, 7, 3, 10, 0)),
+                    criarTransacao(cartao, "10.00", LocalDateTime.of(2024, 7, 1, 10, 0)),
+                    criarTransacao(cartao, "20.00", LocalDateTime.of(2024, 7, 2, 10, 0)));
+            ts.forEach(filaPontuacaoRepository::enfileirar);
+            return ts;
+        });
+
+        assertEquals(3, filaPontuacaoService.processarProximoCartao());
+        assertEquals(-1, filaPontuacaoService.processarProximoCartao());
+
+        // Ordem de enfileiramento (id do item), não da data do evento
+        long anterior = 0;
+        for (Transacao t : transacoes) {
+            long movimento = idDoAcumulo(t.id);
+            assertTrue(movimento > anterior);
+            anterior = movimento;
+        }
+    }
+
+    @Test
+    void testCabecaEmEsperaBloqueiaOCartao() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            Cartao cartao = criarUsuarioECartao("fila-cabeca-espera");
+            FilaPontuacao cabeca = filaPontuacaoRepository.enfileirar(
+                    criarTransacao(cartao, "10.00", LocalDateTime.of(2024, 7, 1, 10, 0)));
+            filaPontuacaoRepository.enfileirar(criarTransacao(cartao, "10.00", LocalDateTime.of(2024, 7, 2, 10, 0)));
+            filaPontuacaoRepository.update("disponivelEm = ?1 where id = ?2", LocalDateTime.now().plusMinutes(5), cabeca.id);
+        });
+
+        // O segundo item está disponível, mas não é cabeça enquanto o primeiro aguarda
+        assertTrue(reivindicar(LocalDateTime.now()).isEmpty());
+        assertTrue(reivindicar(LocalDateTime.now().plusMinutes(6)).isPresent());
+    }
+
+    @Test
+    void testCartaoComCabecaTravadaEhPulado() throws Exception {
+        Long[] cartoes = QuarkusTransaction.requiringNew().call(() -> {
+            Cartao a = criarUsuarioECartao("fila-travado-a");
+            Cartao b = criarUsuarioECartao("fila-travado-b");
+            filaPontuacaoRepository.enfileirar(criarTransacao(a, "10.00", LocalDateTime.of(2024, 7, 1, 10, 0)));
+            filaPontuacaoRepository.enfileirar(criarTransacao(b, "10.00", LocalDateTime.of(2024, 7, 1, 11, 0)));
+            return new Long[] { a.id, b.id };
+        });
+
+        // Outro "nó" reivindica o cartão A (cabeça mais antiga) e segura o lock
+        CountDownLatch travado = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService outroNo = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> cartaoOutroNo = outroNo.submit(() -> QuarkusTransaction.requiringNew().call(() -> {
+                Long cartaoId = filaPontuacaoRepository.reivindicarProximoCartao(LocalDateTime.now())
+                        .map(f -> f.cartaoId).orElse(null);
+                travado.countDown();
+                liberar.await(10, TimeUnit.SECONDS);
+                return cartaoId;
+            }));
+            assertTrue(travado.await(10, TimeUnit.SECONDS));
+
+            Optional<FilaPontuacao> desteNo = reivindicar(LocalDateTime.now());
+            liberar.countDown();
+
+            assertEquals(cartoes[0], cartaoOutroNo.get(10, TimeUnit.SECONDS));
+            assertEquals(cartoes[1], desteNo.map(f -> f.cartaoId).orElse(null));
+        } finally {
+            liberar.countDown();
+            outroNo.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFalhaAdiaComBackoffEAposMaxTentativasVaiParaErro() {
+        Long[] ids = QuarkusTransaction.requiringNew().call(() -> {
+            Cartao cartao = criarUsuarioECartao("fila-backoff");
+            // Transação inexistente: a pontuação do item falha sempre
+            FilaPontuacao falha = new FilaPontuacao();
+            falha.transacaoId = Long.MAX_VALUE - 9051;
+            falha.cartaoId = cartao.id;
+            falha.persist();
+            Transacao seguinte = criarTransacao(cartao, "10.00", LocalDateTime.of(2024, 7, 1, 10, 0));
+            filaPontuacaoRepository.enfileirar(seguinte);
+            return new Long[] { falha.id, seguinte.id };
+        });
+
+        int maxTentativas = ConfigProvider.getConfig()
+                .getOptionalValue("loyalty.fila-pontuacao.max-tentativas", Integer.class).orElse(5);
+        for (int tentativa = 1; tentativa <= maxTentativas; tentativa++) {
+            FalhaFilaPontuacaoException e = assertThrows(FalhaFilaPontuacaoException.class,
+                    () -> filaPontuacaoService.processarProximoCartao());
+            assertEquals(ids[0], e.itemId);
+            LocalDateTime antes = LocalDateTime.now();
+            filaPontuacaoService.registrarFalha(e.itemId, e.getCause());
+
+            FilaPontuacao item = buscarItem(ids[0]);
+            assertEquals(tentativa, item.tentativas);
+            if (tentativa < maxTentativas) {
+                assertEquals(FilaPontuacao.StatusFila.PENDENTE, item.status);
+                // Backoff exponencial: 2^tentativas segundos, e o cartão inteiro espera
+                assertTrue(!item.disponivelEm.isBefore(antes.plusSeconds(1L << tentativa).minusSeconds(1)));
+                assertTrue(reivindicar(LocalDateTime.now()).isEmpty());
+                QuarkusTransaction.requiringNew().run(() ->
+                        filaPontuacaoRepository.update("disponivelEm = ?1 where id = ?2", LocalDateTime.now().minusSeconds(1), ids[0]));
+            }
+        }
+
+        FilaPontuacao erro = buscarItem(ids[0]);
+        assertEquals(FilaPontuacao.StatusFila.ERRO, erro.status);
+        assertTrue(erro.ultimoErro.contains("Transação não encontrada"));
+
+        // Item em ERRO deixa de bloquear o cartão
+        assertEquals(1, filaPontuacaoService.processarProximoCartao());
+        assertTrue(idDoAcumulo(ids[1]) > 0);
+    }
+
+    @Test
+    void testItensRetidosNaoSaoReivindicadosNemBloqueiamOCartao() {
+        Long[] ids = QuarkusTransaction.requiringNew().call(() -> {
+            Cartao cartao = criarUsuarioECartao("fila-retida");
+            Transacao retida = criarTransacao(cartao, "10.00", LocalDateTime.of(2024, 7, 1, 10, 0));
+            filaPontuacaoRepository.enfileirarRetida(retida, "Limite de velocidade");
+            return new Long[] { cartao.id, retida.id };
+        });
+
+        assertTrue(reivindicar(LocalDateTime.now()).isEmpty());
+
+        Long pendente = QuarkusTransaction.requiringNew().call(() -> {
+            Cartao cartao = Cartao.findById(ids[0]);
+            Transacao t = criarTransacao(cartao, "10.00", LocalDateTime.of(2024, 7, 2, 10, 0));
+            filaPontuacaoRepository.enfileirar(t);
+            return t.id;
+        });
+
+        assertEquals(pendente, reivindicar(LocalDateTime.now()).map(f -> f.transacaoId).orElse(null));
+        assertEquals(1, filaPontuacaoService.processarProximoCartao());
+        assertEquals(-1, filaPontuacaoService.processarProximoCartao());
+
+        filaPontuacaoService.liberarRetida(ids[1]);
+        assertEquals(1, filaPontuacaoService.processarProximoCartao());
+        assertTrue(idDoAcumulo(ids[1]) > 0);
+    }
+
+    // ---- Fixtures ----
+
+    private Optional<FilaPontuacao> reivindicar(LocalDateTime agora) {
+        return QuarkusTransaction.requiringNew().call(() -> filaPontuacaoRepository.reivindicarProximoCartao(agora));
+    }
+
+    private static FilaPontuacao buscarItem(Long id) {
+        return QuarkusTransaction.requiringNew().call(() -> FilaPontuacao.findById(id));
+    }
+
+    private static long idDoAcumulo(Long transacaoId) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            MovimentoPontos m = MovimentoPontos.find("refTransacaoId = ?1 and tipo = ?2",
+                    transacaoId, MovimentoPontos.TipoMovimento.ACUMULO).firstResult();
+            return m != null ? m.id : 0L;
+        });
+    }
+
+    private static Cartao criarUsuarioECartao(String sufixo) {
+        Usuario usuario = new Usuario("Usuário " + sufixo, sufixo + "@teste.com");
+        usuario.persist();
+        Cartao cartao = new Cartao(String.format("%016d", Math.abs(sufixo.hashCode())), "USUARIO TESTE",
+                LocalDate.now().plusYears(3), new BigDecimal("10000.00"), usuario);
+        cartao.persist();
+        return cartao;
+    }
+
+    private static Transacao criarTransacao(Cartao cartao, String valor, LocalDateTime dataEvento) {
+        Transacao transacao = new Transacao(cartao, cartao.usuario, new BigDecimal(valor), "BRL", null, null, PARCEIRO, dataEvento);
+        transacao.persist();
+        return transacao;
+    }
+}
@@ -0,0 +1,268 @@
+package org.acme.loyalty.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.acme.loyalty.dto.ReprocessamentoPontosRequestDTO;
+import org.acme.loyalty.entity.CampanhaBonus;
+import org.acme.loyalty.entity.Cartao;
+import org.acme.loyalty.entity.GastoMensal;
+import org.acme.loyalty.entity.GastoMensalId;
+import org.acme.loyalty.entity.MovimentoPontos;
+import org.acme.loyalty.entity.RegraConversao;
+import org.acme.loyalty.entity.Transacao;
+import org.acme.loyalty.entity.Usuario;
+import org.acme.loyalty.repository.SaldoPontosRepository;
+import org.acme.loyalty.service.pontuacao.CalendarioCampanhasHolder;
+import org.acme.loyalty.service.pontuacao.OrcamentoCampanhas;
+import org.acme.loyalty.service.pontuacao.RegrasSnapshotHolder;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class PontuacaoServiceTest {
+
+    @Inject
+    PontuacaoService pontuacaoService;
+
+    @Inject
+    SaldoPontosRepository saldoPontosRepository;
+
+    @Inject
+    RegrasSnapshotHolder regrasSnapshotHolder;
+
+    @Inject
+    CalendarioCampanhasHolder calendarioCampanhasHolder;
+
+    @Inject
+    OrcamentoCampanhas orcamentoCampanhas;
+
+    @Inject
+    ReprocessamentoPontosService reprocessamentoPontosService;
+
+    @Test
+    void testPontuarEEstornarDuasVezesGeraUmMovimentoCada() {
+        // Regra exclusiva do parceiro do teste (não interfere nas demais transações)
+        Transacao transacao = QuarkusTransaction.requiringNew().call(() -> {
+            Cartao cartao = criarUsuarioECartao("idempotencia");
+            criarRegra("Regra idempotência", 9009L, null);
+            return criarTransacao(cartao, new BigDecimal("100.00"), 9009L, LocalDateTime.of(2024, 2, 10, 10, 0));
+        });
+        regrasSnapshotHolder.invalidar();
+
+        pontuacaoService.processarTransacaoParaPontos(transacao.id);
+        pontuacaoService.processarTransacaoParaPontos(transacao.id);
+
+        assertEquals(1, contarMovimentos(transacao.id, MovimentoPontos.TipoMovimento.ACUMULO));
+        long pontos = pontosDoMovimento(transacao.id, MovimentoPontos.TipoMovimento.ACUMULO);
+        assertTrue(pontos >= 100);
+        assertEquals(pontos, saldo(transacao));
+
+        QuarkusTransaction.requiringNew().run(() -> {
+            Transacao t = Transacao.findById(transacao.id);
+            t.status = Transacao.StatusTransacao.ESTORNADA;
+        });
+
+        pontuacaoService.processarEstornoTransacao(transacao.id);
+        pontuacaoService.processarEstornoTransacao(transacao.id);
+
+        assertEquals(1, contarMovimentos(transacao.id, MovimentoPontos.TipoMovimento.ESTORNO));
+        assertEquals(0L, saldo(transacao));
+    }
+
+    @Test
+    void testEstornoAposReprocessamentoRetiraTambemOsAjustes() {
+        RegraConversao regra = QuarkusTransaction.requiringNew().call(() -> criarRegra("Regra estorno reprocessada", 9053L, null));
+        Transacao transacao = QuarkusTransaction.requiringNew().call(() -> {
+            Cartao cartao = criarUsuarioECartao("estorno-reprocessada");
+            return criarTransacao(cartao, new BigDecimal("100.00"), 9053L, LocalDateTime.of(2024, 6, 10, 10, 0));
+        });
+        regrasSnapshotHolder.invalidar();
+        pontuacaoService.processarTransacaoParaPontos(transacao.id);
+        long acumulo = pontosDoMovimento(transacao.id, MovimentoPontos.TipoMovimento.ACUMULO);
+
+        // Regra corrigida (multiplicador 2) e reprocessada: AJUSTE vinculado à transação
+        QuarkusTransaction.requiringNew().run(() -> {
+            RegraConversao r = RegraConversao.findById(regra.id);
+            r.multiplicador = new BigDecimal("2");
+        });
+        regrasSnapshotHolder.invalidar();
+        ReprocessamentoPontosRequestDTO pedido = new ReprocessamentoPontosRequestDTO();
+        pedido.jobId = "estorno-reprocessada-9053";
+        pedido.regraId = regra.id;
+        pedido.dataInicio = LocalDate.of(2024, 6, 1);
+        pedido.dataFim = LocalDate.of(2024, 6, 30);
+        reprocessamentoPontosService.iniciar(pedido, 10);
+
+        long ajuste = pontosDoMovimento(transacao.id, MovimentoPontos.TipoMovimento.AJUSTE);
+        assertTrue(ajuste > 0);
+        assertEquals(acumulo + ajuste, saldo(transacao));
+
+        QuarkusTransaction.requiringNew().run(() -> {
+            Transacao t = Transacao.findById(transacao.id);
+            t.status = Transacao.StatusTransacao.ESTORNADA;
+        });
+        pontuacaoService.processarEstornoTransacao(transacao.id);
+
+        assertEquals(-(acumulo + ajuste), pontosDoMovimento(transacao.id, MovimentoPontos.TipoMovimento.ESTORNO));
+        assertEquals(0L, saldo(transacao));
+    }
+
+    @Test
+    void testPontuarDuasVezesNaoConsomeOrcamentoDaCampanhaDeNovo() {
+        CampanhaBonus campanha = QuarkusTransaction.requiringNew().call(() ->
+                criarCampanha("Campanha reprocessamento", LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31)));
+        Transacao transacao = QuarkusTransaction.requiringNew().call(() -> {
+            Cartao cartao = criarUsuarioECartao("campanha-duas-vezes");
+            criarRegra("Regra campanha duas vezes", 9013L, null);
+            return criarTransacao(cartao, new BigDecimal("100.00"), 9013L, LocalDateTime.of(2024, 3, 10, 10, 0));
+        });
+        regrasSnapshotHolder.invalidar();
+        calendarioCampanhasHolder.invalidar();
+
+        pontuacaoService.processarTransacaoParaPontos(transacao.id);
+        long saldoCampanha = orcamentoCampanhas.saldoLocal(campanha.id);
+        assertTrue(pontosDoMovimento(transacao.id, MovimentoPontos.TipoMovimento.ACUMULO) >= 200); // base + 100% de bônus
+
+        pontuacaoService.processarTransacaoParaPontos(transacao.id);
+
+        assertEquals(saldoCampanha, orcamentoCampanhas.saldoLocal(campanha.id));
+        assertEquals(1, contarMovimentos(transacao.id, MovimentoPontos.TipoMovimento.ACUMULO));
+    }
+
+    @Test
+    void testMovimentoJaExistenteDevolveBonusReservado() {
+        CampanhaBonus campanha = QuarkusTransaction.requiringNew().call(() ->
+                criarCampanha("Campanha movimento existente", LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 30)));
+        Transacao[] transacoes = QuarkusTransaction.requiringNew().call(() -> {
+            Cartao cartao = criarUsuarioECartao("campanha-movimento-existente");
+            criarRegra("Regra movimento existente", 9113L, null);
+            Transacao pontuada = criarTransacao(cartao, new BigDecimal("100.00"), 9113L, LocalDateTime.of(2024, 4, 10, 10, 0));
+            Transacao legada = criarTransacao(cartao, new BigDecimal("100.00"), 9113L, LocalDateTime.of(2024, 4, 11, 10, 0));
+            // Acúmulo gravado antes da reivindicação (processado_em ainda nulo)
+            new MovimentoPontos(cartao.usuario, cartao, MovimentoPontos.TipoMovimento.ACUMULO, 50, legada, "Legado").persist();
+            return new Transacao[] { pontuada, legada };
+        });
+        regrasSnapshotHolder.invalidar();
+        calendarioCampanhasHolder.invalidar();
+
+        pontuacaoService.processarTransacaoParaPontos(transacoes[0].id);
+        long saldoCampanha = orcamentoCampanhas.saldoLocal(campanha.id);
+
+        // O bônus é reservado e, no conflito do movimento ACUMULO, devolvido
+        pontuacaoService.processarTransacaoParaPontos(transacoes[1].id);
+
+        assertEquals(saldoCampanha, orcamentoCampanhas.saldoLocal(campanha.id));
+        assertEquals(1, contarMovimentos(transacoes[1].id, MovimentoPontos.TipoMovimento.ACUMULO));
+        assertEquals(50L, pontosDoMovimento(transacoes[1].id, MovimentoPontos.TipoMovimento.ACUMULO));
+    }
+
+    @Test
+    void testTransacaoNoTetoContaNoGastoMensal() {
+        Transacao[] transacoes = QuarkusTransaction.requiringNew().call(() -> {
+            Cartao cartao = criarUsuarioECartao("gasto-teto");
+            criarRegra("Regra gasto teto", 9017L, 100L);
+            return new Transacao[] {
+                criarTransacao(cartao, new BigDecimal("100.00"), 9017L, LocalDateTime.of(2024, 5, 10, 10, 0)),
+                criarTransacao(cartao, new BigDecimal("50.00"), 9017L, LocalDateTime.of(2024, 5, 11, 10, 0))
+            };
+        });
+        regrasSnapshotHolder.invalidar();
+
+        pontuacaoService.processarTransacaoParaPontos(transacoes[0].id);
+        pontuacaoService.processarTransacaoParaPontos(transacoes[1].id); // teto de 100 pontos já atingido
+
+        assertEquals(0, contarMovimentos(transacoes[1].id, MovimentoPontos.TipoMovimento.ACUMULO));
+        long centavos = QuarkusTransaction.requiringNew().call(() -> {
+            GastoMensal gasto = GastoMensal.findById(new GastoMensalId(transacoes[0].usuario.id, 202405));
+            return gasto.centavos;
+        });
+        assertEquals(15000L, centavos);
+    }
+
+    @Test
+    void testEstornoSemPontosRetiraOGastoMensalUmaVez() {
+        // Parceiro sem regra: a transação conta no gasto do mês, mas não gera pontos
+        Transacao transacao = QuarkusTransaction.requiringNew().call(() -> {
+            Cartao cartao = criarUsuarioECartao("estorno-sem-pontos");
+            return criarTransacao(cartao, new BigDecimal("80.00"), 9055L, LocalDateTime.of(2024, 8, 5, 10, 0));
+        });
+        pontuacaoService.processarTransacaoParaPontos(transacao.id);
+        assertEquals(0, contarMovimentos(transacao.id, MovimentoPontos.TipoMovimento.ACUMULO));
+        assertEquals(8000L, gastoDoMes(transacao, 202408));
+
+        QuarkusTransaction.requiringNew().run(() -> {
+            Transacao t = Transacao.findById(transacao.id);
+            t.status = Transacao.StatusTransacao.ESTORNADA;
+        });
+        pontuacaoService.processarEstornoTransacao(transacao.id);
+        pontuacaoService.processarEstornoTransacao(transacao.id);
+
+        assertEquals(0L, gastoDoMes(transacao, 202408));
+        assertEquals(0, contarMovimentos(transacao.id, MovimentoPontos.TipoMovimento.ESTORNO));
+    }
+
+    // ---- Fixtures (cada teste cria os próprios dados) ----
+
+    private static Cartao criarUsuarioECartao(String sufixo) {
+        Usuario usuario = new Usuario("Usuário " + sufixo, "pontuacao-" + sufixo + "@teste.com");
+        usuario.persist();
+        String numero = String.format("%016d", Math.abs(sufixo.hashCode()));
+        Cartao cartao = new Cartao(numero, "USUARIO TESTE", LocalDate.now().plusYears(3),
+                new BigDecimal("10000.00"), usuario);
+        cartao.persist();
+        return cartao;
+    }
+
+    private static RegraConversao criarRegra(String nome, Long parceiroId, Long tetoMensal) {
+        RegraConversao regra = new RegraConversao(nome, BigDecimal.ONE, null, null, parceiroId,
+                LocalDateTime.of(2024, 1, 1, 0, 0), null, 100000, tetoMensal);
+        regra.persist();
+        return regra;
+    }
+
+    /** Campanha geral (+100%) com teto, de prioridade máxima (0) no período. */
+    private static CampanhaBonus criarCampanha(String nome, LocalDate inicio, LocalDate fim) {
+        CampanhaBonus campanha = new CampanhaBonus(nome, BigDecimal.ONE, inicio, fim, null, 0, 10000L);
+        campanha.persist();
+        return campanha;
+    }
+
+    private static Transacao criarTransacao(Cartao cartao, BigDecimal valor, Long parceiroId, LocalDateTime dataEvento) {
+        Transacao transacao = new Transacao(cartao, cartao.usuario, valor, "BRL", null, null, parceiroId, dataEvento);
+        transacao.persist();
+        return transacao;
+    }
+
+    private static long contarMovimentos(Long transacaoId, MovimentoPontos.TipoMovimento tipo) {
+        return QuarkusTransaction.requiringNew().call(() ->
+                MovimentoPontos.count("refTransacaoId = ?1 and tipo = ?2", transacaoId, tipo));
+    }
+
+    private static long pontosDoMovimento(Long transacaoId, MovimentoPontos.TipoMovimento tipo) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            MovimentoPontos m = MovimentoPontos.find("refTransacaoId = ?1 and tipo = ?2", transacaoId, tipo).firstResult();
+            return m.pontos.longValue();
+        });
+    }
+
+    private static long gastoDoMes(Transacao transacao, int anoMes) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            GastoMensal gasto = GastoMensal.findById(new GastoMensalId(transacao.usuario.id, anoMes));
+            return gasto != null ? gasto.centavos : 0L;
+        });
+    }
+
+    private long saldo(Transacao transacao) {
+        return QuarkusTransaction.requiringNew().call(() -> saldoPontosRepository
+                .findByUsuarioAndCartao(transacao.usuario.id, transacao.cartao.id)
+                .map(s -> s.saldo)
+                .orElse(0L));
+    }
+}
@@ -0,0 +1,140 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.acme.loyalty.entity.CampanhaBonus;
+import org.acme.loyalty.entity.RegraConversao;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Propriedade: o cálculo em ponto fixo é idêntico ao caminho BigDecimal das entidades
+ * para todo valor NUMERIC(12,2) e multiplicador NUMERIC(8,4) não negativos.
+ * Entradas aleatórias com semente fixa (reprodutível) + limites do domínio.
+ */
+class CalculoPontosFixoTest {
+
+    private static final long SEMENTE = 0x5EED_17_4L;
+    private static final int ITERACOES = 200_000;
+
+    private static final long MAX_CENTAVOS = 999_999_999_999L;   // 9.999.999.999,99
+    private static final long MAX_MULTIPLICADOR = 99_999_999L;   // 9999,9999
+
+    private static final long[] LIMITES_CENTAVOS = {0, 1, 99, 100, 101, 9_999, 1_000_000, MAX_CENTAVOS - 1, MAX_CENTAVOS};
+    private static final long[] LIMITES_MULTIPLICADOR = {0, 1, 9_999, 10_000, 10_001, 15_000, 99_999, MAX_MULTIPLICADOR};
+
+    @Test
+    void pontosBaseIgualAoCaminhoBigDecimal() {
+        Random random = new Random(SEMENTE);
+        for (int i = 0; i < ITERACOES; i++) {
+            verificarPontosBase(gerarCentavos(random), gerarMultiplicador(random));
+        }
+        for (long c : LIMITES_CENTAVOS) {
+            for (long m : LIMITES_MULTIPLICADOR) {
+                verificarPontosBase(c, m);
+            }
+        }
+    }
+
+    @Test
+    void pontosComBonusIgualAoCaminhoBigDecimal() {
+        Random random = new Random(SEMENTE + 1);
+        for (int i = 0; i < ITERACOES; i++) {
+            // pontos_base no domínio real: floor(valor * multiplicador)
+            long pontosBase = CalculoPontosFixo.pontosBase(gerarCentavos(random), gerarMultiplicador(random));
+            verificarPontosComBonus(Math.max(1, pontosBase), random.nextInt(100_000));
+        }
+        for (long m : LIMITES_MULTIPLICADOR) {
+            verificarPontosComBonus(1, m);
+            verificarPontosComBonus(999_999_999L, m);
+        }
+    }
+
+    @Test
+    void acumuloAdministrativoIgualAoCaminhoBigDecimal() {
+        Random random = new Random(SEMENTE + 2);
+        for (int i = 0; i < ITERACOES; i++) {
+            long c = gerarCentavos(random);
+            long m = gerarMultiplicador(random);
+            BigDecimal valor = BigDecimal.valueOf(c, 2);
+            long esperado = BigDecimal.valueOf(m, 4).multiply(valor).setScale(0, RoundingMode.FLOOR).longValue();
+            assertEquals(esperado, CalculoPontosFixo.pontosBase(CalculoPontosFixo.centavos(valor),
+                    CalculoPontosFixo.multiplicadorEscalado(BigDecimal.valueOf(m, 4))), () -> "valor=" + valor + " mult=" + m);
+        }
+    }
+
+    @Test
+    void conversaoRejeitaEscalaMaiorQueASuportada() {
+        assertEquals(1234L, CalculoPontosFixo.centavos(new BigDecimal("12.34")));
+        assertEquals(1230L, CalculoPontosFixo.centavos(new BigDecimal("12.3000")));
+        assertEquals(1200L, CalculoPontosFixo.centavos(new BigDecimal("12")));
+        assertEquals(CalculoPontosFixo.NAO_REPRESENTAVEL, CalculoPontosFixo.centavos(new BigDecimal("12.345")));
+        assertEquals(CalculoPontosFixo.NAO_REPRESENTAVEL, CalculoPontosFixo.multiplicadorEscalado(new BigDecimal("1.00005")));
+        assertEquals(CalculoPontosFixo.NAO_REPRESENTAVEL, CalculoPontosFixo.centavos(null));
+    }
+
+    @Test
+    void escalaNaoRepresentavelUsaCaminhoBigDecimal() {
+        RegraConversao regra = regra(new BigDecimal("1.00005"));
+        BigDecimal valor = new BigDecimal("123456.789");
+        assertEquals(regra.calcularPontos(valor), new RegraCompilada(regra).calcularPontos(valor));
+    }
+
+    @Test
+    void overflowLancaExcecao() {
+        assertThrows(ArithmeticException.class,
+                () -> CalculoPontosFixo.pontosBase(Long.MAX_VALUE, MAX_MULTIPLICADOR));
+        assertThrows(ArithmeticException.class,
+                () -> CalculoPontosFixo.pontosComBonus(Long.MAX_VALUE / 2, 30_000));
+    }
+
+    // ---- helpers ----
+
+    private static void verificarPontosBase(long centavos, long multiplicador) {
+        BigDecimal valor = BigDecimal.valueOf(centavos, 2);
+        RegraConversao regra = regra(BigDecimal.valueOf(multiplicador, 4));
+        Long esperado = regra.calcularPontos(valor);
+
+        assertEquals(esperado.longValue(), CalculoPontosFixo.pontosBase(centavos, multiplicador),
+                () -> "valor=" + valor + " multiplicador=" + regra.multiplicador);
+        assertEquals(esperado, new RegraCompilada(regra).calcularPontos(valor),
+                () -> "RegraCompilada valor=" + valor + " multiplicador=" + regra.multiplicador);
+    }
+
+    private static void verificarPontosComBonus(long pontosBase, long extraEscalado) {
+        CampanhaBonus campanha = new CampanhaBonus();
+        campanha.multiplicadorExtra = BigDecimal.valueOf(extraEscalado, 4);
+        Long esperado = campanha.calcularPontosComBonus(pontosBase);
+
+        assertEquals(esperado.longValue(),
+                CalculoPontosFixo.pontosComBonus(pontosBase, CalculoPontosFixo.ESCALA_MULTIPLICADOR + extraEscalado),
+                () -> "pontosBase=" + pontosBase + " extra=" + campanha.multiplicadorExtra);
+        assertEquals(esperado, new CampanhaCompilada(campanha).calcularPontosComBonus(pontosBase),
+                () -> "CampanhaCompilada pontosBase=" + pontosBase + " extra=" + campanha.multiplicadorExtra);
+    }
+
+    private static RegraConversao regra(BigDecimal multiplicador) {
+        RegraConversao r = new RegraConversao();
+        r.multiplicador = multiplicador;
+        return r;
+    }
+
+    /** Mistura valores pequenos (mais comuns) com o domínio inteiro de NUMERIC(12,2). */
+    private static long gerarCentavos(Random random) {
+        switch (random.nextInt(3)) {
+            case 0: return random.nextInt(100_000);
+            case 1: return random.nextInt(100_000_000);
+            default: return Math.floorMod(random.nextLong(), MAX_CENTAVOS + 1);
+        }
+    }
+
+    private static long gerarMultiplicador(Random random) {
+        return random.nextBoolean()
+                ? random.nextInt(100_000)                          // até 9,9999
+                : Math.floorMod(random.nextLong(), MAX_MULTIPLICADOR + 1);
+    }
+}
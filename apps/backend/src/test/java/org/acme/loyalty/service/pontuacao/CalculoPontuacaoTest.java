@@ -0,0 +1,106 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.acme.loyalty.entity.CampanhaBonus;
+import org.acme.loyalty.entity.RegraConversao;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Cálculo único da pontuação: regra → teto mensal → campanha (segmentos) → nível de fidelidade.
+ */
+class CalculoPontuacaoTest {
+
+    private static final LocalDateTime EVENTO = LocalDateTime.of(2024, 6, 15, 12, 0);
+
+    private final CalculoPontuacao calculo = new CalculoPontuacao(
+            RegrasSnapshot.compilar(1L, List.of(regra(1L, "2.0000", 500L))),
+            CalendarioCampanhas.compilar(1L, List.of(campanha(1L, "0.5000", null, 5), campanha(2L, "1.0000", "VIP", 1))),
+            SegmentosUsuarios.carregar(1L, Map.of("VIP", bitmap(20))),
+            new NiveisUsuarios.Construtor(1L, NiveisFidelidade.interpretar("OURO:50000:0.25"))
+                    .adicionar(20L, "OURO")
+                    .construir());
+
+    @Test
+    void aplicaRegraCampanhaENivelSobreOsPontosBase() {
+        CalculoPontuacao.Resultado r = calculo.calcular(new BigDecimal("100.00"), null, null, null, EVENTO, 10L,
+                CalculoPontuacao.SEM_ACUMULADO, CalculoPontuacao.BONUS_INTEGRAL);
+        assertEquals(200L, r.pontosBase);
+        assertEquals(1L, r.campanha.id);   // geral: usuário fora do segmento
+        assertEquals(100L, r.pontosCampanha);
+        assertNull(r.nivel);
+        assertEquals(300L, r.pontosTotais());
+
+        // Usuário do segmento VIP e nível OURO: campanha do segmento e 25% dos pontos base
+        r = calculo.calcular(new BigDecimal("100.00"), null, null, null, EVENTO, 20L,
+                CalculoPontuacao.SEM_ACUMULADO, CalculoPontuacao.BONUS_INTEGRAL);
+        assertEquals(2L, r.campanha.id);
+        assertEquals(200L, r.pontosCampanha);
+        assertEquals("OURO", r.nivel.nome);
+        assertEquals(50L, r.pontosNivel);
+        assertEquals(450L, r.pontosTotais());
+    }
+
+    @Test
+    void tetoMensalLimitaABaseAntesDaCampanha() {
+        CalculoPontuacao.Resultado r = calculo.calcular(new BigDecimal("100.00"), null, null, null, EVENTO, 20L,
+                regra -> 400L, CalculoPontuacao.BONUS_INTEGRAL);
+        assertEquals(200L, r.pontosRegra);
+        assertEquals(400L, r.acumuladoNoMes);
+        assertEquals(100L, r.pontosBase);
+        assertEquals(100L, r.pontosCampanha);
+        assertEquals(25L, r.pontosNivel);
+        assertEquals(225L, r.pontosTotais());
+
+        r = calculo.calcular(new BigDecimal("100.00"), null, null, null, EVENTO, 20L,
+                regra -> 500L, CalculoPontuacao.BONUS_INTEGRAL);
+        assertEquals(1L, r.regra.id);
+        assertNull(r.campanha);
+        assertEquals(0L, r.pontosTotais());
+    }
+
+    @Test
+    void tetoDaCampanhaEsgotadoValeSoABase() {
+        CalculoPontuacao.Resultado r = calculo.calcular(new BigDecimal("100.00"), null, null, null, EVENTO, 10L,
+                CalculoPontuacao.SEM_ACUMULADO, (campanha, pontosBase) -> pontosBase);
+        assertNull(r.campanha);
+        assertEquals(0L, r.pontosCampanha);
+        assertEquals(200L, r.pontosTotais());
+    }
+
+    @Test
+    void semRegraAplicavelNaoPontua() {
+        CalculoPontuacao.Resultado r = calculo.calcular(new BigDecimal("100.00"), null, null, null,
+                LocalDateTime.of(2023, 1, 1, 0, 0), 20L, CalculoPontuacao.SEM_ACUMULADO, CalculoPontuacao.BONUS_INTEGRAL);
+        assertNull(r.regra);
+        assertEquals(0L, r.pontosTotais());
+    }
+
+    private static RegraConversao regra(Long id, String multiplicador, Long tetoMensal) {
+        RegraConversao r = new RegraConversao("Regra " + id, new BigDecimal(multiplicador), null, null, null,
+                LocalDateTime.of(2024, 1, 1, 0, 0), null, 1, tetoMensal);
+        r.id = id;
+        return r;
+    }
+
+    private static CampanhaBonus campanha(Long id, String multiplicadorExtra, String segmento, int prioridade) {
+        CampanhaBonus c = new CampanhaBonus("Campanha " + id, new BigDecimal(multiplicadorExtra),
+                LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30), segmento, prioridade, null);
+        c.id = id;
+        return c;
+    }
+
+    private static byte[] bitmap(int... ids) {
+        BitSet b = new BitSet();
+        for (int id : ids) b.set(id);
+        return SegmentosUsuarios.comprimir(b);
+    }
+}
@@ -0,0 +1,122 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.acme.loyalty.entity.CampanhaBonus;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Índice de faixas do calendário de campanhas (17.5) e critério de desempate:
+ * prioridade ASC (0 = maior prioridade), multiplicador_extra DESC, id ASC — o mesmo no online e no lote.
+ */
+class CalendarioCampanhasTest {
+
+    @Test
+    void campanhaSobrepostaPrevaleceSoNaInterseccao() {
+        CalendarioCampanhas calendario = CalendarioCampanhas.compilar(1L, List.of(
+                campanha(1L, "0.5000", dia(6, 1), dia(6, 30), null, 5),
+                campanha(2L, "0.2000", dia(6, 10), dia(6, 20), null, 1)));
+
+        assertEquals(4, calendario.quantidadeFaixas());
+        assertEquals(1L, melhor(calendario, dia(6, 9)));
+        assertEquals(2L, melhor(calendario, dia(6, 10)));
+        assertEquals(2L, melhor(calendario, dia(6, 20)));
+        assertEquals(1L, melhor(calendario, dia(6, 21)));
+        assertEquals(1L, melhor(calendario, dia(6, 30)));
+    }
+
+    @Test
+    void intervalosQueSeTocamNoMesmoDia() {
+        CalendarioCampanhas calendario = CalendarioCampanhas.compilar(1L, List.of(
+                campanha(1L, "0.5000", dia(7, 1), dia(7, 15), null, 3),
+                campanha(2L, "0.5000", dia(7, 15), dia(7, 31), null, 2),
+                campanha(3L, "0.5000", dia(8, 1), dia(8, 10), null, 9)));
+
+        assertEquals(1L, melhor(calendario, dia(7, 14)));
+        assertEquals(2L, melhor(calendario, dia(7, 15)));  // as duas vigentes: vence a de prioridade 2
+        assertEquals(2L, melhor(calendario, dia(7, 31)));
+        assertEquals(3L, melhor(calendario, dia(8, 1)));   // fim + 1 de uma = início da outra, sem lacuna
+        assertEquals(3L, melhor(calendario, dia(8, 10)));
+    }
+
+    @Test
+    void prioridadeAntesDoMultiplicadorDepoisId() {
+        // Menor prioridade vence mesmo com multiplicador menor (o lote escolhia a de maior número)
+        CalendarioCampanhas calendario = CalendarioCampanhas.compilar(1L, List.of(
+                campanha(1L, "2.0000", dia(6, 1), dia(6, 30), null, 5),
+                campanha(2L, "0.1000", dia(6, 1), dia(6, 30), null, 0)));
+        assertEquals(2L, melhor(calendario, dia(6, 15)));
+
+        // Mesma prioridade: maior multiplicador_extra
+        calendario = CalendarioCampanhas.compilar(1L, List.of(
+                campanha(1L, "0.5000", dia(6, 1), dia(6, 30), null, 1),
+                campanha(2L, "1.0000", dia(6, 1), dia(6, 30), null, 1)));
+        assertEquals(2L, melhor(calendario, dia(6, 15)));
+
+        // Empate completo: menor id, independente da ordem de carga
+        calendario = CalendarioCampanhas.compilar(1L, List.of(
+                campanha(9L, "1.0000", dia(6, 1), dia(6, 30), null, 1),
+                campanha(4L, "1.0000", dia(6, 1), dia(6, 30), null, 1)));
+        assertEquals(4L, melhor(calendario, dia(6, 15)));
+    }
+
+    @Test
+    void antesDaPrimeiraEDepoisDaUltimaFaixa() {
+        CalendarioCampanhas calendario = CalendarioCampanhas.compilar(1L, List.of(
+                campanha(1L, "0.5000", dia(6, 1), dia(6, 30), null, 1)));
+
+        assertNull(melhor(calendario, dia(5, 31)));
+        assertNull(melhor(calendario, dia(7, 1)));
+        assertNull(melhor(calendario, null));
+        assertNull(CalendarioCampanhas.compilar(1L, List.of()).melhorCampanha(dia(6, 15), null));
+
+        calendario = CalendarioCampanhas.compilar(1L, List.of(
+                campanha(1L, "0.5000", dia(6, 1), null, null, 1)));
+        assertEquals(1L, melhor(calendario, LocalDate.of(2099, 12, 31)));
+    }
+
+    @Test
+    void segmentoDoUsuarioConcorreComAsGerais() {
+        CalendarioCampanhas calendario = CalendarioCampanhas.compilar(1L, List.of(
+                campanha(1L, "0.5000", dia(6, 1), dia(6, 30), null, 2),
+                campanha(2L, "1.0000", dia(6, 1), dia(6, 30), "VIP", 1),
+                campanha(3L, "3.0000", dia(6, 1), dia(6, 30), "NOVOS", 4)));
+        SegmentosUsuarios segmentos = SegmentosUsuarios.carregar(1L, Map.of("VIP", bitmap(20), "NOVOS", bitmap(20, 30)));
+
+        assertEquals(2L, calendario.melhorCampanha(dia(6, 15), 20L, segmentos).id);
+        assertEquals(1L, calendario.melhorCampanha(dia(6, 15), 30L, segmentos).id); // geral tem prioridade 2 < 4
+        assertEquals(1L, calendario.melhorCampanha(dia(6, 15), 10L, segmentos).id);
+        assertEquals(1L, calendario.melhorCampanha(dia(6, 15), null, segmentos).id);
+        assertNull(calendario.melhorCampanha(dia(7, 1), 20L, segmentos));
+    }
+
+    private static Long melhor(CalendarioCampanhas calendario, LocalDate data) {
+        CampanhaCompilada c = calendario.melhorCampanha(data, null);
+        return c != null ? c.id : null;
+    }
+
+    private static LocalDate dia(int mes, int dia) {
+        return LocalDate.of(2024, mes, dia);
+    }
+
+    private static CampanhaBonus campanha(Long id, String multiplicadorExtra, LocalDate ini, LocalDate fim,
+                                          String segmento, int prioridade) {
+        CampanhaBonus c = new CampanhaBonus("Campanha " + id, new BigDecimal(multiplicadorExtra), ini, fim,
+                segmento, prioridade, null);
+        c.id = id;
+        return c;
+    }
+
+    private static byte[] bitmap(int... ids) {
+        BitSet b = new BitSet();
+        for (int id : ids) b.set(id);
+        return SegmentosUsuarios.comprimir(b);
+    }
+}
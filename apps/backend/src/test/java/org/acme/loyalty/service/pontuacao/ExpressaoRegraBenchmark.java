@@ -0,0 +1,119 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.acme.loyalty.entity.RegraConversao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do escopo da regra por transação: expressão compilada ({@link ExpressaoRegra}) x campos fixos
+ * de {@link RegraCompilada} (mcc_regex via {@link MccTabela}, categoria, parceiro), com o mesmo critério:
+ * MCC 5812..5814, categoria RESTAURANTE e parceiro 7.
+ * Não roda no surefire (não termina em Test). Para executar:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main ExpressaoRegraBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressaoRegraBenchmark {
+
+    private static final int ENTRADAS = 1024;
+    private static final String[] CATEGORIAS = { "RESTAURANTE", "restaurante", "BAR", "MERCADO" };
+    private static final LocalDateTime DATA = LocalDateTime.of(2025, 3, 15, 20, 30);
+
+    private RegraCompilada camposFixos;
+    private RegraCompilada comExpressao;
+    private ExpressaoRegra.Condicao condicao;
+
+    private long[] centavos;
+    private int[] mccs;
+    private String[] categorias;
+    private Long[] parceiros;
+
+    @Setup
+    public void preparar() {
+        camposFixos = regra("^58(1[2-4])$", "RESTAURANTE", 7L, null);
+        comExpressao = regra(null, null, null, "mcc in (5812, 5813, 5814) and categoria = 'RESTAURANTE' and parceiro = 7");
+        condicao = ExpressaoRegra.compilar(comExpressao.expressao);
+
+        // Mistura de transações que casam e que param em cada um dos critérios
+        SplittableRandom r = new SplittableRandom(42);
+        centavos = new long[ENTRADAS];
+        mccs = new int[ENTRADAS];
+        categorias = new String[ENTRADAS];
+        parceiros = new Long[ENTRADAS];
+        for (int i = 0; i < ENTRADAS; i++) {
+            centavos[i] = r.nextLong(100, 1_000_000);
+            mccs[i] = 5810 + r.nextInt(8);
+            categorias[i] = CATEGORIAS[r.nextInt(CATEGORIAS.length)];
+            parceiros[i] = r.nextBoolean() ? 7L : (long) r.nextInt(1, 20);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRADAS)
+    public int camposFixos() {
+        int aceitas = 0;
+        for (int i = 0; i < ENTRADAS; i++) {
+            if (camposFixos.aplicaParaMcc(mccs[i])
+                    && camposFixos.aplicaSemMcc(centavos[i], mccs[i], categorias[i], parceiros[i], DATA)) aceitas++;
+        }
+        return aceitas;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRADAS)
+    public int expressao() {
+        int aceitas = 0;
+        for (int i = 0; i < ENTRADAS; i++) {
+            if (comExpressao.aplicaParaMcc(mccs[i])
+                    && comExpressao.aplicaSemMcc(centavos[i], mccs[i], categorias[i], parceiros[i], DATA)) aceitas++;
+        }
+        return aceitas;
+    }
+
+    /** Só o predicado compilado, sem vigência nem campos fixos. */
+    @Benchmark
+    @OperationsPerInvocation(ENTRADAS)
+    public int condicaoIsolada() {
+        int aceitas = 0;
+        for (int i = 0; i < ENTRADAS; i++) {
+            if (condicao.testar(centavos[i], mccs[i], categorias[i], parceiros[i], DATA)) aceitas++;
+        }
+        return aceitas;
+    }
+
+    private static RegraCompilada regra(String mccRegex, String categoria, Long parceiroId, String expressao) {
+        RegraConversao r = new RegraConversao("Benchmark", BigDecimal.ONE, mccRegex, categoria, parceiroId,
+                LocalDateTime.of(2025, 1, 1, 0, 0), null, 1, null);
+        r.id = 1L;
+        r.expressao = expressao;
+        return new RegraCompilada(r);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ExpressaoRegraBenchmark.class.getSimpleName()).build()).run();
+    }
+}
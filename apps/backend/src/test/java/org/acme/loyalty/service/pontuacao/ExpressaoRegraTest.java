@@ -0,0 +1,123 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Semântica da DSL de regra_conversao.expressao e ausência de alocação na avaliação.
+ */
+class ExpressaoRegraTest {
+
+    private static final LocalDateTime SABADO_20H = LocalDateTime.of(2025, 3, 15, 20, 30);
+    private static final LocalDateTime TERCA_10H = LocalDateTime.of(2025, 3, 11, 10, 0);
+    private static final int MCC_5812 = MccTabela.indice("5812");
+
+    @Test
+    void expressaoVaziaNaoGeraCondicao() {
+        assertNull(ExpressaoRegra.compilar(null));
+        assertNull(ExpressaoRegra.compilar("   "));
+    }
+
+    @Test
+    void combinaValorCategoriaEFimDeSemana() {
+        ExpressaoRegra.Condicao c = ExpressaoRegra.compilar(
+            "valor > 500 and categoria in ('RESTAURANTE', 'BAR') and fim_de_semana");
+
+        assertTrue(c.testar(50_001, MCC_5812, "restaurante", null, SABADO_20H));
+        assertFalse(c.testar(50_000, MCC_5812, "RESTAURANTE", null, SABADO_20H));
+        assertFalse(c.testar(90_000, MCC_5812, "MERCADO", null, SABADO_20H));
+        assertFalse(c.testar(90_000, MCC_5812, "BAR", null, TERCA_10H));
+    }
+
+    @Test
+    void precedenciaNotAndOr() {
+        ExpressaoRegra.Condicao c = ExpressaoRegra.compilar("mcc = 5812 or parceiro = 7 and not hora < 18");
+
+        assertTrue(c.testar(100, MCC_5812, null, null, TERCA_10H));
+        assertTrue(c.testar(100, -1, null, 7L, SABADO_20H));
+        assertFalse(c.testar(100, -1, null, 7L, TERCA_10H));
+
+        ExpressaoRegra.Condicao agrupada = ExpressaoRegra.compilar("(mcc = '5812' or parceiro = 7) and not hora < 18");
+        assertFalse(agrupada.testar(100, MCC_5812, null, null, TERCA_10H));
+        assertTrue(agrupada.testar(100, MCC_5812, null, null, SABADO_20H));
+    }
+
+    @Test
+    void diaSemanaPorNumeroOuNome() {
+        ExpressaoRegra.Condicao c = ExpressaoRegra.compilar("dia_semana in (SAB, 7) and valor <= 10.50");
+
+        assertTrue(c.testar(1_050, -1, null, null, SABADO_20H));
+        assertFalse(c.testar(1_051, -1, null, null, SABADO_20H));
+        assertFalse(c.testar(100, -1, null, null, TERCA_10H));
+    }
+
+    @Test
+    void atributoAusenteNuncaSatisfazComparacao() {
+        assertFalse(ExpressaoRegra.compilar("parceiro != 7").testar(100, -1, null, null, TERCA_10H));
+        assertFalse(ExpressaoRegra.compilar("categoria != 'BAR'").testar(100, -1, null, null, TERCA_10H));
+        assertFalse(ExpressaoRegra.compilar("mcc != 5812").testar(100, -1, null, null, TERCA_10H));
+        assertTrue(ExpressaoRegra.compilar("not parceiro = 7").testar(100, -1, null, null, TERCA_10H));
+    }
+
+    @Test
+    void expressoesInvalidasSaoRejeitadas() {
+        String[] invalidas = {
+            "valor >",
+            "valor > 10.001",
+            "desconto > 1",
+            "categoria > 'BAR'",
+            "mcc = 58120",
+            "hora = 24",
+            "dia_semana = FERIADO",
+            "(valor > 1",
+            "valor > 1 valor < 2",
+            "categoria = 'BAR",
+            "valor ! 1",
+            "valor > 1 $",
+            "(".repeat(ExpressaoRegra.PROFUNDIDADE_MAXIMA + 2) + "valor > 1" + ")".repeat(ExpressaoRegra.PROFUNDIDADE_MAXIMA + 2),
+            "valor > 1 and " + "x".repeat(ExpressaoRegra.TAMANHO_MAXIMO)
+        };
+        for (String e : invalidas) {
+            assertThrows(IllegalArgumentException.class, () -> ExpressaoRegra.validar(e), e);
+        }
+    }
+
+    @Test
+    void avaliacaoNaoAloca() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(mx.isThreadAllocatedMemorySupported() && mx.isThreadAllocatedMemoryEnabled());
+
+        ExpressaoRegra.Condicao c = ExpressaoRegra.compilar(
+            "valor > 500 and categoria in ('RESTAURANTE', 'BAR') and (fim_de_semana or hora >= 18) "
+            + "and mcc in (5812, 5813, 5814) and not parceiro = 99");
+        Long parceiro = 7L;
+        long tid = Thread.currentThread().getId();
+
+        int aceitas = avaliar(c, parceiro, 200_000); // aquecimento (JIT)
+        long antes = mx.getThreadAllocatedBytes(tid);
+        aceitas += avaliar(c, parceiro, 1_000_000);
+        long alocados = mx.getThreadAllocatedBytes(tid) - antes;
+
+        assertTrue(aceitas > 0);
+        // Margem para ruído da própria medição; uma alocação por avaliação daria >= 16 MB
+        assertTrue(alocados < 64 * 1024, "bytes alocados na avaliação: " + alocados);
+    }
+
+    private static int avaliar(ExpressaoRegra.Condicao c, Long parceiro, int vezes) {
+        int aceitas = 0;
+        for (int i = 0; i < vezes; i++) {
+            LocalDateTime data = (i & 1) == 0 ? SABADO_20H : TERCA_10H;
+            if (c.testar(40_000 + (i & 0xFFFF), MCC_5812 + (i & 3), "BAR", parceiro, data)) aceitas++;
+        }
+        return aceitas;
+    }
+}
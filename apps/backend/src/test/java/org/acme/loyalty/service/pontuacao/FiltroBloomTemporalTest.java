@@ -0,0 +1,68 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Filtro de Bloom temporal: sem falsos negativos na janela, taxa de falsos positivos próxima da configurada
+ * e esquecimento das chaves quando a partição sai da janela.
+ */
+class FiltroBloomTemporalTest {
+
+    private static final long HORA = 3_600_000L;
+    private static final long T0 = 1_700_000_000_000L - (1_700_000_000_000L % HORA); // início de partição
+
+    @Test
+    void chavesAdicionadasSaoEncontradasEFalsosPositivosFicamNaTaxa() {
+        FiltroBloomTemporal f = new FiltroBloomTemporal(4, HORA, 10_000, 0.01);
+        LocalDateTime evento = LocalDateTime.of(2025, 9, 10, 8, 0);
+        for (long cartao = 1; cartao <= 10_000; cartao++) {
+            f.adicionar(IdempotenciaTransacoes.hash(cartao, evento, "AUT" + cartao), T0);
+        }
+        for (long cartao = 1; cartao <= 10_000; cartao++) {
+            assertTrue(f.talvezContenha(IdempotenciaTransacoes.hash(cartao, evento, "AUT" + cartao), T0 + 1));
+        }
+
+        int falsos = 0;
+        for (long cartao = 1; cartao <= 10_000; cartao++) {
+            if (f.talvezContenha(IdempotenciaTransacoes.hash(cartao, evento, "OUTRA" + cartao), T0 + 1)) falsos++;
+        }
+        assertTrue(falsos < 200, "falsos positivos: " + falsos); // configurado 1% (100 esperados)
+    }
+
+    @Test
+    void chaveSaiDaJanelaQuandoAParticaoEhReutilizada() {
+        FiltroBloomTemporal f = new FiltroBloomTemporal(2, HORA, 1_000, 0.01);
+        long chave = IdempotenciaTransacoes.hash(1L, LocalDateTime.of(2025, 1, 1, 0, 0), "X");
+
+        f.adicionar(chave, T0);
+        assertTrue(f.talvezContenha(chave, T0 + HORA + 1));       // ainda na janela (2 partições)
+        assertFalse(f.talvezContenha(chave, T0 + 2 * HORA + 1));  // partição fora da janela
+
+        f.adicionar(IdempotenciaTransacoes.hash(2L, LocalDateTime.of(2025, 1, 1, 0, 0), "X"), T0 + 2 * HORA);
+        assertFalse(f.talvezContenha(chave, T0 + 2 * HORA + 1));  // partição reutilizada foi zerada
+    }
+
+    @Test
+    void autorizacaoVaziaENulaSaoAMesmaChave() {
+        LocalDateTime evento = LocalDateTime.of(2025, 9, 10, 8, 0);
+        assertEquals(IdempotenciaTransacoes.hash(1L, evento, null), IdempotenciaTransacoes.hash(1L, evento, ""));
+        assertEquals(IdempotenciaTransacoes.hash(1L, evento, " "), IdempotenciaTransacoes.hash(1L, evento, ""));
+        assertTrue(IdempotenciaTransacoes.hash(1L, evento, "A") != IdempotenciaTransacoes.hash(2L, evento, "A"));
+    }
+
+    @Test
+    void parametrosInvalidosSaoRejeitados() {
+        assertThrows(IllegalArgumentException.class, () -> new FiltroBloomTemporal(0, HORA, 1, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new FiltroBloomTemporal(1, HORA, 1, 1.0));
+        FiltroBloomTemporal f = new FiltroBloomTemporal(1, HORA, 1_000, 0.01);
+        assertEquals(16_384L, f.tamanhoParticao()); // 9586 bits arredondados para potência de 2
+        assertTrue(f.funcoes() >= 7);
+    }
+}
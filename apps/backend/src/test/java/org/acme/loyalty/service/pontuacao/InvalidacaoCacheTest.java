@@ -0,0 +1,46 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Payload das notificações de invalidação: ida e volta pelo formato {@code <entidade>:<id>}
+ * e seleção dos caches afetados (ressincronização completa afeta todos).
+ */
+class InvalidacaoCacheTest {
+
+    @Test
+    void payloadIdaEVolta() {
+        InvalidacaoCache evento = InvalidacaoCache.doPayload(new InvalidacaoCache(InvalidacaoCache.REGRA, "42").payload());
+        assertEquals(InvalidacaoCache.REGRA, evento.entidade);
+        assertEquals("42", evento.id);
+
+        InvalidacaoCache semId = InvalidacaoCache.doPayload(new InvalidacaoCache(InvalidacaoCache.CAMPANHA, null).payload());
+        assertEquals(InvalidacaoCache.CAMPANHA, semId.entidade);
+        assertNull(semId.id);
+        assertNull(InvalidacaoCache.doPayload("segmento:").id);
+    }
+
+    @Test
+    void payloadVazioForcaRessincronizacao() {
+        assertTrue(InvalidacaoCache.doPayload(null).afeta(InvalidacaoCache.REGRA));
+        assertTrue(InvalidacaoCache.doPayload(" ").afeta(InvalidacaoCache.SEGMENTO));
+    }
+
+    @Test
+    void afetaSomenteAEntidadeNotificada() {
+        InvalidacaoCache evento = InvalidacaoCache.doPayload("campanha:7");
+        assertTrue(evento.afeta(InvalidacaoCache.CAMPANHA));
+        assertFalse(evento.afeta(InvalidacaoCache.REGRA));
+        assertFalse(evento.afeta(InvalidacaoCache.SEGMENTO));
+
+        InvalidacaoCache todas = InvalidacaoCache.todas();
+        assertTrue(todas.afeta(InvalidacaoCache.REGRA));
+        assertTrue(todas.afeta(InvalidacaoCache.CAMPANHA));
+        assertTrue(todas.afeta(InvalidacaoCache.RECOMPENSA));
+    }
+}
@@ -0,0 +1,95 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.acme.loyalty.entity.RegraConversao;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Expansão de mcc_regex na tabela 0000..9999 e seleção de candidatas por MCC no snapshot.
+ */
+class MccTabelaTest {
+
+    private static final LocalDateTime EVENTO = LocalDateTime.of(2025, 3, 11, 10, 0);
+
+    @Test
+    void regexCasaExatamenteOsMccsEsperados() {
+        BitSet bits = MccTabela.expandir("^58(1[2-4])$");
+
+        assertEquals(3, bits.cardinality());
+        assertTrue(bits.get(5812));
+        assertTrue(bits.get(5813));
+        assertTrue(bits.get(5814));
+    }
+
+    @Test
+    void mccComZerosAEsquerdaNaoNumericoOuNulo() {
+        assertEquals(742, MccTabela.indice("0742"));
+        assertEquals(0, MccTabela.indice("0000"));
+        assertEquals(-1, MccTabela.indice("742"));
+        assertEquals(-1, MccTabela.indice("05812"));
+        assertEquals(-1, MccTabela.indice("58A3"));
+        assertEquals(-1, MccTabela.indice(" 581"));
+        assertEquals(-1, MccTabela.indice(""));
+        assertEquals(-1, MccTabela.indice(null));
+
+        // Zeros à esquerda fazem parte do MCC: "^07" casa 0700..0799, não 7
+        BitSet bits = MccTabela.expandir("^07\\d{2}$");
+        assertEquals(100, bits.cardinality());
+        assertTrue(bits.get(MccTabela.indice("0742")));
+    }
+
+    @Test
+    void validarRejeitaRegexInvalidaOuSemMcc() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> MccTabela.validar("58[12"));
+        assertTrue(e.getMessage().startsWith("mccRegex inválido"));
+        assertThrows(IllegalArgumentException.class, () -> MccTabela.validar("^58[A-Z]{2}$"));
+        assertThrows(IllegalArgumentException.class, () -> MccTabela.validar("^\\d{5}$"));
+
+        assertDoesNotThrow(() -> MccTabela.validar(null));
+        assertDoesNotThrow(() -> MccTabela.validar("  "));
+        assertDoesNotThrow(() -> MccTabela.validar(" ^58(1[2-4])$ "));
+    }
+
+    @Test
+    void snapshotSelecionaPorMccESemMccSoRegrasSemRegex() {
+        RegrasSnapshot snapshot = RegrasSnapshot.compilar(1L, List.of(
+                regra(1L, "^58(1[2-4])$", 10),
+                regra(2L, "^07\\d{2}$", 10),
+                regra(3L, null, 1)));
+
+        assertEquals(1L, selecionar(snapshot, "5812"));
+        assertEquals(1L, selecionar(snapshot, "5814"));
+        assertEquals(3L, selecionar(snapshot, "5811"));
+        assertEquals(3L, selecionar(snapshot, "5815"));
+        assertEquals(2L, selecionar(snapshot, "0742"));
+        assertEquals(2, snapshot.quantidadeCandidatas("5813"));
+
+        // Fora do formato de 4 dígitos: apenas regras sem mcc_regex
+        assertEquals(3L, selecionar(snapshot, "742"));
+        assertEquals(3L, selecionar(snapshot, "58A3"));
+        assertEquals(3L, selecionar(snapshot, null));
+        assertEquals(1, snapshot.quantidadeCandidatas(null));
+        assertEquals(1, snapshot.quantidadeCandidatas("58A3"));
+    }
+
+    private static Long selecionar(RegrasSnapshot snapshot, String mcc) {
+        RegraCompilada r = snapshot.selecionarRegraMaisPrioritaria(new BigDecimal("100.00"), mcc, null, null, EVENTO);
+        return r != null ? r.id : null;
+    }
+
+    private static RegraConversao regra(Long id, String mccRegex, int prioridade) {
+        RegraConversao r = new RegraConversao("Regra " + id, BigDecimal.ONE, mccRegex, null, null,
+                LocalDateTime.of(2025, 1, 1, 0, 0), null, prioridade, null);
+        r.id = id;
+        return r;
+    }
+}
@@ -0,0 +1,95 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Níveis de fidelidade: anel de gasto dos últimos 12 meses, interpretação da definição
+ * e snapshot usuário -> nível usado na pontuação.
+ */
+class NiveisUsuariosTest {
+
+    private static final NiveisFidelidade DEFINICAO =
+            NiveisFidelidade.interpretar("prata:10000:0.10, OURO:50000:0.25, BLACK:150000:0.5");
+
+    @Test
+    void anelSomaApenasAJanelaDe12Meses() {
+        AnelGastoMensal anel = new AnelGastoMensal(202406);
+        assertEquals(202307, AnelGastoMensal.inicioJanela(202406));
+        assertEquals(202301, AnelGastoMensal.inicioJanela(202312));
+
+        anel.adicionar(202306, 999_00L);   // fora da janela: ignorado
+        anel.adicionar(202307, 100_00L);
+        anel.adicionar(202401, 200_00L);
+        anel.adicionar(202406, 300_00L);
+        anel.adicionar(202406, -50_00L);   // estorno no mês
+        assertEquals(550_00L, anel.total());
+        assertEquals(250_00L, anel.noMes(202406));
+        assertEquals(0L, anel.noMes(202306));
+
+        // Virada do mês: julho/2023 sai da janela, julho/2024 ocupa a mesma posição
+        anel.rolarPara(202407);
+        assertEquals(450_00L, anel.total());
+        assertEquals(0L, anel.noMes(202307));
+        anel.adicionar(202407, 10_00L);
+        assertEquals(460_00L, anel.total());
+
+        // Estornos acima do gasto não deixam o total negativo
+        anel.adicionar(202407, -1_000_00L);
+        assertEquals(0L, anel.total());
+    }
+
+    @Test
+    void definicaoAvaliaMaiorNivelAtingido() {
+        assertEquals(3, DEFINICAO.niveis().size());
+        assertEquals("PRATA", DEFINICAO.niveis().get(0).nome);
+        assertNull(DEFINICAO.avaliar(0L));
+        assertNull(DEFINICAO.avaliar(9_999_99L));
+        assertEquals("PRATA", DEFINICAO.avaliar(10_000_00L).nome);
+        assertEquals("OURO", DEFINICAO.avaliar(149_999_99L).nome);
+        assertEquals("BLACK", DEFINICAO.avaliar(Long.MAX_VALUE).nome);
+        assertEquals("OURO", DEFINICAO.porNome(" ouro ").nome);
+        assertNull(DEFINICAO.porNome("BRONZE"));
+        assertTrue(NiveisFidelidade.interpretar("  ").isVazia());
+    }
+
+    @Test
+    void definicaoInvalidaEhRejeitada() {
+        assertThrows(IllegalArgumentException.class, () -> NiveisFidelidade.interpretar("PRATA:10000"));
+        assertThrows(IllegalArgumentException.class, () -> NiveisFidelidade.interpretar("OURO:50000:0.25,PRATA:10000:0.10"));
+        assertThrows(IllegalArgumentException.class, () -> NiveisFidelidade.interpretar("PRATA:10000:0.123456"));
+        assertThrows(IllegalArgumentException.class, () -> NiveisFidelidade.interpretar("PRATA:10000:-0.1"));
+        assertThrows(IllegalArgumentException.class, () -> NiveisFidelidade.interpretar("PRATA:abc:0.1"));
+        assertThrows(IllegalArgumentException.class, () -> NiveisFidelidade.interpretar("PRATA:100:0.1,prata:200:0.2"));
+    }
+
+    @Test
+    void snapshotAplicaBonusDoNivel() {
+        NiveisUsuarios snapshot = new NiveisUsuarios.Construtor(7L, DEFINICAO)
+                .adicionar(30L, "BLACK")
+                .adicionar(10L, "PRATA")
+                .adicionar(20L, "OURO")
+                .adicionar(40L, "DIAMANTE") // nível que não existe mais na definição: base
+                .construir();
+
+        assertEquals(7L, snapshot.versao);
+        assertEquals("PRATA", snapshot.nivel(10L).nome);
+        assertEquals("OURO", snapshot.nivel(20L).nome);
+        assertEquals("BLACK", snapshot.nivel(30L).nome);
+        assertNull(snapshot.nivel(40L));
+        assertNull(snapshot.nivel(99L));
+        assertNull(snapshot.nivel(null));
+
+        // floor(pontos_base * multiplicador_extra)
+        assertEquals(10L, snapshot.bonus(10L, 100L));
+        assertEquals(2L, snapshot.bonus(20L, 11L));
+        assertEquals(50L, snapshot.bonus(30L, 100L));
+        assertEquals(0L, snapshot.bonus(99L, 100L));
+        assertEquals(0L, snapshot.bonus(30L, 0L));
+        assertEquals(0L, NiveisUsuarios.VAZIO.bonus(30L, 100L));
+    }
+}
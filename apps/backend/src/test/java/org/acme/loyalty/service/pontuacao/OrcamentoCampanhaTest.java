@@ -0,0 +1,128 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Propriedade: sob concorrência, o bônus concedido nunca passa do teto global
+ * e o teto inteiro pode ser usado (sobras espalhadas nas faixas não viram perda).
+ * O banco é simulado por um contador atômico com o restante do teto.
+ */
+class OrcamentoCampanhaTest {
+
+    private static final long CAMPANHA_ID = 1L;
+
+    /** Teto global simulado: entrega o que pedirem até acabar. */
+    private static final class TetoGlobal implements OrcamentoCampanha.FonteFatias {
+        final AtomicLong restante;
+        final AtomicLong idas = new AtomicLong();
+
+        TetoGlobal(long teto) {
+            this.restante = new AtomicLong(teto);
+        }
+
+        @Override
+        public long reservarFatia(long campanhaId, long pontos) {
+            idas.incrementAndGet();
+            for (;;) {
+                long r = restante.get();
+                long concedido = Math.min(r, pontos);
+                if (restante.compareAndSet(r, r - concedido)) return concedido;
+            }
+        }
+    }
+
+    @Test
+    void concorrenciaNaoUltrapassaTeto() throws Exception {
+        long teto = 1_000_000L;
+        TetoGlobal banco = new TetoGlobal(teto);
+        OrcamentoCampanha orcamento = new OrcamentoCampanha(CAMPANHA_ID, teto, 8);
+
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Long>> resultados = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final long bonus = 1 + (t % 7); // bônus de tamanhos diferentes
+            resultados.add(pool.submit(() -> {
+                largada.await();
+                long concedido = 0;
+                for (int i = 0; i < 50_000; i++) {
+                    if (orcamento.reservar(bonus, banco, 5_000)) concedido += bonus;
+                }
+                return concedido;
+            }));
+        }
+        largada.countDown();
+        long totalConcedido = 0;
+        for (Future<Long> f : resultados) totalConcedido += f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertTrue(totalConcedido <= teto, "concedido " + totalConcedido + " > teto " + teto);
+        assertEquals(teto, totalConcedido + orcamento.saldoLocal() + banco.restante.get());
+        assertEquals(totalConcedido, orcamento.consumidoParaSincronizar());
+        assertTrue(banco.idas.get() < 1_000, "idas ao banco: " + banco.idas.get());
+    }
+
+    @Test
+    void tetoInteiroPodeSerUsado() {
+        long teto = 1_000L;
+        TetoGlobal banco = new TetoGlobal(teto);
+        OrcamentoCampanha orcamento = new OrcamentoCampanha(CAMPANHA_ID, teto, 4);
+
+        long concedido = 0;
+        while (orcamento.reservar(3, banco, 64)) concedido += 3;
+        assertEquals(999, concedido);
+        assertTrue(orcamento.reservar(1, banco, 64)); // o último ponto ainda cabe
+        assertTrue(orcamento.isEsgotado());
+        assertFalse(orcamento.reservar(1, banco, 64));
+    }
+
+    @Test
+    void bonusMaiorQueORestanteNaoEConcedidoParcialmente() {
+        TetoGlobal banco = new TetoGlobal(10);
+        OrcamentoCampanha orcamento = new OrcamentoCampanha(CAMPANHA_ID, 10, 2);
+
+        assertTrue(orcamento.reservar(8, banco, 1));
+        assertFalse(orcamento.reservar(5, banco, 1)); // restam 2: nada é concedido
+        assertTrue(orcamento.reservar(2, banco, 1));
+        assertEquals(10, orcamento.consumidoParaSincronizar());
+    }
+
+    @Test
+    void liberarDevolveAoSaldoLocal() {
+        TetoGlobal banco = new TetoGlobal(100);
+        OrcamentoCampanha orcamento = new OrcamentoCampanha(CAMPANHA_ID, 100, 4);
+
+        assertTrue(orcamento.reservar(100, banco, 10));
+        assertFalse(orcamento.reservar(1, banco, 10));
+        orcamento.liberar(40); // rollback da pontuação
+        assertTrue(orcamento.comporta(40));
+        assertTrue(orcamento.reservar(40, banco, 10));
+        assertEquals(100, orcamento.consumidoParaSincronizar());
+        assertEquals(0, banco.restante.get());
+    }
+
+    @Test
+    void drenarDevolveSobraEBloqueiaNovasReservas() {
+        TetoGlobal banco = new TetoGlobal(1_000);
+        OrcamentoCampanha orcamento = new OrcamentoCampanha(CAMPANHA_ID, 1_000, 4);
+
+        assertTrue(orcamento.reservar(10, banco, 100));
+        assertEquals(90, orcamento.drenar());
+        assertFalse(orcamento.reservar(1, banco, 100));
+        assertEquals(900, banco.restante.get());
+    }
+}
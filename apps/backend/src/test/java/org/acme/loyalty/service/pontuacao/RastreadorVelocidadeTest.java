@@ -0,0 +1,100 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rastreador de velocidade: anéis de baldes por cartão, limites por janela e substituição
+ * do cartão de uso mais antigo quando o conjunto enche.
+ */
+class RastreadorVelocidadeTest {
+
+    private static final long MIN = 60_000L;
+    private static final long T0 = 1_700_000_000_000L - (1_700_000_000_000L % (10 * MIN)); // início de balde
+
+    private static RastreadorVelocidade rastreador(int capacidade) {
+        return new RastreadorVelocidade(capacidade, 4,
+                new RastreadorVelocidade.Janela("1m", MIN, 6, 3, 0),
+                new RastreadorVelocidade.Janela("1h", 60 * MIN, 12, 0, 100_00L));
+    }
+
+    @Test
+    void excedeQuantidadeNaJanelaCurtaEVoltaAoNormalQuandoElaDesliza() {
+        RastreadorVelocidade r = rastreador(1024);
+
+        assertEquals(0, r.registrar(1L, 10_00L, T0));
+        assertEquals(0, r.registrar(1L, 10_00L, T0 + 5_000));
+        assertEquals(0, r.registrar(1L, 10_00L, T0 + 20_000));
+        assertEquals(1, r.registrar(1L, 10_00L, T0 + 30_000)); // 4ª em 1 min: bit 0 (quantidade, janela 0)
+        assertEquals(4, r.quantidade(1L, 0, T0 + 30_000));
+
+        // Outro cartão não é afetado
+        assertEquals(0, r.registrar(2L, 10_00L, T0 + 30_000));
+
+        // Dois minutos depois a janela de 1 min esvaziou; a de 1 h ainda soma tudo
+        assertEquals(0, r.registrar(1L, 10_00L, T0 + 2 * MIN));
+        assertEquals(1, r.quantidade(1L, 0, T0 + 2 * MIN));
+        assertEquals(50_00L, r.centavos(1L, 1, T0 + 2 * MIN));
+        assertEquals(0L, r.quantidade(99L, 0, T0));
+    }
+
+    @Test
+    void excedeValorNaJanelaLonga() {
+        RastreadorVelocidade r = rastreador(1024);
+
+        assertEquals(0, r.registrar(7L, 60_00L, T0));
+        int violacoes = r.registrar(7L, 50_00L, T0 + 30 * MIN); // 110,00 > 100,00 em 1 h: bit 3
+        assertEquals(1 << 3, violacoes);
+        assertTrue(r.descrever(violacoes).contains("1h: valor acima de 100.00"));
+
+        // Mais de 1 h depois o primeiro registro saiu da janela
+        assertEquals(0, r.registrar(7L, 10_00L, T0 + 65 * MIN));
+        assertEquals(60_00L, r.centavos(7L, 1, T0 + 65 * MIN));
+    }
+
+    @Test
+    void desfazerRetiraORegistroDasJanelasAindaAbertas() {
+        RastreadorVelocidade r = rastreador(1024);
+
+        r.registrar(3L, 40_00L, T0);
+        r.registrar(3L, 30_00L, T0 + 2 * MIN);
+        r.desfazer(3L, 30_00L, T0 + 2 * MIN); // rollback da transação que registrou
+        assertEquals(1L, r.quantidade(3L, 1, T0 + 2 * MIN));
+        assertEquals(40_00L, r.centavos(3L, 1, T0 + 2 * MIN));
+        assertEquals(0L, r.quantidade(3L, 0, T0 + 2 * MIN));
+
+        // Registro que já saiu da janela de 1 min só é desfeito na de 1 h; cartão não rastreado é ignorado
+        r.registrar(3L, 10_00L, T0 + 3 * MIN);
+        r.desfazer(3L, 40_00L, T0);
+        r.desfazer(99L, 10_00L, T0);
+        assertEquals(1L, r.quantidade(3L, 0, T0 + 3 * MIN));
+        assertEquals(10_00L, r.centavos(3L, 1, T0 + 3 * MIN));
+    }
+
+    @Test
+    void capacidadeFixaSubstituiCartaoDeUsoMaisAntigo() {
+        RastreadorVelocidade r = rastreador(RastreadorVelocidade.VIAS); // um único conjunto
+        assertEquals(RastreadorVelocidade.VIAS, r.capacidade());
+
+        for (long cartao = 1; cartao <= RastreadorVelocidade.VIAS; cartao++) {
+            r.registrar(cartao, 1_00L, T0 + cartao);
+        }
+        r.registrar(1L, 1_00L, T0 + 100); // cartão 1 volta a ser o mais recente
+        assertEquals(RastreadorVelocidade.VIAS, r.cartoesAtivos(T0 + 100));
+
+        r.registrar(100L, 1_00L, T0 + 200); // conjunto cheio: substitui o cartão 2 (uso mais antigo)
+        assertEquals(0L, r.quantidade(2L, 0, T0 + 200));
+        assertEquals(2L, r.quantidade(1L, 0, T0 + 200));
+        assertEquals(1L, r.quantidade(100L, 0, T0 + 200));
+    }
+
+    @Test
+    void janelaInvalidaEhRejeitada() {
+        assertThrows(IllegalArgumentException.class, () -> new RastreadorVelocidade.Janela("x", 1000, 7, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new RastreadorVelocidade.Janela("x", 1000, 10, -1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new RastreadorVelocidade(16, 1));
+    }
+}
@@ -0,0 +1,78 @@
+package org.acme.loyalty.service.pontuacao;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.acme.loyalty.dto.RegraConversaoRequestDTO;
+import org.acme.loyalty.dto.RegraConversaoUpdateDTO;
+import org.acme.loyalty.service.RegraConversaoService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * O snapshot corrente reflete criação, alteração e desativação de regras assim que o serviço faz commit.
+ */
+@QuarkusTest
+class RegrasSnapshotHolderTest {
+
+    private static final Long PARCEIRO = 9021L;
+    private static final LocalDateTime EVENTO = LocalDateTime.of(2025, 6, 10, 10, 0);
+
+    @Inject
+    RegrasSnapshotHolder regrasSnapshotHolder;
+
+    @Inject
+    RegraConversaoService regraConversaoService;
+
+    @Test
+    void snapshotAcompanhaCriacaoAlteracaoEDesativacao() {
+        RegrasSnapshot inicial = regrasSnapshotHolder.atual();
+
+        RegraConversaoRequestDTO request = new RegraConversaoRequestDTO();
+        request.nome = "Regra snapshot parceiro " + PARCEIRO;
+        request.multiplicador = new BigDecimal("2.0000");
+        request.prioridade = 200000; // acima das regras dos demais testes
+        request.parceiroId = PARCEIRO;
+        request.vigenciaIni = LocalDateTime.of(2025, 1, 1, 0, 0);
+        Long id = regraConversaoService.criarRegra(request).id;
+
+        RegrasSnapshot aposCriar = regrasSnapshotHolder.atual();
+        assertNotSame(inicial, aposCriar);
+        assertTrue(aposCriar.versao > inicial.versao);
+        RegraCompilada criada = selecionar(aposCriar);
+        assertEquals(id, criada.id);
+        assertEquals(200L, criada.calcularPontos(new BigDecimal("100.00")));
+
+        RegraConversaoUpdateDTO alteracao = new RegraConversaoUpdateDTO();
+        alteracao.multiplicador = new BigDecimal("3.0000");
+        alteracao.vigenciaFim = LocalDateTime.of(2025, 6, 10, 9, 59);
+        regraConversaoService.atualizarRegra(id, alteracao);
+
+        RegrasSnapshot aposAlterar = regrasSnapshotHolder.atual();
+        assertTrue(aposAlterar.versao > aposCriar.versao);
+        assertNotEquals(id, idSelecionado(aposAlterar)); // vigência encerrada antes do evento
+        assertEquals(300L, aposAlterar.selecionarRegraMaisPrioritaria(new BigDecimal("100.00"), null, null, PARCEIRO,
+                LocalDateTime.of(2025, 6, 10, 9, 59)).calcularPontos(new BigDecimal("100.00")));
+
+        regraConversaoService.desativarRegra(id);
+
+        RegrasSnapshot aposDesativar = regrasSnapshotHolder.atual();
+        assertTrue(aposDesativar.versao > aposAlterar.versao);
+        assertTrue(aposDesativar.regras().stream().noneMatch(r -> id.equals(r.id)));
+    }
+
+    private static Long idSelecionado(RegrasSnapshot snapshot) {
+        RegraCompilada r = selecionar(snapshot);
+        return r != null ? r.id : null;
+    }
+
+    private static RegraCompilada selecionar(RegrasSnapshot snapshot) {
+        return snapshot.selecionarRegraMaisPrioritaria(new BigDecimal("100.00"), null, null, PARCEIRO, EVENTO);
+    }
+}
@@ -0,0 +1,107 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.acme.loyalty.entity.RegraConversao;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Seleção da regra no snapshot (17.4): ordem de prioridade, limites da vigência e escopo.
+ */
+class RegrasSnapshotTest {
+
+    private static final BigDecimal VALOR = new BigDecimal("100.00");
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 3, 1, 0, 0);
+    private static final LocalDateTime FIM = LocalDateTime.of(2025, 3, 31, 23, 59, 59);
+    private static final LocalDateTime MEIO = LocalDateTime.of(2025, 3, 15, 12, 0);
+
+    @Test
+    void maiorPrioridadeVenceDepoisEspecificidadeDepoisId() {
+        RegraConversao geral = regra(1L, 5);
+        RegraConversao categoria = regra(2L, 5);
+        categoria.categoria = "RESTAURANTE";
+        RegraConversao parceiro = regra(3L, 5);
+        parceiro.parceiroId = 7L;
+        RegraConversao prioritaria = regra(4L, 9);
+        RegraConversao empatada = regra(5L, 5);
+
+        RegrasSnapshot snapshot = RegrasSnapshot.compilar(1L, List.of(empatada, geral, parceiro, categoria, prioritaria));
+
+        assertEquals(List.of(4L, 3L, 2L, 1L, 5L), snapshot.regras().stream().map(r -> r.id).toList());
+        assertEquals(4L, selecionar(snapshot, "RESTAURANTE", 7L, MEIO));
+
+        snapshot = RegrasSnapshot.compilar(2L, List.of(empatada, geral, parceiro, categoria));
+        assertEquals(3L, selecionar(snapshot, "RESTAURANTE", 7L, MEIO));
+        assertEquals(2L, selecionar(snapshot, "RESTAURANTE", null, MEIO));
+        // Mesma prioridade e especificidade: menor id
+        assertEquals(1L, selecionar(snapshot, null, null, MEIO));
+    }
+
+    @Test
+    void vigenciaIncluiOsDoisLimites() {
+        RegrasSnapshot snapshot = RegrasSnapshot.compilar(1L, List.of(regra(1L, 1)));
+
+        assertEquals(1L, selecionar(snapshot, null, null, INICIO));
+        assertEquals(1L, selecionar(snapshot, null, null, FIM));
+        assertNull(selecionar(snapshot, null, null, INICIO.minusNanos(1)));
+        assertNull(selecionar(snapshot, null, null, FIM.plusNanos(1)));
+        assertNull(selecionar(snapshot, null, null, null));
+    }
+
+    @Test
+    void vigenciaSemFimNaoExpira() {
+        RegraConversao regra = regra(1L, 1);
+        regra.vigenciaFim = null;
+        RegrasSnapshot snapshot = RegrasSnapshot.compilar(1L, List.of(regra));
+
+        assertEquals(1L, selecionar(snapshot, null, null, LocalDateTime.of(2099, 12, 31, 23, 59)));
+        assertNull(selecionar(snapshot, null, null, INICIO.minusSeconds(1)));
+    }
+
+    @Test
+    void foraDoEscopoCaiParaAProximaRegra() {
+        RegraConversao parceiro = regra(1L, 30);
+        parceiro.parceiroId = 7L;
+        RegraConversao categoria = regra(2L, 20);
+        categoria.categoria = "RESTAURANTE";
+        RegraConversao expressao = regra(3L, 15);
+        expressao.expressao = "valor > 500";
+        RegraConversao vencida = regra(4L, 10);
+        vencida.vigenciaFim = INICIO.plusDays(1);
+        RegraConversao geral = regra(5L, 1);
+
+        RegrasSnapshot snapshot = RegrasSnapshot.compilar(1L, List.of(parceiro, categoria, expressao, vencida, geral));
+
+        assertEquals(1L, selecionar(snapshot, "restaurante", 7L, MEIO));
+        assertEquals(2L, selecionar(snapshot, "restaurante", 8L, MEIO));
+        assertEquals(5L, selecionar(snapshot, "MERCADO", 8L, MEIO));
+        assertEquals(4L, selecionar(snapshot, "MERCADO", 8L, INICIO));
+        assertEquals(3L, snapshot.selecionarRegraMaisPrioritaria(new BigDecimal("500.01"), null, "MERCADO", 8L, MEIO).id);
+    }
+
+    @Test
+    void regraInativaNaoEntraNoSnapshot() {
+        RegraConversao inativa = regra(1L, 100);
+        inativa.ativo = false;
+        RegrasSnapshot snapshot = RegrasSnapshot.compilar(1L, List.of(inativa, regra(2L, 1)));
+
+        assertEquals(1, snapshot.tamanho());
+        assertEquals(2L, selecionar(snapshot, null, null, MEIO));
+    }
+
+    private static Long selecionar(RegrasSnapshot snapshot, String categoria, Long parceiroId, LocalDateTime data) {
+        RegraCompilada r = snapshot.selecionarRegraMaisPrioritaria(VALOR, null, categoria, parceiroId, data);
+        return r != null ? r.id : null;
+    }
+
+    private static RegraConversao regra(Long id, int prioridade) {
+        RegraConversao r = new RegraConversao("Regra " + id, BigDecimal.ONE, null, null, null, INICIO, FIM, prioridade, null);
+        r.id = id;
+        return r;
+    }
+}
@@ -0,0 +1,116 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.acme.loyalty.entity.CampanhaBonus;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bitmaps de segmento: o formato persistido preserva os membros e a escolha de campanha
+ * por usuário considera as campanhas gerais e as de todos os segmentos dos quais ele é membro.
+ */
+class SegmentosUsuariosTest {
+
+    private static final LocalDate HOJE = LocalDate.of(2024, 6, 15);
+
+    @Test
+    void comprimirEDescomprimirPreservaMembros() {
+        Random random = new Random(0x5E6L);
+        BitSet original = new BitSet();
+        for (int i = 0; i < 50_000; i++) {
+            original.set(random.nextInt(2_000_000));
+        }
+        byte[] comprimido = SegmentosUsuarios.comprimir(original);
+        assertEquals(original, SegmentosUsuarios.descomprimir(comprimido));
+        assertEquals(new BitSet(), SegmentosUsuarios.descomprimir(SegmentosUsuarios.comprimir(new BitSet())));
+    }
+
+    @Test
+    void bitmapDensoComprimeBem() {
+        BitSet denso = new BitSet();
+        denso.set(1, 1_000_000);
+        assertTrue(SegmentosUsuarios.comprimir(denso).length < 10_000);
+    }
+
+    @Test
+    void segmentoEsparsoFicaEmArrayEODensoEmBitSet() {
+        BitSet esparso = new BitSet();
+        esparso.set(3);
+        esparso.set(1_500_000);
+        esparso.set(9_000_000);
+        SegmentosUsuarios.Membros membrosEsparsos = SegmentosUsuarios.Membros.de(esparso);
+        assertTrue(membrosEsparsos.esparso());
+        assertEquals(12L, membrosEsparsos.bytes());
+
+        BitSet denso = new BitSet();
+        denso.set(1, 10_000);
+        SegmentosUsuarios.Membros membrosDensos = SegmentosUsuarios.Membros.de(denso);
+        assertFalse(membrosDensos.esparso());
+
+        // Mesma pertinência nas duas formas
+        for (int id : new int[] { 0, 1, 3, 4, 9_999, 10_000, 1_500_000, 9_000_000, 9_000_001 }) {
+            assertEquals(esparso.get(id), membrosEsparsos.contem(id));
+            assertEquals(denso.get(id), membrosDensos.contem(id));
+        }
+
+        SegmentosUsuarios segmentos = SegmentosUsuarios.carregar(1L, Map.of(
+                "ESPARSO", SegmentosUsuarios.comprimir(esparso),
+                "DENSO", SegmentosUsuarios.comprimir(denso)));
+        assertTrue(segmentos.contem("ESPARSO", 9_000_000));
+        assertFalse(segmentos.contem("ESPARSO", 8_999_999));
+        assertTrue(segmentos.contem("DENSO", 5_000));
+        assertTrue(segmentos.bytesEmMemoria() < 9_000_000 / 8);
+    }
+
+    @Test
+    void pertinenciaSemDiferenciarMaiusculas() {
+        SegmentosUsuarios segmentos = SegmentosUsuarios.carregar(1L, Map.of("Restaurantes", bitmap(7, 42)));
+        assertTrue(segmentos.contem("RESTAURANTES", 42));
+        assertTrue(segmentos.contem(" restaurantes ", 7));
+        assertFalse(segmentos.contem("RESTAURANTES", 8));
+        assertFalse(segmentos.contem("VIAGEM", 42));
+        assertFalse(segmentos.contem("RESTAURANTES", -1));
+        assertFalse(segmentos.contem("RESTAURANTES", Integer.MAX_VALUE + 1L));
+    }
+
+    @Test
+    void melhorCampanhaConsideraSegmentosDoUsuario() {
+        CalendarioCampanhas calendario = CalendarioCampanhas.compilar(1L, List.of(
+                campanha(1L, "Geral", null, 5),
+                campanha(2L, "Restaurantes", "RESTAURANTES", 1),
+                campanha(3L, "Viagem", "VIAGEM", 3)));
+        SegmentosUsuarios segmentos = SegmentosUsuarios.carregar(1L, Map.of(
+                "RESTAURANTES", bitmap(10),
+                "VIAGEM", bitmap(10, 20)));
+
+        assertEquals(2L, calendario.melhorCampanha(HOJE, 10L, segmentos).id); // dois segmentos: vence a prioridade
+        assertEquals(3L, calendario.melhorCampanha(HOJE, 20L, segmentos).id);
+        assertEquals(1L, calendario.melhorCampanha(HOJE, 30L, segmentos).id); // nenhum segmento: só a geral
+        assertEquals(1L, calendario.melhorCampanha(HOJE, null, segmentos).id);
+        assertEquals(1L, calendario.melhorCampanha(HOJE, 10L, SegmentosUsuarios.VAZIO).id);
+        assertNull(calendario.melhorCampanha(HOJE.minusYears(1), 10L, segmentos));
+    }
+
+    private static byte[] bitmap(int... ids) {
+        BitSet b = new BitSet();
+        for (int id : ids) b.set(id);
+        return SegmentosUsuarios.comprimir(b);
+    }
+
+    private static CampanhaBonus campanha(Long id, String nome, String segmento, int prioridade) {
+        CampanhaBonus c = new CampanhaBonus(nome, new BigDecimal("0.5000"), HOJE.minusDays(10), HOJE.plusDays(10),
+                segmento, prioridade, null);
+        c.id = id;
+        return c;
+    }
+}
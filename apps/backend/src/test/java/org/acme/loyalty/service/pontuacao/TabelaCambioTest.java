@@ -0,0 +1,76 @@
+package org.acme.loyalty.service.pontuacao;
+
+import org.acme.loyalty.entity.TaxaCambio;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tabela de câmbio em memória: taxa vigente por busca binária na vigência e conversão para BRL
+ * truncada em centavos.
+ */
+class TabelaCambioTest {
+
+    private static final LocalDateTime JAN = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime FEV = LocalDateTime.of(2024, 2, 1, 0, 0);
+    private static final LocalDateTime MAR = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    @Test
+    void taxaVigenteNaDataDoEvento() {
+        // Fora de ordem de propósito: a compilação ordena por vigência
+        TabelaCambio tabela = TabelaCambio.compilar(1L, new ArrayList<>(List.of(
+                taxa("USD", "5.10", MAR),
+                taxa("USD", "4.90", JAN),
+                taxa("USD", "5.00", FEV),
+                taxa("EUR", "5.50", FEV))));
+
+        assertNull(tabela.taxa("USD", "BRL", JAN.minusSeconds(1)));
+        assertEquals(new BigDecimal("4.90"), tabela.taxa("USD", "BRL", JAN));
+        assertEquals(new BigDecimal("4.90"), tabela.taxa("USD", "BRL", FEV.minusNanos(1)));
+        assertEquals(new BigDecimal("5.00"), tabela.taxa("USD", "BRL", FEV.plusDays(10)));
+        assertEquals(new BigDecimal("5.10"), tabela.taxa("USD", "BRL", MAR.plusYears(1)));
+        assertNull(tabela.taxa("EUR", "BRL", JAN));
+        assertEquals(new BigDecimal("5.50"), tabela.taxa("EUR", "BRL", MAR));
+        assertNull(tabela.taxa("GBP", "BRL", MAR));
+        assertEquals(2, tabela.tamanho());
+    }
+
+    @Test
+    void converteParaBrlTruncandoCentavos() {
+        TabelaCambio tabela = TabelaCambio.compilar(1L, new ArrayList<>(List.of(taxa("USD", "5.43219999", JAN))));
+
+        assertEquals(new BigDecimal("54.32"), tabela.paraBrl(new BigDecimal("10.00"), "USD", FEV));
+        assertEquals(new BigDecimal("54.32"), tabela.paraBrl(new BigDecimal("10.00"), "usd", FEV));
+        assertNull(tabela.paraBrl(new BigDecimal("10.00"), "USD", JAN.minusDays(1)));
+        assertNull(tabela.paraBrl(new BigDecimal("10.00"), "EUR", FEV));
+    }
+
+    @Test
+    void brlNaoPrecisaDeTaxa() {
+        BigDecimal valor = new BigDecimal("123.45");
+        assertEquals(valor, TabelaCambio.VAZIA.paraBrl(valor, "BRL", JAN));
+        assertEquals(valor, TabelaCambio.VAZIA.paraBrl(valor, null, JAN));
+    }
+
+    @Test
+    void mesmaVigenciaValeAUltima() {
+        TabelaCambio tabela = TabelaCambio.compilar(1L, new ArrayList<>(List.of(
+                taxa("USD", "4.00", JAN),
+                taxa("USD", "4.50", JAN))));
+        assertEquals(new BigDecimal("4.50"), tabela.taxa("USD", "BRL", FEV));
+    }
+
+    private static TaxaCambio taxa(String moeda, String valor, LocalDateTime vigenteDesde) {
+        TaxaCambio t = new TaxaCambio();
+        t.moedaOrigem = moeda;
+        t.taxa = new BigDecimal(valor);
+        t.vigenteDesde = vigenteDesde;
+        return t;
+    }
+}
@@ -59,3 +59,9 @@ INSERT INTO loyalty.notificacao (id, usuario_id, tipo, titulo, mensagem, canal,
 (1, 1, 'PONTOS_ACUMULADOS', 'Pontos Acumulados!', 'Você acumulou 100 pontos na sua compra', 'EMAIL', 'ENVIADA', CURRENT_TIMESTAMP, NULL, 1, 3, '{"pontos": 100, "transacao_id": 1}', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
 (2, 2, 'RESGATE_APROVADO', 'Resgate Aprovado!', 'Seu resgate de vale presente foi aprovado', 'SMS', 'ENVIADA', CURRENT_TIMESTAMP, NULL, 1, 3, '{"resgate_id": 2, "valor": 50}', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
 (3, 3, 'PONTOS_EXPIRANDO', 'Pontos Expirando!', 'Você tem 200 pontos expirando em 30 dias', 'PUSH', 'ENVIADA', CURRENT_TIMESTAMP, NULL, 1, 3, '{"pontos_expirando": 200, "dias_restantes": 30}', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+
+-- Índice único da chave natural da transação (V17; o schema de teste é gerado pelo Hibernate)
+CREATE UNIQUE INDEX IF NOT EXISTS uk_transacao_chave_natural ON loyalty.transacao(cartao_id, data_evento, (COALESCE(autorizacao, '')));
+
+-- Índice único de idempotência da pontuação (V8): um ACUMULO e um ESTORNO por transação
+CREATE UNIQUE INDEX IF NOT EXISTS uk_movimento_transacao_tipo ON loyalty.movimento_pontos(ref_transacao_id, tipo) WHERE tipo IN ('ACUMULO', 'ESTORNO') AND ref_transacao_id IS NOT NULL;